@@ -0,0 +1,149 @@
+package com.dreamvisualizer.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Runs the benchmarks with the GC profiler (allocation per operation) and compares them with the
+ * committed baseline.
+ *
+ * <p>Usage: {@code java -jar target/benchmarks.jar [include-regex] [--update-baseline]
+ * [--baseline path] [--threshold percent]}. Results are written to {@code target/jmh-results.json}.
+ * Without {@code --update-baseline}, every benchmark whose time or bytes allocated per operation
+ * grew by more than the threshold (default 10%) over the baseline is listed and the exit status is
+ * {@code 1}; with it, the run replaces the baseline file so the new numbers show up in review.</p>
+ *
+ * <p>A comparison run without a baseline file fails with exit status {@code 2} before running
+ * anything: with nothing to compare against it could only pass, which would hide every
+ * regression.</p>
+ */
+public final class BenchmarkMain {
+
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+    private static final int MISSING_BASELINE = 2;
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws IOException, RunnerException {
+        String include = ".*Benchmark.*";
+        Path baseline = Paths.get("baseline.json");
+        Path results = Paths.get("target", "jmh-results.json");
+        double threshold = 10.0;
+        boolean updateBaseline = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--update-baseline" -> updateBaseline = true;
+                case "--baseline" -> baseline = Paths.get(args[++i]);
+                case "--threshold" -> threshold = Double.parseDouble(args[++i]);
+                default -> include = args[i];
+            }
+        }
+
+        if (!updateBaseline && !Files.exists(baseline)) {
+            System.err.println("ERROR: no benchmark baseline at " + baseline.toAbsolutePath() + ".");
+            System.err.println("Nothing would be compared, so regressions could not be detected. Record one on the");
+            System.err.println("reference machine with --update-baseline and commit it.");
+            System.exit(MISSING_BASELINE);
+        }
+
+        Files.createDirectories(results.toAbsolutePath().getParent());
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(results.toString());
+        new Runner(options.build()).run();
+
+        if (updateBaseline) {
+            Files.copy(results, baseline, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Baseline updated: " + baseline.toAbsolutePath());
+            return;
+        }
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, Score> before = scores(mapper.readTree(baseline.toFile()));
+        Map<String, Score> after = scores(mapper.readTree(results.toFile()));
+        List<String> regressions = new ArrayList<>();
+        System.out.printf("%n%-70s %14s %14s %12s %12s%n", "Benchmark", "baseline", "current", "B/op before", "B/op now");
+        for (Map.Entry<String, Score> entry : after.entrySet()) {
+            Score now = entry.getValue();
+            Score was = before.get(entry.getKey());
+            if (was == null) {
+                System.out.printf("%-70s %14s %14.1f %12s %12.0f  (new)%n",
+                        entry.getKey(), "-", now.score(), "-", now.allocatedBytes());
+                continue;
+            }
+            System.out.printf("%-70s %14.1f %14.1f %12.0f %12.0f  %s%n", entry.getKey(), was.score(), now.score(),
+                    was.allocatedBytes(), now.allocatedBytes(), now.unit());
+            if (grew(was.score(), now.score(), threshold)) {
+                regressions.add(entry.getKey() + " time " + percentChange(was.score(), now.score()));
+            }
+            if (grew(was.allocatedBytes(), now.allocatedBytes(), threshold)) {
+                regressions.add(entry.getKey() + " allocation " + percentChange(was.allocatedBytes(), now.allocatedBytes()));
+            }
+        }
+        if (!regressions.isEmpty()) {
+            System.out.println();
+            System.out.println("Regressions over " + threshold + "% against " + baseline + ":");
+            regressions.forEach(line -> System.out.println("  " + line));
+            System.exit(1);
+        }
+        System.out.println();
+        System.out.println("No regressions over " + threshold + "% against " + baseline);
+    }
+
+    private static Map<String, Score> scores(JsonNode runs) {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : runs) {
+            scores.put(key(run), new Score(run.path("primaryMetric").path("score").asDouble(),
+                    run.path("primaryMetric").path("scoreUnit").asText(),
+                    run.path("secondaryMetrics").path(ALLOCATION_METRIC).path("score").asDouble(Double.NaN)));
+        }
+        return scores;
+    }
+
+    private static String key(JsonNode run) {
+        String name = run.path("benchmark").asText().replace("com.dreamvisualizer.", "");
+        JsonNode params = run.path("params");
+        if (params.isMissingNode() || params.isEmpty()) {
+            return name;
+        }
+        StringJoiner joiner = new StringJoiner(",", name + "[", "]");
+        Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> param = fields.next();
+            joiner.add(param.getKey() + "=" + param.getValue().asText());
+        }
+        return joiner.toString();
+    }
+
+    private static boolean grew(double before, double after, double thresholdPercent) {
+        return !Double.isNaN(before) && !Double.isNaN(after) && before > 0
+                && (after - before) / before * 100.0 > thresholdPercent;
+    }
+
+    private static String percentChange(double before, double after) {
+        return String.format("+%.1f%%", (after - before) / before * 100.0);
+    }
+
+    private record Score(double score, String unit, double allocatedBytes) {
+    }
+}
@@ -0,0 +1,236 @@
+package com.dreamvisualizer.benchmarks;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Shape of a {@link ServerLoadBenchmark} run: the concurrency steps, how long each lasts, the
+ * operation mix, payload sizes, and whether the simulated upstream is fast (to load the server
+ * itself) or configured from the {@code SIM_*} variables (to reproduce production latencies).
+ */
+public class LoadConfig {
+
+    private final List<Integer> concurrencySteps;
+    private final Duration stepDuration;
+    private final Duration warmup;
+    private final Map<LoadOperation, Integer> mix;
+    private final int audioBytes;
+    private final int breatheImageBytes;
+    private final int videoFileBytes;
+    private final Duration pollInterval;
+    private final Duration jobTimeout;
+    private final boolean upstreamFromEnvironment;
+    private final Path reportFile;
+
+    private LoadConfig(Builder builder) {
+        this.concurrencySteps = List.copyOf(builder.concurrencySteps);
+        this.stepDuration = builder.stepDuration;
+        this.warmup = builder.warmup;
+        this.mix = Map.copyOf(builder.mix);
+        this.audioBytes = builder.audioBytes;
+        this.breatheImageBytes = builder.breatheImageBytes;
+        this.videoFileBytes = builder.videoFileBytes;
+        this.pollInterval = builder.pollInterval;
+        this.jobTimeout = builder.jobTimeout;
+        this.upstreamFromEnvironment = builder.upstreamFromEnvironment;
+        this.reportFile = builder.reportFile;
+    }
+
+    /**
+     * Reads {@code LOAD_CONCURRENCY} (comma-separated client counts), {@code LOAD_STEP_SECONDS},
+     * {@code LOAD_WARMUP_SECONDS}, {@code LOAD_MIX} ({@code operation=weight,...}),
+     * {@code LOAD_AUDIO_BYTES}, {@code LOAD_BREATHE_BYTES}, {@code LOAD_VIDEO_FILE_BYTES},
+     * {@code LOAD_POLL_MS}, {@code LOAD_JOB_TIMEOUT_SECONDS}, {@code LOAD_UPSTREAM}
+     * ({@code fast} or {@code env}) and {@code LOAD_REPORT_FILE}.
+     */
+    public static LoadConfig fromEnvironment() {
+        Builder builder = builder();
+        env("LOAD_CONCURRENCY").map(LoadConfig::parseSteps).ifPresent(builder::concurrencySteps);
+        env("LOAD_STEP_SECONDS").map(Long::parseLong).map(Duration::ofSeconds).ifPresent(builder::stepDuration);
+        env("LOAD_WARMUP_SECONDS").map(Long::parseLong).map(Duration::ofSeconds).ifPresent(builder::warmup);
+        env("LOAD_MIX").map(LoadConfig::parseMix).ifPresent(builder::mix);
+        env("LOAD_AUDIO_BYTES").map(Integer::parseInt).ifPresent(builder::audioBytes);
+        env("LOAD_BREATHE_BYTES").map(Integer::parseInt).ifPresent(builder::breatheImageBytes);
+        env("LOAD_VIDEO_FILE_BYTES").map(Integer::parseInt).ifPresent(builder::videoFileBytes);
+        env("LOAD_POLL_MS").map(Long::parseLong).map(Duration::ofMillis).ifPresent(builder::pollInterval);
+        env("LOAD_JOB_TIMEOUT_SECONDS").map(Long::parseLong).map(Duration::ofSeconds).ifPresent(builder::jobTimeout);
+        env("LOAD_UPSTREAM").map(value -> value.trim().equalsIgnoreCase("env")).ifPresent(builder::upstreamFromEnvironment);
+        env("LOAD_REPORT_FILE").map(Path::of).ifPresent(builder::reportFile);
+        return builder.build();
+    }
+
+    private static Optional<String> env(String name) {
+        return Optional.ofNullable(System.getenv(name)).filter(value -> !value.isBlank());
+    }
+
+    private static List<Integer> parseSteps(String spec) {
+        List<Integer> steps = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            steps.add(Integer.parseInt(part.trim()));
+        }
+        return steps;
+    }
+
+    private static Map<LoadOperation, Integer> parseMix(String spec) {
+        Map<LoadOperation, Integer> mix = new EnumMap<>(LoadOperation.class);
+        for (String part : spec.split(",")) {
+            String[] entry = part.split("=");
+            mix.put(LoadOperation.fromWireName(entry[0]), entry.length > 1 ? Integer.parseInt(entry[1].trim()) : 1);
+        }
+        return mix;
+    }
+
+    public List<Integer> concurrencySteps() {
+        return concurrencySteps;
+    }
+
+    public Duration stepDuration() {
+        return stepDuration;
+    }
+
+    /**
+     * Unmeasured load at the first step before any numbers are kept, so JIT compilation and
+     * connection set-up do not land in the first row.
+     */
+    public Duration warmup() {
+        return warmup;
+    }
+
+    /**
+     * Relative weight of each operation; operations left out are never sent.
+     */
+    public Map<LoadOperation, Integer> mix() {
+        return mix;
+    }
+
+    public int audioBytes() {
+        return audioBytes;
+    }
+
+    public int breatheImageBytes() {
+        return breatheImageBytes;
+    }
+
+    public int videoFileBytes() {
+        return videoFileBytes;
+    }
+
+    public Duration pollInterval() {
+        return pollInterval;
+    }
+
+    /**
+     * How long a dream may take before the client gives up on it and counts it as timed out.
+     */
+    public Duration jobTimeout() {
+        return jobTimeout;
+    }
+
+    public boolean upstreamFromEnvironment() {
+        return upstreamFromEnvironment;
+    }
+
+    public Optional<Path> reportFile() {
+        return Optional.ofNullable(reportFile);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private List<Integer> concurrencySteps = List.of(1, 4, 16, 64);
+        private Duration stepDuration = Duration.ofSeconds(30);
+        private Duration warmup = Duration.ofSeconds(10);
+        private Map<LoadOperation, Integer> mix = Map.of(
+                LoadOperation.DREAM, 3,
+                LoadOperation.DREAM_BREATHE, 1,
+                LoadOperation.DREAM_TRANSCRIPT, 2,
+                LoadOperation.VIDEO, 1,
+                LoadOperation.VIDEO_FILE, 6);
+        private int audioBytes = 256 * 1024;
+        private int breatheImageBytes = 128 * 1024;
+        private int videoFileBytes = 4 * 1024 * 1024;
+        private Duration pollInterval = Duration.ofMillis(250);
+        private Duration jobTimeout = Duration.ofMinutes(5);
+        private boolean upstreamFromEnvironment;
+        private Path reportFile;
+
+        public Builder concurrencySteps(List<Integer> concurrencySteps) {
+            this.concurrencySteps = concurrencySteps;
+            return this;
+        }
+
+        public Builder stepDuration(Duration stepDuration) {
+            this.stepDuration = stepDuration;
+            return this;
+        }
+
+        public Builder warmup(Duration warmup) {
+            this.warmup = warmup;
+            return this;
+        }
+
+        public Builder mix(Map<LoadOperation, Integer> mix) {
+            this.mix = mix;
+            return this;
+        }
+
+        public Builder audioBytes(int audioBytes) {
+            this.audioBytes = audioBytes;
+            return this;
+        }
+
+        public Builder breatheImageBytes(int breatheImageBytes) {
+            this.breatheImageBytes = breatheImageBytes;
+            return this;
+        }
+
+        public Builder videoFileBytes(int videoFileBytes) {
+            this.videoFileBytes = videoFileBytes;
+            return this;
+        }
+
+        public Builder pollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+            return this;
+        }
+
+        public Builder jobTimeout(Duration jobTimeout) {
+            this.jobTimeout = jobTimeout;
+            return this;
+        }
+
+        public Builder upstreamFromEnvironment(boolean upstreamFromEnvironment) {
+            this.upstreamFromEnvironment = upstreamFromEnvironment;
+            return this;
+        }
+
+        public Builder reportFile(Path reportFile) {
+            this.reportFile = reportFile;
+            return this;
+        }
+
+        public LoadConfig build() {
+            if (concurrencySteps.isEmpty() || concurrencySteps.stream().anyMatch(step -> step <= 0)) {
+                throw new IllegalStateException("Concurrency steps must be positive");
+            }
+            if (mix.isEmpty() || mix.values().stream().anyMatch(weight -> weight < 0)
+                    || mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+                throw new IllegalStateException("Operation mix needs at least one positive weight");
+            }
+            if (stepDuration.isNegative() || stepDuration.isZero() || warmup.isNegative()) {
+                throw new IllegalStateException("Step duration must be positive and warm-up not negative");
+            }
+            if (audioBytes <= 0 || breatheImageBytes <= 0 || videoFileBytes <= 0) {
+                throw new IllegalStateException("Payload sizes must be positive");
+            }
+            return new LoadConfig(this);
+        }
+    }
+}
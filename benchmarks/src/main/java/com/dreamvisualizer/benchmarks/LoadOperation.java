@@ -0,0 +1,31 @@
+package com.dreamvisualizer.benchmarks;
+
+import java.util.Locale;
+
+/**
+ * Client calls the load benchmark mixes, named as in {@code LOAD_MIX}.
+ */
+public enum LoadOperation {
+    /** {@code POST /dreams} with audio only, then polling {@code GET /dreams/{id}} to a terminal stage. */
+    DREAM,
+    /** As {@link #DREAM}, with a {@code breathe_image} chart attached. */
+    DREAM_BREATHE,
+    /** As {@link #DREAM}, with a {@code transcript_override} so transcription is skipped. */
+    DREAM_TRANSCRIPT,
+    /** {@code POST /videos} with an engineered prompt, answered once the render is downloaded. */
+    VIDEO,
+    /** {@code GET /videos/{filename}} of a pre-generated file. */
+    VIDEO_FILE;
+
+    public String wireName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public boolean isDream() {
+        return this == DREAM || this == DREAM_BREATHE || this == DREAM_TRANSCRIPT;
+    }
+
+    public static LoadOperation fromWireName(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+}
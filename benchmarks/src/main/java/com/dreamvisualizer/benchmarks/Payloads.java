@@ -0,0 +1,26 @@
+package com.dreamvisualizer.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Recorded-shape upstream payloads bundled under {@code payloads/} on the benchmark classpath.
+ */
+public final class Payloads {
+
+    private Payloads() {
+    }
+
+    public static byte[] load(String name) {
+        String resource = "/payloads/" + name + ".json";
+        try (InputStream in = Payloads.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No benchmark payload " + resource);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read benchmark payload " + resource, e);
+        }
+    }
+}
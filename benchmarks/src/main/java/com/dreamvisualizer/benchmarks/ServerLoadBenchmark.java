@@ -0,0 +1,491 @@
+package com.dreamvisualizer.benchmarks;
+
+import com.dreamvisualizer.config.OpenAIConfig;
+import com.dreamvisualizer.server.DreamVisualizerServer;
+import com.dreamvisualizer.simulator.LatencyDistribution;
+import com.dreamvisualizer.simulator.OpenAISimulator;
+import com.dreamvisualizer.simulator.SimulatorConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.management.UnixOperatingSystemMXBean;
+import io.javalin.Javalin;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end load test: starts an {@link OpenAISimulator} and a {@link DreamVisualizerServer}
+ * pointed at it in this JVM, then drives the server with a closed-loop client population that
+ * grows step by step ({@link LoadConfig#concurrencySteps()}), each client sending the configured
+ * {@link LoadOperation} mix back to back.
+ *
+ * <p>Every step reports throughput, p50/p99/p999 latency per operation and the outcomes seen,
+ * plus the peak thread count, heap in use and open file descriptors sampled during the step.
+ * Dreams are timed from submission to a terminal stage on {@code GET /dreams/{id}}; their
+ * {@code 202} answer is reported separately as {@code <operation> accept}.</p>
+ *
+ * <p>The simulator and the load clients share the server's JVM, so the heap, open-file and total
+ * thread figures include their load as well: each client connection costs a descriptor on both
+ * ends, and the simulator's pool grows with the upstream concurrency. Only the server thread
+ * count, which counts threads by the server's name prefixes ({@link #SERVER_THREAD_PREFIXES}),
+ * is the server's own. Treat the rest as upper bounds. The idle figures printed before the first
+ * step are the floor to compare against.</p>
+ *
+ * <p>Audio, charts and transcript overrides are made unique per request, so the transcript and
+ * prompt caches and request coalescing do not turn the run into a cache benchmark.</p>
+ */
+public final class ServerLoadBenchmark {
+
+    private static final int SEEDED_VIDEO_FILES = 4;
+    /**
+     * Name prefixes of the threads the server starts: its Jetty pool, the OkHttp client and its
+     * own executors. Simulator and load-client threads carry other names.
+     */
+    static final List<String> SERVER_THREAD_PREFIXES = List.of("JettyServerThreadPool", "OkHttp", "dream-",
+            "stage-", "pipeline-io-", "openai-", "speech-chunk-io-", "sora-poller-", "cache-sweep");
+    private static final String TRANSCRIPT =
+            "I was walking through my grandmother's house but the rooms kept changing, the floor slowly filled "
+                    + "with still water and somewhere upstairs a window was open to an orchard at night";
+    private static final String VIDEO_PROMPT = """
+            {"prompt":{"sora_prompt":"A hazy, drifting dream of a house whose rooms keep rearranging themselves %d",
+            "narrative_beats":["Wandering a shifting house","Rooms flood with still water"],
+            "visual_keywords":["shifting rooms","still water","moonlit orchard"],
+            "emotional_tone":"wistful","color_palette":"muted teal, dusty amber",
+            "negative_prompts":["text overlays"],"camera_style":"slow floating dolly",
+            "motion_style":"languid drifting"},"options":{"duration_seconds":5,"aspect_ratio":"16:9"}}""";
+
+    private final LoadConfig config;
+    private final URI serverUrl;
+    private final List<String> videoFiles;
+    private final HttpClient httpClient;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final byte[] audio;
+    private final byte[] breatheImage;
+    private final String boundary = "dream-load-" + Long.toHexString(System.nanoTime());
+    private final AtomicLong sequence = new AtomicLong();
+    private final LoadOperation[] weighted;
+
+    ServerLoadBenchmark(LoadConfig config, URI serverUrl, List<String> videoFiles) {
+        this.config = config;
+        this.serverUrl = serverUrl;
+        this.videoFiles = List.copyOf(videoFiles);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newCachedThreadPool(daemonThreads("load-http")))
+                .build();
+        Random random = new Random(42);
+        this.audio = new byte[config.audioBytes()];
+        random.nextBytes(audio);
+        this.breatheImage = new byte[config.breatheImageBytes()];
+        random.nextBytes(breatheImage);
+        List<LoadOperation> operations = new ArrayList<>();
+        config.mix().forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                operations.add(operation);
+            }
+        });
+        this.weighted = operations.toArray(LoadOperation[]::new);
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadConfig config = LoadConfig.fromEnvironment();
+        SimulatorConfig upstream = config.upstreamFromEnvironment() ? SimulatorConfig.fromEnvironment() : fastUpstream();
+        Path videoDir = Files.createTempDirectory("dream-load-videos");
+        List<String> files = seedVideoFiles(videoDir, config.videoFileBytes());
+
+        try (OpenAISimulator simulator = new OpenAISimulator(upstream).start()) {
+            OpenAIConfig openAIConfig = new OpenAIConfig.Builder()
+                    .apiKey("sk-load-test")
+                    .baseUrl(simulator.baseUrl())
+                    .build();
+            Javalin server = DreamVisualizerServer.start(openAIConfig, videoDir, 0);
+            try {
+                ServerLoadBenchmark benchmark =
+                        new ServerLoadBenchmark(config, URI.create("http://localhost:" + server.port()), files);
+                Resources idle = Resources.sample();
+                System.out.printf("Idle: %d threads (%d server), %d MB heap, %s open files%n",
+                        idle.threads(), idle.serverThreads(), idle.heapBytes() / (1024 * 1024), idle.openFilesLabel());
+                List<StepResult> results = benchmark.run();
+                print(results);
+                if (config.reportFile().isPresent()) {
+                    writeReport(config.reportFile().get(), idle, results);
+                }
+            } finally {
+                server.stop();
+            }
+        }
+        // Pipeline executors are not owned by the embedded server and would keep the JVM alive
+        System.exit(0);
+    }
+
+    /**
+     * Upstream answering in tens to hundreds of milliseconds with renders of a few seconds, so the
+     * server rather than the simulated OpenAI latency is what saturates.
+     */
+    static SimulatorConfig fastUpstream() {
+        return SimulatorConfig.builder()
+                .port(0)
+                .seed(42)
+                .transcriptionLatency(new LatencyDistribution(Duration.ofMillis(80), Duration.ofMillis(400)))
+                .transcriptionPerMegabyte(Duration.ofMillis(40))
+                .responsesLatency(new LatencyDistribution(Duration.ofMillis(150), Duration.ofMillis(800)))
+                .videosLatency(new LatencyDistribution(Duration.ofMillis(20), Duration.ofMillis(120)))
+                .contentLatency(new LatencyDistribution(Duration.ofMillis(10), Duration.ofMillis(80)))
+                .renderTime(Duration.ofSeconds(2), Duration.ofSeconds(6))
+                .videoBytes(256L * 1024, 1024L * 1024)
+                .build();
+    }
+
+    private static List<String> seedVideoFiles(Path videoDir, int bytes) throws IOException {
+        Random random = new Random(7);
+        byte[] content = new byte[bytes];
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < SEEDED_VIDEO_FILES; i++) {
+            random.nextBytes(content);
+            String name = "load-seed-" + i + ".mp4";
+            Files.write(videoDir.resolve(name), content);
+            names.add(name);
+        }
+        return names;
+    }
+
+    /**
+     * Runs the warm-up, then every concurrency step in order.
+     */
+    List<StepResult> run() throws InterruptedException {
+        if (!config.warmup().isZero()) {
+            System.out.printf("Warming up with %d clients for %d s%n",
+                    config.concurrencySteps().get(0), config.warmup().toSeconds());
+            runStep(config.concurrencySteps().get(0), config.warmup());
+        }
+        List<StepResult> results = new ArrayList<>();
+        for (int concurrency : config.concurrencySteps()) {
+            System.out.printf("Running %d clients for %d s%n", concurrency, config.stepDuration().toSeconds());
+            results.add(runStep(concurrency, config.stepDuration()));
+        }
+        return results;
+    }
+
+    private StepResult runStep(int concurrency, Duration duration) throws InterruptedException {
+        Map<String, OperationStats> operations = new ConcurrentHashMap<>();
+        ResourcePeaks peaks = new ResourcePeaks();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(daemonThreads("load-sampler"));
+        sampler.scheduleAtFixedRate(peaks::sample, 0, 500, TimeUnit.MILLISECONDS);
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency, daemonThreads("load-client"));
+
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        for (int i = 0; i < concurrency; i++) {
+            clients.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    LoadOperation operation = weighted[ThreadLocalRandom.current().nextInt(weighted.length)];
+                    send(operation, operations);
+                }
+            });
+        }
+        clients.shutdown();
+        // Dreams in flight at the deadline are allowed to finish, up to the job timeout
+        clients.awaitTermination(duration.plus(config.jobTimeout()).toMillis(), TimeUnit.MILLISECONDS);
+        clients.shutdownNow();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        sampler.shutdownNow();
+        peaks.sample();
+        return new StepResult(concurrency, elapsed, new TreeMap<>(operations), peaks.snapshot());
+    }
+
+    private void send(LoadOperation operation, Map<String, OperationStats> operations) {
+        OperationStats stats = operations.computeIfAbsent(operation.wireName(), name -> new OperationStats());
+        long started = System.nanoTime();
+        String outcome;
+        try {
+            outcome = switch (operation) {
+                case DREAM, DREAM_BREATHE, DREAM_TRANSCRIPT -> dream(operation, started, operations);
+                case VIDEO -> video();
+                case VIDEO_FILE -> videoFile();
+            };
+        } catch (IOException e) {
+            outcome = "io_error";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        stats.record(outcome, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private String dream(LoadOperation operation, long started, Map<String, OperationStats> operations)
+            throws IOException, InterruptedException {
+        long id = sequence.incrementAndGet();
+        List<HttpRequest.BodyPublisher> parts = new ArrayList<>();
+        parts.add(text("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"language\"\r\n\r\nen\r\n"));
+        parts.add(filePart("audio", "dream-" + id + ".webm", "audio/webm", id, audio));
+        if (operation == LoadOperation.DREAM_BREATHE) {
+            parts.add(filePart("breathe_image", "breathe-" + id + ".png", "image/png", id, breatheImage));
+        }
+        if (operation == LoadOperation.DREAM_TRANSCRIPT) {
+            parts.add(text("--" + boundary + "\r\n"
+                    + "Content-Disposition: form-data; name=\"transcript_override\"\r\n\r\n"
+                    + TRANSCRIPT + " (" + id + ")\r\n"));
+        }
+        parts.add(text("--" + boundary + "--\r\n"));
+
+        HttpResponse<byte[]> submitted = httpClient.send(HttpRequest.newBuilder(serverUrl.resolve("/dreams"))
+                        .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                        .POST(HttpRequest.BodyPublishers.concat(parts.toArray(HttpRequest.BodyPublisher[]::new)))
+                        .build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        operations.computeIfAbsent(operation.wireName() + " accept", name -> new OperationStats())
+                .record(String.valueOf(submitted.statusCode()), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        if (submitted.statusCode() != 202) {
+            return String.valueOf(submitted.statusCode());
+        }
+
+        URI statusUrl = serverUrl.resolve(mapper.readTree(submitted.body()).path("status_url").asText());
+        long giveUp = started + config.jobTimeout().toNanos();
+        while (System.nanoTime() < giveUp) {
+            Thread.sleep(config.pollInterval().toMillis());
+            HttpResponse<byte[]> status = httpClient.send(HttpRequest.newBuilder(statusUrl).GET().build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            if (status.statusCode() != 200) {
+                return "poll_" + status.statusCode();
+            }
+            String stage = mapper.readTree(status.body()).path("stage").asText();
+            if ("completed".equals(stage) || "failed".equals(stage)) {
+                return stage;
+            }
+        }
+        return "timeout";
+    }
+
+    private String video() throws IOException, InterruptedException {
+        HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(serverUrl.resolve("/videos"))
+                        .header("Content-Type", "application/json")
+                        .timeout(config.jobTimeout())
+                        .POST(HttpRequest.BodyPublishers.ofString(VIDEO_PROMPT.formatted(sequence.incrementAndGet())))
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+        return String.valueOf(response.statusCode());
+    }
+
+    private String videoFile() throws IOException, InterruptedException {
+        String name = videoFiles.get(ThreadLocalRandom.current().nextInt(videoFiles.size()));
+        HttpResponse<Void> response = httpClient.send(
+                HttpRequest.newBuilder(serverUrl.resolve("/videos/" + name)).GET().build(),
+                HttpResponse.BodyHandlers.discarding());
+        return String.valueOf(response.statusCode());
+    }
+
+    private HttpRequest.BodyPublisher filePart(String field, String filename, String contentType, long id, byte[] content) {
+        // A per-request prefix makes every upload hash differently while sharing the payload bytes
+        ByteBuffer unique = ByteBuffer.allocate(Long.BYTES).putLong(id);
+        return HttpRequest.BodyPublishers.concat(
+                text("--" + boundary + "\r\n"
+                        + "Content-Disposition: form-data; name=\"" + field + "\"; filename=\"" + filename + "\"\r\n"
+                        + "Content-Type: " + contentType + "\r\n\r\n"),
+                HttpRequest.BodyPublishers.ofByteArray(unique.array()),
+                HttpRequest.BodyPublishers.ofByteArray(content),
+                text("\r\n"));
+    }
+
+    private static HttpRequest.BodyPublisher text(String value) {
+        return HttpRequest.BodyPublishers.ofByteArray(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0L;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static void print(List<StepResult> results) {
+        System.out.println();
+        System.out.printf("%7s %-24s %8s %9s %8s %8s %8s  %-28s %8s %8s %9s %6s%n", "clients", "operation", "calls",
+                "ok/s", "p50 ms", "p99 ms", "p999 ms", "outcomes", "threads", "server", "heap MB", "fds");
+        for (StepResult step : results) {
+            boolean first = true;
+            for (Map.Entry<String, OperationStats> entry : step.operations().entrySet()) {
+                OperationStats stats = entry.getValue();
+                long[] ok = stats.successfulMillis();
+                Resources peak = step.peak();
+                System.out.printf("%7s %-24s %8d %9.2f %8d %8d %8d  %-28s %8s %8s %9s %6s%n",
+                        first ? String.valueOf(step.concurrency()) : "", entry.getKey(), stats.calls(),
+                        step.perSecond(ok.length), percentile(ok, 0.50), percentile(ok, 0.99), percentile(ok, 0.999),
+                        stats.outcomes(),
+                        first ? String.valueOf(peak.threads()) : "",
+                        first ? String.valueOf(peak.serverThreads()) : "",
+                        first ? String.valueOf(peak.heapBytes() / (1024 * 1024)) : "",
+                        first ? peak.openFilesLabel() : "");
+                first = false;
+            }
+        }
+    }
+
+    private static void writeReport(Path file, Resources idle, List<StepResult> results) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode root = mapper.createObjectNode();
+        mapResources(root.putObject("idle"), idle);
+        ArrayNode steps = root.putArray("steps");
+        for (StepResult step : results) {
+            ObjectNode stepNode = steps.addObject();
+            stepNode.put("concurrency", step.concurrency());
+            stepNode.put("elapsed_ms", step.elapsed().toMillis());
+            mapResources(stepNode.putObject("peak"), step.peak());
+            ObjectNode operationsNode = stepNode.putObject("operations");
+            step.operations().forEach((name, stats) -> {
+                long[] ok = stats.successfulMillis();
+                ObjectNode node = operationsNode.putObject(name);
+                node.put("calls", stats.calls());
+                node.put("ok_per_second", step.perSecond(ok.length));
+                node.put("p50_ms", percentile(ok, 0.50));
+                node.put("p99_ms", percentile(ok, 0.99));
+                node.put("p999_ms", percentile(ok, 0.999));
+                ObjectNode outcomes = node.putObject("outcomes");
+                stats.outcomes().forEach(outcomes::put);
+            });
+        }
+        mapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), root);
+        System.out.println("Report written to " + file.toAbsolutePath());
+    }
+
+    private static void mapResources(ObjectNode node, Resources resources) {
+        node.put("threads", resources.threads());
+        node.put("server_threads", resources.serverThreads());
+        node.put("heap_bytes", resources.heapBytes());
+        node.put("open_files", resources.openFiles());
+    }
+
+    /**
+     * Latencies and outcomes of one operation during one step. Latencies of successful calls
+     * ({@code 2xx}, or {@code completed} for dreams) feed the percentiles; a {@code failed} dream
+     * or a {@code 429} is counted but not timed, since it answers faster than real work.
+     */
+    static final class OperationStats {
+        private final List<Long> successful = new ArrayList<>();
+        private final Map<String, Integer> outcomes = new TreeMap<>();
+        private int calls;
+
+        synchronized void record(String outcome, long millis) {
+            calls++;
+            outcomes.merge(outcome, 1, Integer::sum);
+            if ("completed".equals(outcome) || outcome.startsWith("2")) {
+                successful.add(millis);
+            }
+        }
+
+        synchronized int calls() {
+            return calls;
+        }
+
+        synchronized Map<String, Integer> outcomes() {
+            return new TreeMap<>(outcomes);
+        }
+
+        synchronized long[] successfulMillis() {
+            return successful.stream().mapToLong(Long::longValue).sorted().toArray();
+        }
+    }
+
+    /**
+     * JVM-wide thread count, the server's share of it, heap in use and open file descriptors
+     * ({@code -1} where the platform does not report them). Everything but {@code serverThreads}
+     * includes the simulator and the load clients.
+     */
+    record Resources(int threads, int serverThreads, long heapBytes, long openFiles) {
+
+        static Resources sample() {
+            OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+            long openFiles = os instanceof UnixOperatingSystemMXBean unix
+                    ? unix.getOpenFileDescriptorCount()
+                    : -1L;
+            return new Resources(ManagementFactory.getThreadMXBean().getThreadCount(), serverThreadCount(),
+                    ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(), openFiles);
+        }
+
+        static int serverThreadCount() {
+            ThreadGroup root = Thread.currentThread().getThreadGroup();
+            while (root.getParent() != null) {
+                root = root.getParent();
+            }
+            Thread[] threads = new Thread[root.activeCount() + 64];
+            int live = root.enumerate(threads, true);
+            int server = 0;
+            for (int i = 0; i < live; i++) {
+                String name = threads[i].getName();
+                if (SERVER_THREAD_PREFIXES.stream().anyMatch(name::startsWith)) {
+                    server++;
+                }
+            }
+            return server;
+        }
+
+        String openFilesLabel() {
+            return openFiles < 0 ? "n/a" : String.valueOf(openFiles);
+        }
+    }
+
+    private static final class ResourcePeaks {
+        private int threads;
+        private int serverThreads;
+        private long heapBytes;
+        private long openFiles = -1L;
+
+        synchronized void sample() {
+            Resources now = Resources.sample();
+            threads = Math.max(threads, now.threads());
+            serverThreads = Math.max(serverThreads, now.serverThreads());
+            heapBytes = Math.max(heapBytes, now.heapBytes());
+            openFiles = Math.max(openFiles, now.openFiles());
+        }
+
+        synchronized Resources snapshot() {
+            return new Resources(threads, serverThreads, heapBytes, openFiles);
+        }
+    }
+
+    /**
+     * One concurrency step: per-operation statistics and the resource peaks sampled during it.
+     */
+    record StepResult(int concurrency, Duration elapsed, Map<String, OperationStats> operations, Resources peak) {
+
+        double perSecond(long count) {
+            return elapsed.isZero() ? 0.0 : count * 1000.0 / elapsed.toMillis();
+        }
+    }
+}
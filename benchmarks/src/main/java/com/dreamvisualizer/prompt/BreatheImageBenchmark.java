@@ -0,0 +1,46 @@
+package com.dreamvisualizer.prompt;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fingerprinting and base64 data-URL encoding of breathe charts, from a small sparkline export
+ * to a full-resolution screenshot. Random bytes stand in for PNG data, which is already
+ * compressed and so just as incompressible.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BreatheImageBenchmark {
+
+    @Param({"16384", "262144", "2097152"})
+    public int bytes;
+
+    private byte[] image;
+
+    @Setup
+    public void setUp() {
+        image = new byte[bytes];
+        new Random(42).nextBytes(image);
+    }
+
+    @Benchmark
+    public BreatheImage encode() {
+        return BreatheImage.of(image);
+    }
+}
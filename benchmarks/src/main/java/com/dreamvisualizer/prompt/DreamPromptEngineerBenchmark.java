@@ -0,0 +1,77 @@
+package com.dreamvisualizer.prompt;
+
+import com.dreamvisualizer.benchmarks.Payloads;
+import com.dreamvisualizer.config.OpenAIConfig;
+import com.dreamvisualizer.http.OpenAIClient;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a Responses API body down to the engineered prompt: streaming out the
+ * {@code output_text} block, parsing it, and mapping the structured fields.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DreamPromptEngineerBenchmark {
+
+    private DreamPromptEngineer engineer;
+    private ObjectMapper mapper;
+    private byte[] responseBody;
+    private String outputText;
+    private JsonNode structured;
+
+    @Setup
+    public void setUp() throws IOException {
+        OpenAIConfig config = new OpenAIConfig.Builder()
+                .apiKey("sk-benchmark")
+                .baseUrl("http://localhost:1/v1")
+                .build();
+        OpenAIClient client = new OpenAIClient(config);
+        engineer = new DreamPromptEngineer(config, client, PromptCache.disabled());
+        mapper = client.mapper();
+        responseBody = Payloads.load("responses-output");
+        outputText = readOutputText();
+        structured = mapper.readTree(outputText);
+    }
+
+    @Benchmark
+    public String readOutputText() throws IOException {
+        try (JsonParser parser = mapper.createParser(new ByteArrayInputStream(responseBody))) {
+            return DreamPromptEngineer.readOutputText(parser);
+        }
+    }
+
+    @Benchmark
+    public DreamPromptResult parseResponse() {
+        return engineer.parseResponse(outputText);
+    }
+
+    @Benchmark
+    public DreamPromptResult mapToResult() {
+        return engineer.mapToResult(structured);
+    }
+
+    @Benchmark
+    public DreamPromptResult responseToResult() throws IOException {
+        return engineer.parseResponse(readOutputText());
+    }
+}
@@ -0,0 +1,96 @@
+package com.dreamvisualizer.server;
+
+import com.dreamvisualizer.orchestrator.DreamVisualizationOutcome;
+import com.dreamvisualizer.prompt.DreamPromptResult;
+import com.dreamvisualizer.speech.SpeechTranscript;
+import com.dreamvisualizer.video.SoraVideoJob;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response mapping for {@code POST /dreams} and prompt parsing for {@code POST /videos}.
+ * {@code segments} is the number of transcript utterances, which dominates the response size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DreamVisualizerServerBenchmark {
+
+    private static final String SENTENCE =
+            "I was walking through my grandmother's house but the rooms kept changing and the floor was water";
+
+    @Param({"4", "64"})
+    public int segments;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private DreamVisualizationOutcome outcome;
+    private JsonNode promptNode;
+    private final Duration elapsed = Duration.ofMillis(48_250);
+
+    @Setup
+    public void setUp() {
+        List<SpeechTranscript.Utterance> utterances = new ArrayList<>(segments);
+        StringBuilder fullText = new StringBuilder();
+        for (int i = 0; i < segments; i++) {
+            utterances.add(new SpeechTranscript.Utterance(i * 6.5, i * 6.5 + 6.2, SENTENCE));
+            fullText.append(SENTENCE).append(". ");
+        }
+        SpeechTranscript transcript = new SpeechTranscript(fullText.toString().trim(), utterances,
+                Instant.parse("2025-10-16T21:14:25Z"));
+        DreamPromptResult prompt = new DreamPromptResult(
+                "A hazy, drifting dream: a house whose rooms keep rearranging themselves, shallow water spreading "
+                        + "across wooden floors, an elderly woman waiting at a rain-streaked window.",
+                List.of("Wandering a shifting house", "Rooms flood with still water", "Grandmother waits at the window",
+                        "Stairs lead down into an orchard", "Light falls like snow as the dreamer wakes"),
+                List.of("shifting rooms", "still water", "rain-streaked window", "snow-like light", "moonlit orchard"),
+                "wistful, tender, faintly uneasy",
+                "muted teal, dusty amber, moonlit silver",
+                List.of("text overlays", "harsh daylight", "crisp focus"),
+                "slow floating dolly with soft rack focus",
+                "languid, weightless drifting");
+        SoraVideoJob videoJob = new SoraVideoJob("video_68d2fa31b7dc8190a4c0", "completed",
+                Instant.parse("2025-10-16T21:14:30Z"), Optional.of("/videos/video_68d2fa31b7dc8190a4c0.mp4"));
+        outcome = new DreamVisualizationOutcome(transcript, prompt, videoJob);
+
+        ObjectNode prompted = mapper.createObjectNode();
+        DreamVisualizerServer.mapPrompt(prompted, prompt);
+        promptNode = prompted;
+    }
+
+    @Benchmark
+    public ObjectNode mapOutcome() {
+        return DreamVisualizerServer.mapOutcome(mapper, outcome, elapsed);
+    }
+
+    @Benchmark
+    public String mapOutcomeSerialised() throws Exception {
+        return mapper.writeValueAsString(DreamVisualizerServer.mapOutcome(mapper, outcome, elapsed));
+    }
+
+    @Benchmark
+    public DreamPromptResult parsePromptNode() {
+        return DreamVisualizerServer.parsePromptNode(mapper, promptNode);
+    }
+}
@@ -0,0 +1,104 @@
+package com.dreamvisualizer.video;
+
+import com.dreamvisualizer.benchmarks.Payloads;
+import com.dreamvisualizer.config.OpenAIConfig;
+import com.dreamvisualizer.http.OpenAIClient;
+import com.dreamvisualizer.prompt.DreamPromptResult;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prompt assembly and output-descriptor walking on completed Sora payloads. {@code minimal} has the
+ * URL and format at the top of the descriptor; {@code nested} hides the URL three levels down and
+ * only names a content type; {@code large} carries a long prompt echo, moderation scores and
+ * annotation items, with the URL and a mime type at the end of the search order.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SoraVideoServiceBenchmark {
+
+    @Param({"sora-minimal", "sora-nested", "sora-large"})
+    public String payload;
+
+    private SoraVideoService service;
+    private JsonNode descriptor;
+    private DreamPromptResult prompt;
+    private VideoGenerationOptions options;
+    private VideoGenerationOptions bareOptions;
+
+    @Setup
+    public void setUp() throws IOException {
+        OpenAIConfig config = new OpenAIConfig.Builder()
+                .apiKey("sk-benchmark")
+                .baseUrl("http://localhost:1/v1")
+                .build();
+        OpenAIClient client = new OpenAIClient(config);
+        service = new SoraVideoService(config, client, Files.createTempDirectory("sora-benchmark"),
+                new SoraVideoPoller(client, 1, Duration.ofMinutes(1)));
+        descriptor = videoDescriptor(client.mapper().readTree(Payloads.load(payload)));
+        prompt = new DreamPromptResult(
+                "A hazy, drifting dream: a house whose rooms keep rearranging themselves, shallow water spreading "
+                        + "across wooden floors, an elderly woman waiting at a rain-streaked window while pale light "
+                        + "falls slowly like snow.",
+                List.of("Wandering a shifting house", "Rooms flood with still water", "Grandmother waits at the window",
+                        "Stairs lead down into an orchard", "Light falls like snow as the dreamer wakes"),
+                List.of("shifting rooms", "still water", "rain-streaked window", "snow-like light", "moonlit orchard"),
+                "wistful, tender, faintly uneasy",
+                "muted teal, dusty amber, moonlit silver",
+                List.of("text overlays", "harsh daylight", "crisp focus", "modern devices"),
+                "slow floating dolly with soft rack focus",
+                "languid, weightless drifting");
+        options = VideoGenerationOptions.builder().durationSeconds(8).aspectRatio("16:9").seed(42).build();
+        bareOptions = VideoGenerationOptions.builder().build();
+    }
+
+    private static JsonNode videoDescriptor(JsonNode state) {
+        JsonNode output = state.path("output");
+        if (!output.isArray()) {
+            return output;
+        }
+        for (JsonNode item : output) {
+            if ("video".equals(item.path("type").asText())) {
+                return item;
+            }
+        }
+        throw new IllegalStateException("Payload has no video output item");
+    }
+
+    @Benchmark
+    public String buildVideoPrompt() {
+        return service.buildVideoPrompt(prompt, options);
+    }
+
+    @Benchmark
+    public Optional<String> extractDownloadUrl() {
+        return service.extractDownloadUrl(descriptor);
+    }
+
+    @Benchmark
+    public String determineExtension() {
+        // No requested format, so the descriptor's own fields decide
+        return service.determineExtension(descriptor, bareOptions);
+    }
+}
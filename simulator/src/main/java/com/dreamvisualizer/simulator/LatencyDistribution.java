@@ -0,0 +1,42 @@
+package com.dreamvisualizer.simulator;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * Log-normal latency described by its median and 99th percentile, the two numbers upstream
+ * dashboards report. A p99 equal to the median gives a fixed latency.
+ */
+public record LatencyDistribution(Duration median, Duration p99) {
+
+    private static final double Z_99 = 2.326;
+
+    public LatencyDistribution {
+        if (median.isNegative() || p99.compareTo(median) < 0) {
+            throw new IllegalArgumentException("Latency must satisfy 0 <= median <= p99");
+        }
+    }
+
+    public static LatencyDistribution fixed(Duration latency) {
+        return new LatencyDistribution(latency, latency);
+    }
+
+    /**
+     * Parses {@code median:p99} in milliseconds, e.g. {@code 800:4000}; a single value is fixed.
+     */
+    public static LatencyDistribution parse(String spec) {
+        String[] parts = spec.split(":");
+        Duration median = Duration.ofMillis(Long.parseLong(parts[0].trim()));
+        Duration p99 = parts.length > 1 ? Duration.ofMillis(Long.parseLong(parts[1].trim())) : median;
+        return new LatencyDistribution(median, p99);
+    }
+
+    public Duration sample(Random random) {
+        long medianMillis = median.toMillis();
+        if (medianMillis == 0 || p99.equals(median)) {
+            return median;
+        }
+        double sigma = Math.log((double) p99.toMillis() / medianMillis) / Z_99;
+        return Duration.ofMillis(Math.round(medianMillis * Math.exp(sigma * random.nextGaussian())));
+    }
+}
@@ -0,0 +1,473 @@
+package com.dreamvisualizer.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import io.javalin.http.UploadedFile;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Local stand-in for the OpenAI endpoints the pipeline calls: {@code audio/transcriptions},
+ * {@code responses}, {@code videos}, {@code videos/{id}}, {@code videos/{id}/content},
+ * {@code files/{id}/content} and {@code assets/{id}/content}, all under {@code /v1}.
+ *
+ * <p>Point {@code OPENAI_BASE_URL} at {@link #baseUrl()} to run the pipeline offline. Every call
+ * waits a latency drawn from its endpoint's distribution before it is answered, and may instead be
+ * answered with an injected 429 or 5xx. Waits are scheduled rather than slept, so thousands of
+ * concurrent calls hold no server thread. Counters are served from {@code GET /_simulator/stats}.</p>
+ *
+ * <p>With a {@link TraceProfile} the latencies, statuses, render times and video sizes come from a
+ * recorded production trace instead of the configured distributions.</p>
+ */
+public final class OpenAISimulator implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OpenAISimulator.class);
+
+    static final String TRANSCRIPTIONS = "audio/transcriptions";
+    static final String RESPONSES = "responses";
+    static final String VIDEOS = "videos";
+    static final String FILES = "files";
+    static final String ASSETS = "assets";
+
+    private static final int[] ERROR_STATUSES = {500, 502, 503};
+    private static final String[] DREAM_WORDS = {
+            "I", "was", "walking", "through", "a", "house", "that", "kept", "changing", "the", "rooms",
+            "were", "full", "of", "water", "and", "my", "grandmother", "stood", "at", "window", "light",
+            "fell", "slowly", "like", "snow", "then", "stairs", "led", "into", "an", "orchard", "at", "night"
+    };
+
+    private final SimulatorConfig config;
+    private final TraceProfile profile;
+    private final Random random;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, SimulatedVideo> videos = new ConcurrentHashMap<>();
+    private final Map<String, RequestWindow> windows = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> calls = new ConcurrentHashMap<>();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytesServed = new LongAdder();
+    private Javalin app;
+
+    public OpenAISimulator(SimulatorConfig config) {
+        this(config, null);
+    }
+
+    /**
+     * A simulator answering as recorded in {@code profile}; the configured distributions only
+     * cover what the trace never saw.
+     */
+    public OpenAISimulator(SimulatorConfig config, TraceProfile profile) {
+        this.config = Objects.requireNonNull(config, "config must not be null");
+        this.profile = profile;
+        this.random = config.seed().map(Random::new).orElseGet(Random::new);
+        AtomicInteger counter = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "simulator-latency-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static void main(String[] args) {
+        OpenAISimulator simulator = new OpenAISimulator(SimulatorConfig.fromEnvironment()).start();
+        LOGGER.info("OpenAISimulator listening on port {}; set OPENAI_BASE_URL={}", simulator.port(), simulator.baseUrl());
+    }
+
+    /**
+     * Starts serving on the configured port; port {@code 0} picks a free one, see {@link #port()}.
+     */
+    public synchronized OpenAISimulator start() {
+        if (app != null) {
+            throw new IllegalStateException("Simulator already started");
+        }
+        app = Javalin.create(cfg -> {
+            cfg.showJavalinBanner = false;
+            // Javalin's default pool name would collide with a server under test in the same JVM
+            cfg.jetty.server(() -> {
+                QueuedThreadPool threads = new QueuedThreadPool(250, 8, 60_000);
+                threads.setName("simulator-http");
+                return new Server(threads);
+            });
+            cfg.http.defaultContentType = "application/json";
+            cfg.compression.none();
+        });
+        app.post("/v1/audio/transcriptions", ctx -> handle(ctx, TRANSCRIPTIONS, "POST audio/transcriptions", this::transcribe));
+        app.post("/v1/responses", ctx -> handle(ctx, RESPONSES, "POST responses", this::respond));
+        app.post("/v1/videos", ctx -> handle(ctx, VIDEOS, "POST videos", this::createVideo));
+        app.get("/v1/videos/{id}", ctx -> handle(ctx, VIDEOS, "GET videos/{id}", this::retrieveVideo));
+        app.get("/v1/videos/{id}/content", ctx -> handle(ctx, VIDEOS, "GET videos/{id}/content",
+                c -> content(c, c.pathParam("id"))));
+        app.get("/v1/files/{id}/content", ctx -> handle(ctx, FILES, "GET files/{id}/content",
+                c -> content(c, stripPrefix(c.pathParam("id"), "file-"))));
+        app.get("/v1/assets/{id}/content", ctx -> handle(ctx, ASSETS, "GET assets/{id}/content",
+                c -> content(c, stripPrefix(c.pathParam("id"), "asset-"))));
+        app.get("/_simulator/stats", ctx -> ctx.json(statsJson()));
+        app.start(config.port());
+        return this;
+    }
+
+    public int port() {
+        return app.port();
+    }
+
+    /**
+     * The value for {@code OPENAI_BASE_URL}.
+     */
+    public String baseUrl() {
+        return "http://localhost:" + port() + "/v1";
+    }
+
+    public Stats stats() {
+        Map<String, Long> perEndpoint = new TreeMap<>();
+        calls.forEach((endpoint, count) -> perEndpoint.put(endpoint, count.sum()));
+        return new Stats(perEndpoint, rateLimited.sum(), errors.sum(), bytesServed.sum(), videos.size());
+    }
+
+    @Override
+    public synchronized void close() {
+        if (app != null) {
+            app.stop();
+            app = null;
+        }
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Draws the call's fate, prepares the answer while the request is still readable, and sends
+     * it once the sampled latency has passed.
+     */
+    private void handle(Context ctx, String endpoint, String route, Function<Context, Reply> handler) {
+        calls.computeIfAbsent(endpoint, key -> new LongAdder()).increment();
+        Optional<TraceProfile.Sample> recorded = profile != null ? profile.next(route) : Optional.empty();
+        Reply reply = recorded.isPresent() ? recordedFailure(recorded.get()) : injectedFailure(ctx, endpoint);
+        if (reply == null) {
+            reply = handler.apply(ctx);
+            if (recorded.isPresent()) {
+                reply = new Reply(recorded.get().latency(), reply.writer());
+            }
+        }
+        Reply answer = reply;
+        ctx.future(() -> {
+            CompletableFuture<Void> sent = new CompletableFuture<>();
+            scheduler.schedule(() -> {
+                try {
+                    answer.writer().accept(ctx);
+                    sent.complete(null);
+                } catch (RuntimeException e) {
+                    sent.completeExceptionally(e);
+                }
+            }, Math.max(0L, answer.latency().toMillis()), TimeUnit.MILLISECONDS);
+            return sent;
+        });
+    }
+
+    private Reply injectedFailure(Context ctx, String endpoint) {
+        if (config.requestsPerMinute() > 0) {
+            RequestWindow window = windows.computeIfAbsent(endpoint, key -> new RequestWindow());
+            RequestWindow.Budget budget = window.acquire(config.requestsPerMinute(), System.currentTimeMillis());
+            ctx.header("x-ratelimit-limit-requests", Integer.toString(config.requestsPerMinute()));
+            ctx.header("x-ratelimit-remaining-requests", Integer.toString(budget.remaining()));
+            ctx.header("x-ratelimit-reset-requests", budget.resetMillis() + "ms");
+            if (!budget.admitted()) {
+                rateLimited.increment();
+                return rateLimitReply(latencyOf(endpoint).sample(random), Duration.ofMillis(budget.resetMillis()));
+            }
+        }
+        double draw = random.nextDouble();
+        if (draw < config.rateLimitRate()) {
+            rateLimited.increment();
+            return rateLimitReply(latencyOf(endpoint).sample(random), config.retryAfter());
+        }
+        if (draw < config.rateLimitRate() + config.errorRate()) {
+            errors.increment();
+            int status = ERROR_STATUSES[random.nextInt(ERROR_STATUSES.length)];
+            return new Reply(latencyOf(endpoint).sample(random), c -> c.status(status).json(error("Simulated upstream failure", "server_error", null)));
+        }
+        return null;
+    }
+
+    /**
+     * Replays a recorded non-2xx answer. A recorded transport failure (status {@code 0}) becomes a
+     * 504 after the recorded wait, the closest an HTTP answer gets to a timed-out call.
+     */
+    private Reply recordedFailure(TraceProfile.Sample sample) {
+        int status = sample.status();
+        if (status >= 200 && status < 300) {
+            return null;
+        }
+        if (status == 429) {
+            rateLimited.increment();
+            return rateLimitReply(sample.latency(), config.retryAfter());
+        }
+        errors.increment();
+        int answered = status == 0 ? 504 : status;
+        return new Reply(sample.latency(), c -> c.status(answered).json(error("Replayed upstream failure", "server_error", null)));
+    }
+
+    private Reply rateLimitReply(Duration latency, Duration retryAfter) {
+        return new Reply(latency, c -> {
+            c.header("retry-after-ms", Long.toString(retryAfter.toMillis()));
+            c.header("Retry-After", Long.toString(Math.max(1L, (retryAfter.toMillis() + 999) / 1000)));
+            c.status(429).json(error("Simulated rate limit reached", "requests", "rate_limit_exceeded"));
+        });
+    }
+
+    private LatencyDistribution latencyOf(String endpoint) {
+        return switch (endpoint) {
+            case TRANSCRIPTIONS -> config.transcriptionLatency();
+            case RESPONSES -> config.responsesLatency();
+            case VIDEOS -> config.videosLatency();
+            default -> config.contentLatency();
+        };
+    }
+
+    private Reply transcribe(Context ctx) {
+        UploadedFile file = ctx.uploadedFile("file");
+        if (file == null) {
+            return new Reply(Duration.ZERO, c -> c.status(400).json(error("Missing file", "invalid_request_error", null)));
+        }
+        long bytes = file.size();
+        Duration latency = config.transcriptionLatency().sample(random)
+                .plusMillis(config.transcriptionPerMegabyte().toMillis() * bytes / (1024 * 1024));
+        // Roughly a word per 4 KB of compressed speech, within what a dream recollection runs to
+        int wordCount = (int) Math.max(8L, Math.min(4000L, bytes / 4096));
+        List<String> words = new ArrayList<>(wordCount);
+        for (int i = 0; i < wordCount; i++) {
+            words.add(DREAM_WORDS[random.nextInt(DREAM_WORDS.length)]);
+        }
+        ObjectNode body = mapper.createObjectNode();
+        body.put("text", String.join(" ", words));
+        body.put("created", System.currentTimeMillis() / 1000);
+        ArrayNode segments = body.putArray("segments");
+        double start = 0.0;
+        for (int from = 0; from < wordCount; from += 12) {
+            List<String> segmentWords = words.subList(from, Math.min(wordCount, from + 12));
+            double end = start + segmentWords.size() * 0.4;
+            segments.addObject()
+                    .put("start", start)
+                    .put("end", end)
+                    .put("text", String.join(" ", segmentWords));
+            start = end;
+        }
+        return new Reply(latency, c -> c.json(body));
+    }
+
+    private Reply respond(Context ctx) {
+        JsonNode request;
+        try {
+            request = mapper.readTree(ctx.bodyAsBytes());
+        } catch (IOException e) {
+            return new Reply(Duration.ZERO, c -> c.status(400).json(error("Invalid JSON", "invalid_request_error", null)));
+        }
+        StringBuilder narrative = new StringBuilder();
+        for (JsonNode message : request.path("input")) {
+            if (!"user".equals(message.path("role").asText())) {
+                continue;
+            }
+            for (JsonNode block : message.path("content")) {
+                if ("input_text".equals(block.path("type").asText())) {
+                    narrative.append(block.path("text").asText());
+                }
+            }
+        }
+        String[] words = narrative.toString().trim().split("\\s+");
+        String excerpt = String.join(" ", List.of(words).subList(0, Math.min(words.length, 40)));
+
+        ObjectNode prompt = mapper.createObjectNode();
+        prompt.put("sora_prompt", "A hazy, drifting dream: " + excerpt);
+        prompt.putArray("narrative_beats").add("arrival").add("transformation").add("waking");
+        prompt.putArray("visual_keywords").add("mist").add("soft light").add("water");
+        prompt.put("emotional_tone", "wistful");
+        prompt.put("color_palette", "muted teal and amber");
+        prompt.putArray("negative_prompts").add("text overlays").add("sharp focus");
+        prompt.put("camera_style", "slow dolly");
+        prompt.put("motion_style", "floating");
+
+        ObjectNode body = mapper.createObjectNode();
+        body.put("id", "resp_" + Long.toHexString(random.nextLong()));
+        body.put("object", "response");
+        body.put("status", "completed");
+        body.put("model", request.path("model").asText(""));
+        ObjectNode message = body.putArray("output").addObject();
+        message.put("type", "message");
+        message.put("role", "assistant");
+        message.putArray("content").addObject()
+                .put("type", "output_text")
+                .put("text", prompt.toString());
+        body.putObject("usage")
+                .put("input_tokens", narrative.length() / 4)
+                .put("output_tokens", prompt.toString().length() / 4);
+        return new Reply(config.responsesLatency().sample(random), c -> c.json(body));
+    }
+
+    private Reply createVideo(Context ctx) {
+        JsonNode request;
+        try {
+            request = mapper.readTree(ctx.bodyAsBytes());
+        } catch (IOException e) {
+            return new Reply(Duration.ZERO, c -> c.status(400).json(error("Invalid JSON", "invalid_request_error", null)));
+        }
+        long now = System.currentTimeMillis();
+        String id = "video_" + Long.toHexString(random.nextLong() & Long.MAX_VALUE);
+        Optional<Duration> recordedRender = profile != null ? profile.nextRenderTime() : Optional.empty();
+        OptionalLong recordedBytes = profile != null ? profile.nextVideoBytes() : OptionalLong.empty();
+        SimulatedVideo video = new SimulatedVideo(id,
+                request.path("model").asText("sora-2"),
+                now,
+                recordedRender.map(Duration::toMillis)
+                        .orElseGet(() -> between(config.minRenderTime().toMillis(), config.maxRenderTime().toMillis())),
+                recordedBytes.orElseGet(() -> between(config.minVideoBytes(), config.maxVideoBytes())),
+                random.nextDouble() < config.renderFailureRate());
+        videos.put(id, video);
+        ObjectNode body = video.toJson(mapper, now, config.videoOutput(), null);
+        return new Reply(config.videosLatency().sample(random), c -> c.json(body));
+    }
+
+    private Reply retrieveVideo(Context ctx) {
+        SimulatedVideo video = videos.get(ctx.pathParam("id"));
+        Duration latency = config.videosLatency().sample(random);
+        if (video == null) {
+            return new Reply(latency, c -> c.status(404).json(error("Video not found", "invalid_request_error", null)));
+        }
+        String contentUrl = ctx.scheme() + "://" + ctx.host() + "/v1/videos/" + video.id() + "/content";
+        // Status is read when the answer is sent, after the latency, as a real poll would see it
+        return new Reply(latency, c -> c.json(video.toJson(mapper, System.currentTimeMillis(), config.videoOutput(), contentUrl)));
+    }
+
+    /**
+     * Serves a render's bytes, honouring {@code Range: bytes=N-} (guarded by {@code If-Range}) so
+     * the client's resume path can be exercised.
+     */
+    private Reply content(Context ctx, String videoId) {
+        SimulatedVideo video = videos.get(videoId);
+        Duration latency = config.contentLatency().sample(random);
+        if (video == null || !video.isCompleted(System.currentTimeMillis())) {
+            return new Reply(latency, c -> c.status(404).json(error("Video content not available", "invalid_request_error", null)));
+        }
+        long length = video.sizeBytes();
+        long offset = 0L;
+        String range = ctx.header("Range");
+        String ifRange = ctx.header("If-Range");
+        if (range != null && range.startsWith("bytes=") && range.endsWith("-")
+                && (ifRange == null || ifRange.equals(video.etag()))) {
+            try {
+                offset = Long.parseLong(range.substring("bytes=".length(), range.length() - 1));
+            } catch (NumberFormatException ignored) {
+                offset = 0L;
+            }
+        }
+        if (offset >= length && offset > 0) {
+            return new Reply(latency, c -> {
+                c.header("Content-Range", "bytes */" + length);
+                c.status(416);
+            });
+        }
+        long start = offset;
+        return new Reply(latency, c -> {
+            c.res().setCharacterEncoding(null);
+            c.header("Accept-Ranges", "bytes");
+            c.header("ETag", video.etag());
+            c.contentType("video/mp4");
+            if (start > 0) {
+                c.status(206);
+                c.header("Content-Range", "bytes " + start + "-" + (length - 1) + "/" + length);
+            }
+            c.res().setContentLengthLong(length - start);
+            bytesServed.add(length - start);
+            c.result(new SyntheticContentStream(start, length));
+        });
+    }
+
+    private long between(long min, long max) {
+        return max <= min ? min : min + (long) (random.nextDouble() * (max - min + 1));
+    }
+
+    private static String stripPrefix(String id, String prefix) {
+        return id.startsWith(prefix) ? id.substring(prefix.length()) : id;
+    }
+
+    private ObjectNode error(String message, String type, String code) {
+        ObjectNode body = mapper.createObjectNode();
+        ObjectNode error = body.putObject("error");
+        error.put("message", message);
+        error.put("type", type);
+        if (code != null) {
+            error.put("code", code);
+        } else {
+            error.putNull("code");
+        }
+        return body;
+    }
+
+    private ObjectNode statsJson() {
+        Stats stats = stats();
+        ObjectNode node = mapper.createObjectNode();
+        ObjectNode perEndpoint = node.putObject("calls");
+        stats.calls().forEach(perEndpoint::put);
+        node.put("rate_limited", stats.rateLimited());
+        node.put("errors", stats.errors());
+        node.put("bytes_served", stats.bytesServed());
+        node.put("videos", stats.videos());
+        return node;
+    }
+
+    /**
+     * Counters since start: calls per endpoint family, injected or limit-triggered 429s, injected
+     * 5xx answers, content bytes sent and renders submitted.
+     */
+    public record Stats(Map<String, Long> calls, long rateLimited, long errors, long bytesServed, int videos) {
+    }
+
+    private record Reply(Duration latency, Consumer<Context> writer) {
+    }
+
+    /**
+     * Fixed one-minute request window for one endpoint family.
+     */
+    private static final class RequestWindow {
+        private long windowStart;
+        private int used;
+
+        synchronized Budget acquire(int limit, long nowMillis) {
+            if (nowMillis - windowStart >= 60_000L) {
+                windowStart = nowMillis;
+                used = 0;
+            }
+            boolean admitted = used < limit;
+            if (admitted) {
+                used++;
+            }
+            return new Budget(admitted, limit - used, Math.max(0L, windowStart + 60_000L - nowMillis));
+        }
+
+        record Budget(boolean admitted, int remaining, long resetMillis) {
+        }
+    }
+}
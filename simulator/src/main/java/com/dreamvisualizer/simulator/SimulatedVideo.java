@@ -0,0 +1,96 @@
+package com.dreamvisualizer.simulator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * One simulated Sora render. Its status is derived from the time since submission, so polling
+ * needs no background work: queued for the first tenth of the render time, then in progress, then
+ * completed (or failed, when the render was drawn to fail).
+ */
+final class SimulatedVideo {
+
+    private final String id;
+    private final String model;
+    private final long createdAtMillis;
+    private final long renderMillis;
+    private final long sizeBytes;
+    private final boolean fails;
+
+    SimulatedVideo(String id, String model, long createdAtMillis, long renderMillis, long sizeBytes, boolean fails) {
+        this.id = id;
+        this.model = model;
+        this.createdAtMillis = createdAtMillis;
+        this.renderMillis = renderMillis;
+        this.sizeBytes = sizeBytes;
+        this.fails = fails;
+    }
+
+    String id() {
+        return id;
+    }
+
+    long sizeBytes() {
+        return sizeBytes;
+    }
+
+    /**
+     * Strong validator for the content; the bytes of a simulated video never change.
+     */
+    String etag() {
+        return "\"" + id + "-" + Long.toHexString(sizeBytes) + "\"";
+    }
+
+    String status(long nowMillis) {
+        long elapsed = nowMillis - createdAtMillis;
+        if (elapsed >= renderMillis) {
+            return fails ? "failed" : "completed";
+        }
+        return elapsed < renderMillis / 10 ? "queued" : "in_progress";
+    }
+
+    boolean isCompleted(long nowMillis) {
+        return "completed".equals(status(nowMillis));
+    }
+
+    int progress(long nowMillis) {
+        if (renderMillis == 0) {
+            return 100;
+        }
+        long elapsed = Math.max(0L, nowMillis - createdAtMillis);
+        return (int) Math.min(100L, elapsed * 100 / renderMillis);
+    }
+
+    /**
+     * The video object as {@code GET videos/{id}} returns it, with an {@code output} descriptor of
+     * the configured kind once the render has completed.
+     */
+    ObjectNode toJson(ObjectMapper mapper, long nowMillis, SimulatorConfig.VideoOutput output, String contentUrl) {
+        String status = status(nowMillis);
+        ObjectNode node = mapper.createObjectNode();
+        node.put("id", id);
+        node.put("object", "video");
+        node.put("model", model);
+        node.put("status", status);
+        node.put("progress", progress(nowMillis));
+        node.put("created_at", createdAtMillis / 1000);
+        if ("failed".equals(status)) {
+            node.putObject("error")
+                    .put("code", "internal_error")
+                    .put("message", "Simulated render failure");
+        } else if ("completed".equals(status) && output != SimulatorConfig.VideoOutput.NONE) {
+            ObjectNode descriptor = node.putObject("output");
+            descriptor.put("type", "video");
+            descriptor.put("content_type", "video/mp4");
+            descriptor.put("bytes", sizeBytes);
+            switch (output) {
+                case FILE -> descriptor.put("file_id", "file-" + id);
+                case ASSET -> descriptor.put("asset_id", "asset-" + id);
+                case URL -> descriptor.put("download_url", contentUrl);
+                default -> {
+                }
+            }
+        }
+        return node;
+    }
+}
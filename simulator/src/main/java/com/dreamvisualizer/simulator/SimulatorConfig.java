@@ -0,0 +1,329 @@
+package com.dreamvisualizer.simulator;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Behaviour of the {@link OpenAISimulator}: per-endpoint latency, injected failures, the simulated
+ * rate limit, and how long Sora renders take and how large the finished videos are.
+ */
+public class SimulatorConfig {
+
+    /**
+     * Where a completed render's {@code output} points the client, exercising each of the download
+     * paths in {@code SoraVideoService}.
+     */
+    public enum VideoOutput {
+        /** No {@code output}; the client falls back to {@code videos/{id}/content}. */
+        NONE,
+        /** {@code output.file_id}, fetched from {@code files/{id}/content}. */
+        FILE,
+        /** {@code output.asset_id}, fetched from {@code assets/{id}/content}. */
+        ASSET,
+        /** {@code output.download_url} naming the content endpoint directly. */
+        URL
+    }
+
+    private final int port;
+    private final Long seed;
+    private final LatencyDistribution transcriptionLatency;
+    private final Duration transcriptionPerMegabyte;
+    private final LatencyDistribution responsesLatency;
+    private final LatencyDistribution videosLatency;
+    private final LatencyDistribution contentLatency;
+    private final double errorRate;
+    private final double rateLimitRate;
+    private final Duration retryAfter;
+    private final int requestsPerMinute;
+    private final Duration minRenderTime;
+    private final Duration maxRenderTime;
+    private final double renderFailureRate;
+    private final long minVideoBytes;
+    private final long maxVideoBytes;
+    private final VideoOutput videoOutput;
+
+    private SimulatorConfig(Builder builder) {
+        this.port = builder.port;
+        this.seed = builder.seed;
+        this.transcriptionLatency = builder.transcriptionLatency;
+        this.transcriptionPerMegabyte = builder.transcriptionPerMegabyte;
+        this.responsesLatency = builder.responsesLatency;
+        this.videosLatency = builder.videosLatency;
+        this.contentLatency = builder.contentLatency;
+        this.errorRate = builder.errorRate;
+        this.rateLimitRate = builder.rateLimitRate;
+        this.retryAfter = builder.retryAfter;
+        this.requestsPerMinute = builder.requestsPerMinute;
+        this.minRenderTime = builder.minRenderTime;
+        this.maxRenderTime = builder.maxRenderTime;
+        this.renderFailureRate = builder.renderFailureRate;
+        this.minVideoBytes = builder.minVideoBytes;
+        this.maxVideoBytes = builder.maxVideoBytes;
+        this.videoOutput = builder.videoOutput;
+    }
+
+    public static SimulatorConfig defaults() {
+        return builder().build();
+    }
+
+    /**
+     * Reads {@code SIM_PORT}, {@code SIM_SEED}, the {@code median:p99} millisecond latencies
+     * {@code SIM_TRANSCRIPTION_LATENCY_MS}, {@code SIM_RESPONSES_LATENCY_MS}, {@code SIM_VIDEOS_LATENCY_MS}
+     * and {@code SIM_CONTENT_LATENCY_MS}, {@code SIM_TRANSCRIPTION_MS_PER_MB}, {@code SIM_ERROR_RATE},
+     * {@code SIM_RATE_LIMIT_RATE}, {@code SIM_RETRY_AFTER_MS}, {@code SIM_REQUESTS_PER_MINUTE},
+     * {@code SIM_RENDER_SECONDS} and {@code SIM_VIDEO_BYTES} (both {@code min:max}),
+     * {@code SIM_RENDER_FAILURE_RATE} and {@code SIM_VIDEO_OUTPUT}.
+     */
+    public static SimulatorConfig fromEnvironment() {
+        Builder builder = builder();
+        env("SIM_PORT").map(Integer::parseInt).ifPresent(builder::port);
+        env("SIM_SEED").map(Long::parseLong).ifPresent(builder::seed);
+        env("SIM_TRANSCRIPTION_LATENCY_MS").map(LatencyDistribution::parse).ifPresent(builder::transcriptionLatency);
+        env("SIM_TRANSCRIPTION_MS_PER_MB").map(Long::parseLong).map(Duration::ofMillis).ifPresent(builder::transcriptionPerMegabyte);
+        env("SIM_RESPONSES_LATENCY_MS").map(LatencyDistribution::parse).ifPresent(builder::responsesLatency);
+        env("SIM_VIDEOS_LATENCY_MS").map(LatencyDistribution::parse).ifPresent(builder::videosLatency);
+        env("SIM_CONTENT_LATENCY_MS").map(LatencyDistribution::parse).ifPresent(builder::contentLatency);
+        env("SIM_ERROR_RATE").map(Double::parseDouble).ifPresent(builder::errorRate);
+        env("SIM_RATE_LIMIT_RATE").map(Double::parseDouble).ifPresent(builder::rateLimitRate);
+        env("SIM_RETRY_AFTER_MS").map(Long::parseLong).map(Duration::ofMillis).ifPresent(builder::retryAfter);
+        env("SIM_REQUESTS_PER_MINUTE").map(Integer::parseInt).ifPresent(builder::requestsPerMinute);
+        env("SIM_RENDER_SECONDS").ifPresent(spec -> {
+            long[] range = parseRange(spec);
+            builder.renderTime(Duration.ofSeconds(range[0]), Duration.ofSeconds(range[1]));
+        });
+        env("SIM_RENDER_FAILURE_RATE").map(Double::parseDouble).ifPresent(builder::renderFailureRate);
+        env("SIM_VIDEO_BYTES").ifPresent(spec -> {
+            long[] range = parseRange(spec);
+            builder.videoBytes(range[0], range[1]);
+        });
+        env("SIM_VIDEO_OUTPUT").map(value -> VideoOutput.valueOf(value.trim().toUpperCase(Locale.ROOT)))
+                .ifPresent(builder::videoOutput);
+        return builder.build();
+    }
+
+    private static Optional<String> env(String name) {
+        return Optional.ofNullable(System.getenv(name)).filter(value -> !value.isBlank());
+    }
+
+    private static long[] parseRange(String spec) {
+        String[] parts = spec.split(":");
+        long min = Long.parseLong(parts[0].trim());
+        long max = parts.length > 1 ? Long.parseLong(parts[1].trim()) : min;
+        return new long[]{min, max};
+    }
+
+    public int port() {
+        return port;
+    }
+
+    /**
+     * Seed for every random draw, so a run can be reproduced; empty seeds from the clock.
+     */
+    public Optional<Long> seed() {
+        return Optional.ofNullable(seed);
+    }
+
+    public LatencyDistribution transcriptionLatency() {
+        return transcriptionLatency;
+    }
+
+    /**
+     * Extra transcription latency per megabyte of uploaded audio, on top of the sampled latency.
+     */
+    public Duration transcriptionPerMegabyte() {
+        return transcriptionPerMegabyte;
+    }
+
+    public LatencyDistribution responsesLatency() {
+        return responsesLatency;
+    }
+
+    /**
+     * Latency of video submissions and status polls.
+     */
+    public LatencyDistribution videosLatency() {
+        return videosLatency;
+    }
+
+    /**
+     * Time to first byte of video, file and asset content downloads.
+     */
+    public LatencyDistribution contentLatency() {
+        return contentLatency;
+    }
+
+    /**
+     * Share of calls answered with a 500, 502 or 503.
+     */
+    public double errorRate() {
+        return errorRate;
+    }
+
+    /**
+     * Share of calls answered with a 429 regardless of the simulated rate limit.
+     */
+    public double rateLimitRate() {
+        return rateLimitRate;
+    }
+
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Requests per minute each endpoint family admits before answering 429; zero disables the
+     * limit and the {@code x-ratelimit-*} headers.
+     */
+    public int requestsPerMinute() {
+        return requestsPerMinute;
+    }
+
+    public Duration minRenderTime() {
+        return minRenderTime;
+    }
+
+    public Duration maxRenderTime() {
+        return maxRenderTime;
+    }
+
+    public double renderFailureRate() {
+        return renderFailureRate;
+    }
+
+    public long minVideoBytes() {
+        return minVideoBytes;
+    }
+
+    public long maxVideoBytes() {
+        return maxVideoBytes;
+    }
+
+    public VideoOutput videoOutput() {
+        return videoOutput;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private int port = 8090;
+        private Long seed;
+        private LatencyDistribution transcriptionLatency = LatencyDistribution.parse("1200:6000");
+        private Duration transcriptionPerMegabyte = Duration.ofMillis(400);
+        private LatencyDistribution responsesLatency = LatencyDistribution.parse("4000:20000");
+        private LatencyDistribution videosLatency = LatencyDistribution.parse("300:1500");
+        private LatencyDistribution contentLatency = LatencyDistribution.parse("200:1000");
+        private double errorRate;
+        private double rateLimitRate;
+        private Duration retryAfter = Duration.ofSeconds(1);
+        private int requestsPerMinute;
+        private Duration minRenderTime = Duration.ofSeconds(30);
+        private Duration maxRenderTime = Duration.ofSeconds(120);
+        private double renderFailureRate;
+        private long minVideoBytes = 2L * 1024 * 1024;
+        private long maxVideoBytes = 8L * 1024 * 1024;
+        private VideoOutput videoOutput = VideoOutput.NONE;
+
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public Builder transcriptionLatency(LatencyDistribution transcriptionLatency) {
+            this.transcriptionLatency = transcriptionLatency;
+            return this;
+        }
+
+        public Builder transcriptionPerMegabyte(Duration transcriptionPerMegabyte) {
+            this.transcriptionPerMegabyte = transcriptionPerMegabyte;
+            return this;
+        }
+
+        public Builder responsesLatency(LatencyDistribution responsesLatency) {
+            this.responsesLatency = responsesLatency;
+            return this;
+        }
+
+        public Builder videosLatency(LatencyDistribution videosLatency) {
+            this.videosLatency = videosLatency;
+            return this;
+        }
+
+        public Builder contentLatency(LatencyDistribution contentLatency) {
+            this.contentLatency = contentLatency;
+            return this;
+        }
+
+        public Builder errorRate(double errorRate) {
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        public Builder rateLimitRate(double rateLimitRate) {
+            this.rateLimitRate = rateLimitRate;
+            return this;
+        }
+
+        public Builder retryAfter(Duration retryAfter) {
+            this.retryAfter = retryAfter;
+            return this;
+        }
+
+        public Builder requestsPerMinute(int requestsPerMinute) {
+            this.requestsPerMinute = requestsPerMinute;
+            return this;
+        }
+
+        public Builder renderTime(Duration min, Duration max) {
+            this.minRenderTime = min;
+            this.maxRenderTime = max;
+            return this;
+        }
+
+        public Builder renderFailureRate(double renderFailureRate) {
+            this.renderFailureRate = renderFailureRate;
+            return this;
+        }
+
+        public Builder videoBytes(long min, long max) {
+            this.minVideoBytes = min;
+            this.maxVideoBytes = max;
+            return this;
+        }
+
+        public Builder videoOutput(VideoOutput videoOutput) {
+            this.videoOutput = videoOutput;
+            return this;
+        }
+
+        public SimulatorConfig build() {
+            if (port < 0) {
+                throw new IllegalStateException("Port must not be negative");
+            }
+            if (errorRate < 0 || rateLimitRate < 0 || renderFailureRate < 0
+                    || errorRate + rateLimitRate > 1.0 || renderFailureRate > 1.0) {
+                throw new IllegalStateException("Failure rates must be between 0 and 1");
+            }
+            if (requestsPerMinute < 0) {
+                throw new IllegalStateException("Requests per minute must not be negative");
+            }
+            if (minRenderTime.isNegative() || maxRenderTime.compareTo(minRenderTime) < 0) {
+                throw new IllegalStateException("Render time must satisfy 0 <= min <= max");
+            }
+            if (minVideoBytes < 0 || maxVideoBytes < minVideoBytes) {
+                throw new IllegalStateException("Video size must satisfy 0 <= min <= max");
+            }
+            if (retryAfter == null || retryAfter.isNegative()) {
+                throw new IllegalStateException("Retry-After must not be negative");
+            }
+            return new SimulatorConfig(this);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.dreamvisualizer.simulator;
+
+import java.io.InputStream;
+
+/**
+ * Deterministic bytes standing in for a rendered video, generated on the fly so a multi-megabyte
+ * download costs no heap. The byte at a given offset is always the same, which keeps resumed
+ * range requests consistent with the first attempt.
+ */
+final class SyntheticContentStream extends InputStream {
+
+    private final long end;
+    private long position;
+
+    SyntheticContentStream(long offset, long length) {
+        this.position = offset;
+        this.end = length;
+    }
+
+    static byte byteAt(long offset) {
+        return (byte) ((offset * 31 + (offset >>> 8)) & 0xff);
+    }
+
+    @Override
+    public int read() {
+        if (position >= end) {
+            return -1;
+        }
+        return byteAt(position++) & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) {
+        if (length == 0) {
+            return 0;
+        }
+        if (position >= end) {
+            return -1;
+        }
+        int count = (int) Math.min(length, end - position);
+        for (int i = 0; i < count; i++) {
+            buffer[offset + i] = byteAt(position++);
+        }
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, end - position);
+    }
+}
@@ -0,0 +1,170 @@
+package com.dreamvisualizer.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Upstream behaviour taken from a trace recorded by the client's {@code TrafficRecorder}
+ * ({@code OPENAI_TRACE_FILE}), replayed at {@code speed} times real time.
+ *
+ * <p>Each route ({@code POST videos}, {@code GET videos/{id}}, ...) answers with the recorded
+ * latencies and statuses of that route in recorded order, cycling when the trace runs out. Render
+ * times are the span between the first and last status poll of each recorded render, and video
+ * sizes the bodies of successful content downloads. Latencies and render times are divided by
+ * {@code speed}.</p>
+ */
+public final class TraceProfile {
+
+    private final List<Call> calls;
+    private final double speed;
+    private final Map<String, List<Call>> byRoute = new HashMap<>();
+    private final Map<String, AtomicInteger> cursors = new HashMap<>();
+    private final List<Long> renderMillis = new ArrayList<>();
+    private final List<Long> videoBytes = new ArrayList<>();
+    private final AtomicInteger renderCursor = new AtomicInteger();
+    private final AtomicInteger sizeCursor = new AtomicInteger();
+
+    private TraceProfile(List<Call> calls, double speed) {
+        this.calls = List.copyOf(calls);
+        this.speed = speed;
+        Map<String, long[]> pollSpans = new LinkedHashMap<>();
+        for (Call call : this.calls) {
+            byRoute.computeIfAbsent(call.route(), route -> new ArrayList<>()).add(call);
+            if ("GET".equals(call.method()) && call.isVideoPoll()) {
+                long end = call.offsetMillis() + call.latencyMillis();
+                pollSpans.merge(call.path(), new long[]{call.offsetMillis(), end},
+                        (span, next) -> new long[]{Math.min(span[0], next[0]), Math.max(span[1], next[1])});
+            }
+            if (call.isContentDownload() && call.status() == 200 && call.responseBytes() > 0) {
+                videoBytes.add(call.responseBytes());
+            }
+        }
+        pollSpans.values().forEach(span -> renderMillis.add(span[1] - span[0]));
+        byRoute.keySet().forEach(route -> cursors.put(route, new AtomicInteger()));
+    }
+
+    /**
+     * Reads a trace file, skipping lines that are not trace records.
+     */
+    public static TraceProfile load(Path trace, double speed) throws IOException {
+        if (speed <= 0) {
+            throw new IllegalArgumentException("speed must be positive");
+        }
+        ObjectMapper mapper = new ObjectMapper();
+        List<Call> calls = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(trace, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode node = mapper.readTree(line);
+                if (!node.hasNonNull("e") || !node.hasNonNull("p")) {
+                    continue;
+                }
+                calls.add(new Call(node.path("t").asLong(), node.path("m").asText("GET"), node.path("p").asText(),
+                        node.path("e").asText(), node.path("a").asInt(1), node.path("s").asInt(),
+                        node.path("rq").asLong(), node.path("rs").asLong(), node.path("ms").asLong()));
+            }
+        }
+        calls.sort(Comparator.comparingLong(Call::offsetMillis));
+        return new TraceProfile(calls, speed);
+    }
+
+    /**
+     * Every recorded attempt, in the order it was sent.
+     */
+    public List<Call> calls() {
+        return calls;
+    }
+
+    public double speed() {
+        return speed;
+    }
+
+    /**
+     * The next recorded outcome for {@code route}, empty when the trace never saw the route.
+     */
+    public Optional<Sample> next(String route) {
+        List<Call> recorded = byRoute.get(route);
+        if (recorded == null) {
+            return Optional.empty();
+        }
+        Call call = recorded.get(Math.floorMod(cursors.get(route).getAndIncrement(), recorded.size()));
+        return Optional.of(new Sample(scaled(call.latencyMillis()), call.status()));
+    }
+
+    public Optional<Duration> nextRenderTime() {
+        if (renderMillis.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(scaled(renderMillis.get(Math.floorMod(renderCursor.getAndIncrement(), renderMillis.size()))));
+    }
+
+    public OptionalLong nextVideoBytes() {
+        if (videoBytes.isEmpty()) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(videoBytes.get(Math.floorMod(sizeCursor.getAndIncrement(), videoBytes.size())));
+    }
+
+    Duration scaled(long millis) {
+        return Duration.ofMillis(Math.round(millis / speed));
+    }
+
+    /**
+     * One recorded attempt; {@code status} is {@code 0} for a transport failure.
+     */
+    public record Call(long offsetMillis, String method, String path, String endpoint, int attempt, int status,
+                       long requestBytes, long responseBytes, long latencyMillis) {
+
+        /**
+         * Method plus path with the resource id generalised, e.g. {@code GET videos/{id}/content}.
+         */
+        public String route() {
+            return method + " " + path.replaceAll("~[0-9a-f]+", "{id}");
+        }
+
+        /**
+         * Hashed resource id in the path, if any.
+         */
+        public Optional<String> resourceHash() {
+            for (String segment : path.split("/")) {
+                if (segment.startsWith("~")) {
+                    return Optional.of(segment);
+                }
+            }
+            return Optional.empty();
+        }
+
+        boolean isVideoPoll() {
+            return OpenAISimulator.VIDEOS.equals(endpoint) && resourceHash().isPresent() && !path.endsWith("/content");
+        }
+
+        boolean isContentDownload() {
+            return path.endsWith("/content");
+        }
+    }
+
+    /**
+     * A replayed outcome: how long to wait before answering and with which status.
+     */
+    public record Sample(Duration latency, int status) {
+    }
+}
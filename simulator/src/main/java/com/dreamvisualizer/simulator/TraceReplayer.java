@@ -0,0 +1,318 @@
+package com.dreamvisualizer.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replays a recorded upstream trace against a local {@link OpenAISimulator} answering from the
+ * same trace, at 1x, 10x, 100x or any other speed.
+ *
+ * <p>Every recorded attempt is re-sent at its recorded offset divided by the speed, with a body of
+ * the recorded size, so the arrival pattern and payload mix match production. Recorded resource
+ * ids are hashed, so polls and downloads are mapped onto the renders the replay itself created,
+ * in creation order. Attempts on other hosts ({@code external}) cannot be replayed and are
+ * skipped. The report compares replayed latency per route with the recorded latency scaled by the
+ * speed.</p>
+ *
+ * <p>With {@code --serve-only} the simulator just answers from the trace, for pointing
+ * {@code OPENAI_BASE_URL} of a real {@code DreamVisualizerServer} at it.</p>
+ */
+public final class TraceReplayer {
+
+    private final TraceProfile profile;
+    private final URI baseUrl;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, String> videoIds = new ConcurrentHashMap<>();
+    private final Deque<String> created = new ArrayDeque<>();
+    private final Deque<String> polled = new ArrayDeque<>();
+    private final Map<String, RouteStats> routes = new ConcurrentHashMap<>();
+    private final LongAdder skipped = new LongAdder();
+
+    public TraceReplayer(TraceProfile profile, URI baseUrl) {
+        this.profile = profile;
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: TraceReplayer <trace.jsonl> [speed] [--serve-only]");
+            System.exit(1);
+        }
+        double speed = args.length > 1 && !args[1].startsWith("--") ? Double.parseDouble(args[1]) : 1.0;
+        boolean serveOnly = Arrays.asList(args).contains("--serve-only");
+        TraceProfile profile = TraceProfile.load(Path.of(args[0]), speed);
+        OpenAISimulator simulator = new OpenAISimulator(SimulatorConfig.fromEnvironment(), profile).start();
+        if (serveOnly) {
+            System.out.println("Serving " + profile.calls().size() + " recorded calls at " + speed
+                    + "x; set OPENAI_BASE_URL=" + simulator.baseUrl());
+            return;
+        }
+        try {
+            Report report = new TraceReplayer(profile, URI.create(simulator.baseUrl() + "/")).run();
+            report.print();
+        } finally {
+            simulator.close();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Sends every recorded attempt on its scaled schedule and waits for all answers.
+     */
+    public Report run() {
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2, daemonThreads());
+        List<CompletableFuture<Void>> sent = new ArrayList<>();
+        long started = System.nanoTime();
+        try {
+            for (TraceProfile.Call call : profile.calls()) {
+                CompletableFuture<Void> done = new CompletableFuture<>();
+                sent.add(done);
+                long delay = profile.scaled(call.offsetMillis()).toMillis();
+                scheduler.schedule(() -> send(call).whenComplete((ignored, failure) -> done.complete(null)),
+                        delay, TimeUnit.MILLISECONDS);
+            }
+            CompletableFuture.allOf(sent.toArray(CompletableFuture[]::new)).join();
+        } finally {
+            scheduler.shutdownNow();
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+        return new Report(profile.speed(), elapsed, skipped.sum(), new TreeMap<>(routes));
+    }
+
+    private CompletableFuture<Void> send(TraceProfile.Call call) {
+        Optional<HttpRequest> request = buildRequest(call);
+        if (request.isEmpty()) {
+            skipped.increment();
+            return CompletableFuture.completedFuture(null);
+        }
+        RouteStats stats = routes.computeIfAbsent(call.route(), route -> new RouteStats());
+        stats.recorded.add(profile.scaled(call.latencyMillis()).toMillis());
+        long started = System.nanoTime();
+        return httpClient.sendAsync(request.get(), HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, failure) -> {
+                    long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+                    int status = failure != null ? 0 : response.statusCode();
+                    stats.record(millis, status);
+                    if (failure == null && status == 200 && "POST videos".equals(call.route())) {
+                        rememberCreated(response.body());
+                    }
+                    return null;
+                });
+    }
+
+    private Optional<HttpRequest> buildRequest(TraceProfile.Call call) {
+        if ("external".equals(call.endpoint())) {
+            return Optional.empty();
+        }
+        Optional<String> path = resolvePath(call);
+        if (path.isEmpty()) {
+            return Optional.empty();
+        }
+        HttpRequest.Builder builder = HttpRequest.newBuilder(baseUrl.resolve(path.get()))
+                .timeout(Duration.ofMinutes(10));
+        if (!"POST".equals(call.method())) {
+            return Optional.of(builder.GET().build());
+        }
+        int size = (int) Math.min(Integer.MAX_VALUE - 1024, Math.max(16L, call.requestBytes()));
+        switch (call.route()) {
+            case "POST audio/transcriptions" -> {
+                String boundary = "replay" + Long.toHexString(System.nanoTime());
+                builder.header("Content-Type", "multipart/form-data; boundary=" + boundary);
+                builder.POST(HttpRequest.BodyPublishers.ofByteArray(multipart(boundary, size)));
+            }
+            case "POST responses" -> {
+                ObjectNode payload = mapper.createObjectNode().put("model", "replay");
+                payload.putArray("input").addObject()
+                        .put("role", "user")
+                        .putArray("content").addObject()
+                        .put("type", "input_text")
+                        .put("text", filler(size));
+                builder.header("Content-Type", "application/json");
+                builder.POST(HttpRequest.BodyPublishers.ofString(payload.toString()));
+            }
+            default -> {
+                ObjectNode payload = mapper.createObjectNode().put("model", "sora-2").put("prompt", filler(size));
+                builder.header("Content-Type", "application/json");
+                builder.POST(HttpRequest.BodyPublishers.ofString(payload.toString()));
+            }
+        }
+        return Optional.of(builder.build());
+    }
+
+    /**
+     * Maps the hashed id in a recorded path onto a render created during the replay: a video id
+     * claims the oldest unclaimed render, a file or asset id the oldest render already polled.
+     */
+    private Optional<String> resolvePath(TraceProfile.Call call) {
+        Optional<String> hash = call.resourceHash();
+        if (hash.isEmpty()) {
+            return Optional.of(call.path());
+        }
+        String family = call.endpoint();
+        String videoId;
+        synchronized (this) {
+            videoId = videoIds.get(hash.get());
+            if (videoId == null) {
+                videoId = OpenAISimulator.VIDEOS.equals(family) ? created.pollFirst() : polled.pollFirst();
+                if (videoId == null) {
+                    return Optional.empty();
+                }
+                videoIds.put(hash.get(), videoId);
+                if (OpenAISimulator.VIDEOS.equals(family)) {
+                    polled.addLast(videoId);
+                }
+            }
+        }
+        String id = switch (family) {
+            case OpenAISimulator.FILES -> "file-" + videoId;
+            case OpenAISimulator.ASSETS -> "asset-" + videoId;
+            default -> videoId;
+        };
+        return Optional.of(call.path().replace(hash.get(), id));
+    }
+
+    private void rememberCreated(byte[] body) {
+        try {
+            JsonNode node = mapper.readTree(body);
+            String id = node.path("id").asText(null);
+            if (id != null) {
+                synchronized (this) {
+                    created.addLast(id);
+                }
+            }
+        } catch (IOException e) {
+            // A malformed creation answer leaves its polls unmatched; they are skipped
+        }
+    }
+
+    private static byte[] multipart(String boundary, int fileBytes) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(fileBytes + 512);
+        String head = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"model\"\r\n\r\nreplay\r\n"
+                + "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"replay.m4a\"\r\n"
+                + "Content-Type: audio/mp4\r\n\r\n";
+        body.writeBytes(head.getBytes(StandardCharsets.US_ASCII));
+        byte[] chunk = new byte[8192];
+        for (int remaining = fileBytes; remaining > 0; remaining -= chunk.length) {
+            body.write(chunk, 0, Math.min(chunk.length, remaining));
+        }
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        return body.toByteArray();
+    }
+
+    private static String filler(int length) {
+        return "dream ".repeat(Math.max(1, length / 6));
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "trace-replay-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0L;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    /**
+     * Latencies and statuses seen for one route during the replay.
+     */
+    public static final class RouteStats {
+        private final List<Long> recorded = Collections.synchronizedList(new ArrayList<>());
+        private final List<Long> replayed = new ArrayList<>();
+        private final Map<Integer, Integer> statuses = new TreeMap<>();
+
+        synchronized void record(long millis, int status) {
+            replayed.add(millis);
+            statuses.merge(status, 1, Integer::sum);
+        }
+
+        public synchronized int calls() {
+            return replayed.size();
+        }
+
+        public synchronized Map<Integer, Integer> statuses() {
+            return new TreeMap<>(statuses);
+        }
+
+        public synchronized long[] replayedMillis() {
+            return replayed.stream().mapToLong(Long::longValue).sorted().toArray();
+        }
+
+        public long[] recordedMillis() {
+            synchronized (recorded) {
+                return recorded.stream().mapToLong(Long::longValue).sorted().toArray();
+            }
+        }
+    }
+
+    /**
+     * Outcome of one replay.
+     */
+    public record Report(double speed, Duration elapsed, long skipped, Map<String, RouteStats> routes) {
+
+        public long calls() {
+            return routes.values().stream().mapToLong(RouteStats::calls).sum();
+        }
+
+        public double throughputPerSecond() {
+            return elapsed.isZero() ? 0.0 : calls() * 1000.0 / elapsed.toMillis();
+        }
+
+        public void print() {
+            System.out.printf("Replayed %d calls at %.0fx in %.1f s (%.1f calls/s), %d skipped%n",
+                    calls(), speed, elapsed.toMillis() / 1000.0, throughputPerSecond(), skipped);
+            System.out.printf("%-28s %7s %22s %22s %22s  %s%n", "route", "calls",
+                    "p50 replay/recorded", "p99 replay/recorded", "p999 replay/recorded", "statuses");
+            routes.forEach((route, stats) -> {
+                long[] replayed = stats.replayedMillis();
+                long[] recorded = stats.recordedMillis();
+                System.out.printf("%-28s %7d %22s %22s %22s  %s%n", route, stats.calls(),
+                        percentile(replayed, 0.50) + "/" + percentile(recorded, 0.50) + " ms",
+                        percentile(replayed, 0.99) + "/" + percentile(recorded, 0.99) + " ms",
+                        percentile(replayed, 0.999) + "/" + percentile(recorded, 0.999) + " ms",
+                        stats.statuses());
+            });
+        }
+    }
+}
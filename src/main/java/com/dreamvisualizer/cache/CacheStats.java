@@ -0,0 +1,23 @@
+package com.dreamvisualizer.cache;
+
+/**
+ * Point-in-time counters for a {@link TieredCache}. Disk figures follow the cache's own writes and
+ * deletions and are re-read from the directory by every sweep.
+ */
+public record CacheStats(long memoryHits,
+                         long diskHits,
+                         long misses,
+                         long evictions,
+                         int memoryEntries,
+                         int diskEntries,
+                         long diskBytes) {
+
+    public long hits() {
+        return memoryHits + diskHits;
+    }
+
+    public double hitRatio() {
+        long lookups = hits() + misses;
+        return lookups == 0 ? 0.0 : (double) hits() / lookups;
+    }
+}
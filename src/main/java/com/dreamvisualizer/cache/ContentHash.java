@@ -0,0 +1,62 @@
+package com.dreamvisualizer.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 helpers for building content-addressed cache keys.
+ */
+public final class ContentHash {
+
+    private ContentHash() {
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public static String sha256Hex(byte[] bytes) {
+        return HexFormat.of().formatHex(newDigest().digest(bytes));
+    }
+
+    /**
+     * Hashes the UTF-8 encoding of {@code parts}, each terminated by a NUL so that adjacent parts
+     * cannot run into each other.
+     */
+    public static String sha256Hex(String... parts) {
+        MessageDigest digest = newDigest();
+        for (String part : parts) {
+            digest.update((part == null ? "" : part).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static String sha256Hex(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return copyAndHash(in, OutputStream.nullOutputStream());
+        }
+    }
+
+    /**
+     * Copies {@code in} to {@code out} and returns the SHA-256 of the bytes copied, so a file can
+     * be persisted and fingerprinted in one pass.
+     */
+    public static String copyAndHash(InputStream in, OutputStream out) throws IOException {
+        DigestInputStream digesting = new DigestInputStream(in, newDigest());
+        digesting.transferTo(out);
+        return HexFormat.of().formatHex(digesting.getMessageDigest().digest());
+    }
+}
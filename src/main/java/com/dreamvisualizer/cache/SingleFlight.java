@@ -0,0 +1,103 @@
+package com.dreamvisualizer.cache;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls for the same key into one.
+ *
+ * <p>The first caller for a key runs the call; callers arriving while it is in flight get its
+ * result or its failure instead of starting their own. The key is forgotten the moment the call
+ * completes, so nothing is remembered past completion; caching is left to {@link TieredCache}.</p>
+ */
+public final class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Runs {@code call} unless a call for {@code key} is already in flight, in which case that
+     * call's outcome is shared. Every caller gets its own copy of the shared future, so cancelling
+     * one does not cancel the call for the others.
+     */
+    public CompletableFuture<V> submit(K key, Supplier<CompletableFuture<V>> call) {
+        Objects.requireNonNull(key, "key must not be null");
+        CompletableFuture<V> shared = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, shared);
+        if (existing != null) {
+            coalesced.increment();
+            return existing.copy();
+        }
+        leaders.increment();
+        CompletableFuture<V> upstream;
+        try {
+            upstream = call.get();
+        } catch (RuntimeException e) {
+            upstream = CompletableFuture.failedFuture(e);
+        }
+        upstream.whenComplete((value, failure) -> {
+            // Forget the key first so a caller arriving after completion starts a fresh call
+            inFlight.remove(key, shared);
+            if (failure != null) {
+                shared.completeExceptionally(unwrap(failure));
+            } else {
+                shared.complete(value);
+            }
+        });
+        return shared.copy();
+    }
+
+    /**
+     * Blocking variant of {@link #submit(Object, Supplier)}: the first caller runs {@code call}
+     * on its own thread, the others wait for its outcome. Blocking and non-blocking callers of the
+     * same key share one call.
+     */
+    public V call(K key, Supplier<V> call) {
+        Objects.requireNonNull(key, "key must not be null");
+        CompletableFuture<V> shared = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, shared);
+        if (existing != null) {
+            coalesced.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw e;
+            }
+        }
+        leaders.increment();
+        try {
+            V value = call.get();
+            inFlight.remove(key, shared);
+            shared.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, shared);
+            shared.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(inFlight.size(), leaders.sum(), coalesced.sum());
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+    /**
+     * Point-in-time counters: keys currently in flight, calls that went upstream, and calls that
+     * shared another caller's result instead.
+     */
+    public record Stats(int inFlight, long leaders, long coalesced) {
+    }
+}
@@ -0,0 +1,503 @@
+package com.dreamvisualizer.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Two-level cache: a bounded in-memory LRU in front of an optional directory of JSON files that
+ * survives restarts. Entries may expire after a time-to-live; keys must be hex digests so they
+ * double as file names.
+ *
+ * <p>The disk tier is capped in bytes. A periodic sweep, also triggered when writes push the tier
+ * past its cap, deletes expired entries and abandoned temporary files, then the oldest-written
+ * entries until the tier is back under 90% of the cap. Each file's modification time is set to
+ * its entry's store time, so the sweep never has to parse entries to age them. {@link #close()}
+ * stops the periodic sweep; a cache dropped without closing stops being swept once collected.</p>
+ */
+public final class TieredCache<V> implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TieredCache.class);
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{16,128}");
+    private static final String TEMP_MARKER = ".tmp-";
+    /** Temporary files older than this were left by a writer that died mid-write. */
+    private static final Duration TEMP_FILE_GRACE = Duration.ofMinutes(10);
+    private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-sweep");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String name;
+    private final int maxEntries;
+    private final Duration timeToLive;
+    private final Path directory;
+    private final long maxDiskBytes;
+    private final ObjectMapper mapper;
+    private final Codec<V> codec;
+    private final Clock clock;
+    private final LinkedHashMap<String, Entry<V>> memory;
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final Object sweepLock = new Object();
+    private final AtomicLong diskBytes = new AtomicLong();
+    private final AtomicBoolean sweepQueued = new AtomicBoolean();
+    private final AtomicInteger diskEntries = new AtomicInteger();
+    private final ScheduledFuture<?> periodicSweep;
+
+    private TieredCache(Builder<V> builder) {
+        this.name = builder.name;
+        this.maxEntries = builder.maxEntries;
+        this.timeToLive = builder.timeToLive;
+        this.directory = builder.directory;
+        this.maxDiskBytes = builder.maxDiskBytes;
+        this.mapper = builder.mapper;
+        this.codec = builder.codec;
+        this.clock = builder.clock;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+                if (size() > TieredCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        if (directory != null) {
+            try {
+                Files.createDirectories(directory);
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to create cache directory " + directory, e);
+            }
+            // Only lists file attributes, so sizing up the tier inline keeps start-up cheap
+            sweepQuietly();
+            this.periodicSweep = PeriodicSweep.schedule(this, builder.sweepInterval.toMillis());
+        } else {
+            this.periodicSweep = null;
+        }
+    }
+
+    public static <V> Builder<V> builder(String name, Codec<V> codec) {
+        return new Builder<>(name, codec);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Optional<V> get(String key) {
+        checkKey(key);
+        Instant now = clock.instant();
+        synchronized (memory) {
+            Entry<V> entry = memory.get(key);
+            if (entry != null) {
+                if (!isExpired(entry.storedAt(), now)) {
+                    memoryHits.increment();
+                    return Optional.of(entry.value());
+                }
+                memory.remove(key);
+                evictions.increment();
+            }
+        }
+
+        Optional<Entry<V>> fromDisk = readFromDisk(key, now);
+        if (fromDisk.isPresent()) {
+            diskHits.increment();
+            synchronized (memory) {
+                memory.putIfAbsent(key, fromDisk.get());
+            }
+            return Optional.of(fromDisk.get().value());
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    public void put(String key, V value) {
+        checkKey(key);
+        Objects.requireNonNull(value, "value must not be null");
+        Entry<V> entry = new Entry<>(value, clock.instant());
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
+        if (writeToDisk(key, entry) && diskBytes.get() > maxDiskBytes && sweepQueued.compareAndSet(false, true)) {
+            SWEEPER.execute(() -> {
+                try {
+                    sweepQuietly();
+                } finally {
+                    sweepQueued.set(false);
+                }
+            });
+        }
+    }
+
+    public void invalidate(String key) {
+        checkKey(key);
+        synchronized (memory) {
+            memory.remove(key);
+        }
+        if (directory != null) {
+            try {
+                deleteEntryFile(fileFor(key));
+            } catch (IOException e) {
+                LOGGER.warn("Failed to delete {} cache entry {}", name, key, e);
+            }
+        }
+    }
+
+    /**
+     * Stops the periodic sweep of the disk tier; the cache stays usable and entries stay on disk.
+     */
+    @Override
+    public void close() {
+        if (periodicSweep != null) {
+            periodicSweep.cancel(false);
+        }
+    }
+
+    public CacheStats stats() {
+        int size;
+        synchronized (memory) {
+            size = memory.size();
+        }
+        return new CacheStats(memoryHits.sum(), diskHits.sum(), misses.sum(), evictions.sum(), size,
+                Math.max(0, diskEntries.get()), Math.max(0L, diskBytes.get()));
+    }
+
+    /**
+     * Deletes expired and abandoned files from the disk tier, then the oldest-written entries while
+     * the tier is over its cap. Runs on the sweeper thread; package-private for tests.
+     */
+    void sweepDisk() throws IOException {
+        if (directory == null) {
+            return;
+        }
+        synchronized (sweepLock) {
+            Instant now = clock.instant();
+            List<DiskEntry> entries = new ArrayList<>();
+            long total = 0L;
+            try (Stream<Path> listing = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) listing::iterator) {
+                    BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    } catch (NoSuchFileException e) {
+                        continue;
+                    }
+                    if (!attributes.isRegularFile()) {
+                        continue;
+                    }
+                    String fileName = file.getFileName().toString();
+                    Instant writtenAt = attributes.lastModifiedTime().toInstant();
+                    if (fileName.contains(TEMP_MARKER)) {
+                        if (writtenAt.plus(TEMP_FILE_GRACE).isBefore(now)) {
+                            delete(file);
+                        }
+                    } else if (fileName.endsWith(".json")) {
+                        if (isExpired(writtenAt, now)) {
+                            if (delete(file)) {
+                                evictions.increment();
+                            }
+                        } else {
+                            entries.add(new DiskEntry(file, writtenAt, attributes.size()));
+                            total += attributes.size();
+                        }
+                    }
+                }
+            }
+            int remaining = entries.size();
+            if (total > maxDiskBytes) {
+                long target = maxDiskBytes / 10 * 9;
+                entries.sort(Comparator.comparing(DiskEntry::writtenAt));
+                int evicted = 0;
+                for (DiskEntry entry : entries) {
+                    if (total <= target) {
+                        break;
+                    }
+                    if (delete(entry.file())) {
+                        total -= entry.size();
+                        remaining--;
+                        evicted++;
+                    }
+                }
+                evictions.add(evicted);
+                LOGGER.info("Evicted {} {} cache entries to keep the disk tier under {} bytes", evicted, name, maxDiskBytes);
+            }
+            diskEntries.set(remaining);
+            diskBytes.set(total);
+        }
+    }
+
+    private void sweepQuietly() {
+        try {
+            sweepDisk();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Failed to sweep {} cache directory {}", name, directory, e);
+        }
+    }
+
+    private boolean delete(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to delete {} cache file {}", name, file, e);
+            return false;
+        }
+    }
+
+    private Optional<Entry<V>> readFromDisk(String key, Instant now) {
+        if (directory == null) {
+            return Optional.empty();
+        }
+        Path file = fileFor(key);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try {
+            JsonNode stored = mapper.readTree(file.toFile());
+            Instant storedAt = Instant.ofEpochMilli(stored.path("stored_at").asLong(0));
+            if (isExpired(storedAt, now)) {
+                deleteEntryFile(file);
+                return Optional.empty();
+            }
+            return Optional.of(new Entry<>(codec.decode(stored.path("value")), storedAt));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Discarding unreadable {} cache entry {}: {}", name, key, e.getMessage());
+            try {
+                deleteEntryFile(file);
+            } catch (IOException ignored) {
+                // Left for the next reader to retry
+            }
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Persists the entry, returning whether it reached the disk tier.
+     */
+    private boolean writeToDisk(String key, Entry<V> entry) {
+        if (directory == null) {
+            return false;
+        }
+        ObjectNode stored = mapper.createObjectNode();
+        stored.put("stored_at", entry.storedAt().toEpochMilli());
+        stored.set("value", codec.encode(entry.value(), mapper));
+        Path target = fileFor(key);
+        Path temp = directory.resolve(key + TEMP_MARKER + Thread.currentThread().getId());
+        try {
+            mapper.writeValue(temp.toFile(), stored);
+            Files.setLastModifiedTime(temp, FileTime.from(entry.storedAt()));
+            long size = Files.size(temp);
+            long replaced = sizeIfPresent(target);
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            diskBytes.addAndGet(size - Math.max(0L, replaced));
+            if (replaced < 0) {
+                diskEntries.incrementAndGet();
+            }
+            return true;
+        } catch (IOException e) {
+            LOGGER.warn("Failed to persist {} cache entry {}", name, key, e);
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // Nothing else to clean up
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Deletes an entry file outside a sweep, taking it off the disk tier's running totals.
+     */
+    private void deleteEntryFile(Path file) throws IOException {
+        long size = sizeIfPresent(file);
+        if (size >= 0 && Files.deleteIfExists(file)) {
+            diskBytes.addAndGet(-size);
+            diskEntries.decrementAndGet();
+        }
+    }
+
+    private static long sizeIfPresent(Path file) throws IOException {
+        try {
+            return Files.size(file);
+        } catch (NoSuchFileException e) {
+            return -1L;
+        }
+    }
+
+    private boolean isExpired(Instant storedAt, Instant now) {
+        return timeToLive != null && storedAt.plus(timeToLive).isBefore(now);
+    }
+
+    private Path fileFor(String key) {
+        return directory.resolve(key + ".json");
+    }
+
+    private static void checkKey(String key) {
+        if (key == null || !KEY_PATTERN.matcher(key).matches()) {
+            throw new IllegalArgumentException("Cache keys must be lowercase hex digests");
+        }
+    }
+
+    private record Entry<V>(V value, Instant storedAt) {
+    }
+
+    private record DiskEntry(Path file, Instant writtenAt, long size) {
+    }
+
+    /**
+     * The scheduled sweep of one cache. It holds the cache weakly, so a cache that is dropped
+     * without being closed is still collected, and its sweep then cancels itself.
+     */
+    private static final class PeriodicSweep implements Runnable {
+        private final WeakReference<TieredCache<?>> cache;
+        private volatile ScheduledFuture<?> future;
+
+        private PeriodicSweep(TieredCache<?> cache) {
+            this.cache = new WeakReference<>(cache);
+        }
+
+        static ScheduledFuture<?> schedule(TieredCache<?> cache, long intervalMillis) {
+            PeriodicSweep sweep = new PeriodicSweep(cache);
+            sweep.future = SWEEPER.scheduleWithFixedDelay(sweep, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+            return sweep.future;
+        }
+
+        @Override
+        public void run() {
+            TieredCache<?> target = cache.get();
+            if (target != null) {
+                target.sweepQuietly();
+            } else if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Converts cached values to and from the JSON stored in the disk tier.
+     */
+    public interface Codec<V> {
+        JsonNode encode(V value, ObjectMapper mapper);
+
+        V decode(JsonNode node);
+    }
+
+    public static final class Builder<V> {
+        private final String name;
+        private final Codec<V> codec;
+        private int maxEntries = 256;
+        private Duration timeToLive;
+        private Path directory;
+        private long maxDiskBytes = 256L * 1024 * 1024;
+        private Duration sweepInterval = Duration.ofMinutes(10);
+        private ObjectMapper mapper = new ObjectMapper();
+        private Clock clock = Clock.systemUTC();
+
+        private Builder(String name, Codec<V> codec) {
+            this.name = Objects.requireNonNull(name, "name must not be null");
+            this.codec = Objects.requireNonNull(codec, "codec must not be null");
+        }
+
+        public Builder<V> maxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Entries older than this are treated as absent; {@code null} keeps them until evicted.
+         */
+        public Builder<V> timeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+            return this;
+        }
+
+        /**
+         * Directory for the persistent tier; {@code null} keeps the cache in memory only.
+         */
+        public Builder<V> directory(Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * Upper bound on the bytes the disk tier keeps, 256 MiB by default.
+         */
+        public Builder<V> maxDiskBytes(long maxDiskBytes) {
+            this.maxDiskBytes = maxDiskBytes;
+            return this;
+        }
+
+        /**
+         * How often the disk tier is swept for expired entries, 10 minutes by default.
+         */
+        public Builder<V> sweepInterval(Duration sweepInterval) {
+            this.sweepInterval = Objects.requireNonNull(sweepInterval, "sweepInterval must not be null");
+            return this;
+        }
+
+        public Builder<V> mapper(ObjectMapper mapper) {
+            this.mapper = Objects.requireNonNull(mapper, "mapper must not be null");
+            return this;
+        }
+
+        public Builder<V> clock(Clock clock) {
+            this.clock = Objects.requireNonNull(clock, "clock must not be null");
+            return this;
+        }
+
+        public TieredCache<V> build() {
+            if (maxEntries <= 0) {
+                throw new IllegalArgumentException("maxEntries must be positive");
+            }
+            if (timeToLive != null && (timeToLive.isZero() || timeToLive.isNegative())) {
+                throw new IllegalArgumentException("timeToLive must be positive");
+            }
+            if (maxDiskBytes <= 0) {
+                throw new IllegalArgumentException("maxDiskBytes must be positive");
+            }
+            if (sweepInterval.toMillis() <= 0) {
+                throw new IllegalArgumentException("sweepInterval must be positive");
+            }
+            return new TieredCache<>(this);
+        }
+    }
+}
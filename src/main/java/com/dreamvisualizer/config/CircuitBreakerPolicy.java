@@ -0,0 +1,178 @@
+package com.dreamvisualizer.config;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Settings for the circuit breaker kept per upstream endpoint family: how many recent calls are
+ * judged, the failure and slow-call rates that open the circuit, how long it stays open, and how
+ * many probe calls decide whether it closes again.
+ */
+public class CircuitBreakerPolicy {
+
+    private final boolean enabled;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final Duration slowCallDuration;
+    private final double slowCallRateThreshold;
+    private final Duration openDuration;
+    private final int halfOpenCalls;
+
+    private CircuitBreakerPolicy(Builder builder) {
+        this.enabled = builder.enabled;
+        this.windowSize = builder.windowSize;
+        this.minimumCalls = builder.minimumCalls;
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.slowCallDuration = builder.slowCallDuration;
+        this.slowCallRateThreshold = builder.slowCallRateThreshold;
+        this.openDuration = builder.openDuration;
+        this.halfOpenCalls = builder.halfOpenCalls;
+    }
+
+    public static CircuitBreakerPolicy defaults() {
+        return builder().build();
+    }
+
+    public static CircuitBreakerPolicy disabled() {
+        return builder().enabled(false).build();
+    }
+
+    /**
+     * Reads {@code OPENAI_BREAKER_ENABLED}, {@code OPENAI_BREAKER_WINDOW}, {@code OPENAI_BREAKER_MIN_CALLS},
+     * {@code OPENAI_BREAKER_FAILURE_RATE}, {@code OPENAI_BREAKER_SLOW_CALL_SECONDS},
+     * {@code OPENAI_BREAKER_SLOW_CALL_RATE}, {@code OPENAI_BREAKER_OPEN_SECONDS} and
+     * {@code OPENAI_BREAKER_HALF_OPEN_CALLS}.
+     */
+    public static CircuitBreakerPolicy fromEnvironment() {
+        Builder builder = builder();
+        env("OPENAI_BREAKER_ENABLED").map(Boolean::parseBoolean).ifPresent(builder::enabled);
+        env("OPENAI_BREAKER_WINDOW").map(Integer::parseInt).ifPresent(builder::windowSize);
+        env("OPENAI_BREAKER_MIN_CALLS").map(Integer::parseInt).ifPresent(builder::minimumCalls);
+        env("OPENAI_BREAKER_FAILURE_RATE").map(Double::parseDouble).ifPresent(builder::failureRateThreshold);
+        env("OPENAI_BREAKER_SLOW_CALL_SECONDS").map(Long::parseLong).map(Duration::ofSeconds).ifPresent(builder::slowCallDuration);
+        env("OPENAI_BREAKER_SLOW_CALL_RATE").map(Double::parseDouble).ifPresent(builder::slowCallRateThreshold);
+        env("OPENAI_BREAKER_OPEN_SECONDS").map(Long::parseLong).map(Duration::ofSeconds).ifPresent(builder::openDuration);
+        env("OPENAI_BREAKER_HALF_OPEN_CALLS").map(Integer::parseInt).ifPresent(builder::halfOpenCalls);
+        return builder.build();
+    }
+
+    private static Optional<String> env(String name) {
+        return Optional.ofNullable(System.getenv(name)).filter(value -> !value.isBlank());
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * Number of most recent calls the failure and slow-call rates are computed over.
+     */
+    public int windowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Calls the window must hold before its rates can open the circuit.
+     */
+    public int minimumCalls() {
+        return minimumCalls;
+    }
+
+    public double failureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    /**
+     * Calls taking at least this long count as slow, even when they succeed.
+     */
+    public Duration slowCallDuration() {
+        return slowCallDuration;
+    }
+
+    public double slowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    public Duration openDuration() {
+        return openDuration;
+    }
+
+    /**
+     * Probe calls let through once the open period ends; their outcome closes or re-opens the circuit.
+     */
+    public int halfOpenCalls() {
+        return halfOpenCalls;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private boolean enabled = true;
+        private int windowSize = 20;
+        private int minimumCalls = 10;
+        private double failureRateThreshold = 0.5;
+        private Duration slowCallDuration = Duration.ofSeconds(60);
+        private double slowCallRateThreshold = 0.8;
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int halfOpenCalls = 3;
+
+        public Builder enabled(boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        public Builder windowSize(int windowSize) {
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        public Builder minimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+            return this;
+        }
+
+        public Builder failureRateThreshold(double failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        public Builder slowCallDuration(Duration slowCallDuration) {
+            this.slowCallDuration = slowCallDuration;
+            return this;
+        }
+
+        public Builder slowCallRateThreshold(double slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+            return this;
+        }
+
+        public Builder openDuration(Duration openDuration) {
+            this.openDuration = openDuration;
+            return this;
+        }
+
+        public Builder halfOpenCalls(int halfOpenCalls) {
+            this.halfOpenCalls = halfOpenCalls;
+            return this;
+        }
+
+        public CircuitBreakerPolicy build() {
+            if (windowSize < 1 || minimumCalls < 1 || halfOpenCalls < 1) {
+                throw new IllegalStateException("Breaker window, minimum calls and half-open calls must be positive");
+            }
+            minimumCalls = Math.min(minimumCalls, windowSize);
+            if (failureRateThreshold <= 0 || failureRateThreshold > 1
+                    || slowCallRateThreshold <= 0 || slowCallRateThreshold > 1) {
+                throw new IllegalStateException("Breaker rate thresholds must be in (0, 1]");
+            }
+            if (slowCallDuration.isNegative() || slowCallDuration.isZero()
+                    || openDuration.isNegative() || openDuration.isZero()) {
+                throw new IllegalStateException("Breaker durations must be positive");
+            }
+            return new CircuitBreakerPolicy(this);
+        }
+    }
+}
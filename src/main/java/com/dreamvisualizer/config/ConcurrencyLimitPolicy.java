@@ -0,0 +1,186 @@
+package com.dreamvisualizer.config;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Settings for the adaptive concurrency limit kept per upstream endpoint family: the bounds the
+ * limit moves within, how much latency growth is tolerated before it shrinks, how hard a 429
+ * cuts it, and how many callers may wait for a slot (and for how long) before being shed.
+ */
+public class ConcurrencyLimitPolicy {
+
+    private final boolean adaptive;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private final double smoothing;
+    private final double backoffRatio;
+    private final int queueCapacity;
+    private final Duration maxQueueWait;
+
+    private ConcurrencyLimitPolicy(Builder builder) {
+        this.adaptive = builder.adaptive;
+        this.initialLimit = builder.initialLimit;
+        this.minLimit = builder.minLimit;
+        this.maxLimit = builder.maxLimit;
+        this.latencyTolerance = builder.latencyTolerance;
+        this.smoothing = builder.smoothing;
+        this.backoffRatio = builder.backoffRatio;
+        this.queueCapacity = builder.queueCapacity;
+        this.maxQueueWait = builder.maxQueueWait;
+    }
+
+    public static ConcurrencyLimitPolicy defaults() {
+        return builder().build();
+    }
+
+    /**
+     * Reads {@code OPENAI_LIMIT_ADAPTIVE}, {@code OPENAI_LIMIT_INITIAL}, {@code OPENAI_LIMIT_MIN},
+     * {@code OPENAI_LIMIT_MAX}, {@code OPENAI_LIMIT_LATENCY_TOLERANCE}, {@code OPENAI_LIMIT_BACKOFF_RATIO},
+     * {@code OPENAI_LIMIT_QUEUE_CAPACITY} and {@code OPENAI_LIMIT_MAX_QUEUE_WAIT_SECONDS}.
+     */
+    public static ConcurrencyLimitPolicy fromEnvironment() {
+        Builder builder = builder();
+        env("OPENAI_LIMIT_ADAPTIVE").map(Boolean::parseBoolean).ifPresent(builder::adaptive);
+        env("OPENAI_LIMIT_INITIAL").map(Integer::parseInt).ifPresent(builder::initialLimit);
+        env("OPENAI_LIMIT_MIN").map(Integer::parseInt).ifPresent(builder::minLimit);
+        env("OPENAI_LIMIT_MAX").map(Integer::parseInt).ifPresent(builder::maxLimit);
+        env("OPENAI_LIMIT_LATENCY_TOLERANCE").map(Double::parseDouble).ifPresent(builder::latencyTolerance);
+        env("OPENAI_LIMIT_BACKOFF_RATIO").map(Double::parseDouble).ifPresent(builder::backoffRatio);
+        env("OPENAI_LIMIT_QUEUE_CAPACITY").map(Integer::parseInt).ifPresent(builder::queueCapacity);
+        env("OPENAI_LIMIT_MAX_QUEUE_WAIT_SECONDS").map(Long::parseLong).map(Duration::ofSeconds).ifPresent(builder::maxQueueWait);
+        return builder.build();
+    }
+
+    private static Optional<String> env(String name) {
+        return Optional.ofNullable(System.getenv(name)).filter(value -> !value.isBlank());
+    }
+
+    /**
+     * When {@code false} the limit stays at {@link #maxLimit()} and only the queueing applies.
+     */
+    public boolean adaptive() {
+        return adaptive;
+    }
+
+    public int initialLimit() {
+        return initialLimit;
+    }
+
+    public int minLimit() {
+        return minLimit;
+    }
+
+    public int maxLimit() {
+        return maxLimit;
+    }
+
+    /**
+     * How many times the baseline latency a window may average before the limit shrinks.
+     */
+    public double latencyTolerance() {
+        return latencyTolerance;
+    }
+
+    /**
+     * Weight of each window's limit estimate against the current limit.
+     */
+    public double smoothing() {
+        return smoothing;
+    }
+
+    /**
+     * Factor the limit is multiplied by when the upstream answers 429 or 503.
+     */
+    public double backoffRatio() {
+        return backoffRatio;
+    }
+
+    public int queueCapacity() {
+        return queueCapacity;
+    }
+
+    public Duration maxQueueWait() {
+        return maxQueueWait;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private boolean adaptive = true;
+        private int initialLimit = 8;
+        private int minLimit = 1;
+        private int maxLimit = 64;
+        private double latencyTolerance = 2.0;
+        private double smoothing = 0.5;
+        private double backoffRatio = 0.75;
+        private int queueCapacity = 256;
+        private Duration maxQueueWait = Duration.ofSeconds(60);
+
+        public Builder adaptive(boolean adaptive) {
+            this.adaptive = adaptive;
+            return this;
+        }
+
+        public Builder initialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        public Builder minLimit(int minLimit) {
+            this.minLimit = minLimit;
+            return this;
+        }
+
+        public Builder maxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        public Builder latencyTolerance(double latencyTolerance) {
+            this.latencyTolerance = latencyTolerance;
+            return this;
+        }
+
+        public Builder smoothing(double smoothing) {
+            this.smoothing = smoothing;
+            return this;
+        }
+
+        public Builder backoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        public Builder queueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        public Builder maxQueueWait(Duration maxQueueWait) {
+            this.maxQueueWait = maxQueueWait;
+            return this;
+        }
+
+        public ConcurrencyLimitPolicy build() {
+            if (minLimit < 1 || maxLimit < minLimit) {
+                throw new IllegalStateException("Concurrency limits must satisfy 1 <= min <= max");
+            }
+            initialLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+            if (latencyTolerance < 1.0) {
+                throw new IllegalStateException("Latency tolerance must be at least 1");
+            }
+            if (smoothing <= 0 || smoothing > 1 || backoffRatio <= 0 || backoffRatio >= 1) {
+                throw new IllegalStateException("Smoothing must be in (0, 1] and backoff ratio in (0, 1)");
+            }
+            if (queueCapacity < 0 || maxQueueWait.isNegative()) {
+                throw new IllegalStateException("Limiter queue bounds must not be negative");
+            }
+            return new ConcurrencyLimitPolicy(this);
+        }
+    }
+}
@@ -2,7 +2,11 @@ package com.dreamvisualizer.config;
 
 import okhttp3.HttpUrl;
 
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -14,44 +18,106 @@ public class OpenAIConfig {
     private static final String DEFAULT_SPEECH_MODEL = "gpt-4o-transcribe";
     private static final String DEFAULT_TEXT_MODEL = "gpt-5-mini";
     private static final String DEFAULT_VIDEO_MODEL = "sora-2";
+    private static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 64;
+    private static final int DEFAULT_MAX_CONCURRENT_DOWNLOADS = 4;
 
-    private final String apiKey;
+    private final List<OpenAICredential> credentials;
     private final HttpUrl baseUrl;
     private final String speechModel;
     private final String textModel;
     private final String videoModel;
-    private final String project;
     private final Duration requestTimeout;
+    private final RetryPolicy retryPolicy;
+    private final ConcurrencyLimitPolicy concurrencyLimitPolicy;
+    private final CircuitBreakerPolicy circuitBreakerPolicy;
+    private final Duration rateLimitMaxWait;
+    private final int maxConcurrentRequests;
+    private final int maxConcurrentDownloads;
+    private final Path traceFile;
 
     private OpenAIConfig(Builder builder) {
-        this.apiKey = builder.apiKey;
+        this.credentials = List.copyOf(builder.credentials);
         this.baseUrl = builder.baseUrl;
         this.speechModel = builder.speechModel;
         this.textModel = builder.textModel;
         this.videoModel = builder.videoModel;
-        this.project = builder.project;
         this.requestTimeout = builder.requestTimeout;
+        this.retryPolicy = builder.retryPolicy;
+        this.concurrencyLimitPolicy = builder.concurrencyLimitPolicy;
+        this.circuitBreakerPolicy = builder.circuitBreakerPolicy;
+        this.rateLimitMaxWait = builder.rateLimitMaxWait;
+        this.maxConcurrentRequests = builder.maxConcurrentRequests;
+        this.maxConcurrentDownloads = builder.maxConcurrentDownloads;
+        this.traceFile = builder.traceFile;
     }
 
+    /**
+     * Reads the credential pool from {@code OPENAI_API_KEYS} when set, a comma-separated list of
+     * {@code apiKey[|project[|weight]]} entries, and otherwise from {@code OPENAI_API_KEY} and
+     * {@code OPENAI_PROJECT}.
+     */
     public static OpenAIConfig fromEnvironment() {
         Builder builder = new Builder();
-        builder.apiKey = Optional.ofNullable(System.getenv("OPENAI_API_KEY"))
-                .orElseThrow(() -> new IllegalStateException("OPENAI_API_KEY env var must be set"));
+        Optional<String> keyPool = Optional.ofNullable(System.getenv("OPENAI_API_KEYS")).filter(value -> !value.isBlank());
+        if (keyPool.isPresent()) {
+            parseCredentials(keyPool.get()).forEach(builder::credential);
+        } else {
+            builder.apiKey = Optional.ofNullable(System.getenv("OPENAI_API_KEY"))
+                    .orElseThrow(() -> new IllegalStateException("OPENAI_API_KEY env var must be set"));
+            builder.project = Optional.ofNullable(System.getenv("OPENAI_PROJECT")).orElse(null);
+        }
         builder.baseUrl = HttpUrl.parse(
                 Optional.ofNullable(System.getenv("OPENAI_BASE_URL")).orElse(DEFAULT_BASE_URL));
         builder.speechModel = Optional.ofNullable(System.getenv("OPENAI_AUDIO_MODEL")).orElse(DEFAULT_SPEECH_MODEL);
         builder.textModel = Optional.ofNullable(System.getenv("OPENAI_TEXT_MODEL")).orElse(DEFAULT_TEXT_MODEL);
         builder.videoModel = Optional.ofNullable(System.getenv("OPENAI_VIDEO_MODEL")).orElse(DEFAULT_VIDEO_MODEL);
-        builder.project = Optional.ofNullable(System.getenv("OPENAI_PROJECT")).orElse(null);
         builder.requestTimeout = Optional.ofNullable(System.getenv("OPENAI_REQUEST_TIMEOUT_SECONDS"))
                 .map(Integer::parseInt)
                 .map(Duration::ofSeconds)
                 .orElse(Duration.ofSeconds(120));
+        builder.retryPolicy = RetryPolicy.fromEnvironment();
+        builder.concurrencyLimitPolicy = ConcurrencyLimitPolicy.fromEnvironment();
+        builder.circuitBreakerPolicy = CircuitBreakerPolicy.fromEnvironment();
+        builder.rateLimitMaxWait = Optional.ofNullable(System.getenv("OPENAI_RATE_LIMIT_MAX_WAIT_SECONDS"))
+                .map(Long::parseLong)
+                .map(Duration::ofSeconds)
+                .orElse(Duration.ofSeconds(60));
+        builder.maxConcurrentRequests = Optional.ofNullable(System.getenv("OPENAI_MAX_CONCURRENT_REQUESTS"))
+                .map(Integer::parseInt)
+                .orElse(DEFAULT_MAX_CONCURRENT_REQUESTS);
+        builder.maxConcurrentDownloads = Optional.ofNullable(System.getenv("OPENAI_MAX_CONCURRENT_DOWNLOADS"))
+                .map(Integer::parseInt)
+                .orElse(DEFAULT_MAX_CONCURRENT_DOWNLOADS);
+        builder.traceFile = Optional.ofNullable(System.getenv("OPENAI_TRACE_FILE"))
+                .filter(value -> !value.isBlank())
+                .map(Path::of)
+                .orElse(null);
         return builder.build();
     }
 
+    private static List<OpenAICredential> parseCredentials(String spec) {
+        List<OpenAICredential> credentials = new ArrayList<>();
+        for (String entry : spec.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.trim().split("\\|", -1);
+            String project = parts.length > 1 ? parts[1].trim() : null;
+            int weight = parts.length > 2 && !parts[2].isBlank() ? Integer.parseInt(parts[2].trim()) : 1;
+            credentials.add(new OpenAICredential("key-" + (credentials.size() + 1), parts[0].trim(), project, weight));
+        }
+        return credentials;
+    }
+
+    /**
+     * Key of the first credential in the pool.
+     */
     public String getApiKey() {
-        return apiKey;
+        return credentials.get(0).apiKey();
+    }
+
+    public List<OpenAICredential> getCredentials() {
+        return credentials;
     }
 
     public HttpUrl getBaseUrl() {
@@ -70,28 +136,83 @@ public class OpenAIConfig {
         return videoModel;
     }
 
+    /**
+     * Project of the first credential in the pool.
+     */
     public Optional<String> getProject() {
-        return Optional.ofNullable(project).filter(p -> !p.isBlank());
+        return credentials.get(0).projectId();
     }
 
     public Duration getRequestTimeout() {
         return requestTimeout;
     }
 
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public ConcurrencyLimitPolicy getConcurrencyLimitPolicy() {
+        return concurrencyLimitPolicy;
+    }
+
+    public CircuitBreakerPolicy getCircuitBreakerPolicy() {
+        return circuitBreakerPolicy;
+    }
+
+    /**
+     * Longest a call is held back waiting for the client-side rate-limit budget; zero disables pacing.
+     */
+    public Duration getRateLimitMaxWait() {
+        return rateLimitMaxWait;
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public int getMaxConcurrentDownloads() {
+        return maxConcurrentDownloads;
+    }
+
+    /**
+     * File the client appends a redacted trace of every upstream attempt to; empty disables
+     * recording.
+     */
+    public Optional<Path> getTraceFile() {
+        return Optional.ofNullable(traceFile);
+    }
+
     public static class Builder {
         private String apiKey;
+        private final List<OpenAICredential> credentials = new ArrayList<>();
         private HttpUrl baseUrl = HttpUrl.parse(DEFAULT_BASE_URL);
         private String speechModel = DEFAULT_SPEECH_MODEL;
         private String textModel = DEFAULT_TEXT_MODEL;
         private String videoModel = DEFAULT_VIDEO_MODEL;
         private String project;
         private Duration requestTimeout = Duration.ofSeconds(120);
+        private RetryPolicy retryPolicy = RetryPolicy.defaults();
+        private ConcurrencyLimitPolicy concurrencyLimitPolicy = ConcurrencyLimitPolicy.defaults();
+        private CircuitBreakerPolicy circuitBreakerPolicy = CircuitBreakerPolicy.defaults();
+        private Duration rateLimitMaxWait = Duration.ofSeconds(60);
+        private int maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+        private int maxConcurrentDownloads = DEFAULT_MAX_CONCURRENT_DOWNLOADS;
+        private Path traceFile;
 
         public Builder apiKey(String apiKey) {
             this.apiKey = apiKey;
             return this;
         }
 
+        /**
+         * Adds a key to the credential pool; when any are added, {@link #apiKey(String)} and
+         * {@link #project(String)} are ignored.
+         */
+        public Builder credential(OpenAICredential credential) {
+            this.credentials.add(credential);
+            return this;
+        }
+
         public Builder baseUrl(String baseUrl) {
             this.baseUrl = HttpUrl.parse(baseUrl);
             return this;
@@ -122,13 +243,69 @@ public class OpenAIConfig {
             return this;
         }
 
+        public Builder retryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        public Builder concurrencyLimitPolicy(ConcurrencyLimitPolicy concurrencyLimitPolicy) {
+            this.concurrencyLimitPolicy = concurrencyLimitPolicy;
+            return this;
+        }
+
+        public Builder circuitBreakerPolicy(CircuitBreakerPolicy circuitBreakerPolicy) {
+            this.circuitBreakerPolicy = circuitBreakerPolicy;
+            return this;
+        }
+
+        public Builder rateLimitMaxWait(Duration rateLimitMaxWait) {
+            this.rateLimitMaxWait = rateLimitMaxWait;
+            return this;
+        }
+
+        public Builder maxConcurrentRequests(int maxConcurrentRequests) {
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            return this;
+        }
+
+        public Builder maxConcurrentDownloads(int maxConcurrentDownloads) {
+            this.maxConcurrentDownloads = maxConcurrentDownloads;
+            return this;
+        }
+
+        public Builder traceFile(Path traceFile) {
+            this.traceFile = traceFile;
+            return this;
+        }
+
         public OpenAIConfig build() {
-            if (apiKey == null || apiKey.isBlank()) {
-                throw new IllegalStateException("API key must not be blank");
+            if (credentials.isEmpty()) {
+                if (apiKey == null || apiKey.isBlank()) {
+                    throw new IllegalStateException("API key must not be blank");
+                }
+                credentials.add(new OpenAICredential("primary", apiKey, project, 1));
+            }
+            if (new HashSet<>(credentials.stream().map(OpenAICredential::name).toList()).size() != credentials.size()) {
+                throw new IllegalStateException("Credential names must be unique");
             }
             if (baseUrl == null) {
                 throw new IllegalStateException("Base URL must be provided");
             }
+            if (maxConcurrentRequests <= 0 || maxConcurrentDownloads <= 0) {
+                throw new IllegalStateException("Concurrency limits must be positive");
+            }
+            if (retryPolicy == null) {
+                throw new IllegalStateException("Retry policy must be provided");
+            }
+            if (rateLimitMaxWait == null || rateLimitMaxWait.isNegative()) {
+                throw new IllegalStateException("Rate limit wait must not be negative");
+            }
+            if (concurrencyLimitPolicy == null) {
+                throw new IllegalStateException("Concurrency limit policy must be provided");
+            }
+            if (circuitBreakerPolicy == null) {
+                throw new IllegalStateException("Circuit breaker policy must be provided");
+            }
             return new OpenAIConfig(this);
         }
     }
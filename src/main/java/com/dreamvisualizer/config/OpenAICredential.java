@@ -0,0 +1,40 @@
+package com.dreamvisualizer.config;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * One API key (optionally scoped to a project) in the client's credential pool. The weight sets
+ * its share of traffic relative to the other keys.
+ */
+public record OpenAICredential(String name, String apiKey, String project, int weight) {
+
+    public OpenAICredential {
+        Objects.requireNonNull(name, "name must not be null");
+        if (apiKey == null || apiKey.isBlank()) {
+            throw new IllegalArgumentException("API key must not be blank");
+        }
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Credential weight must be positive");
+        }
+        project = project == null || project.isBlank() ? null : project;
+    }
+
+    public Optional<String> projectId() {
+        return Optional.ofNullable(project);
+    }
+
+    /**
+     * Upstream rate limits apply per project, so keys of the same project share one budget; a key
+     * without a project has a budget of its own.
+     */
+    public String budgetScope() {
+        return project != null ? project : name;
+    }
+
+    @Override
+    public String toString() {
+        // Never print the key itself
+        return "OpenAICredential[name=" + name + ", project=" + project + ", weight=" + weight + "]";
+    }
+}
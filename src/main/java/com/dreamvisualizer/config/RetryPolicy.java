@@ -0,0 +1,200 @@
+package com.dreamvisualizer.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retry settings for upstream OpenAI calls: attempt limits per endpoint family, decorrelated
+ * jitter backoff bounds, how far a server-provided wait hint is honoured, and the budgets that
+ * keep retries from amplifying an upstream overload.
+ */
+public class RetryPolicy {
+
+    private static final Set<String> DEFAULT_IDEMPOTENT_POSTS = Set.of("audio/transcriptions", "responses");
+
+    private final int defaultMaxAttempts;
+    private final Map<String, Integer> maxAttemptsByEndpoint;
+    private final Set<String> idempotentPostEndpoints;
+    private final Duration baseDelay;
+    private final Duration maxDelay;
+    private final Duration maxServerWait;
+    private final Duration perRequestBudget;
+    private final double budgetRatio;
+    private final int minRetriesPerSecond;
+
+    private RetryPolicy(Builder builder) {
+        this.defaultMaxAttempts = builder.defaultMaxAttempts;
+        this.maxAttemptsByEndpoint = Map.copyOf(builder.maxAttemptsByEndpoint);
+        this.idempotentPostEndpoints = Set.copyOf(builder.idempotentPostEndpoints);
+        this.baseDelay = builder.baseDelay;
+        this.maxDelay = builder.maxDelay;
+        this.maxServerWait = builder.maxServerWait;
+        this.perRequestBudget = builder.perRequestBudget;
+        this.budgetRatio = builder.budgetRatio;
+        this.minRetriesPerSecond = builder.minRetriesPerSecond;
+    }
+
+    public static RetryPolicy defaults() {
+        return builder().build();
+    }
+
+    public static RetryPolicy disabled() {
+        return builder().defaultMaxAttempts(1).build();
+    }
+
+    /**
+     * Reads {@code OPENAI_MAX_ATTEMPTS}, {@code OPENAI_RETRY_ENDPOINT_ATTEMPTS} (for example
+     * {@code videos:2,responses:4}), {@code OPENAI_RETRY_BASE_DELAY_MS}, {@code OPENAI_RETRY_MAX_DELAY_MS},
+     * {@code OPENAI_RETRY_MAX_SERVER_WAIT_SECONDS}, {@code OPENAI_RETRY_REQUEST_BUDGET_SECONDS} and
+     * {@code OPENAI_RETRY_BUDGET_RATIO}.
+     */
+    public static RetryPolicy fromEnvironment() {
+        Builder builder = builder();
+        env("OPENAI_MAX_ATTEMPTS").map(Integer::parseInt).ifPresent(builder::defaultMaxAttempts);
+        env("OPENAI_RETRY_ENDPOINT_ATTEMPTS").ifPresent(spec -> {
+            for (String entry : spec.split(",")) {
+                int separator = entry.lastIndexOf(':');
+                if (separator > 0) {
+                    builder.maxAttempts(entry.substring(0, separator).trim(),
+                            Integer.parseInt(entry.substring(separator + 1).trim()));
+                }
+            }
+        });
+        env("OPENAI_RETRY_BASE_DELAY_MS").map(Long::parseLong).map(Duration::ofMillis).ifPresent(builder::baseDelay);
+        env("OPENAI_RETRY_MAX_DELAY_MS").map(Long::parseLong).map(Duration::ofMillis).ifPresent(builder::maxDelay);
+        env("OPENAI_RETRY_MAX_SERVER_WAIT_SECONDS").map(Long::parseLong).map(Duration::ofSeconds).ifPresent(builder::maxServerWait);
+        env("OPENAI_RETRY_REQUEST_BUDGET_SECONDS").map(Long::parseLong).map(Duration::ofSeconds).ifPresent(builder::perRequestBudget);
+        env("OPENAI_RETRY_BUDGET_RATIO").map(Double::parseDouble).ifPresent(builder::budgetRatio);
+        return builder.build();
+    }
+
+    private static Optional<String> env(String name) {
+        return Optional.ofNullable(System.getenv(name)).filter(value -> !value.isBlank());
+    }
+
+    public int maxAttempts(String endpoint) {
+        return maxAttemptsByEndpoint.getOrDefault(endpoint, defaultMaxAttempts);
+    }
+
+    /**
+     * Whether a POST to the endpoint may be replayed after an ambiguous failure (timeout, 5xx)
+     * where the upstream may already have acted on it. Transcription and responses calls have no
+     * side effects beyond cost; a duplicated {@code videos} submission would start a second render.
+     */
+    public boolean isIdempotentPost(String endpoint) {
+        return idempotentPostEndpoints.contains(endpoint);
+    }
+
+    /**
+     * Decorrelated jitter: a random delay between the base delay and three times the previous
+     * delay, capped at the maximum delay.
+     */
+    public Duration nextBackoff(Duration previous) {
+        long base = baseDelay.toMillis();
+        long upper = Math.max(base + 1, Math.min(maxDelay.toMillis(), previous.toMillis() * 3));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(base, upper + 1));
+    }
+
+    public Duration baseDelay() {
+        return baseDelay;
+    }
+
+    public Duration maxServerWait() {
+        return maxServerWait;
+    }
+
+    public Duration perRequestBudget() {
+        return perRequestBudget;
+    }
+
+    public double budgetRatio() {
+        return budgetRatio;
+    }
+
+    public int minRetriesPerSecond() {
+        return minRetriesPerSecond;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private int defaultMaxAttempts = 3;
+        private final Map<String, Integer> maxAttemptsByEndpoint = new HashMap<>();
+        private final Set<String> idempotentPostEndpoints = new HashSet<>(DEFAULT_IDEMPOTENT_POSTS);
+        private Duration baseDelay = Duration.ofMillis(500);
+        private Duration maxDelay = Duration.ofSeconds(20);
+        private Duration maxServerWait = Duration.ofSeconds(60);
+        private Duration perRequestBudget = Duration.ofSeconds(90);
+        private double budgetRatio = 0.2;
+        private int minRetriesPerSecond = 5;
+
+        public Builder defaultMaxAttempts(int attempts) {
+            this.defaultMaxAttempts = attempts;
+            return this;
+        }
+
+        public Builder maxAttempts(String endpoint, int attempts) {
+            this.maxAttemptsByEndpoint.put(endpoint, attempts);
+            return this;
+        }
+
+        public Builder idempotentPost(String endpoint, boolean idempotent) {
+            if (idempotent) {
+                idempotentPostEndpoints.add(endpoint);
+            } else {
+                idempotentPostEndpoints.remove(endpoint);
+            }
+            return this;
+        }
+
+        public Builder baseDelay(Duration baseDelay) {
+            this.baseDelay = baseDelay;
+            return this;
+        }
+
+        public Builder maxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        public Builder maxServerWait(Duration maxServerWait) {
+            this.maxServerWait = maxServerWait;
+            return this;
+        }
+
+        public Builder perRequestBudget(Duration perRequestBudget) {
+            this.perRequestBudget = perRequestBudget;
+            return this;
+        }
+
+        public Builder budgetRatio(double budgetRatio) {
+            this.budgetRatio = budgetRatio;
+            return this;
+        }
+
+        public Builder minRetriesPerSecond(int minRetriesPerSecond) {
+            this.minRetriesPerSecond = minRetriesPerSecond;
+            return this;
+        }
+
+        public RetryPolicy build() {
+            if (defaultMaxAttempts < 1 || maxAttemptsByEndpoint.values().stream().anyMatch(attempts -> attempts < 1)) {
+                throw new IllegalStateException("Max attempts must be at least 1");
+            }
+            if (baseDelay.isNegative() || baseDelay.isZero() || maxDelay.compareTo(baseDelay) < 0) {
+                throw new IllegalStateException("Retry delays must satisfy 0 < base <= max");
+            }
+            if (budgetRatio < 0) {
+                throw new IllegalStateException("Retry budget ratio must not be negative");
+            }
+            return new RetryPolicy(this);
+        }
+    }
+}
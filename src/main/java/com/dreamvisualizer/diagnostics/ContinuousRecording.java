@@ -0,0 +1,100 @@
+package com.dreamvisualizer.diagnostics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Always-on flight recording with a rolling disk buffer: the JVM keeps the last
+ * {@code maxAge}/{@code maxSize} of events in its repository and {@link #dump(Path)} snapshots
+ * them on demand, so a slow dream can be examined after the fact without having been profiled.
+ *
+ * <p>Runs the JDK's {@code default} settings (designed to stay around 1% overhead) plus this
+ * application's events. The initial environment is never recorded, since it holds the API keys.</p>
+ */
+public final class ContinuousRecording implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContinuousRecording.class);
+
+    private final Recording recording;
+
+    private ContinuousRecording(Recording recording) {
+        this.recording = recording;
+    }
+
+    /**
+     * Starts a recording when {@code DREAM_JFR_ENABLED} is {@code true}, keeping
+     * {@code DREAM_JFR_MAX_AGE_MINUTES} (default {@code 30}) and at most {@code DREAM_JFR_MAX_SIZE_MB}
+     * (default {@code 256}) with the {@code DREAM_JFR_SETTINGS} configuration (default
+     * {@code default}, or {@code profile} for more detail at a higher cost).
+     */
+    public static Optional<ContinuousRecording> fromEnvironment() {
+        boolean enabled = Boolean.parseBoolean(Optional.ofNullable(System.getenv("DREAM_JFR_ENABLED")).orElse("false"));
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Duration maxAge = Optional.ofNullable(System.getenv("DREAM_JFR_MAX_AGE_MINUTES"))
+                .map(Long::parseLong)
+                .map(Duration::ofMinutes)
+                .orElse(Duration.ofMinutes(30));
+        long maxSizeBytes = Optional.ofNullable(System.getenv("DREAM_JFR_MAX_SIZE_MB"))
+                .map(Long::parseLong)
+                .orElse(256L) * 1024 * 1024;
+        String settings = Optional.ofNullable(System.getenv("DREAM_JFR_SETTINGS")).orElse("default");
+        return Optional.of(start(maxAge, maxSizeBytes, settings));
+    }
+
+    public static ContinuousRecording start(Duration maxAge, long maxSizeBytes, String settings) {
+        Objects.requireNonNull(maxAge, "maxAge must not be null");
+        if (maxSizeBytes <= 0) {
+            throw new IllegalArgumentException("maxSizeBytes must be positive");
+        }
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings);
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException("Unknown JFR settings '" + settings + "'", e);
+        }
+        Recording recording = new Recording(configuration);
+        recording.setName("dream-visualizer");
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.setMaxSize(maxSizeBytes);
+        recording.disable("jdk.InitialEnvironmentVariable");
+        recording.enable(PipelineStageEvent.class);
+        recording.enable(UpstreamCallEvent.class);
+        recording.enable(VideoDownloadEvent.class);
+        recording.enable(SoraPollEvent.class);
+        recording.enable(VideoServeEvent.class);
+        recording.start();
+        LOGGER.info("Continuous flight recording started ({} settings, last {} min, up to {} MB)",
+                settings, maxAge.toMinutes(), maxSizeBytes / (1024 * 1024));
+        return new ContinuousRecording(recording);
+    }
+
+    /**
+     * Writes the buffered window to {@code destination}; the recording keeps running.
+     */
+    public Path dump(Path destination) throws IOException {
+        Path parent = destination.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        recording.dump(destination);
+        return destination;
+    }
+
+    @Override
+    public void close() {
+        recording.close();
+    }
+}
@@ -0,0 +1,48 @@
+package com.dreamvisualizer.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One stage of a pipeline run, from the moment its dependencies completed to its result. The
+ * duration therefore includes the wait for a bulkhead slot.
+ */
+@Name("com.dreamvisualizer.PipelineStage")
+@Label("Pipeline Stage")
+@Category({"Dream Visualizer", "Pipeline"})
+@StackTrace(false)
+public final class PipelineStageEvent extends Event {
+
+    @Label("Job Id")
+    public String jobId;
+
+    @Label("Stage")
+    public String stage;
+
+    @Label("Status")
+    @Description("completed or failed")
+    public String status;
+
+    /**
+     * Begins timing a stage, or returns {@code null} when no recording wants the event.
+     */
+    public static PipelineStageEvent begin(String jobId, String stage) {
+        PipelineStageEvent event = new PipelineStageEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.jobId = jobId;
+        event.stage = stage;
+        event.begin();
+        return event;
+    }
+
+    public void finish(boolean failed) {
+        status = failed ? "failed" : "completed";
+        commit();
+    }
+}
@@ -0,0 +1,59 @@
+package com.dreamvisualizer.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One status poll of a tracked Sora render, from the request to the handling of its answer.
+ */
+@Name("com.dreamvisualizer.SoraPoll")
+@Label("Sora Poll")
+@Category({"Dream Visualizer", "Video"})
+@StackTrace(false)
+public final class SoraPollEvent extends Event {
+
+    @Label("Job Id")
+    @Description("Dream job that started the render, empty outside a job")
+    public String jobId;
+
+    @Label("Video Id")
+    public String videoId;
+
+    @Label("Poll")
+    @Description("Number of this poll for the video, starting at 1")
+    public int poll;
+
+    @Label("Status")
+    @Description("Render status reported, or error when the poll failed")
+    public String status;
+
+    @Label("Progress")
+    @Description("Reported progress in percent, -1 when unknown")
+    public int progress;
+
+    @Label("Consecutive Failures")
+    public int consecutiveFailures;
+
+    public static SoraPollEvent begin(String jobId, String videoId, int poll) {
+        SoraPollEvent event = new SoraPollEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.jobId = jobId;
+        event.videoId = videoId;
+        event.poll = poll;
+        event.begin();
+        return event;
+    }
+
+    public void finish(String status, int progress, int consecutiveFailures) {
+        this.status = status;
+        this.progress = progress;
+        this.consecutiveFailures = consecutiveFailures;
+        commit();
+    }
+}
@@ -0,0 +1,74 @@
+package com.dreamvisualizer.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One attempt of an upstream call, to the end of its response body.
+ */
+@Name("com.dreamvisualizer.UpstreamCall")
+@Label("Upstream Call")
+@Category({"Dream Visualizer", "Upstream"})
+@StackTrace(false)
+public final class UpstreamCallEvent extends Event {
+
+    @Label("Job Id")
+    @Description("Dream job the call was made for, empty outside a job")
+    public String jobId;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Endpoint")
+    @Description("Endpoint family, external for hosts other than the API")
+    public String endpoint;
+
+    @Label("Path")
+    @Description("Request path without the query; empty for external hosts such as signed CDN links")
+    public String path;
+
+    @Label("Attempt")
+    public int attempt;
+
+    @Label("Status")
+    @Description("HTTP status, 0 for a transport failure")
+    public int status;
+
+    @Label("Request Bytes")
+    @DataAmount
+    public long requestBytes;
+
+    @Label("Response Bytes")
+    @DataAmount
+    public long responseBytes;
+
+    /**
+     * Begins timing an attempt, or returns {@code null} when no recording wants the event.
+     */
+    public static UpstreamCallEvent begin(String jobId, String method, String endpoint, String path,
+                                          int attempt, long requestBytes) {
+        UpstreamCallEvent event = new UpstreamCallEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.jobId = jobId;
+        event.method = method;
+        event.endpoint = endpoint;
+        event.path = path;
+        event.attempt = attempt;
+        event.requestBytes = requestBytes;
+        event.begin();
+        return event;
+    }
+
+    public void finish(int status, long responseBytes) {
+        this.status = status;
+        this.responseBytes = responseBytes;
+        commit();
+    }
+}
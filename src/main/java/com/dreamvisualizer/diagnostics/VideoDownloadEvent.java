@@ -0,0 +1,54 @@
+package com.dreamvisualizer.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A whole asset download, across its resumed and retried attempts, up to the rename into place.
+ */
+@Name("com.dreamvisualizer.VideoDownload")
+@Label("Video Download")
+@Category({"Dream Visualizer", "Upstream"})
+@StackTrace(false)
+public final class VideoDownloadEvent extends Event {
+
+    @Label("Job Id")
+    @Description("Dream job the video belongs to, empty outside a job")
+    public String jobId;
+
+    @Label("File")
+    public String file;
+
+    @Label("Status")
+    public String status;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Resumes")
+    public int resumes;
+
+    public static VideoDownloadEvent begin(String jobId, String file) {
+        VideoDownloadEvent event = new VideoDownloadEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.jobId = jobId;
+        event.file = file;
+        event.begin();
+        return event;
+    }
+
+    public void finish(boolean failed, long bytes, int resumes) {
+        this.status = failed ? "failed" : "completed";
+        this.bytes = bytes;
+        this.resumes = resumes;
+        commit();
+    }
+}
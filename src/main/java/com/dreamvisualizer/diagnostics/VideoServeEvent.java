@@ -0,0 +1,48 @@
+package com.dreamvisualizer.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One {@code GET} or {@code HEAD} of a finished video.
+ */
+@Name("com.dreamvisualizer.VideoServe")
+@Label("Video Serve")
+@Category({"Dream Visualizer", "Server"})
+@StackTrace(false)
+public final class VideoServeEvent extends Event {
+
+    @Label("File")
+    public String file;
+
+    @Label("Head Only")
+    public boolean headOnly;
+
+    @Label("Status")
+    public int status;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    public static VideoServeEvent begin(String file, boolean headOnly) {
+        VideoServeEvent event = new VideoServeEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.file = file;
+        event.headOnly = headOnly;
+        event.begin();
+        return event;
+    }
+
+    public void finish(int status, long bytes) {
+        this.status = status;
+        this.bytes = bytes;
+        commit();
+    }
+}
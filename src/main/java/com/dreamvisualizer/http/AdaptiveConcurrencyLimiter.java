@@ -0,0 +1,272 @@
+package com.dreamvisualizer.http;
+
+import com.dreamvisualizer.config.ConcurrencyLimitPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Concurrency limit for one upstream endpoint family that discovers the upstream's capacity
+ * instead of trusting a static number.
+ *
+ * <p>Successful calls are grouped into windows of one baseline round trip. At the end of each
+ * window the limit follows a gradient: while the window's average latency stays within
+ * {@link ConcurrencyLimitPolicy#latencyTolerance()} of the baseline, the limit grows by its square
+ * root; once latency climbs past that, the limit shrinks in proportion. The baseline drops quickly
+ * to faster latencies and rises only slowly, so sustained queueing upstream is not mistaken for the
+ * new normal. A 429 or 503 is a direct overload signal and cuts the limit multiplicatively, at most
+ * once per round trip. Callers beyond the limit wait in a bounded FIFO queue and are shed when it
+ * is full or their wait exceeds the policy's bound.</p>
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    /** Weight of a window in the baseline when it was slower than the baseline. */
+    private static final double BASELINE_RISE = 0.05;
+    /** Weight of a window in the baseline when it was faster than the baseline. */
+    private static final double BASELINE_FALL = 0.5;
+    private static final long MIN_WINDOW_NANOS = 1_000_000L;
+
+    private final String endpoint;
+    private final ConcurrencyLimitPolicy policy;
+    private final ScheduledExecutorService scheduler;
+    private final LongSupplier nanoTime;
+    private final ArrayDeque<CompletableFuture<Permit>> waiting = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+    private double baselineRttNanos = Double.NaN;
+    private long lastRttNanos;
+    private long lastDecreaseNanos;
+    private long windowStartNanos;
+    private long windowRttSumNanos;
+    private int windowSamples;
+    private int windowMaxInFlight;
+    private long dropped;
+    private long shed;
+
+    AdaptiveConcurrencyLimiter(String endpoint, ConcurrencyLimitPolicy policy, ScheduledExecutorService scheduler) {
+        this(endpoint, policy, scheduler, System::nanoTime);
+    }
+
+    /**
+     * @param nanoTime monotonic time source for latencies and windows, {@link System#nanoTime()}
+     *                 outside tests
+     */
+    AdaptiveConcurrencyLimiter(String endpoint, ConcurrencyLimitPolicy policy, ScheduledExecutorService scheduler,
+                               LongSupplier nanoTime) {
+        this.endpoint = Objects.requireNonNull(endpoint, "endpoint must not be null");
+        this.policy = Objects.requireNonNull(policy, "policy must not be null");
+        this.scheduler = Objects.requireNonNull(scheduler, "scheduler must not be null");
+        this.nanoTime = Objects.requireNonNull(nanoTime, "nanoTime must not be null");
+        this.limit = policy.adaptive() ? policy.initialLimit() : policy.maxLimit();
+    }
+
+    /**
+     * Completes with a permit once a slot is free, or fails with {@link OpenAIException} when the
+     * caller is shed. The permit must be released through exactly one of its outcome methods.
+     */
+    CompletableFuture<Permit> acquire() {
+        CompletableFuture<Permit> waiter;
+        synchronized (this) {
+            if (inFlight < currentLimit()) {
+                inFlight++;
+                return CompletableFuture.completedFuture(new Permit());
+            }
+            if (waiting.size() >= policy.queueCapacity()) {
+                shed++;
+                return CompletableFuture.failedFuture(saturated());
+            }
+            waiter = new CompletableFuture<>();
+            waiting.addLast(waiter);
+        }
+        long waitMillis = policy.maxQueueWait().toMillis();
+        scheduler.schedule(() -> expire(waiter), waitMillis, TimeUnit.MILLISECONDS);
+        return waiter;
+    }
+
+    /**
+     * Blocking variant of {@link #acquire()} for the synchronous client path.
+     */
+    Permit acquireBlocking() {
+        try {
+            return acquire().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OpenAIException("Interrupted while waiting for an upstream slot", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof OpenAIException openAIException) {
+                throw openAIException;
+            }
+            throw new OpenAIException("Failed to acquire an upstream slot", e.getCause());
+        }
+    }
+
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(endpoint, currentLimit(), inFlight, waiting.size(),
+                Duration.ofNanos(lastRttNanos),
+                Double.isNaN(baselineRttNanos) ? Duration.ZERO : Duration.ofNanos((long) baselineRttNanos),
+                dropped, shed);
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    private void expire(CompletableFuture<Permit> waiter) {
+        boolean removed;
+        synchronized (this) {
+            removed = waiting.remove(waiter);
+            if (removed) {
+                shed++;
+            }
+        }
+        if (removed) {
+            waiter.completeExceptionally(saturated());
+        }
+    }
+
+    private OpenAIException saturated() {
+        return new OpenAIException("Upstream concurrency limit for '" + endpoint + "' reached; "
+                + "request shed after waiting up to " + policy.maxQueueWait().toSeconds() + " s");
+    }
+
+    private void onRelease(long rttNanos, Outcome outcome) {
+        List<CompletableFuture<Permit>> admitted = new ArrayList<>();
+        synchronized (this) {
+            int inFlightBefore = inFlight;
+            inFlight--;
+            if (policy.adaptive()) {
+                if (outcome == Outcome.SUCCESS) {
+                    sample(rttNanos, inFlightBefore);
+                } else if (outcome == Outcome.DROPPED) {
+                    backOff();
+                }
+            }
+            while (inFlight < currentLimit() && !waiting.isEmpty()) {
+                inFlight++;
+                admitted.add(waiting.pollFirst());
+            }
+        }
+        // Completing a waiter runs its send inline, so it happens outside the lock
+        for (CompletableFuture<Permit> waiter : admitted) {
+            if (!waiter.complete(new Permit())) {
+                onRelease(0L, Outcome.IGNORED);
+            }
+        }
+    }
+
+    private void sample(long rttNanos, int inFlightBefore) {
+        long now = nanoTime.getAsLong();
+        if (windowSamples == 0) {
+            windowStartNanos = now;
+        }
+        lastRttNanos = rttNanos;
+        windowRttSumNanos += rttNanos;
+        windowSamples++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightBefore);
+        if (now - windowStartNanos < windowNanos()) {
+            return;
+        }
+        double windowRtt = (double) windowRttSumNanos / windowSamples;
+        int windowInFlight = windowMaxInFlight;
+        windowSamples = 0;
+        windowRttSumNanos = 0;
+        windowMaxInFlight = 0;
+
+        if (Double.isNaN(baselineRttNanos)) {
+            baselineRttNanos = windowRtt;
+        } else {
+            double weight = windowRtt < baselineRttNanos ? BASELINE_FALL : BASELINE_RISE;
+            baselineRttNanos = (1 - weight) * baselineRttNanos + weight * windowRtt;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, policy.latencyTolerance() * baselineRttNanos / windowRtt));
+        // A limit that is mostly unused says nothing about the upstream's capacity; growing it
+        // anyway would let a later burst hit the upstream far above what was ever tested
+        if (gradient >= 1.0 && windowInFlight < limit / 2) {
+            return;
+        }
+        double target = limit * gradient + Math.sqrt(limit);
+        setLimit((1 - policy.smoothing()) * limit + policy.smoothing() * target);
+    }
+
+    private long windowNanos() {
+        return Double.isNaN(baselineRttNanos) ? MIN_WINDOW_NANOS : Math.max(MIN_WINDOW_NANOS, (long) baselineRttNanos);
+    }
+
+    private void backOff() {
+        dropped++;
+        long now = nanoTime.getAsLong();
+        // One cut per round trip: the 429s of a burst all describe the same overload
+        if (lastDecreaseNanos != 0 && now - lastDecreaseNanos < windowNanos()) {
+            return;
+        }
+        lastDecreaseNanos = now;
+        int before = currentLimit();
+        setLimit(limit * policy.backoffRatio());
+        LOGGER.warn("Upstream {} signalled overload; concurrency limit {} -> {}", endpoint, before, currentLimit());
+    }
+
+    private void setLimit(double value) {
+        limit = Math.max(policy.minLimit(), Math.min(policy.maxLimit(), value));
+    }
+
+    private enum Outcome {
+        SUCCESS,
+        DROPPED,
+        IGNORED
+    }
+
+    /**
+     * One slot held for one upstream attempt.
+     */
+    final class Permit {
+        private final long startNanos = nanoTime.getAsLong();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        /** The upstream answered normally; its latency feeds the limit. */
+        void success() {
+            release(Outcome.SUCCESS);
+        }
+
+        /** The upstream signalled overload (429, 503 or a timeout). */
+        void dropped() {
+            release(Outcome.DROPPED);
+        }
+
+        /** The attempt says nothing about upstream capacity (client error, cancellation). */
+        void ignore() {
+            release(Outcome.IGNORED);
+        }
+
+        private void release(Outcome outcome) {
+            if (released.compareAndSet(false, true)) {
+                onRelease(nanoTime.getAsLong() - startNanos, outcome);
+            }
+        }
+    }
+
+    /**
+     * Current limit and recent latency for one endpoint family.
+     */
+    public record Snapshot(String endpoint,
+                           int limit,
+                           int inFlight,
+                           int queued,
+                           Duration lastRtt,
+                           Duration baselineRtt,
+                           long dropped,
+                           long shed) {
+    }
+}
@@ -0,0 +1,266 @@
+package com.dreamvisualizer.http;
+
+import com.dreamvisualizer.config.CircuitBreakerPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Circuit breaker for one upstream endpoint family.
+ *
+ * <p>While {@link State#CLOSED} every call goes through and its outcome lands in a window of the
+ * most recent calls. Once the window holds enough calls and either its failure rate or its
+ * slow-call rate reaches the policy's threshold, the circuit opens and calls fail at once with
+ * {@link CircuitOpenException} instead of queueing for an upstream that is not answering. After
+ * the open period a few probe calls are let through ({@link State#HALF_OPEN}); if they stay below
+ * the thresholds the circuit closes with a fresh window, otherwise it opens again.</p>
+ */
+public final class CircuitBreaker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private final String endpoint;
+    private final CircuitBreakerPolicy policy;
+    private final LongSupplier nanoTime;
+    private final Outcome[] window;
+    private int windowStart;
+    private int windowCount;
+    private State state = State.CLOSED;
+    private long openedAtNanos;
+    private int probesStarted;
+    private int probesFinished;
+    private int probeFailures;
+    private int probeSlowCalls;
+    private long rejected;
+    private long openings;
+
+    CircuitBreaker(String endpoint, CircuitBreakerPolicy policy) {
+        this(endpoint, policy, System::nanoTime);
+    }
+
+    /**
+     * @param nanoTime monotonic time source for call durations and the open period,
+     *                 {@link System#nanoTime()} outside tests
+     */
+    CircuitBreaker(String endpoint, CircuitBreakerPolicy policy, LongSupplier nanoTime) {
+        this.endpoint = Objects.requireNonNull(endpoint, "endpoint must not be null");
+        this.policy = Objects.requireNonNull(policy, "policy must not be null");
+        this.nanoTime = Objects.requireNonNull(nanoTime, "nanoTime must not be null");
+        this.window = new Outcome[policy.windowSize()];
+    }
+
+    /**
+     * Admits one call, or throws {@link CircuitOpenException} when the circuit is open or every
+     * probe slot of the half-open circuit is taken. The attempt must be completed through exactly
+     * one of its outcome methods.
+     */
+    synchronized Attempt acquire() {
+        if (!policy.enabled()) {
+            return new Attempt(false);
+        }
+        long now = nanoTime.getAsLong();
+        if (state == State.OPEN && now - openedAtNanos >= policy.openDuration().toNanos()) {
+            transition(State.HALF_OPEN, now);
+        }
+        if (state == State.OPEN || (state == State.HALF_OPEN && probesStarted >= policy.halfOpenCalls())) {
+            rejected++;
+            throw new CircuitOpenException(endpoint, remainingOpen(now));
+        }
+        if (state == State.HALF_OPEN) {
+            probesStarted++;
+        }
+        return new Attempt(true);
+    }
+
+    /**
+     * An attempt that bypasses the breaker: it is always admitted and its outcome is not recorded.
+     */
+    Attempt bypass() {
+        return new Attempt(false);
+    }
+
+    /**
+     * Fails fast with {@link CircuitOpenException} while calls would be rejected, without taking a
+     * probe slot; lets callers skip work that only makes sense if the upstream call can follow.
+     */
+    public synchronized void check() {
+        if (!policy.enabled()) {
+            return;
+        }
+        long now = nanoTime.getAsLong();
+        boolean openPeriodOver = now - openedAtNanos >= policy.openDuration().toNanos();
+        if ((state == State.OPEN && !openPeriodOver)
+                || (state == State.HALF_OPEN && probesStarted >= policy.halfOpenCalls())) {
+            rejected++;
+            throw new CircuitOpenException(endpoint, remainingOpen(now));
+        }
+    }
+
+    /**
+     * Records a failure observed outside a single HTTP call, e.g. a render the upstream accepted
+     * but never finished.
+     */
+    public synchronized void recordFailure() {
+        if (!policy.enabled()) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            transition(State.OPEN, nanoTime.getAsLong());
+        } else if (state == State.CLOSED) {
+            record(new Outcome(true, false));
+        }
+    }
+
+    public synchronized Snapshot snapshot() {
+        long now = nanoTime.getAsLong();
+        return new Snapshot(endpoint, state, windowRate(Outcome::failed), windowRate(Outcome::slow), windowCount,
+                state == State.OPEN ? remainingOpen(now) : Duration.ZERO,
+                rejected, openings);
+    }
+
+    private Duration remainingOpen(long now) {
+        long remaining = policy.openDuration().toNanos() - (now - openedAtNanos);
+        return Duration.ofNanos(Math.max(0L, remaining));
+    }
+
+    private synchronized void onComplete(boolean probe, Outcome outcome) {
+        if (state == State.CLOSED) {
+            record(outcome);
+            return;
+        }
+        if (state != State.HALF_OPEN || !probe) {
+            // Calls admitted before the circuit opened say nothing about the upstream now
+            return;
+        }
+        probesFinished++;
+        probeFailures += outcome.failed() ? 1 : 0;
+        probeSlowCalls += outcome.slow() ? 1 : 0;
+        if (probesFinished < policy.halfOpenCalls()) {
+            return;
+        }
+        boolean healthy = (double) probeFailures / probesFinished < policy.failureRateThreshold()
+                && (double) probeSlowCalls / probesFinished < policy.slowCallRateThreshold();
+        transition(healthy ? State.CLOSED : State.OPEN, nanoTime.getAsLong());
+    }
+
+    private synchronized void onIgnored(boolean probe) {
+        if (probe && state == State.HALF_OPEN && probesStarted > 0) {
+            // Hand the slot to another caller; an abandoned probe is no evidence either way
+            probesStarted--;
+        }
+    }
+
+    private void record(Outcome outcome) {
+        if (windowCount < window.length) {
+            window[(windowStart + windowCount) % window.length] = outcome;
+            windowCount++;
+        } else {
+            window[windowStart] = outcome;
+            windowStart = (windowStart + 1) % window.length;
+        }
+        if (windowCount < policy.minimumCalls()) {
+            return;
+        }
+        if (windowRate(Outcome::failed) >= policy.failureRateThreshold()
+                || windowRate(Outcome::slow) >= policy.slowCallRateThreshold()) {
+            transition(State.OPEN, nanoTime.getAsLong());
+        }
+    }
+
+    private double windowRate(Predicate<Outcome> matches) {
+        if (windowCount == 0) {
+            return 0.0;
+        }
+        int matching = 0;
+        for (int i = 0; i < windowCount; i++) {
+            matching += matches.test(window[(windowStart + i) % window.length]) ? 1 : 0;
+        }
+        return (double) matching / windowCount;
+    }
+
+    private void transition(State next, long now) {
+        State previous = state;
+        state = next;
+        probesStarted = 0;
+        probesFinished = 0;
+        probeFailures = 0;
+        probeSlowCalls = 0;
+        if (next == State.OPEN) {
+            openedAtNanos = now;
+            openings++;
+            LOGGER.warn("Circuit breaker for {} {} -> OPEN for {} s", endpoint, previous, policy.openDuration().toSeconds());
+        } else {
+            if (next == State.CLOSED) {
+                windowStart = 0;
+                windowCount = 0;
+            }
+            LOGGER.info("Circuit breaker for {} {} -> {}", endpoint, previous, next);
+        }
+    }
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private record Outcome(boolean failed, boolean slow) {
+    }
+
+    /**
+     * One call admitted by the breaker.
+     */
+    final class Attempt {
+        private final boolean counted;
+        private final boolean probe;
+        private final long startNanos = nanoTime.getAsLong();
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private Attempt(boolean counted) {
+            this.counted = counted;
+            this.probe = counted && state == State.HALF_OPEN;
+        }
+
+        /** The upstream answered, even if only to refuse the request. */
+        void succeeded() {
+            complete(false);
+        }
+
+        /** The upstream failed: a 5xx, a timeout or a refused connection. */
+        void failed() {
+            complete(true);
+        }
+
+        /** The attempt says nothing about the upstream's health (cancellation, rate limiting). */
+        void ignore() {
+            if (counted && completed.compareAndSet(false, true)) {
+                onIgnored(probe);
+            }
+        }
+
+        private void complete(boolean failed) {
+            if (counted && completed.compareAndSet(false, true)) {
+                boolean slow = nanoTime.getAsLong() - startNanos >= policy.slowCallDuration().toNanos();
+                onComplete(probe, new Outcome(failed, slow));
+            }
+        }
+    }
+
+    /**
+     * State and recent outcome rates of one endpoint family's breaker.
+     */
+    public record Snapshot(String endpoint,
+                           State state,
+                           double failureRate,
+                           double slowCallRate,
+                           int bufferedCalls,
+                           Duration openFor,
+                           long rejected,
+                           long openings) {
+    }
+}
@@ -0,0 +1,32 @@
+package com.dreamvisualizer.http;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Raised without contacting the upstream when the circuit breaker of the call's endpoint family
+ * is open.
+ */
+public class CircuitOpenException extends OpenAIException {
+
+    private final String endpoint;
+    private final Duration retryAfter;
+
+    public CircuitOpenException(String endpoint, Duration retryAfter) {
+        super("Circuit breaker for '" + endpoint + "' is open; upstream calls resume in "
+                + Math.max(1L, retryAfter.toSeconds()) + " s");
+        this.endpoint = endpoint;
+        this.retryAfter = Objects.requireNonNull(retryAfter, "retryAfter must not be null");
+    }
+
+    public String endpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Time until the breaker lets probe calls through again.
+     */
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,255 @@
+package com.dreamvisualizer.http;
+
+import com.dreamvisualizer.config.OpenAICredential;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Spreads upstream calls over the configured API keys.
+ *
+ * <p>Each attempt leases the key that is least loaded relative to its weight, preferring keys
+ * whose rate-limit budget can take the call right away and penalising keys with a high recent
+ * error rate. A key answering 401/403 (or 429 {@code insufficient_quota}) is ejected at once; one
+ * answering a storm of 429s is ejected for a period that doubles with each repeat. Ejected keys
+ * are re-admitted when the period ends. Resources created through a key (Sora video ids) stay
+ * pinned to it, since other keys cannot see them.</p>
+ */
+public final class CredentialPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CredentialPool.class);
+
+    private static final Duration AUTH_EJECTION = Duration.ofMinutes(5);
+    private static final Duration STORM_EJECTION = Duration.ofSeconds(30);
+    private static final Duration MAX_EJECTION = Duration.ofMinutes(10);
+    private static final Duration STORM_WINDOW = Duration.ofSeconds(10);
+    private static final int STORM_THRESHOLD = 5;
+    private static final double ERROR_ALPHA = 0.1;
+    private static final int MAX_PINNED_RESOURCES = 10_000;
+
+    private final List<KeyState> keys;
+    private final Map<String, KeyState> pinned = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, KeyState> eldest) {
+                    return size() > MAX_PINNED_RESOURCES;
+                }
+            });
+    private int rotation;
+
+    CredentialPool(List<OpenAICredential> credentials) {
+        if (credentials.isEmpty()) {
+            throw new IllegalArgumentException("At least one credential is required");
+        }
+        this.keys = credentials.stream().map(KeyState::new).toList();
+    }
+
+    /**
+     * Leases a key for one attempt. A pinned resource always gets its own key, ejected or not.
+     *
+     * @param budgetWait how long the rate-limit budget of a key would hold this call back
+     */
+    Lease lease(Optional<String> resourceId, Function<OpenAICredential, Duration> budgetWait) {
+        Optional<KeyState> pinnedKey = resourceId.map(pinned::get);
+        KeyState chosen = pinnedKey.orElseGet(() -> choose(budgetWait));
+        synchronized (chosen) {
+            chosen.inFlight++;
+        }
+        return new Lease(chosen);
+    }
+
+    /**
+     * Whether any key is currently admitted, i.e. whether a call refused by one key can move on.
+     */
+    boolean anyAdmitted() {
+        long now = System.nanoTime();
+        for (KeyState key : keys) {
+            synchronized (key) {
+                if (key.ejectedUntilNanos - now <= 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    void pin(String resourceId, Lease lease) {
+        pinned.put(resourceId, lease.key);
+    }
+
+    List<Snapshot> snapshots() {
+        long now = System.nanoTime();
+        List<Snapshot> snapshots = new ArrayList<>();
+        for (KeyState key : keys) {
+            synchronized (key) {
+                long ejectedNanos = Math.max(0L, key.ejectedUntilNanos - now);
+                snapshots.add(new Snapshot(key.credential.name(), key.credential.weight(), key.inFlight,
+                        key.errorRate, ejectedNanos > 0, Duration.ofNanos(ejectedNanos), key.ejections));
+            }
+        }
+        return snapshots;
+    }
+
+    private KeyState choose(Function<OpenAICredential, Duration> budgetWait) {
+        if (keys.size() == 1) {
+            return keys.get(0);
+        }
+        long now = System.nanoTime();
+        int start;
+        synchronized (this) {
+            start = rotation++ % keys.size();
+        }
+        KeyState best = null;
+        Duration bestWait = null;
+        double bestScore = Double.MAX_VALUE;
+        KeyState soonestBack = null;
+        // Scanning from a rotating offset breaks ties round-robin instead of always favouring the first key
+        for (int i = 0; i < keys.size(); i++) {
+            KeyState key = keys.get((start + i) % keys.size());
+            double score;
+            synchronized (key) {
+                if (key.ejectedUntilNanos - now > 0) {
+                    if (soonestBack == null || key.ejectedUntilNanos - soonestBack.ejectedUntilNanos < 0) {
+                        soonestBack = key;
+                    }
+                    continue;
+                }
+                score = (key.inFlight + 1.0) / key.credential.weight() * (1.0 + 4.0 * key.errorRate);
+            }
+            Duration wait = budgetWait.apply(key.credential);
+            int byWait = bestWait == null ? -1 : wait.compareTo(bestWait);
+            if (byWait < 0 || (byWait == 0 && score < bestScore)) {
+                best = key;
+                bestWait = wait;
+                bestScore = score;
+            }
+        }
+        // With every key ejected, the one closest to re-admission is the best remaining bet
+        return best != null ? best : soonestBack;
+    }
+
+    /**
+     * Upstream health of one key. Never includes the key itself.
+     */
+    public record Snapshot(String name,
+                           int weight,
+                           int inFlight,
+                           double errorRate,
+                           boolean ejected,
+                           Duration ejectedFor,
+                           int ejections) {
+    }
+
+    /**
+     * One attempt's use of a key; report its outcome exactly once.
+     */
+    final class Lease {
+        private final KeyState key;
+        private boolean done;
+
+        private Lease(KeyState key) {
+            this.key = key;
+        }
+
+        OpenAICredential credential() {
+            return key.credential;
+        }
+
+        /**
+         * Records the upstream's answer.
+         *
+         * @return {@code true} when the key itself was refused (401/403 or exhausted quota), so
+         *         the same call may succeed on another key
+         */
+        boolean completed(int statusCode, String errorBody) {
+            boolean authFailure = statusCode == 401 || statusCode == 403
+                    || (statusCode == 429 && errorBody != null && errorBody.contains("insufficient_quota"));
+            boolean failure = statusCode == 429 || statusCode >= 500 || authFailure;
+            finish(failure, statusCode == 429 && !authFailure, authFailure);
+            return authFailure;
+        }
+
+        /** The call never reached the upstream, or got no answer from it. */
+        void failed() {
+            finish(true, false, false);
+        }
+
+        /** The attempt was abandoned before it said anything about the key. */
+        void cancelled() {
+            synchronized (key) {
+                if (!done) {
+                    done = true;
+                    key.inFlight--;
+                }
+            }
+        }
+
+        private void finish(boolean failure, boolean rateLimited, boolean authFailure) {
+            String ejectedFor = null;
+            synchronized (key) {
+                if (done) {
+                    return;
+                }
+                done = true;
+                key.inFlight--;
+                key.errorRate = (1 - ERROR_ALPHA) * key.errorRate + ERROR_ALPHA * (failure ? 1.0 : 0.0);
+                long now = System.nanoTime();
+                boolean ejected = key.ejectedUntilNanos - now > 0;
+                if (authFailure && !ejected) {
+                    key.eject(AUTH_EJECTION, now);
+                    ejectedFor = "authentication or quota failure";
+                } else if (rateLimited && key.recordRateLimited(now) && !ejected) {
+                    Duration period = STORM_EJECTION.multipliedBy(1L << Math.min(key.consecutiveEjections, 5));
+                    key.eject(period.compareTo(MAX_EJECTION) > 0 ? MAX_EJECTION : period, now);
+                    key.consecutiveEjections++;
+                    ejectedFor = STORM_THRESHOLD + " rate-limit responses within " + STORM_WINDOW.toSeconds() + " s";
+                } else if (!failure && !ejected) {
+                    key.consecutiveEjections = 0;
+                }
+            }
+            if (ejectedFor != null) {
+                LOGGER.warn("Ejecting credential {} after {}", key.credential.name(), ejectedFor);
+            }
+        }
+    }
+
+    private static final class KeyState {
+        private final OpenAICredential credential;
+        private final ArrayDeque<Long> recentRateLimits = new ArrayDeque<>();
+        private int inFlight;
+        private double errorRate;
+        private long ejectedUntilNanos = System.nanoTime();
+        private int ejections;
+        private int consecutiveEjections;
+
+        private KeyState(OpenAICredential credential) {
+            this.credential = credential;
+        }
+
+        /**
+         * Records a 429 and reports whether the recent ones add up to a storm.
+         */
+        private boolean recordRateLimited(long now) {
+            recentRateLimits.addLast(now);
+            while (!recentRateLimits.isEmpty() && now - recentRateLimits.peekFirst() > STORM_WINDOW.toNanos()) {
+                recentRateLimits.pollFirst();
+            }
+            return recentRateLimits.size() >= STORM_THRESHOLD;
+        }
+
+        private void eject(Duration period, long now) {
+            ejectedUntilNanos = now + period.toNanos();
+            ejections++;
+            recentRateLimits.clear();
+        }
+    }
+}
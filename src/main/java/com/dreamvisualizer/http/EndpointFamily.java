@@ -0,0 +1,65 @@
+package com.dreamvisualizer.http;
+
+import okhttp3.HttpUrl;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Groups upstream request paths into the endpoint families that share limits and policies, e.g.
+ * {@code videos/abc/content} and {@code videos} both belong to {@code videos}.
+ */
+public final class EndpointFamily {
+
+    public static final String TRANSCRIPTIONS = "audio/transcriptions";
+    public static final String RESPONSES = "responses";
+    public static final String VIDEOS = "videos";
+    public static final String EXTERNAL = "external";
+
+    private EndpointFamily() {
+    }
+
+    public static String of(String pathSegments) {
+        String path = pathSegments.startsWith("/") ? pathSegments.substring(1) : pathSegments;
+        if (path.startsWith("audio/")) {
+            int next = path.indexOf('/', "audio/".length());
+            return next < 0 ? path : path.substring(0, next);
+        }
+        int slash = path.indexOf('/');
+        return slash < 0 ? path : path.substring(0, slash);
+    }
+
+    /**
+     * Resolves the family of an absolute URL relative to the configured API base; URLs on other
+     * hosts (e.g. signed CDN links) map to {@link #EXTERNAL}.
+     */
+    public static String of(HttpUrl url, HttpUrl baseUrl) {
+        if (!url.host().equals(baseUrl.host()) || url.port() != baseUrl.port()) {
+            return EXTERNAL;
+        }
+        List<String> baseSegments = baseUrl.pathSegments().stream().filter(segment -> !segment.isEmpty()).toList();
+        List<String> segments = url.pathSegments();
+        if (segments.size() <= baseSegments.size()) {
+            return EXTERNAL;
+        }
+        return of(String.join("/", segments.subList(baseSegments.size(), segments.size())));
+    }
+
+    /**
+     * The id a path addresses within its family, e.g. {@code abc} for {@code videos/abc/content};
+     * empty for collection paths such as {@code videos} and for URLs on other hosts.
+     */
+    public static Optional<String> resourceId(HttpUrl url, HttpUrl baseUrl) {
+        String family = of(url, baseUrl);
+        if (EXTERNAL.equals(family)) {
+            return Optional.empty();
+        }
+        int familyDepth = family.split("/").length;
+        long baseDepth = baseUrl.pathSegments().stream().filter(segment -> !segment.isEmpty()).count();
+        List<String> segments = url.pathSegments();
+        int index = (int) baseDepth + familyDepth;
+        return index < segments.size() && !segments.get(index).isEmpty()
+                ? Optional.of(segments.get(index))
+                : Optional.empty();
+    }
+}
@@ -1,40 +1,202 @@
 package com.dreamvisualizer.http;
 
 import com.dreamvisualizer.config.OpenAIConfig;
+import com.dreamvisualizer.config.OpenAICredential;
+import com.dreamvisualizer.diagnostics.VideoDownloadEvent;
+import com.dreamvisualizer.metrics.ResourceAccount;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import okhttp3.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.OpenOption;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Low-level HTTP client that talks to the OpenAI REST APIs.
  */
 public class OpenAIClient {
 
+    /**
+     * Suffix of the sibling file a download is written to until it has been verified.
+     */
+    public static final String PARTIAL_DOWNLOAD_SUFFIX = ".part";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OpenAIClient.class);
+
+    private static final int MAX_DOWNLOAD_RESUMES = 3;
+    private static final int DOWNLOAD_BUFFER_BYTES = 64 * 1024;
+
     private final OpenAIConfig config;
     private final OkHttpClient httpClient;
     private final ObjectMapper objectMapper;
+    private final RetryAdvisor retryAdvisor;
+    private final ScheduledExecutorService retryScheduler;
+    private final ExecutorService downloadExecutor;
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final RateLimitTracker rateLimits;
+    private final CredentialPool credentials;
+    private final TrafficRecorder recorder;
+    private final UpstreamMetrics metrics = new UpstreamMetrics();
 
     public OpenAIClient(OpenAIConfig config) {
         this.config = Objects.requireNonNull(config, "config must not be null");
         this.objectMapper = new ObjectMapper();
+        this.retryAdvisor = new RetryAdvisor(config.getRetryPolicy());
+        this.rateLimits = new RateLimitTracker(config.getRateLimitMaxWait());
+        this.credentials = new CredentialPool(config.getCredentials());
+        this.recorder = config.getTraceFile()
+                .map(file -> TrafficRecorder.open(file, config.getBaseUrl(), objectMapper))
+                .orElse(TrafficRecorder.NONE);
         Duration timeout = config.getRequestTimeout();
+        Dispatcher dispatcher = new Dispatcher();
+        // OkHttp defaults to 5 concurrent async calls per host, far below what one API host can take
+        dispatcher.setMaxRequests(config.getMaxConcurrentRequests());
+        dispatcher.setMaxRequestsPerHost(config.getMaxConcurrentRequests());
         this.httpClient = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
                 .callTimeout(timeout)
                 .connectTimeout(timeout)
                 .readTimeout(timeout)
                 .writeTimeout(timeout)
                 .build();
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("openai-retry"));
+        this.downloadExecutor = Executors.newFixedThreadPool(config.getMaxConcurrentDownloads(), daemonThreads("openai-download"));
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
     }
 
     public JsonNode postJson(String pathSegments, Object payload) {
+        return postJson(pathSegments, payload, 0L);
+    }
+
+    /**
+     * Sends {@code payload} after reserving {@code estimatedTokens} from the model's client-side
+     * rate-limit budget, waiting first if the budget is exhausted.
+     */
+    public JsonNode postJson(String pathSegments, Object payload, long estimatedTokens) {
+        return postJson(pathSegments, payload, estimatedTokens, ResponseReader.tree());
+    }
+
+    /**
+     * Like {@link #postJson(String, Object, long)}, parsing the response with {@code reader} while
+     * it streams in instead of building a tree of the whole body.
+     */
+    public <T> T postJson(String pathSegments, Object payload, long estimatedTokens, ResponseReader<T> reader) {
+        return execute(jsonPostRequest(pathSegments, payload), cost(pathSegments, payload, estimatedTokens), reader);
+    }
+
+    public JsonNode getJson(String pathSegments) {
+        return execute(getRequest(pathSegments, null), cost(pathSegments, null, 0L), ResponseReader.tree());
+    }
+
+    public JsonNode getJson(String pathSegments, Map<String, String> queryParams) {
+        return execute(getRequest(pathSegments, queryParams), cost(pathSegments, null, 0L), ResponseReader.tree());
+    }
+
+    /**
+     * Non-blocking variant of {@link #postJson(String, Object)}: the call is queued on OkHttp's
+     * dispatcher and retries are scheduled rather than slept, so no caller thread is parked.
+     */
+    public CompletableFuture<JsonNode> postJsonAsync(String pathSegments, Object payload) {
+        return postJsonAsync(pathSegments, payload, 0L);
+    }
+
+    /**
+     * Non-blocking variant of {@link #postJson(String, Object, long)}.
+     */
+    public CompletableFuture<JsonNode> postJsonAsync(String pathSegments, Object payload, long estimatedTokens) {
+        return postJsonAsync(pathSegments, payload, estimatedTokens, ResponseReader.tree());
+    }
+
+    /**
+     * Non-blocking variant of {@link #postJson(String, Object, long, ResponseReader)}.
+     */
+    public <T> CompletableFuture<T> postJsonAsync(String pathSegments, Object payload, long estimatedTokens,
+                                                  ResponseReader<T> reader) {
+        try {
+            return executeAsync(jsonPostRequest(pathSegments, payload), cost(pathSegments, payload, estimatedTokens), reader);
+        } catch (OpenAIException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public CompletableFuture<JsonNode> getJsonAsync(String pathSegments) {
+        return getJsonAsync(pathSegments, ResponseReader.tree());
+    }
+
+    public CompletableFuture<JsonNode> getJsonAsync(String pathSegments, Map<String, String> queryParams) {
+        return getJsonAsync(pathSegments, queryParams, ResponseReader.tree());
+    }
+
+    public <T> CompletableFuture<T> getJsonAsync(String pathSegments, ResponseReader<T> reader) {
+        return getJsonAsync(pathSegments, null, reader);
+    }
+
+    public <T> CompletableFuture<T> getJsonAsync(String pathSegments, Map<String, String> queryParams,
+                                                 ResponseReader<T> reader) {
+        return executeAsync(getRequest(pathSegments, queryParams), cost(pathSegments, null, 0L), reader);
+    }
+
+    public CompletableFuture<JsonNode> postMultipartAsync(String pathSegments, MultipartBody body) {
+        return postMultipartAsync(pathSegments, body, ResponseReader.tree());
+    }
+
+    public <T> CompletableFuture<T> postMultipartAsync(String pathSegments, MultipartBody body, ResponseReader<T> reader) {
+        return executeAsync(multipartPostRequest(pathSegments, body), cost(pathSegments, null, 0L), reader);
+    }
+
+    /**
+     * Runs {@link #downloadToFile(String, Path)} on the bounded download pool. Writing the body to
+     * disk is blocking file I/O either way; keeping it on a dedicated pool stops large transfers
+     * from occupying the dispatcher threads that deliver every other response.
+     */
+    public CompletableFuture<Path> downloadToFileAsync(String url, Path destination) {
+        return CompletableFuture.supplyAsync(ResourceAccount.bind(() -> {
+            downloadToFile(url, destination);
+            return destination;
+        }), downloadExecutor);
+    }
+
+    private Request jsonPostRequest(String pathSegments, Object payload) {
         try {
             RequestBody body = RequestBody.create(
                     objectMapper.writeValueAsBytes(payload),
@@ -45,75 +207,293 @@ public class OpenAIClient {
             Request.Builder builder = new Request.Builder()
                     .url(url)
                     .post(body);
-            applyDefaultHeaders(builder);
             builder.header("Content-Type", "application/json");
-            Request request = builder.build();
-            return execute(request);
+            return builder.build();
         } catch (JsonProcessingException e) {
             throw new OpenAIException("Failed to serialise JSON payload", e);
         }
     }
 
-    public JsonNode getJson(String pathSegments) {
-        HttpUrl url = config.getBaseUrl().newBuilder()
-                .addPathSegments(pathSegments)
-                .build();
-        Request.Builder builder = new Request.Builder()
-                .url(url)
-                .get();
-        applyDefaultHeaders(builder);
-        Request request = builder.build();
-        return execute(request);
-    }
-
-    public JsonNode getJson(String pathSegments, Map<String, String> queryParams) {
+    private Request getRequest(String pathSegments, Map<String, String> queryParams) {
         HttpUrl.Builder builder = config.getBaseUrl().newBuilder()
                 .addPathSegments(pathSegments);
         if (queryParams != null) {
             queryParams.forEach(builder::addQueryParameter);
         }
         HttpUrl url = builder.build();
-        Request.Builder requestBuilder = new Request.Builder()
+        return new Request.Builder()
                 .url(url)
-                .get();
-        applyDefaultHeaders(requestBuilder);
-        Request request = requestBuilder.build();
-        return execute(request);
+                .get()
+                .build();
+    }
+
+    private Request multipartPostRequest(String pathSegments, MultipartBody body) {
+        HttpUrl url = config.getBaseUrl().newBuilder()
+                .addPathSegments(pathSegments)
+                .build();
+        return new Request.Builder()
+                .url(url)
+                .post(body)
+                .build();
     }
 
+    /**
+     * Streams a remote asset to {@code destination} without buffering it in memory. Bytes land in a
+     * sibling {@code .part} file that is atomically renamed once its length (and SHA-256, when the
+     * server advertises one) checks out; interrupted transfers resume with a {@code Range} request.
+     */
     public void downloadToFile(String url, Path destination) {
+        Path partial = destination.resolveSibling(destination.getFileName() + PARTIAL_DOWNLOAD_SUFFIX);
+        DownloadState state = new DownloadState();
+        VideoDownloadEvent event = VideoDownloadEvent.begin(ResourceAccount.currentJobId(), destination.getFileName().toString());
+        boolean failed = true;
+        try {
+            Files.createDirectories(destination.toAbsolutePath().getParent());
+            Files.deleteIfExists(partial);
+            HttpUrl downloadUrl = HttpUrl.get(url);
+            RetryAdvisor.RetryState retry = retryAdvisor.begin(
+                    new Request.Builder().url(downloadUrl).get().build(),
+                    EndpointFamily.of(downloadUrl, config.getBaseUrl()));
+            while (true) {
+                String interruption;
+                try {
+                    if (downloadChunk(url, partial, state)) {
+                        break;
+                    }
+                    interruption = "stream ended early";
+                } catch (DownloadStatusException e) {
+                    Duration delay = retryAdvisor.afterStatus(retry, e.statusCode(), e.headers, e.getMessage());
+                    if (delay == null) {
+                        throw e;
+                    }
+                    LOGGER.warn("Download of {} failed ({}); retrying in {} ms",
+                            destination.getFileName(), e.getMessage(), delay.toMillis());
+                    sleep(delay);
+                    continue;
+                } catch (IOException e) {
+                    if (state.resumes >= MAX_DOWNLOAD_RESUMES) {
+                        throw e;
+                    }
+                    interruption = e.getMessage();
+                }
+                if (++state.resumes > MAX_DOWNLOAD_RESUMES) {
+                    throw new OpenAIException("Download of " + destination.getFileName()
+                            + " did not complete after " + MAX_DOWNLOAD_RESUMES + " resumes");
+                }
+                LOGGER.warn("Download of {} interrupted after {} bytes ({}); resuming",
+                        destination.getFileName(), Files.exists(partial) ? Files.size(partial) : 0, interruption);
+            }
+            moveIntoPlace(partial, destination);
+            failed = false;
+        } catch (IOException e) {
+            deleteQuietly(partial);
+            throw new OpenAIException("Failed to download video asset", e);
+        } catch (OpenAIException e) {
+            deleteQuietly(partial);
+            throw e;
+        } finally {
+            if (event != null) {
+                event.finish(failed, failed ? 0L : sizeQuietly(destination), state.resumes);
+            }
+        }
+    }
+
+    /**
+     * Fetches the remainder of the asset into {@code partial}, verifying it once complete. The
+     * key's lease hears the real outcome: error statuses as answered, success only once the file
+     * is complete and verified, and a failure for cut-off transfers, empty bodies and mismatches.
+     *
+     * @return {@code true} when the transfer reached the expected length and checked out,
+     *         {@code false} when it has to be resumed
+     */
+    private boolean downloadChunk(String url, Path partial, DownloadState state) throws IOException {
+        long offset = Files.exists(partial) ? Files.size(partial) : 0L;
         Request.Builder builder = new Request.Builder()
                 .url(url)
                 .get();
-        if (url.startsWith(config.getBaseUrl().scheme() + "://" + config.getBaseUrl().host())) {
-            applyDefaultHeaders(builder);
+        HttpUrl downloadUrl = HttpUrl.get(url);
+        String endpoint = EndpointFamily.of(downloadUrl, config.getBaseUrl());
+        CredentialPool.Lease lease = null;
+        if (!EndpointFamily.EXTERNAL.equals(endpoint)) {
+            // Video content is only visible to the key that created the video
+            lease = credentials.lease(EndpointFamily.resourceId(downloadUrl, config.getBaseUrl()), credential -> Duration.ZERO);
+            applyDefaultHeaders(builder, lease.credential());
         }
-        Request request = builder.build();
+        if (offset > 0) {
+            builder.header("Range", "bytes=" + offset + "-");
+            if (state.validator != null) {
+                builder.header("If-Range", state.validator);
+            }
+        }
+        Request request = withResourceAccount(builder.build());
+        TrafficRecorder.Call trace = recorder.start(request, endpoint, state.resumes + 1, metrics.family(endpoint));
         try (Response response = httpClient.newCall(request).execute()) {
+            if (response.code() == 416 && state.expectedLength == offset) {
+                verifyDownload(partial, state);
+                trace.finished(416, 0L);
+                if (lease != null) {
+                    lease.completed(416, null);
+                }
+                return true;
+            }
             if (!response.isSuccessful()) {
                 String errorBody = response.body() != null ? response.body().string() : "";
-                throw new OpenAIException("Failed to download asset (" + response.code() + "): " + errorBody);
+                trace.finished(response.code(), errorBody.length());
+                if (lease != null) {
+                    lease.completed(response.code(), errorBody);
+                }
+                throw new DownloadStatusException("Failed to download asset (" + response.code() + "): " + errorBody,
+                        response.code(), response.headers());
             }
-            if (response.body() == null) {
+            ResponseBody body = response.body();
+            if (body == null) {
                 throw new OpenAIException("Download returned an empty body");
             }
-            Files.createDirectories(destination.getParent());
-            Files.write(destination, response.body().bytes());
+
+            boolean append = offset > 0 && response.code() == 206;
+            if (!append) {
+                // Server ignored the range (or the validator changed): start over from byte zero
+                state.digest.reset();
+                state.expectedLength = body.contentLength() >= 0 ? body.contentLength() : -1L;
+                state.validator = Optional.ofNullable(response.header("ETag"))
+                        .filter(tag -> !tag.startsWith("W/"))
+                        .orElse(response.header("Last-Modified"));
+                state.expectedSha256 = parseSha256Digest(response);
+            } else {
+                state.expectedLength = parseContentRangeTotal(response.header("Content-Range"), state.expectedLength);
+            }
+
+            OpenOption[] options = append
+                    ? new OpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND}
+                    : new OpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING};
+            try (FileChannel channel = FileChannel.open(partial, options);
+                 InputStream in = body.byteStream()) {
+                // Every byte passes through the running digest on its way to disk, so verification
+                // needs no second pass over the file
+                byte[] chunk = state.buffer;
+                int read;
+                while ((read = in.read(chunk)) != -1) {
+                    ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, read);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    state.digest.update(chunk, 0, read);
+                }
+            }
+            long written = Files.size(partial);
+            if (state.expectedLength >= 0 && written < state.expectedLength) {
+                // A body cut short counts against the key like a dropped connection
+                trace.failed();
+                if (lease != null) {
+                    lease.failed();
+                }
+                return false;
+            }
+            verifyDownload(partial, state);
+            trace.finished(response.code(), written - (append ? offset : 0L));
+            if (lease != null) {
+                lease.completed(response.code(), null);
+            }
+            return true;
+        } catch (DownloadStatusException e) {
+            // Trace and lease already hold the status the upstream answered with
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            // Transport failures, an empty body and a file that failed verification
+            trace.failed();
+            if (lease != null) {
+                lease.failed();
+            }
+            throw e;
+        }
+    }
+
+    private void verifyDownload(Path partial, DownloadState state) throws IOException {
+        long size = Files.size(partial);
+        if (state.expectedLength >= 0 && size != state.expectedLength) {
+            throw new OpenAIException("Downloaded asset length " + size + " does not match expected " + state.expectedLength);
+        }
+        if (state.expectedSha256 != null) {
+            String actual = Base64.getEncoder().encodeToString(state.digest.digest());
+            if (!actual.equals(state.expectedSha256)) {
+                throw new OpenAIException("Downloaded asset checksum mismatch for " + partial.getFileName());
+            }
+        }
+    }
+
+    private static void moveIntoPlace(Path partial, Path destination) throws IOException {
+        try {
+            Files.move(partial, destination, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(partial, destination, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static long parseContentRangeTotal(String contentRange, long fallback) {
+        // Content-Range: bytes 200-1000/67589
+        if (contentRange == null) {
+            return fallback;
+        }
+        int slash = contentRange.lastIndexOf('/');
+        if (slash < 0 || slash == contentRange.length() - 1) {
+            return fallback;
+        }
+        String total = contentRange.substring(slash + 1).trim();
+        if ("*".equals(total)) {
+            return fallback;
+        }
+        try {
+            return Long.parseLong(total);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private static String parseSha256Digest(Response response) {
+        // RFC 9530 Repr-Digest: sha-256=:base64:  /  RFC 3230 Digest: SHA-256=base64
+        String reprDigest = response.header("Repr-Digest");
+        if (reprDigest != null) {
+            for (String entry : reprDigest.split(",")) {
+                String trimmed = entry.trim();
+                if (trimmed.regionMatches(true, 0, "sha-256=:", 0, 9) && trimmed.endsWith(":")) {
+                    return trimmed.substring(9, trimmed.length() - 1);
+                }
+            }
+        }
+        String digest = response.header("Digest");
+        if (digest != null) {
+            for (String entry : digest.split(",")) {
+                String trimmed = entry.trim();
+                if (trimmed.regionMatches(true, 0, "sha-256=", 0, 8)) {
+                    return trimmed.substring(8);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static long sizeQuietly(Path path) {
+        try {
+            return Files.size(path);
         } catch (IOException e) {
-            throw new OpenAIException("Failed to download video asset", e);
+            return 0L;
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to delete partial download {}", path, e);
         }
     }
 
     public JsonNode postMultipart(String pathSegments, MultipartBody body) {
-        HttpUrl url = config.getBaseUrl().newBuilder()
-                .addPathSegments(pathSegments)
-                .build();
-        Request.Builder builder = new Request.Builder()
-                .url(url)
-                .post(body);
-        applyDefaultHeaders(builder);
-        Request request = builder.build();
-        return execute(request);
+        return postMultipart(pathSegments, body, ResponseReader.tree());
+    }
+
+    public <T> T postMultipart(String pathSegments, MultipartBody body, ResponseReader<T> reader) {
+        return execute(multipartPostRequest(pathSegments, body), cost(pathSegments, null, 0L), reader);
     }
 
     public JsonNode uploadAudioForTranscription(Path audioPath, String model, String language) {
@@ -145,29 +525,545 @@ public class OpenAIClient {
         }
     }
 
-    private JsonNode execute(Request request) {
-        try (Response response = httpClient.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                String errorBody = response.body() != null ? response.body().string() : "";
-                throw new OpenAIException("OpenAI API call failed with status "
-                        + response.code() + ": " + errorBody);
+    private <T> T execute(Request request, RateLimitTracker.Cost cost, ResponseReader<T> reader) {
+        request = withIdempotencyKey(request);
+        String endpoint = EndpointFamily.of(request.url(), config.getBaseUrl());
+        RetryAdvisor.RetryState retry = retryAdvisor.begin(request, endpoint);
+        while (true) {
+            Duration delay;
+            OpenAIException failure;
+            checkCircuit(request, endpoint);
+            CredentialPool.Lease lease = lease(request, cost);
+            RateLimitTracker.Cost scoped = scoped(cost, lease.credential());
+            try {
+                Duration pacing = rateLimits.reserve(scoped);
+                if (!pacing.isZero()) {
+                    logPacing(request, scoped, pacing);
+                    try {
+                        sleep(pacing);
+                    } finally {
+                        rateLimits.dispatched(scoped);
+                    }
+                }
+                AdaptiveConcurrencyLimiter.Permit permit = limiter(endpoint).acquireBlocking();
+                CircuitBreaker.Attempt call;
+                try {
+                    call = admit(request, endpoint);
+                } catch (CircuitOpenException e) {
+                    permit.ignore();
+                    throw e;
+                }
+                TrafficRecorder.Call trace = recorder.start(request, endpoint, retry.attempt(), metrics.family(endpoint));
+                try (Response response = httpClient.newCall(authorised(request, lease.credential())).execute()) {
+                    release(permit, response.code());
+                    record(call, response.code());
+                    rateLimits.observe(scoped, response.headers());
+                    if (response.isSuccessful()) {
+                        lease.completed(response.code(), null);
+                        T body = readBody(response, reader, trace);
+                        trace.finished(response.code());
+                        pinCreatedResource(request, endpoint, body, lease);
+                        return body;
+                    }
+                    String errorBody = response.body() != null ? response.body().string() : "";
+                    trace.finished(response.code(), errorBody.length());
+                    boolean keyRefused = lease.completed(response.code(), errorBody);
+                    failure = statusFailure(response.code(), errorBody);
+                    delay = failsOver(request, lease, keyRefused)
+                            ? Duration.ZERO
+                            : retryAdvisor.afterStatus(retry, response.code(), response.headers(), errorBody);
+                } catch (IOException e) {
+                    trace.failed();
+                    release(permit, e);
+                    call.failed();
+                    lease.failed();
+                    failure = new OpenAIException("HTTP call to OpenAI failed", e);
+                    delay = retryAdvisor.afterIOException(retry, e);
+                } finally {
+                    permit.ignore();
+                    call.ignore();
+                }
+            } finally {
+                lease.cancelled();
             }
-            if (response.body() == null) {
-                throw new OpenAIException("OpenAI API call returned an empty body");
+            if (delay == null) {
+                throw failure;
             }
-            String responseBody = response.body().string();
-            return objectMapper.readTree(responseBody);
-        } catch (IOException e) {
-            throw new OpenAIException("HTTP call to OpenAI failed", e);
+            if (!delay.isZero()) {
+                logRetry(request, endpoint, retry, failure, delay);
+                sleep(delay);
+            }
+        }
+    }
+
+    private <T> CompletableFuture<T> executeAsync(Request request, RateLimitTracker.Cost cost, ResponseReader<T> reader) {
+        Request prepared = withResourceAccount(withIdempotencyKey(request));
+        String endpoint = EndpointFamily.of(prepared.url(), config.getBaseUrl());
+        RetryAdvisor.RetryState retry = retryAdvisor.begin(prepared, endpoint);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        enqueue(prepared, endpoint, cost, retry, reader, result);
+        return result;
+    }
+
+    private <T> void enqueue(Request request, String endpoint, RateLimitTracker.Cost cost, RetryAdvisor.RetryState retry,
+                             ResponseReader<T> reader, CompletableFuture<T> result) {
+        if (result.isDone()) {
+            return;
+        }
+        try {
+            checkCircuit(request, endpoint);
+        } catch (CircuitOpenException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+        CredentialPool.Lease lease = lease(request, cost);
+        RateLimitTracker.Cost scoped = scoped(cost, lease.credential());
+        Duration pacing = rateLimits.reserve(scoped);
+        if (pacing.isZero()) {
+            acquireAndSend(request, endpoint, cost, retry, reader, result, lease);
+        } else {
+            logPacing(request, scoped, pacing);
+            retryScheduler.schedule(() -> {
+                rateLimits.dispatched(scoped);
+                acquireAndSend(request, endpoint, cost, retry, reader, result, lease);
+            }, pacing.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private <T> void acquireAndSend(Request request, String endpoint, RateLimitTracker.Cost cost,
+                                    RetryAdvisor.RetryState retry, ResponseReader<T> reader,
+                                    CompletableFuture<T> result, CredentialPool.Lease lease) {
+        limiter(endpoint).acquire().whenComplete((permit, shed) -> {
+            if (shed != null) {
+                lease.cancelled();
+                result.completeExceptionally(shed);
+            } else if (result.isDone()) {
+                lease.cancelled();
+                permit.ignore();
+            } else {
+                // A freed permit may start this send on a thread still busy with another request
+                try (ResourceAccount.Scope ignored = ResourceAccount.enter(request.tag(ResourceAccount.class))) {
+                    send(request, endpoint, cost, retry, reader, result, lease, permit);
+                }
+            }
+        });
+    }
+
+    private <T> void send(Request request, String endpoint, RateLimitTracker.Cost cost, RetryAdvisor.RetryState retry,
+                          ResponseReader<T> reader, CompletableFuture<T> result, CredentialPool.Lease lease,
+                      AdaptiveConcurrencyLimiter.Permit permit) {
+        RateLimitTracker.Cost scoped = scoped(cost, lease.credential());
+        CircuitBreaker.Attempt admitted;
+        try {
+            admitted = admit(request, endpoint);
+        } catch (CircuitOpenException e) {
+            permit.ignore();
+            lease.cancelled();
+            result.completeExceptionally(e);
+            return;
+        }
+        TrafficRecorder.Call trace = recorder.start(request, endpoint, retry.attempt(), metrics.family(endpoint));
+        Call call = httpClient.newCall(authorised(request, lease.credential()));
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                call.cancel();
+            }
+        });
+        call.enqueue(accounted(request, new Callback() {
+            @Override
+            public void onFailure(Call failedCall, IOException e) {
+                trace.failed();
+                if (failedCall.isCanceled()) {
+                    permit.ignore();
+                    admitted.ignore();
+                    lease.cancelled();
+                } else {
+                    release(permit, e);
+                    admitted.failed();
+                    lease.failed();
+                }
+                OpenAIException failure = new OpenAIException("HTTP call to OpenAI failed", e);
+                retryOrFail(request, endpoint, cost, retry, reader, result, failure, retryAdvisor.afterIOException(retry, e));
+            }
+
+            @Override
+            public void onResponse(Call completedCall, Response response) {
+                release(permit, response.code());
+                record(admitted, response.code());
+                rateLimits.observe(scoped, response.headers());
+                try (response) {
+                    if (response.isSuccessful()) {
+                        lease.completed(response.code(), null);
+                        T body = readBody(response, reader, trace);
+                        trace.finished(response.code());
+                        pinCreatedResource(request, endpoint, body, lease);
+                        result.complete(body);
+                        return;
+                    }
+                    String errorBody = response.body() != null ? response.body().string() : "";
+                    trace.finished(response.code(), errorBody.length());
+                    boolean keyRefused = lease.completed(response.code(), errorBody);
+                    OpenAIException failure = statusFailure(response.code(), errorBody);
+                    retryOrFail(request, endpoint, cost, retry, reader, result, failure, failsOver(request, lease, keyRefused)
+                            ? Duration.ZERO
+                            : retryAdvisor.afterStatus(retry, response.code(), response.headers(), errorBody));
+                } catch (IOException e) {
+                    onFailure(completedCall, e);
+                } catch (RuntimeException e) {
+                    lease.cancelled();
+                    result.completeExceptionally(e);
+                }
+            }
+        }));
+    }
+
+    private <T> void retryOrFail(Request request,
+                                 String endpoint,
+                                 RateLimitTracker.Cost cost,
+                                 RetryAdvisor.RetryState retry,
+                                 ResponseReader<T> reader,
+                                 CompletableFuture<T> result,
+                                 OpenAIException failure,
+                                 Duration delay) {
+        if (delay == null) {
+            result.completeExceptionally(failure);
+            return;
+        }
+        if (delay.isZero()) {
+            enqueue(request, endpoint, cost, retry, reader, result);
+            return;
+        }
+        logRetry(request, endpoint, retry, failure, delay);
+        retryScheduler.schedule(() -> enqueue(request, endpoint, cost, retry, reader, result), delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Upstream concurrency limits per endpoint family, sorted by family.
+     */
+    public List<AdaptiveConcurrencyLimiter.Snapshot> concurrencyLimits() {
+        return limiters.values().stream()
+                .map(AdaptiveConcurrencyLimiter::snapshot)
+                .sorted(Comparator.comparing(AdaptiveConcurrencyLimiter.Snapshot::endpoint))
+                .toList();
+    }
+
+    /**
+     * Circuit breakers per endpoint family, sorted by family.
+     */
+    public List<CircuitBreaker.Snapshot> circuitBreakers() {
+        return breakers.values().stream()
+                .map(CircuitBreaker::snapshot)
+                .sorted(Comparator.comparing(CircuitBreaker.Snapshot::endpoint))
+                .toList();
+    }
+
+    /**
+     * The circuit breaker guarding calls to {@code endpoint}, e.g. to fail fast before work that
+     * is only worth doing if the call can follow, or to record failures the HTTP layer cannot see.
+     */
+    public CircuitBreaker circuitBreaker(String endpoint) {
+        return breakers.computeIfAbsent(endpoint,
+                family -> new CircuitBreaker(family, config.getCircuitBreakerPolicy()));
+    }
+
+    /**
+     * Client-side rate-limit budgets per model and project, as last reported by the upstream.
+     */
+    public List<RateLimitTracker.Snapshot> rateLimits() {
+        return rateLimits.snapshots();
+    }
+
+    /**
+     * Health of each key in the credential pool, in configuration order.
+     */
+    public List<CredentialPool.Snapshot> credentials() {
+        return credentials.snapshots();
+    }
+
+    /**
+     * Latency, statuses and bytes of every attempt sent so far, per endpoint family.
+     */
+    public UpstreamMetrics upstreamMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Budget key for a call: the payload's {@code model} when it names one, otherwise the model
+     * configured for the endpoint family. {@link #scoped} qualifies it per key.
+     */
+    private RateLimitTracker.Cost cost(String pathSegments, Object payload, long estimatedTokens) {
+        String model = payload instanceof JsonNode node && node.path("model").isTextual()
+                ? node.path("model").asText()
+                : defaultModel(EndpointFamily.of(pathSegments));
+        return new RateLimitTracker.Cost(model, Math.max(0L, estimatedTokens));
+    }
+
+    /**
+     * Charges a call to the budget of the key that sends it: per project when the key has one,
+     * per key otherwise. A single key without a project keeps the bare model as its budget key.
+     */
+    private RateLimitTracker.Cost scoped(RateLimitTracker.Cost cost, OpenAICredential credential) {
+        if (credential.projectId().isEmpty() && config.getCredentials().size() == 1) {
+            return cost;
+        }
+        return cost.scopedTo(credential.budgetScope());
+    }
+
+    /**
+     * Leases the key for the next attempt. Calls on an existing video go to the key that created
+     * it; everything else goes to the key whose budget and load can take it soonest.
+     */
+    private CredentialPool.Lease lease(Request request, RateLimitTracker.Cost cost) {
+        return credentials.lease(EndpointFamily.resourceId(request.url(), config.getBaseUrl()),
+                credential -> rateLimits.estimateWait(scoped(cost, credential)));
+    }
+
+    /**
+     * A call refused because of its key (now ejected) moves straight to another key, outside the
+     * retry budget, unless it addresses a resource only that key can see. Each refusal ejects a
+     * key, so this ends once the pool runs out of admitted keys.
+     */
+    private boolean failsOver(Request request, CredentialPool.Lease lease, boolean keyRefused) {
+        if (!keyRefused
+                || EndpointFamily.resourceId(request.url(), config.getBaseUrl()).isPresent()
+                || !credentials.anyAdmitted()) {
+            return false;
+        }
+        LOGGER.warn("{} {} refused by credential {}; moving to another key",
+                request.method(), request.url().encodedPath(), lease.credential().name());
+        return true;
+    }
+
+    /**
+     * Pins a newly created video to the key that created it. Needs the {@code id} in the parsed
+     * body, so video submissions must be read into a tree that keeps that field.
+     */
+    private void pinCreatedResource(Request request, String endpoint, Object body, CredentialPool.Lease lease) {
+        if (EndpointFamily.VIDEOS.equals(endpoint) && "POST".equals(request.method())
+                && EndpointFamily.resourceId(request.url(), config.getBaseUrl()).isEmpty()
+                && body instanceof JsonNode node && node.path("id").isTextual()) {
+            credentials.pin(node.path("id").asText(), lease);
         }
     }
 
+    private String defaultModel(String endpoint) {
+        return switch (endpoint) {
+            case EndpointFamily.TRANSCRIPTIONS -> config.getSpeechModel();
+            case EndpointFamily.RESPONSES -> config.getTextModel();
+            case EndpointFamily.VIDEOS -> config.getVideoModel();
+            default -> endpoint;
+        };
+    }
+
+    private static void logPacing(Request request, RateLimitTracker.Cost cost, Duration pacing) {
+        LOGGER.info("{} {} held back {} ms for the {} rate-limit budget ({} tokens estimated)",
+                request.method(), request.url().encodedPath(), pacing.toMillis(), cost.key(), cost.tokens());
+    }
+
+    /**
+     * Calls on an existing resource (polling or fetching a render already paid for) bypass the
+     * breaker; it only guards calls that start new upstream work.
+     */
+    private boolean guarded(Request request) {
+        return EndpointFamily.resourceId(request.url(), config.getBaseUrl()).isEmpty();
+    }
+
+    private void checkCircuit(Request request, String endpoint) {
+        if (guarded(request)) {
+            circuitBreaker(endpoint).check();
+        }
+    }
+
+    private CircuitBreaker.Attempt admit(Request request, String endpoint) {
+        CircuitBreaker breaker = circuitBreaker(endpoint);
+        return guarded(request) ? breaker.acquire() : breaker.bypass();
+    }
+
+    /**
+     * Feeds the attempt's outcome to the breaker: 5xx and 408 mean the upstream is failing, a 429
+     * is rate limiting that pacing and the concurrency limit already handle, and any other answer
+     * shows the upstream is up.
+     */
+    private static void record(CircuitBreaker.Attempt call, int statusCode) {
+        if (statusCode >= 500 || statusCode == 408) {
+            call.failed();
+        } else if (statusCode == 429) {
+            call.ignore();
+        } else {
+            call.succeeded();
+        }
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(String endpoint) {
+        return limiters.computeIfAbsent(endpoint,
+                family -> new AdaptiveConcurrencyLimiter(family, config.getConcurrencyLimitPolicy(), retryScheduler));
+    }
+
+    /**
+     * Feeds the attempt's outcome to the limiter: 429 and 503 are the upstream asking for less
+     * concurrency, a success is a latency sample, and anything else carries no capacity signal.
+     */
+    private static void release(AdaptiveConcurrencyLimiter.Permit permit, int statusCode) {
+        if (statusCode == 429 || statusCode == 503) {
+            permit.dropped();
+        } else if (statusCode >= 200 && statusCode < 300) {
+            permit.success();
+        } else {
+            permit.ignore();
+        }
+    }
+
+    private static void release(AdaptiveConcurrencyLimiter.Permit permit, IOException failure) {
+        // A timeout means the upstream sat on the request; a refused or reset connection does not
+        if (failure instanceof InterruptedIOException) {
+            permit.dropped();
+        } else {
+            permit.ignore();
+        }
+    }
+
+    /**
+     * Parses the body straight off the response stream, without first copying it into a String.
+     */
+    private <T> T readBody(Response response, ResponseReader<T> reader, TrafficRecorder.Call trace) throws IOException {
+        ResponseBody body = response.body();
+        if (body == null) {
+            throw new OpenAIException("OpenAI API call returned an empty body");
+        }
+        try (JsonParser parser = objectMapper.createParser(trace.counting(body.byteStream()))) {
+            return reader.read(parser);
+        }
+    }
+
+    private static OpenAIException statusFailure(int statusCode, String errorBody) {
+        return new OpenAIException("OpenAI API call failed with status " + statusCode + ": " + errorBody, statusCode);
+    }
+
+    private static Request withIdempotencyKey(Request request) {
+        if ("POST".equals(request.method()) && request.header("Idempotency-Key") == null) {
+            // One key for every attempt of this logical request lets the upstream de-duplicate replays
+            return request.newBuilder().header("Idempotency-Key", UUID.randomUUID().toString()).build();
+        }
+        return request;
+    }
+
+    /**
+     * Tags {@code request} with the caller's {@link ResourceAccount}, so the response callbacks of
+     * every attempt, and whatever completes inline from them, are charged to it, and each attempt's
+     * flight recorder event carries the account's job id.
+     */
+    private static Request withResourceAccount(Request request) {
+        ResourceAccount account = ResourceAccount.current();
+        return account == null ? request : request.newBuilder().tag(ResourceAccount.class, account).build();
+    }
+
+    private static Callback accounted(Request request, Callback callback) {
+        ResourceAccount account = request.tag(ResourceAccount.class);
+        if (account == null) {
+            return callback;
+        }
+        return new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                try (ResourceAccount.Scope ignored = account.enter()) {
+                    callback.onFailure(call, e);
+                }
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) throws IOException {
+                try (ResourceAccount.Scope ignored = account.enter()) {
+                    callback.onResponse(call, response);
+                }
+            }
+        };
+    }
+
+    private static void logRetry(Request request, String endpoint, RetryAdvisor.RetryState retry,
+                                 OpenAIException failure, Duration delay) {
+        LOGGER.warn("{} {} attempt {} failed ({}); retrying in {} ms",
+                request.method(), endpoint, retry.attempt() - 1, failure.getMessage(), delay.toMillis());
+    }
+
+    private static void sleep(Duration delay) {
+        try {
+            Thread.sleep(delay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OpenAIException("Interrupted while waiting to retry", e);
+        }
+    }
+
+    /**
+     * Opens a pooled connection to the API host when none is idle, so the next call skips DNS,
+     * TCP and TLS setup. Always completes normally; the upstream's answer is irrelevant.
+     */
+    public CompletableFuture<Void> warmUpAsync() {
+        if (httpClient.connectionPool().idleConnectionCount() > 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> warmed = new CompletableFuture<>();
+        Request request = new Request.Builder().url(config.getBaseUrl()).head().build();
+        httpClient.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call failedCall, IOException e) {
+                LOGGER.debug("Connection warm-up to {} failed: {}", config.getBaseUrl().host(), e.getMessage());
+                warmed.complete(null);
+            }
+
+            @Override
+            public void onResponse(Call completedCall, Response response) {
+                response.close();
+                warmed.complete(null);
+            }
+        });
+        return warmed;
+    }
+
     public ObjectMapper mapper() {
         return objectMapper;
     }
 
-    private void applyDefaultHeaders(Request.Builder builder) {
-        builder.header("Authorization", "Bearer " + config.getApiKey());
-        config.getProject().ifPresent(project -> builder.header("OpenAI-Project", project));
+    private Request authorised(Request request, OpenAICredential credential) {
+        Request.Builder builder = request.newBuilder();
+        applyDefaultHeaders(builder, credential);
+        return builder.build();
+    }
+
+    private void applyDefaultHeaders(Request.Builder builder, OpenAICredential credential) {
+        builder.header("Authorization", "Bearer " + credential.apiKey());
+        credential.projectId().ifPresent(project -> builder.header("OpenAI-Project", project));
+    }
+
+    /**
+     * Non-2xx download response, carrying the headers needed to honour the server's wait hints.
+     */
+    private static final class DownloadStatusException extends OpenAIException {
+        private final transient Headers headers;
+
+        private DownloadStatusException(String message, int statusCode, Headers headers) {
+            super(message, statusCode);
+            this.headers = headers;
+        }
+    }
+
+    /**
+     * Progress carried across the resumed attempts of a single download.
+     */
+    private static final class DownloadState {
+        private final MessageDigest digest = newSha256();
+        private final byte[] buffer = new byte[DOWNLOAD_BUFFER_BYTES];
+        private long expectedLength = -1L;
+        private String validator;
+        private String expectedSha256;
+        private int resumes;
+
+        private static MessageDigest newSha256() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
     }
 }
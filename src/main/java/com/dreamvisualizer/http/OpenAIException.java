@@ -5,11 +5,27 @@ package com.dreamvisualizer.http;
  */
 public class OpenAIException extends RuntimeException {
 
+    private final int statusCode;
+
     public OpenAIException(String message) {
+        this(message, -1);
+    }
+
+    public OpenAIException(String message, int statusCode) {
         super(message);
+        this.statusCode = statusCode;
     }
 
     public OpenAIException(String message, Throwable cause) {
         super(message, cause);
+        this.statusCode = -1;
+    }
+
+    /**
+     * HTTP status returned by the upstream, or {@code -1} when the failure happened before a
+     * response was received.
+     */
+    public int statusCode() {
+        return statusCode;
     }
 }
@@ -0,0 +1,246 @@
+package com.dreamvisualizer.http;
+
+import okhttp3.Headers;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Client-side view of the upstream's request and token budgets, one bucket per model and project
+ * (or per model and key, for keys without a project).
+ *
+ * <p>Every response's {@code x-ratelimit-limit-*}, {@code x-ratelimit-remaining-*} and
+ * {@code x-ratelimit-reset-*} headers reset the bucket to what the server reports; between
+ * responses the bucket refills at the rate implied by the reset header (or the limit per minute
+ * when the server gives none). Each attempt reserves one request and its estimated tokens up front;
+ * when that drives the bucket negative, the attempt is held back until the deficit has refilled
+ * rather than sent into a certain 429. Reservations of held-back attempts stay charged against
+ * the server's figures until {@link #dispatched(Cost)} is called, since the server has not seen
+ * them yet.</p>
+ */
+public final class RateLimitTracker {
+
+    private static final long NANOS_PER_MINUTE = Duration.ofMinutes(1).toNanos();
+
+    private final Duration maxWait;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    RateLimitTracker(Duration maxWait) {
+        this.maxWait = Objects.requireNonNull(maxWait, "maxWait must not be null");
+    }
+
+    /**
+     * Reserves budget for one attempt and returns how long to wait before sending it; zero when the
+     * budget covers it or nothing is known about the bucket yet, and never more than the configured
+     * maximum so a stale estimate cannot stall a call indefinitely. A non-zero wait must be
+     * followed by {@link #dispatched(Cost)} once the attempt goes out.
+     */
+    Duration reserve(Cost cost) {
+        if (maxWait.isZero()) {
+            return Duration.ZERO;
+        }
+        Duration wait = bucket(cost.key()).reserve(cost.tokens(), System.nanoTime());
+        return wait.compareTo(maxWait) > 0 ? maxWait : wait;
+    }
+
+    /**
+     * How long {@link #reserve(Cost)} would hold {@code cost} back right now, without reserving
+     * anything; used to compare keys before choosing one.
+     */
+    Duration estimateWait(Cost cost) {
+        if (maxWait.isZero()) {
+            return Duration.ZERO;
+        }
+        Bucket bucket = buckets.get(cost.key());
+        return bucket == null ? Duration.ZERO : bucket.estimateWait(cost.tokens(), System.nanoTime());
+    }
+
+    void dispatched(Cost cost) {
+        bucket(cost.key()).dispatched(cost.tokens());
+    }
+
+    void observe(Cost cost, Headers headers) {
+        if (headers.get("x-ratelimit-limit-requests") == null && headers.get("x-ratelimit-limit-tokens") == null) {
+            return;
+        }
+        bucket(cost.key()).observe(headers, System.nanoTime());
+    }
+
+    public List<Snapshot> snapshots() {
+        long now = System.nanoTime();
+        return buckets.entrySet().stream()
+                .map(entry -> entry.getValue().snapshot(entry.getKey(), now))
+                .sorted(Comparator.comparing(Snapshot::key))
+                .toList();
+    }
+
+    private Bucket bucket(String key) {
+        return buckets.computeIfAbsent(key, ignored -> new Bucket());
+    }
+
+    /**
+     * Budget key and estimated token cost of one upstream call.
+     */
+    record Cost(String key, long tokens) {
+
+        /**
+         * The same call charged against the budget of one project or key.
+         */
+        Cost scopedTo(String scope) {
+            return new Cost(key + "@" + scope, tokens);
+        }
+    }
+
+    /**
+     * Budget state for one model and project as last reported, refilled to now.
+     */
+    public record Snapshot(String key,
+                           long requestLimit,
+                           long requestsRemaining,
+                           long tokenLimit,
+                           long tokensRemaining,
+                           long delayedCalls,
+                           Duration totalDelay) {
+    }
+
+    private static final class Bucket {
+        private final Dimension requests = new Dimension();
+        private final Dimension tokens = new Dimension();
+        private long delayedCalls;
+        private long totalDelayNanos;
+
+        synchronized Duration reserve(long tokenCost, long now) {
+            if (!requests.known() && !tokens.known()) {
+                return Duration.ZERO;
+            }
+            long waitNanos = Math.max(requests.take(1, now), tokens.take(tokenCost, now));
+            if (waitNanos <= 0) {
+                return Duration.ZERO;
+            }
+            requests.hold(1);
+            tokens.hold(tokenCost);
+            delayedCalls++;
+            totalDelayNanos += waitNanos;
+            // Rounded up: a call released a fraction of a millisecond early meets a bucket that is
+            // still a fraction of a token short
+            return Duration.ofMillis((waitNanos + 999_999) / 1_000_000);
+        }
+
+        synchronized Duration estimateWait(long tokenCost, long now) {
+            long waitNanos = Math.max(requests.waitFor(1, now), tokens.waitFor(tokenCost, now));
+            return Duration.ofNanos(waitNanos);
+        }
+
+        synchronized void dispatched(long tokenCost) {
+            requests.unhold(1);
+            tokens.unhold(tokenCost);
+        }
+
+        synchronized void observe(Headers headers, long now) {
+            requests.observe(headers.get("x-ratelimit-limit-requests"),
+                    headers.get("x-ratelimit-remaining-requests"),
+                    headers.get("x-ratelimit-reset-requests"), now);
+            tokens.observe(headers.get("x-ratelimit-limit-tokens"),
+                    headers.get("x-ratelimit-remaining-tokens"),
+                    headers.get("x-ratelimit-reset-tokens"), now);
+        }
+
+        synchronized Snapshot snapshot(String key, long now) {
+            return new Snapshot(key, requests.limit, requests.available(now), tokens.limit, tokens.available(now),
+                    delayedCalls, Duration.ofNanos(totalDelayNanos));
+        }
+    }
+
+    /**
+     * One refilling budget (requests or tokens). The balance may go negative while reserved calls
+     * wait for it to refill.
+     */
+    private static final class Dimension {
+        private long limit = -1;
+        private double balance;
+        private long held;
+        private double refillPerNano;
+        private long updatedNanos;
+
+        boolean known() {
+            return limit > 0;
+        }
+
+        void observe(String limitHeader, String remainingHeader, String resetHeader, long now) {
+            Long parsedLimit = parseCount(limitHeader);
+            Long remaining = parseCount(remainingHeader);
+            if (parsedLimit == null || remaining == null || parsedLimit <= 0) {
+                return;
+            }
+            limit = parsedLimit;
+            balance = Math.min(limit, remaining) - held;
+            Duration reset = RetryAdvisor.parseResetDuration(resetHeader);
+            refillPerNano = reset != null && !reset.isZero() && remaining < limit
+                    ? (limit - remaining) / (double) reset.toNanos()
+                    : limit / (double) NANOS_PER_MINUTE;
+            updatedNanos = now;
+        }
+
+        void hold(long cost) {
+            if (known()) {
+                held += Math.min(cost, limit);
+            }
+        }
+
+        void unhold(long cost) {
+            held = Math.max(0L, held - Math.min(cost, Math.max(limit, 0L)));
+        }
+
+        /**
+         * Deducts {@code cost} and returns how long until the balance is back at zero.
+         */
+        long take(long cost, long now) {
+            if (!known() || cost <= 0) {
+                return 0L;
+            }
+            refill(now);
+            // A call larger than the whole budget can never fit; charge it the full budget instead
+            balance -= Math.min(cost, limit);
+            return balance >= 0 ? 0L : (long) Math.ceil(-balance / refillPerNano);
+        }
+
+        /**
+         * How long until {@code cost} would fit, leaving the balance untouched.
+         */
+        long waitFor(long cost, long now) {
+            if (!known() || cost <= 0) {
+                return 0L;
+            }
+            double projected = Math.min(limit, balance + refillPerNano * (now - updatedNanos)) - Math.min(cost, limit);
+            return projected >= 0 ? 0L : (long) Math.ceil(-projected / refillPerNano);
+        }
+
+        long available(long now) {
+            if (!known()) {
+                return -1L;
+            }
+            refill(now);
+            return (long) Math.floor(balance);
+        }
+
+        private void refill(long now) {
+            balance = Math.min(limit, balance + refillPerNano * (now - updatedNanos));
+            updatedNanos = now;
+        }
+
+        private static Long parseCount(String value) {
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
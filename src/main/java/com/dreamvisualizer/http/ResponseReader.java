@@ -0,0 +1,57 @@
+package com.dreamvisualizer.http;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Turns an upstream response body into a value while it streams in. The parser reads straight from
+ * the response bytes and is positioned before the first token, so a reader that pulls only the
+ * fields it needs never materialises the rest of the payload.
+ */
+@FunctionalInterface
+public interface ResponseReader<T> {
+
+    T read(JsonParser parser) throws IOException;
+
+    /**
+     * Reads the whole body into a tree; {@link MissingNode} for an empty body.
+     */
+    static ResponseReader<JsonNode> tree() {
+        return parser -> {
+            JsonNode node = parser.readValueAsTree();
+            return node != null ? node : MissingNode.getInstance();
+        };
+    }
+
+    /**
+     * Reads only the named top-level fields of a JSON object into a tree, skipping everything else
+     * token by token.
+     */
+    static ResponseReader<JsonNode> fields(String... names) {
+        Set<String> wanted = Set.of(names);
+        return parser -> {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a JSON object");
+            }
+            ObjectNode node = JsonNodeFactory.instance.objectNode();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if (wanted.contains(field)) {
+                    node.set(field, parser.readValueAsTree());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return node;
+        };
+    }
+}
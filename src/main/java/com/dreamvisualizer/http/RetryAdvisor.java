@@ -0,0 +1,213 @@
+package com.dreamvisualizer.http;
+
+import com.dreamvisualizer.config.RetryPolicy;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import okhttp3.Headers;
+import okhttp3.Request;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Decides whether and when a failed upstream attempt is retried, combining the configured
+ * {@link RetryPolicy} with the wait hints the API returns and the client-wide {@link RetryBudget}.
+ */
+final class RetryAdvisor {
+
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+
+    private final RetryPolicy policy;
+    private final RetryBudget budget;
+
+    RetryAdvisor(RetryPolicy policy) {
+        this.policy = policy;
+        this.budget = new RetryBudget(policy.budgetRatio(), policy.minRetriesPerSecond());
+    }
+
+    RetryState begin(Request request, String endpoint) {
+        budget.recordRequest();
+        return new RetryState(endpoint, request.method(), policy.maxAttempts(endpoint));
+    }
+
+    /**
+     * Returns the delay before the next attempt after an HTTP error response, or {@code null} when
+     * the failure should be surfaced to the caller.
+     */
+    Duration afterStatus(RetryState state, int statusCode, Headers headers, String errorBody) {
+        if (!isRetryableStatus(statusCode, errorBody)) {
+            return null;
+        }
+        // 429 and 503 mean the request was turned away before any work happened, so even a
+        // non-idempotent POST can safely be replayed
+        boolean rejectedBeforeProcessing = statusCode == 429 || statusCode == 503;
+        if (!rejectedBeforeProcessing && !isReplayable(state)) {
+            return null;
+        }
+        return schedule(state, serverWaitHint(headers));
+    }
+
+    /**
+     * Returns the delay before the next attempt after a transport failure, or {@code null} when
+     * the failure should be surfaced to the caller.
+     */
+    Duration afterIOException(RetryState state, IOException error) {
+        if (error instanceof JsonProcessingException) {
+            // The exchange succeeded; a malformed body will not parse any better the second time
+            return null;
+        }
+        boolean neverSent = error instanceof ConnectException
+                || error instanceof UnknownHostException
+                || error instanceof NoRouteToHostException;
+        if (!neverSent && !isReplayable(state)) {
+            return null;
+        }
+        return schedule(state, null);
+    }
+
+    double availableBudget() {
+        return budget.available();
+    }
+
+    private boolean isReplayable(RetryState state) {
+        return !"POST".equals(state.method) || policy.isIdempotentPost(state.endpoint);
+    }
+
+    private Duration schedule(RetryState state, Duration serverHint) {
+        if (state.attempt >= state.maxAttempts) {
+            return null;
+        }
+        Duration delay;
+        if (serverHint != null) {
+            if (serverHint.compareTo(policy.maxServerWait()) > 0) {
+                return null;
+            }
+            // Small spread on top of the hint so clients released together do not re-collide
+            long spread = Math.max(1L, serverHint.toMillis() / 10);
+            delay = serverHint.plusMillis(ThreadLocalRandom.current().nextLong(spread + 1));
+        } else {
+            delay = policy.nextBackoff(state.previousDelay);
+        }
+        if (state.waited.plus(delay).compareTo(policy.perRequestBudget()) > 0) {
+            return null;
+        }
+        if (!budget.tryAcquireRetry()) {
+            return null;
+        }
+        state.attempt++;
+        state.previousDelay = delay;
+        state.waited = state.waited.plus(delay);
+        return delay;
+    }
+
+    static boolean isRetryableStatus(int statusCode, String errorBody) {
+        if (statusCode == 429) {
+            // Exhausted billing quota also surfaces as 429 but never clears by waiting
+            return errorBody == null || !errorBody.contains("insufficient_quota");
+        }
+        return statusCode == 408 || statusCode == 409 || statusCode == 500
+                || statusCode == 502 || statusCode == 503 || statusCode == 504;
+    }
+
+    /**
+     * Extracts how long the server asked us to wait: {@code retry-after-ms}, {@code Retry-After}
+     * (seconds or HTTP date), or the rate-limit reset of whichever budget is exhausted.
+     */
+    static Duration serverWaitHint(Headers headers) {
+        String retryAfterMs = headers.get("retry-after-ms");
+        if (retryAfterMs != null) {
+            try {
+                return Duration.ofMillis((long) Double.parseDouble(retryAfterMs.trim()));
+            } catch (NumberFormatException ignored) {
+                // fall through to the other hints
+            }
+        }
+        String retryAfter = headers.get("Retry-After");
+        if (retryAfter != null) {
+            String value = retryAfter.trim();
+            try {
+                return Duration.ofSeconds(Long.parseLong(value));
+            } catch (NumberFormatException ignored) {
+                try {
+                    Instant at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                    Duration until = Duration.between(Instant.now(), at);
+                    return until.isNegative() ? Duration.ZERO : until;
+                } catch (DateTimeParseException ignoredAgain) {
+                    // fall through to the rate-limit headers
+                }
+            }
+        }
+        Duration requestsReset = parseResetDuration(headers.get("x-ratelimit-reset-requests"));
+        Duration tokensReset = parseResetDuration(headers.get("x-ratelimit-reset-tokens"));
+        if ("0".equals(headers.get("x-ratelimit-remaining-requests")) && requestsReset != null) {
+            return requestsReset;
+        }
+        if ("0".equals(headers.get("x-ratelimit-remaining-tokens")) && tokensReset != null) {
+            return tokensReset;
+        }
+        if (requestsReset != null && tokensReset != null) {
+            return requestsReset.compareTo(tokensReset) >= 0 ? requestsReset : tokensReset;
+        }
+        return requestsReset != null ? requestsReset : tokensReset;
+    }
+
+    /**
+     * Parses the Go-style durations used by the rate-limit reset headers, e.g. {@code 20ms},
+     * {@code 1s}, {@code 6m0s} or {@code 1h2m3.5s}.
+     */
+    static Duration parseResetDuration(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        Matcher matcher = DURATION_PART.matcher(value.trim().toLowerCase(Locale.ROOT));
+        double millis = 0;
+        boolean matched = false;
+        while (matcher.find()) {
+            matched = true;
+            double amount = Double.parseDouble(matcher.group(1));
+            millis += switch (matcher.group(2)) {
+                case "h" -> amount * 3_600_000;
+                case "m" -> amount * 60_000;
+                case "s" -> amount * 1_000;
+                default -> amount;
+            };
+        }
+        return matched ? Duration.ofMillis((long) Math.ceil(millis)) : null;
+    }
+
+    /**
+     * Attempt bookkeeping for one logical request.
+     */
+    static final class RetryState {
+        private final String endpoint;
+        private final String method;
+        private final int maxAttempts;
+        private int attempt = 1;
+        private Duration previousDelay = Duration.ZERO;
+        private Duration waited = Duration.ZERO;
+
+        private RetryState(String endpoint, String method, int maxAttempts) {
+            this.endpoint = endpoint;
+            this.method = method;
+            this.maxAttempts = maxAttempts;
+        }
+
+        int attempt() {
+            return attempt;
+        }
+
+        String endpoint() {
+            return endpoint;
+        }
+    }
+}
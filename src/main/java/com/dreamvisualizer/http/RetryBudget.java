@@ -0,0 +1,43 @@
+package com.dreamvisualizer.http;
+
+/**
+ * Client-wide token bucket that caps retries to a fraction of first attempts (plus a small
+ * per-second reserve), so a struggling upstream sees at most {@code 1 + ratio} times the
+ * original load instead of {@code maxAttempts} times.
+ */
+final class RetryBudget {
+
+    private final double ratio;
+    private final double reservePerSecond;
+    private final double capacity;
+    private double tokens;
+    private long lastRefillNanos;
+
+    RetryBudget(double ratio, int minRetriesPerSecond) {
+        this.ratio = ratio;
+        this.reservePerSecond = minRetriesPerSecond;
+        this.capacity = Math.max(10.0, minRetriesPerSecond * 10.0);
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    synchronized void recordRequest() {
+        tokens = Math.min(capacity, tokens + ratio);
+    }
+
+    synchronized boolean tryAcquireRetry() {
+        long now = System.nanoTime();
+        double elapsedSeconds = (now - lastRefillNanos) / 1_000_000_000.0;
+        lastRefillNanos = now;
+        tokens = Math.min(capacity, tokens + elapsedSeconds * reservePerSecond);
+        if (tokens < 1.0) {
+            return false;
+        }
+        tokens -= 1.0;
+        return true;
+    }
+
+    synchronized double available() {
+        return tokens;
+    }
+}
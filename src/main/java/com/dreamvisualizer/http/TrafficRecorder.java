@@ -0,0 +1,294 @@
+package com.dreamvisualizer.http;
+
+import com.dreamvisualizer.cache.ContentHash;
+import com.dreamvisualizer.diagnostics.UpstreamCallEvent;
+import com.dreamvisualizer.metrics.ResourceAccount;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional trace of every upstream attempt, for replaying production traffic offline against a
+ * local stand-in server.
+ *
+ * <p>Each attempt becomes one JSON line: offset from the start of the recording ({@code t}, ms),
+ * method ({@code m}), redacted path ({@code p}), endpoint family ({@code e}), attempt number
+ * ({@code a}), status ({@code s}, {@code 0} for a transport failure), request and response body
+ * sizes ({@code rq}, {@code rs}, bytes) and latency to the end of the body ({@code ms}). Nothing
+ * else is kept: no keys, headers, query strings or bodies. Resource ids are replaced by a short
+ * hash, so polls and downloads of one render still line up, and URLs on other hosts (signed CDN
+ * links) are reduced to {@code external}.</p>
+ *
+ * <p>Lines are handed to a single writer thread and flushed once a second, so recording adds no
+ * I/O to the calling thread.</p>
+ */
+public class TrafficRecorder implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TrafficRecorder.class);
+
+    /**
+     * Records nothing and allocates nothing per call.
+     */
+    public static final TrafficRecorder NONE = new TrafficRecorder();
+
+    private final HttpUrl baseUrl;
+    private final BufferedWriter writer;
+    private final ScheduledExecutorService writerThread;
+    private final ObjectMapper mapper;
+    private final long startNanos;
+
+    private TrafficRecorder() {
+        this.baseUrl = null;
+        this.writer = null;
+        this.writerThread = null;
+        this.mapper = null;
+        this.startNanos = 0L;
+    }
+
+    private TrafficRecorder(Path traceFile, HttpUrl baseUrl, ObjectMapper mapper) throws IOException {
+        Path parent = traceFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.baseUrl = baseUrl;
+        this.mapper = mapper;
+        this.writer = Files.newBufferedWriter(traceFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.writerThread = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "openai-trace-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.startNanos = System.nanoTime();
+        writerThread.scheduleWithFixedDelay(this::flush, 1, 1, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "openai-trace-close"));
+    }
+
+    /**
+     * Appends to {@code traceFile}; falls back to {@link #NONE} with a warning when the file
+     * cannot be opened, since a trace is never worth failing requests for.
+     */
+    public static TrafficRecorder open(Path traceFile, HttpUrl baseUrl, ObjectMapper mapper) {
+        try {
+            TrafficRecorder recorder = new TrafficRecorder(traceFile, baseUrl, mapper);
+            LOGGER.info("Recording upstream traffic to {}", traceFile);
+            return recorder;
+        } catch (IOException e) {
+            LOGGER.warn("Cannot open traffic trace {}; recording disabled", traceFile, e);
+            return NONE;
+        }
+    }
+
+    public boolean isEnabled() {
+        return writer != null;
+    }
+
+    /**
+     * Starts timing one attempt of {@code request}, for the trace when recording, for
+     * {@code metrics} when not {@code null} and as an {@link UpstreamCallEvent} while a flight
+     * recording wants one.
+     */
+    Call start(Request request, String endpoint, int attempt, UpstreamMetrics.Family metrics) {
+        long requestBytes = requestBytes(request.body());
+        ResourceAccount account = request.tag(ResourceAccount.class);
+        String jobId = account != null ? account.jobId() : null;
+        // Unredacted path: a flight recording stays on this host, and the resource ids are what tie
+        // an attempt to its render
+        UpstreamCallEvent event = UpstreamCallEvent.begin(jobId, request.method(), endpoint,
+                EndpointFamily.EXTERNAL.equals(endpoint) ? null : request.url().encodedPath(), attempt, requestBytes);
+        if (!isEnabled() && metrics == null && event == null) {
+            return Call.DISABLED;
+        }
+        return new Call(isEnabled() ? this : null, metrics, event, request.method(),
+                isEnabled() ? redactedPath(request.url()) : null, endpoint, attempt,
+                requestBytes, System.nanoTime());
+    }
+
+    private String redactedPath(HttpUrl url) {
+        String family = EndpointFamily.of(url, baseUrl);
+        if (EndpointFamily.EXTERNAL.equals(family)) {
+            return EndpointFamily.EXTERNAL;
+        }
+        String resourceId = EndpointFamily.resourceId(url, baseUrl).orElse(null);
+        long baseDepth = baseUrl.pathSegments().stream().filter(segment -> !segment.isEmpty()).count();
+        List<String> segments = new ArrayList<>(url.pathSegments().subList((int) baseDepth, url.pathSegments().size()));
+        int idIndex = family.split("/").length;
+        if (resourceId != null && idIndex < segments.size()) {
+            segments.set(idIndex, "~" + ContentHash.sha256Hex(resourceId).substring(0, 12));
+        }
+        return String.join("/", segments);
+    }
+
+    private static long requestBytes(RequestBody body) {
+        if (body == null) {
+            return 0L;
+        }
+        try {
+            return Math.max(0L, body.contentLength());
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private void write(Call call, int status, long responseBytes, long endNanos) {
+        ObjectNode line = mapper.createObjectNode();
+        line.put("t", TimeUnit.NANOSECONDS.toMillis(call.startNanos - startNanos));
+        line.put("m", call.method);
+        line.put("p", call.path);
+        line.put("e", call.endpoint);
+        line.put("a", call.attempt);
+        line.put("s", status);
+        line.put("rq", call.requestBytes);
+        line.put("rs", responseBytes);
+        line.put("ms", TimeUnit.NANOSECONDS.toMillis(endNanos - call.startNanos));
+        try {
+            writerThread.execute(() -> {
+                try {
+                    writer.write(line.toString());
+                    writer.newLine();
+                } catch (IOException e) {
+                    LOGGER.debug("Failed to write traffic trace line: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Recorder closed during shutdown; the line is dropped
+        }
+    }
+
+    private void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            LOGGER.debug("Failed to flush traffic trace: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!isEnabled() || writerThread.isShutdown()) {
+            return;
+        }
+        writerThread.shutdown();
+        try {
+            writerThread.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            LOGGER.debug("Failed to close traffic trace: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * One attempt being timed. Finishing it more than once records only the first outcome.
+     */
+    static final class Call {
+        static final Call DISABLED = new Call(null, null, null, null, null, null, 0, 0L, 0L);
+
+        private final TrafficRecorder recorder;
+        private final UpstreamMetrics.Family metrics;
+        private final UpstreamCallEvent event;
+        private final String method;
+        private final String path;
+        private final String endpoint;
+        private final int attempt;
+        private final long requestBytes;
+        private final long startNanos;
+        private long responseBytes;
+        private boolean finished;
+
+        private Call(TrafficRecorder recorder, UpstreamMetrics.Family metrics, UpstreamCallEvent event,
+                     String method, String path, String endpoint, int attempt, long requestBytes, long startNanos) {
+            this.recorder = recorder;
+            this.metrics = metrics;
+            this.event = event;
+            this.method = method;
+            this.path = path;
+            this.endpoint = endpoint;
+            this.attempt = attempt;
+            this.requestBytes = requestBytes;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Counts the response bytes read through {@code in}; returned unwrapped when disabled.
+         */
+        InputStream counting(InputStream in) {
+            if (isDisabled()) {
+                return in;
+            }
+            return new FilterInputStream(in) {
+                @Override
+                public int read() throws IOException {
+                    int value = super.read();
+                    if (value >= 0) {
+                        responseBytes++;
+                    }
+                    return value;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    int read = super.read(buffer, offset, length);
+                    if (read > 0) {
+                        responseBytes += read;
+                    }
+                    return read;
+                }
+            };
+        }
+
+        /**
+         * Records the attempt with the bytes counted by {@link #counting(InputStream)}.
+         */
+        void finished(int status) {
+            finished(status, responseBytes);
+        }
+
+        synchronized void finished(int status, long bytes) {
+            if (finished || isDisabled()) {
+                return;
+            }
+            finished = true;
+            long endNanos = System.nanoTime();
+            if (metrics != null) {
+                metrics.record(status, requestBytes, bytes, endNanos - startNanos);
+            }
+            if (event != null) {
+                event.finish(status, bytes);
+            }
+            if (recorder != null) {
+                recorder.write(this, status, bytes, endNanos);
+            }
+        }
+
+        void failed() {
+            finished(0, responseBytes);
+        }
+
+        private boolean isDisabled() {
+            return recorder == null && metrics == null && event == null;
+        }
+    }
+}
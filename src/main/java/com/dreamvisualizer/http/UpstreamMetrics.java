@@ -0,0 +1,88 @@
+package com.dreamvisualizer.http;
+
+import com.dreamvisualizer.metrics.LatencyHistogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Latency, status codes and bytes of every upstream attempt, per endpoint family. A family's
+ * counters are created on its first call; after that recording an attempt allocates nothing.
+ */
+public final class UpstreamMetrics {
+
+    private final Map<String, Family> families = new ConcurrentHashMap<>();
+
+    /**
+     * Counters for {@code endpoint}, one of the {@link EndpointFamily} names.
+     */
+    Family family(String endpoint) {
+        Family family = families.get(endpoint);
+        return family != null ? family : families.computeIfAbsent(endpoint, Family::new);
+    }
+
+    /**
+     * Families called so far, by name.
+     */
+    public Map<String, Family> families() {
+        return new TreeMap<>(families);
+    }
+
+    /**
+     * One endpoint family's attempts. Status {@code 0} counts transport failures.
+     */
+    public static final class Family {
+        private static final int STATUS_SLOTS = 600;
+
+        private final String endpoint;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLongArray statuses = new AtomicLongArray(STATUS_SLOTS);
+        private final LongAdder bytesSent = new LongAdder();
+        private final LongAdder bytesReceived = new LongAdder();
+
+        private Family(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        void record(int status, long requestBytes, long responseBytes, long nanos) {
+            latency.record(nanos);
+            statuses.incrementAndGet(status >= 0 && status < STATUS_SLOTS ? status : 0);
+            bytesSent.add(requestBytes);
+            bytesReceived.add(responseBytes);
+        }
+
+        public String endpoint() {
+            return endpoint;
+        }
+
+        public LatencyHistogram latency() {
+            return latency;
+        }
+
+        /**
+         * Attempts answered with {@code status} so far.
+         */
+        public long calls(int status) {
+            return status >= 0 && status < STATUS_SLOTS ? statuses.get(status) : 0L;
+        }
+
+        /**
+         * Every status seen at least once, in ascending order.
+         */
+        public int[] seenStatuses() {
+            return IntStream.range(0, STATUS_SLOTS).filter(status -> statuses.get(status) > 0).toArray();
+        }
+
+        public long bytesSent() {
+            return bytesSent.sum();
+        }
+
+        public long bytesReceived() {
+            return bytesReceived.sum();
+        }
+    }
+}
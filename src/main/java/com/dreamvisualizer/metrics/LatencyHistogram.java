@@ -0,0 +1,77 @@
+package com.dreamvisualizer.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket latency histogram shaped for a Prometheus {@code histogram}, spanning 5 ms to
+ * 20 minutes so both upstream calls and whole Sora renders fit.
+ *
+ * <p>Recording is lock-free and allocation-free: a scan over the bucket bounds and two
+ * {@link LongAdder} increments, whose per-thread cells are allocated once on first contention.
+ * Reads are not atomic across buckets, which a scrape tolerates.</p>
+ */
+public final class LatencyHistogram {
+
+    private static final double[] BOUNDS_SECONDS =
+            {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120, 300, 600, 1200};
+    private static final long[] BOUNDS_NANOS = new long[BOUNDS_SECONDS.length];
+
+    static {
+        for (int i = 0; i < BOUNDS_SECONDS.length; i++) {
+            BOUNDS_NANOS[i] = (long) (BOUNDS_SECONDS[i] * TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    // One extra bucket for observations above the last bound (+Inf)
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_NANOS.length + 1];
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(0L, nanos);
+        int index = 0;
+        while (index < BOUNDS_NANOS.length && value > BOUNDS_NANOS[index]) {
+            index++;
+        }
+        buckets[index].increment();
+        sumNanos.add(value);
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos}, a {@link System#nanoTime()} reading.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public Snapshot snapshot() {
+        long[] cumulative = new long[buckets.length];
+        long running = 0L;
+        for (int i = 0; i < buckets.length; i++) {
+            running += buckets[i].sum();
+            cumulative[i] = running;
+        }
+        return new Snapshot(cumulative, sumNanos.sum() / 1e9);
+    }
+
+    /**
+     * Cumulative bucket counts (the last is {@code +Inf}, i.e. the total count) and the sum of all
+     * observations in seconds.
+     */
+    public record Snapshot(long[] cumulativeCounts, double sumSeconds) {
+
+        public static double[] boundsSeconds() {
+            return BOUNDS_SECONDS.clone();
+        }
+
+        public long count() {
+            return cumulativeCounts[cumulativeCounts.length - 1];
+        }
+    }
+}
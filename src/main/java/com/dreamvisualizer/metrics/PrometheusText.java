@@ -0,0 +1,105 @@
+package com.dreamvisualizer.metrics;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Builds a Prometheus text exposition (format 0.0.4). Samples of one metric must be written
+ * together; {@code HELP} and {@code TYPE} are emitted before the first sample of each name.
+ */
+public final class PrometheusText {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final StringBuilder out = new StringBuilder(8192);
+    private final Set<String> declared = new HashSet<>();
+
+    /**
+     * Adds a {@code counter} sample; {@code labels} alternate between name and value.
+     */
+    public PrometheusText counter(String name, String help, double value, String... labels) {
+        declare(name, help, "counter");
+        sample(name, labels, null, null, value);
+        return this;
+    }
+
+    public PrometheusText gauge(String name, String help, double value, String... labels) {
+        declare(name, help, "gauge");
+        sample(name, labels, null, null, value);
+        return this;
+    }
+
+    /**
+     * Adds the {@code _bucket}, {@code _sum} and {@code _count} series of one histogram, in seconds.
+     */
+    public PrometheusText histogram(String name, String help, LatencyHistogram histogram, String... labels) {
+        declare(name, help, "histogram");
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        double[] bounds = LatencyHistogram.Snapshot.boundsSeconds();
+        long[] counts = snapshot.cumulativeCounts();
+        for (int i = 0; i < bounds.length; i++) {
+            sample(name + "_bucket", labels, "le", formatBound(bounds[i]), counts[i]);
+        }
+        sample(name + "_bucket", labels, "le", "+Inf", snapshot.count());
+        sample(name + "_sum", labels, null, null, snapshot.sumSeconds());
+        sample(name + "_count", labels, null, null, snapshot.count());
+        return this;
+    }
+
+    private void declare(String name, String help, String type) {
+        if (declared.add(name)) {
+            out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        }
+    }
+
+    private void sample(String name, String[] labels, String extraName, String extraValue, double value) {
+        out.append(name);
+        if (labels.length > 0 || extraName != null) {
+            out.append('{');
+            boolean first = true;
+            for (int i = 0; i + 1 < labels.length; i += 2) {
+                first = label(first, labels[i], labels[i + 1]);
+            }
+            if (extraName != null) {
+                label(first, extraName, extraValue);
+            }
+            out.append('}');
+        }
+        out.append(' ').append(formatValue(value)).append('\n');
+    }
+
+    private boolean label(boolean first, String name, String value) {
+        if (!first) {
+            out.append(',');
+        }
+        out.append(name).append("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '"' -> out.append("\\\"");
+                case '\n' -> out.append("\\n");
+                default -> out.append(c);
+            }
+        }
+        out.append('"');
+        return false;
+    }
+
+    private static String formatBound(double bound) {
+        return bound == Math.rint(bound) ? Long.toString((long) bound) : Double.toString(bound);
+    }
+
+    private static String formatValue(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        return value == Math.rint(value) && Math.abs(value) < 1e15 ? Long.toString((long) value) : Double.toString(value);
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+}
@@ -0,0 +1,185 @@
+package com.dreamvisualizer.metrics;
+
+import com.sun.management.ThreadMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Heap bytes allocated and CPU time spent on behalf of one request, summed over every thread that
+ * works on it.
+ *
+ * <p>Work is charged through {@link Scope}s: while a scope is open, the current thread's
+ * allocation and CPU counters ({@link ThreadMXBean#getCurrentThreadAllocatedBytes()},
+ * {@link ThreadMXBean#getCurrentThreadCpuTime()}) accrue to its account. The account travels with
+ * the request where it changes threads (stage bodies, executor tasks, upstream callbacks), see
+ * {@link #bind(Supplier)}. A scope opened inside another account's scope pauses the outer one, so
+ * work that runs inline on a thread busy with another request, e.g. a queued stage started when a
+ * slot frees, is charged once, to its own request.</p>
+ *
+ * <p>The account also names the job it belongs to, when there is one, so diagnostics emitted on
+ * any of those threads can be tied back to the job; see {@link #jobId()}.</p>
+ *
+ * <p>Accounting costs two counter reads per scope boundary, well under a microsecond. It is off
+ * when {@code DREAM_RESOURCE_ACCOUNTING} is {@code false} or the JVM lacks the counters; scopes
+ * then only track the current account and accounts read zero.</p>
+ */
+public final class ResourceAccount {
+
+    private static final ThreadMXBean THREADS = threadMXBean();
+    private static final boolean ENABLED = THREADS != null
+            && Boolean.parseBoolean(Optional.ofNullable(System.getenv("DREAM_RESOURCE_ACCOUNTING")).orElse("true"));
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+    private static final Scope NONE = new Scope(null, null, 0L, 0L);
+
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LongAdder cpuNanos = new LongAdder();
+    private volatile String jobId;
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * The account of the innermost open scope on this thread, or {@code null}.
+     */
+    public static ResourceAccount current() {
+        Scope scope = CURRENT.get();
+        return scope != null ? scope.account : null;
+    }
+
+    /**
+     * Id of the job of the {@link #current()} account, or {@code null} outside any job.
+     */
+    public static String currentJobId() {
+        ResourceAccount account = current();
+        return account != null ? account.jobId : null;
+    }
+
+    /**
+     * Charges this thread's work to the account until the scope is closed. Re-entering the account
+     * already being charged is a no-op.
+     */
+    public Scope enter() {
+        Scope outer = CURRENT.get();
+        if (outer != null && outer.account == this) {
+            return NONE;
+        }
+        long allocated = ENABLED ? THREADS.getCurrentThreadAllocatedBytes() : 0L;
+        long cpu = ENABLED ? THREADS.getCurrentThreadCpuTime() : 0L;
+        if (outer != null) {
+            outer.charge(allocated, cpu);
+        }
+        Scope scope = new Scope(this, outer, allocated, cpu);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * Like {@link #enter()}, doing nothing for a {@code null} account.
+     */
+    public static Scope enter(ResourceAccount account) {
+        return account != null ? account.enter() : NONE;
+    }
+
+    /**
+     * Wraps {@code work} so it is charged to this account on whichever thread runs it.
+     */
+    public <T> Supplier<T> wrap(Supplier<T> work) {
+        return () -> {
+            try (Scope ignored = enter()) {
+                return work.get();
+            }
+        };
+    }
+
+    /**
+     * Wraps {@code work} so it is charged to the {@link #current()} account, for handing to an
+     * executor; returns it unchanged outside any scope.
+     */
+    public static <T> Supplier<T> bind(Supplier<T> work) {
+        ResourceAccount account = current();
+        return account != null ? account.wrap(work) : work;
+    }
+
+    public long allocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    public long cpuNanos() {
+        return cpuNanos.sum();
+    }
+
+    /**
+     * The job this account is charged for, or {@code null} for work outside a job.
+     */
+    public String jobId() {
+        return jobId;
+    }
+
+    /**
+     * Ties the account to {@code jobId}; called once the job manager has assigned the id.
+     */
+    public void attachJob(String jobId) {
+        this.jobId = jobId;
+    }
+
+    private static ThreadMXBean threadMXBean() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof ThreadMXBean threads)) {
+            return null;
+        }
+        if (!threads.isThreadAllocatedMemorySupported() || !threads.isCurrentThreadCpuTimeSupported()) {
+            return null;
+        }
+        if (!threads.isThreadAllocatedMemoryEnabled()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+        }
+        if (!threads.isThreadCpuTimeEnabled()) {
+            threads.setThreadCpuTimeEnabled(true);
+        }
+        return threads;
+    }
+
+    /**
+     * One stretch of a thread's work charged to an account. Scopes nest strictly per thread, so
+     * open them with try-with-resources.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final ResourceAccount account;
+        private final Scope outer;
+        private long allocatedMark;
+        private long cpuMark;
+
+        private Scope(ResourceAccount account, Scope outer, long allocatedMark, long cpuMark) {
+            this.account = account;
+            this.outer = outer;
+            this.allocatedMark = allocatedMark;
+            this.cpuMark = cpuMark;
+        }
+
+        private void charge(long allocated, long cpu) {
+            account.allocatedBytes.add(allocated - allocatedMark);
+            account.cpuNanos.add(cpu - cpuMark);
+            allocatedMark = allocated;
+            cpuMark = cpu;
+        }
+
+        @Override
+        public void close() {
+            if (account == null) {
+                return;
+            }
+            long allocated = ENABLED ? THREADS.getCurrentThreadAllocatedBytes() : 0L;
+            long cpu = ENABLED ? THREADS.getCurrentThreadCpuTime() : 0L;
+            charge(allocated, cpu);
+            if (outer != null) {
+                // The outer request resumes from here; the stretch just closed is not its work
+                outer.allocatedMark = allocated;
+                outer.cpuMark = cpu;
+            }
+            CURRENT.set(outer);
+        }
+    }
+}
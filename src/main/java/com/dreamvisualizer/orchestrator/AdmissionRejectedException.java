@@ -0,0 +1,23 @@
+package com.dreamvisualizer.orchestrator;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Raised when a bounded queue is full. Carries how long the caller should wait before retrying,
+ * estimated from how fast the queue is currently draining.
+ */
+public class AdmissionRejectedException extends RejectedExecutionException {
+
+    private final Duration retryAfter;
+
+    public AdmissionRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = Objects.requireNonNull(retryAfter, "retryAfter must not be null");
+    }
+
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+}
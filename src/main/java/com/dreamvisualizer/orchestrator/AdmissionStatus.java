@@ -0,0 +1,24 @@
+package com.dreamvisualizer.orchestrator;
+
+import java.time.Duration;
+
+/**
+ * Point-in-time view of a bounded queue: how many tasks hold a slot, how many wait, how long they
+ * have been waiting and how soon a rejected caller could expect to be admitted.
+ */
+public record AdmissionStatus(String name,
+                              int running,
+                              int maxConcurrent,
+                              int queued,
+                              int queueCapacity,
+                              Duration averageQueueWait,
+                              Duration oldestQueueWait,
+                              Duration retryAfter) {
+
+    /**
+     * True when every slot is busy and the wait queue is full, so a new submission is rejected.
+     */
+    public boolean saturated() {
+        return running >= maxConcurrent && queued >= queueCapacity;
+    }
+}
@@ -0,0 +1,47 @@
+package com.dreamvisualizer.orchestrator;
+
+import java.time.Duration;
+
+/**
+ * Exponentially weighted averages of how long tasks wait for a slot and how long they hold it.
+ * With {@code n} slots and a mean service time {@code s} a saturated queue drains at
+ * {@code n / s} tasks per second, which is what {@link #retryAfter} is derived from.
+ */
+final class DrainEstimate {
+
+    private static final double ALPHA = 0.2;
+    private static final Duration MIN_RETRY_AFTER = Duration.ofSeconds(1);
+    private static final Duration MAX_RETRY_AFTER = Duration.ofMinutes(5);
+
+    private double serviceNanos = Double.NaN;
+    private double queueWaitNanos = Double.NaN;
+
+    synchronized void recordService(long nanos) {
+        serviceNanos = Double.isNaN(serviceNanos) ? nanos : ALPHA * nanos + (1 - ALPHA) * serviceNanos;
+    }
+
+    synchronized void recordQueueWait(long nanos) {
+        queueWaitNanos = Double.isNaN(queueWaitNanos) ? nanos : ALPHA * nanos + (1 - ALPHA) * queueWaitNanos;
+    }
+
+    synchronized Duration averageQueueWait() {
+        return Double.isNaN(queueWaitNanos) ? Duration.ZERO : Duration.ofNanos((long) queueWaitNanos);
+    }
+
+    /**
+     * Estimated time until a caller arriving now would reach a slot: everyone already queued plus
+     * the caller itself, drained at the current rate. Until a task has completed the age of the
+     * oldest waiter stands in for the service time, since at least that long has passed without
+     * a slot freeing up. The result is rounded up to whole seconds, as {@code Retry-After} expects.
+     */
+    synchronized Duration retryAfter(int queued, int maxConcurrent, Duration oldestQueueWait) {
+        double service = Double.isNaN(serviceNanos) ? oldestQueueWait.toNanos() : serviceNanos;
+        double nanos = (queued + 1) * service / maxConcurrent;
+        long seconds = (long) Math.ceil(nanos / 1_000_000_000d);
+        Duration estimate = Duration.ofSeconds(seconds);
+        if (estimate.compareTo(MIN_RETRY_AFTER) < 0) {
+            return MIN_RETRY_AFTER;
+        }
+        return estimate.compareTo(MAX_RETRY_AFTER) > 0 ? MAX_RETRY_AFTER : estimate;
+    }
+}
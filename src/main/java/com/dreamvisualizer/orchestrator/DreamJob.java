@@ -0,0 +1,181 @@
+package com.dreamvisualizer.orchestrator;
+
+import com.dreamvisualizer.metrics.ResourceAccount;
+import com.dreamvisualizer.prompt.DreamPromptResult;
+import com.dreamvisualizer.speech.SpeechTranscript;
+
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Tracks the progress and partial results of a single asynchronous pipeline run. Subscribers
+ * registered with {@link #subscribe(DreamVisualizationListener)} see every update as it happens.
+ * Each update is applied and forwarded under the job's monitor, so subscribers observe updates in
+ * the order they were applied.
+ */
+public class DreamJob implements DreamVisualizationListener {
+
+    private final String id;
+    private final Instant submittedAt;
+    private final ResourceAccount resources;
+    private final CompletableFuture<DreamVisualizationOutcome> completion = new CompletableFuture<>();
+    private final CopyOnWriteArrayList<DreamVisualizationListener> subscribers = new CopyOnWriteArrayList<>();
+
+    private volatile DreamJobStage stage = DreamJobStage.QUEUED;
+    private volatile Instant updatedAt;
+    private volatile Instant completedAt;
+    private volatile SpeechTranscript transcript;
+    private volatile DreamPromptResult prompt;
+    private volatile VideoStatus videoStatus;
+    private volatile DreamVisualizationOutcome outcome;
+    private volatile Throwable failure;
+
+    DreamJob(String id, Instant submittedAt, ResourceAccount resources) {
+        this.id = Objects.requireNonNull(id, "id must not be null");
+        this.submittedAt = Objects.requireNonNull(submittedAt, "submittedAt must not be null");
+        this.resources = Objects.requireNonNull(resources, "resources must not be null");
+        this.updatedAt = submittedAt;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public Instant submittedAt() {
+        return submittedAt;
+    }
+
+    /**
+     * Allocation and CPU time spent on this job so far, across every thread that worked on it.
+     */
+    public ResourceAccount resources() {
+        return resources;
+    }
+
+    public Instant updatedAt() {
+        return updatedAt;
+    }
+
+    public Optional<Instant> completedAt() {
+        return Optional.ofNullable(completedAt);
+    }
+
+    public DreamJobStage stage() {
+        return stage;
+    }
+
+    public Optional<SpeechTranscript> transcript() {
+        return Optional.ofNullable(transcript);
+    }
+
+    public Optional<DreamPromptResult> prompt() {
+        return Optional.ofNullable(prompt);
+    }
+
+    /**
+     * Latest render status reported while the video stage polls Sora.
+     */
+    public Optional<VideoStatus> videoStatus() {
+        return Optional.ofNullable(videoStatus);
+    }
+
+    public Optional<DreamVisualizationOutcome> outcome() {
+        return Optional.ofNullable(outcome);
+    }
+
+    public Optional<Throwable> failure() {
+        return Optional.ofNullable(failure);
+    }
+
+    /**
+     * Completes once the job reaches {@link DreamJobStage#COMPLETED} or {@link DreamJobStage#FAILED}.
+     */
+    public CompletableFuture<DreamVisualizationOutcome> completion() {
+        return completion;
+    }
+
+    /**
+     * Forwards subsequent stage, transcript, prompt and video status updates to {@code subscriber};
+     * use {@link #completion()} for the terminal outcome. Running the returned action unsubscribes.
+     */
+    public Runnable subscribe(DreamVisualizationListener subscriber) {
+        return subscribe(subscriber, job -> {
+        });
+    }
+
+    /**
+     * Like {@link #subscribe(DreamVisualizationListener)}, first handing the job as it stands to
+     * {@code onSubscribed}. No update can fall between the state {@code onSubscribed} sees and the
+     * first update forwarded to {@code subscriber}.
+     */
+    public synchronized Runnable subscribe(DreamVisualizationListener subscriber, Consumer<DreamJob> onSubscribed) {
+        Objects.requireNonNull(subscriber, "subscriber must not be null");
+        Objects.requireNonNull(onSubscribed, "onSubscribed must not be null");
+        onSubscribed.accept(this);
+        subscribers.add(subscriber);
+        return () -> subscribers.remove(subscriber);
+    }
+
+    @Override
+    public synchronized void onStage(DreamJobStage stage) {
+        if (this.stage.isTerminal()) {
+            return;
+        }
+        this.stage = stage;
+        this.updatedAt = Instant.now();
+        subscribers.forEach(subscriber -> subscriber.onStage(stage));
+    }
+
+    @Override
+    public synchronized void onTranscript(SpeechTranscript transcript) {
+        this.transcript = transcript;
+        this.updatedAt = Instant.now();
+        subscribers.forEach(subscriber -> subscriber.onTranscript(transcript));
+    }
+
+    @Override
+    public synchronized void onPrompt(DreamPromptResult prompt) {
+        this.prompt = prompt;
+        this.updatedAt = Instant.now();
+        subscribers.forEach(subscriber -> subscriber.onPrompt(prompt));
+    }
+
+    @Override
+    public synchronized void onVideoStatus(String videoId, String status, int progress) {
+        this.videoStatus = new VideoStatus(videoId, status, progress);
+        this.updatedAt = Instant.now();
+        subscribers.forEach(subscriber -> subscriber.onVideoStatus(videoId, status, progress));
+    }
+
+    void complete(DreamVisualizationOutcome outcome) {
+        this.outcome = outcome;
+        this.transcript = outcome.transcript();
+        this.prompt = outcome.engineeredPrompt();
+        finish(DreamJobStage.COMPLETED);
+        completion.complete(outcome);
+    }
+
+    void fail(Throwable failure) {
+        this.failure = failure;
+        finish(DreamJobStage.FAILED);
+        completion.completeExceptionally(failure);
+    }
+
+    private synchronized void finish(DreamJobStage terminalStage) {
+        Instant now = Instant.now();
+        this.completedAt = now;
+        this.updatedAt = now;
+        this.stage = terminalStage;
+        subscribers.forEach(subscriber -> subscriber.onStage(terminalStage));
+    }
+
+    /**
+     * Snapshot of a Sora render's progress; {@code progress} is {@code -1} when unknown.
+     */
+    public record VideoStatus(String videoId, String status, int progress) {
+    }
+}
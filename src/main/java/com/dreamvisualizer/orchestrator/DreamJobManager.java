@@ -0,0 +1,204 @@
+package com.dreamvisualizer.orchestrator;
+
+import com.dreamvisualizer.metrics.ResourceAccount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs pipeline executions with a bounded number in flight plus a bounded wait queue, and keeps
+ * their state addressable by job id so HTTP handlers can return immediately instead of holding a
+ * request thread for the whole run.
+ *
+ * <p>Tasks return futures built on the non-blocking client, so an in-flight job holds a slot but
+ * no thread; the small launcher pool only runs the synchronous set-up of each task.</p>
+ */
+public class DreamJobManager implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DreamJobManager.class);
+
+    private final int maxConcurrentJobs;
+    private final int queueCapacity;
+    private final ExecutorService launcher;
+    private final ScheduledExecutorService janitor;
+    private final Map<String, DreamJob> jobs = new ConcurrentHashMap<>();
+    private final Deque<PendingJob> pending = new ArrayDeque<>();
+    private final Duration retention;
+    private final DrainEstimate drain = new DrainEstimate();
+    private int running;
+
+    public DreamJobManager(int maxConcurrentJobs, int queueCapacity, Duration retention) {
+        if (maxConcurrentJobs <= 0) {
+            throw new IllegalArgumentException("maxConcurrentJobs must be positive");
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("queueCapacity must not be negative");
+        }
+        this.maxConcurrentJobs = maxConcurrentJobs;
+        this.queueCapacity = queueCapacity;
+        this.retention = Objects.requireNonNull(retention, "retention must not be null");
+        this.launcher = Executors.newFixedThreadPool(Math.min(4, maxConcurrentJobs), namedDaemonThreads("dream-job"));
+        this.janitor = Executors.newSingleThreadScheduledExecutor(namedDaemonThreads("dream-job-janitor"));
+        long sweepSeconds = Math.max(1L, Math.min(60L, retention.toSeconds()));
+        this.janitor.scheduleWithFixedDelay(this::evictExpired, sweepSeconds, sweepSeconds, TimeUnit.SECONDS);
+    }
+
+    public static DreamJobManager fromEnvironment() {
+        int concurrency = Integer.parseInt(Optional.ofNullable(System.getenv("DREAM_JOB_CONCURRENCY")).orElse("64"));
+        int queueCapacity = Integer.parseInt(Optional.ofNullable(System.getenv("DREAM_JOB_QUEUE_CAPACITY")).orElse("256"));
+        Duration retention = Optional.ofNullable(System.getenv("DREAM_JOB_RETENTION_MINUTES"))
+                .map(Long::parseLong)
+                .map(Duration::ofMinutes)
+                .orElse(Duration.ofMinutes(60));
+        return new DreamJobManager(concurrency, queueCapacity, retention);
+    }
+
+    /**
+     * Queues a pipeline run. The task receives the job as its listener so stage transitions and
+     * partial results become visible through {@link #find(String)} while the run is in flight.
+     *
+     * @throws AdmissionRejectedException when every slot is busy and the wait queue is full
+     */
+    public DreamJob submit(DreamJobTask task) {
+        return submit(new ResourceAccount(), task);
+    }
+
+    /**
+     * Like {@link #submit(DreamJobTask)}, charging the run to {@code resources}, which may already
+     * hold the work of accepting the request.
+     */
+    public DreamJob submit(ResourceAccount resources, DreamJobTask task) {
+        Objects.requireNonNull(resources, "resources must not be null");
+        Objects.requireNonNull(task, "task must not be null");
+        DreamJob job = new DreamJob(UUID.randomUUID().toString(), Instant.now(), resources);
+        resources.attachJob(job.id());
+        boolean startNow;
+        synchronized (this) {
+            if (running < maxConcurrentJobs) {
+                running++;
+                startNow = true;
+            } else if (pending.size() < queueCapacity) {
+                pending.addLast(new PendingJob(job, task, System.nanoTime()));
+                startNow = false;
+            } else {
+                throw new AdmissionRejectedException("Dream job queue is full", status().retryAfter());
+            }
+            jobs.put(job.id(), job);
+        }
+        if (startNow) {
+            launch(job, task);
+        }
+        return job;
+    }
+
+    public Optional<DreamJob> find(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    public synchronized int activeJobs() {
+        return running;
+    }
+
+    public synchronized int queuedJobs() {
+        return pending.size();
+    }
+
+    public synchronized AdmissionStatus status() {
+        Duration oldestWait = pending.isEmpty()
+                ? Duration.ZERO
+                : Duration.ofNanos(System.nanoTime() - pending.peekFirst().enqueuedNanos());
+        return new AdmissionStatus("jobs", running, maxConcurrentJobs, pending.size(), queueCapacity,
+                drain.averageQueueWait(), oldestWait, drain.retryAfter(pending.size(), maxConcurrentJobs, oldestWait));
+    }
+
+    private void launch(DreamJob job, DreamJobTask task) {
+        long startedNanos = System.nanoTime();
+        launcher.execute(() -> {
+            CompletableFuture<DreamVisualizationOutcome> run;
+            try (ResourceAccount.Scope ignored = job.resources().enter()) {
+                run = task.run(job);
+            } catch (Throwable t) {
+                run = CompletableFuture.failedFuture(t);
+            }
+            run.whenComplete((outcome, failure) -> {
+                try {
+                    if (failure != null) {
+                        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                                ? failure.getCause()
+                                : failure;
+                        LOGGER.error("Dream job {} failed", job.id(), cause);
+                        job.fail(cause);
+                    } else {
+                        job.complete(outcome);
+                        LOGGER.info("Dream job {} completed", job.id());
+                    }
+                } finally {
+                    drain.recordService(System.nanoTime() - startedNanos);
+                    releaseSlot();
+                }
+            });
+        });
+    }
+
+    private void releaseSlot() {
+        PendingJob next;
+        synchronized (this) {
+            next = pending.pollFirst();
+            if (next == null) {
+                running--;
+            }
+        }
+        if (next != null) {
+            drain.recordQueueWait(System.nanoTime() - next.enqueuedNanos());
+            launch(next.job(), next.task());
+        }
+    }
+
+    private void evictExpired() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.completedAt().map(done -> done.isBefore(cutoff)).orElse(false));
+    }
+
+    @Override
+    public void close() {
+        launcher.shutdown();
+        janitor.shutdownNow();
+    }
+
+    private static ThreadFactory namedDaemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record PendingJob(DreamJob job, DreamJobTask task, long enqueuedNanos) {
+    }
+
+    /**
+     * Unit of pipeline work executed on behalf of a job.
+     */
+    @FunctionalInterface
+    public interface DreamJobTask {
+        CompletableFuture<DreamVisualizationOutcome> run(DreamVisualizationListener listener) throws Exception;
+    }
+}
@@ -0,0 +1,23 @@
+package com.dreamvisualizer.orchestrator;
+
+import java.util.Locale;
+
+/**
+ * Lifecycle stages reported for an asynchronous dream visualisation job.
+ */
+public enum DreamJobStage {
+    QUEUED,
+    TRANSCRIBING,
+    ENGINEERING_PROMPT,
+    GENERATING_VIDEO,
+    COMPLETED,
+    FAILED;
+
+    public boolean isTerminal() {
+        return this == COMPLETED || this == FAILED;
+    }
+
+    public String wireName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,29 @@
+package com.dreamvisualizer.orchestrator;
+
+import com.dreamvisualizer.prompt.DreamPromptResult;
+import com.dreamvisualizer.speech.SpeechTranscript;
+
+/**
+ * Receives intermediate results while a pipeline run progresses through its stages.
+ */
+public interface DreamVisualizationListener {
+
+    DreamVisualizationListener NONE = new DreamVisualizationListener() {
+    };
+
+    default void onStage(DreamJobStage stage) {
+    }
+
+    default void onTranscript(SpeechTranscript transcript) {
+    }
+
+    default void onPrompt(DreamPromptResult prompt) {
+    }
+
+    /**
+     * Sora render status while the video stage polls it; {@code progress} is {@code -1} when the
+     * upstream does not report one.
+     */
+    default void onVideoStatus(String videoId, String status, int progress) {
+    }
+}
@@ -1,5 +1,9 @@
 package com.dreamvisualizer.orchestrator;
 
+import com.dreamvisualizer.http.CircuitOpenException;
+import com.dreamvisualizer.metrics.LatencyHistogram;
+import com.dreamvisualizer.metrics.ResourceAccount;
+import com.dreamvisualizer.prompt.BreatheImage;
 import com.dreamvisualizer.prompt.DreamPromptEngineer;
 import com.dreamvisualizer.prompt.DreamPromptResult;
 import com.dreamvisualizer.speech.SpeechTranscriptionRequest;
@@ -8,21 +12,47 @@ import com.dreamvisualizer.speech.SpeechTranscript;
 import com.dreamvisualizer.video.SoraVideoJob;
 import com.dreamvisualizer.video.SoraVideoService;
 import com.dreamvisualizer.video.VideoGenerationOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.nio.file.Path;
 
 /**
  * High-level pipeline that stitches together transcription, prompt engineering, and video generation.
+ * Each run is a small stage graph: local I/O (reading the breathing chart, preparing the output
+ * directory, warming the upstream connection) overlaps the upstream calls, and every stage runs
+ * behind its own {@link StageBulkhead} so one slow stage cannot starve the others. While the
+ * {@code videos} circuit breaker is open, runs either finish without a video or fail up front,
+ * depending on the {@link VideoFallback}.
  */
 public class DreamVisualizationPipeline {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(DreamVisualizationPipeline.class);
+
     private final SpeechTranscriptionService transcriptionService;
     private final DreamPromptEngineer promptEngineer;
     private final SoraVideoService videoService;
     private final boolean skipVideoGeneration;
+    private final VideoFallback videoFallback;
+    private final StageBulkhead transcriptionStage;
+    private final StageBulkhead promptStage;
+    private final StageBulkhead videoStage;
+    private final StageBulkhead ioStage;
+    private final ExecutorService ioExecutor;
+    private final LatencyHistogram transcribeLatency = new LatencyHistogram();
+    private final LatencyHistogram engineerLatency = new LatencyHistogram();
 
     public DreamVisualizationPipeline(SpeechTranscriptionService transcriptionService,
                                       DreamPromptEngineer promptEngineer,
@@ -33,72 +63,248 @@ public class DreamVisualizationPipeline {
         this.skipVideoGeneration = Boolean.parseBoolean(
             Optional.ofNullable(System.getenv("SKIP_VIDEO_GENERATION")).orElse("false")
         );
+        this.videoFallback = VideoFallback.fromEnvironment();
+        this.transcriptionStage = StageBulkhead.fromEnvironment("transcription", 16, 256, Duration.ofMinutes(5));
+        this.promptStage = StageBulkhead.fromEnvironment("prompt", 32, 256, Duration.ofMinutes(2));
+        this.videoStage = StageBulkhead.fromEnvironment("video", 16, 256, Duration.ofMinutes(15));
+        this.ioStage = StageBulkhead.fromEnvironment("io", 8, 512, Duration.ofSeconds(30));
+        AtomicInteger ioThreads = new AtomicInteger();
+        this.ioExecutor = Executors.newFixedThreadPool(ioStage.maxConcurrent(), runnable -> {
+            Thread thread = new Thread(runnable, "pipeline-io-" + ioThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Bulkheads of the transcription, prompt, video and local I/O stages, in that order.
+     */
+    public List<StageBulkhead> stages() {
+        return List.of(transcriptionStage, promptStage, videoStage, ioStage);
+    }
+
+    public StageBulkhead videoStage() {
+        return videoStage;
+    }
+
+    /**
+     * Time spent in each stage once admitted by its bulkhead, in pipeline order: {@code transcribe},
+     * {@code engineer}, then the video service's {@code submit}, {@code poll_wait} and
+     * {@code download}.
+     */
+    public Map<String, LatencyHistogram> stageLatencies() {
+        Map<String, LatencyHistogram> stages = new LinkedHashMap<>();
+        stages.put("transcribe", transcribeLatency);
+        stages.put("engineer", engineerLatency);
+        stages.putAll(videoService.stageLatencies());
+        return stages;
+    }
+
+    /**
+     * Throws {@link CircuitOpenException} when a run submitted now would be failed up front because
+     * the {@code videos} circuit breaker is open and the fallback is {@link VideoFallback#FAIL}.
+     */
+    public void checkVideoAvailable() {
+        if (!skipVideoGeneration && videoFallback == VideoFallback.FAIL) {
+            videoService.checkAvailable();
+        }
     }
 
     public DreamVisualizationOutcome run(SpeechTranscriptionRequest transcriptionRequest,
                                          VideoGenerationOptions videoOptions) {
-        Objects.requireNonNull(transcriptionRequest, "transcriptionRequest must not be null");
-        Objects.requireNonNull(videoOptions, "videoOptions must not be null");
-
-        SpeechTranscript transcript = transcriptionService.transcribe(transcriptionRequest);
-        return runWithTranscript(transcript, videoOptions);
+        return run(transcriptionRequest, videoOptions, Optional.empty(), DreamVisualizationListener.NONE);
     }
 
     public DreamVisualizationOutcome run(SpeechTranscriptionRequest transcriptionRequest,
                                          VideoGenerationOptions videoOptions,
                                          Optional<Path> breatheImage) {
+        return run(transcriptionRequest, videoOptions, breatheImage, DreamVisualizationListener.NONE);
+    }
+
+    public DreamVisualizationOutcome run(SpeechTranscriptionRequest transcriptionRequest,
+                                         VideoGenerationOptions videoOptions,
+                                         Optional<Path> breatheImage,
+                                         DreamVisualizationListener listener) {
+        return join(runAsync(transcriptionRequest, videoOptions, breatheImage, listener));
+    }
+
+    /**
+     * Runs the stage graph without blocking: each stage starts from the completion of the stages it
+     * depends on, so a run occupies no thread while it waits on OpenAI.
+     */
+    public CompletableFuture<DreamVisualizationOutcome> runAsync(SpeechTranscriptionRequest transcriptionRequest,
+                                                                 VideoGenerationOptions videoOptions,
+                                                                 Optional<Path> breatheImage,
+                                                                 DreamVisualizationListener listener) {
         Objects.requireNonNull(transcriptionRequest, "transcriptionRequest must not be null");
         Objects.requireNonNull(videoOptions, "videoOptions must not be null");
+        Objects.requireNonNull(listener, "listener must not be null");
+        try {
+            checkVideoAvailable();
+        } catch (CircuitOpenException e) {
+            return CompletableFuture.failedFuture(e);
+        }
 
-        SpeechTranscript transcript = transcriptionService.transcribe(transcriptionRequest);
-        return runWithTranscript(transcript, videoOptions, breatheImage);
+        StageGraph graph = new StageGraph(jobId(listener));
+        StageGraph.Node<SpeechTranscript> transcript = graph.stage("transcription", transcriptionStage, List.of(), () -> {
+            listener.onStage(DreamJobStage.TRANSCRIBING);
+            long started = System.nanoTime();
+            return transcriptionService.transcribeAsync(transcriptionRequest, ioExecutor).thenApply(result -> {
+                transcribeLatency.recordSince(started);
+                listener.onTranscript(result);
+                return result;
+            });
+        });
+        return runGraph(graph, transcript, videoOptions, breatheImage, listener);
     }
 
     public DreamVisualizationOutcome runWithTranscript(SpeechTranscript transcript,
                                                        VideoGenerationOptions videoOptions) {
-        Objects.requireNonNull(transcript, "transcript must not be null");
-        Objects.requireNonNull(videoOptions, "videoOptions must not be null");
-
-        DreamPromptResult engineeredPrompt = promptEngineer.engineerPrompt(transcript.fullText());
-        
-        SoraVideoJob videoJob;
-        if (skipVideoGeneration) {
-            // Create a placeholder job when video generation is skipped
-            videoJob = new SoraVideoJob(
-                "skipped-" + System.currentTimeMillis(),
-                "skipped",
-                Instant.now(),
-                Optional.empty()
-            );
-        } else {
-            videoJob = videoService.generateVideo(engineeredPrompt, videoOptions);
-        }
-
-        return new DreamVisualizationOutcome(transcript, engineeredPrompt, videoJob);
+        return runWithTranscript(transcript, videoOptions, Optional.empty(), DreamVisualizationListener.NONE);
     }
 
     public DreamVisualizationOutcome runWithTranscript(SpeechTranscript transcript,
                                                        VideoGenerationOptions videoOptions,
                                                        Optional<Path> breatheImage) {
+        return runWithTranscript(transcript, videoOptions, breatheImage, DreamVisualizationListener.NONE);
+    }
+
+    public DreamVisualizationOutcome runWithTranscript(SpeechTranscript transcript,
+                                                       VideoGenerationOptions videoOptions,
+                                                       Optional<Path> breatheImage,
+                                                       DreamVisualizationListener listener) {
+        return join(runWithTranscriptAsync(transcript, videoOptions, breatheImage, listener));
+    }
+
+    public CompletableFuture<DreamVisualizationOutcome> runWithTranscriptAsync(SpeechTranscript transcript,
+                                                                               VideoGenerationOptions videoOptions,
+                                                                               Optional<Path> breatheImage,
+                                                                               DreamVisualizationListener listener) {
         Objects.requireNonNull(transcript, "transcript must not be null");
         Objects.requireNonNull(videoOptions, "videoOptions must not be null");
+        Objects.requireNonNull(listener, "listener must not be null");
+        try {
+            checkVideoAvailable();
+        } catch (CircuitOpenException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        listener.onTranscript(transcript);
+
+        StageGraph graph = new StageGraph(jobId(listener));
+        return runGraph(graph, graph.completed("transcription", transcript), videoOptions, breatheImage, listener);
+    }
+
+    /**
+     * Wires the stages after transcription:
+     * <pre>
+     * transcription ─┐
+     * breathe-image ─┴─ prompt ─┐
+     * output-directory ─────────┼─ video
+     * warm-up (optional) ───────┘
+     * </pre>
+     */
+    private CompletableFuture<DreamVisualizationOutcome> runGraph(StageGraph graph,
+                                                                  StageGraph.Node<SpeechTranscript> transcript,
+                                                                  VideoGenerationOptions videoOptions,
+                                                                  Optional<Path> breatheImage,
+                                                                  DreamVisualizationListener listener) {
+        Optional<Path> imagePath = breatheImage == null ? Optional.empty() : breatheImage;
+        StageGraph.Node<Optional<BreatheImage>> image = imagePath.isPresent()
+                ? graph.stage("breathe-image", ioStage, List.of(), () -> CompletableFuture.supplyAsync(
+                        ResourceAccount.bind(() -> Optional.of(BreatheImage.read(imagePath.get()))), ioExecutor))
+                : graph.completed("breathe-image", Optional.empty());
+
+        StageGraph.Node<DreamPromptResult> prompt = graph.stage("prompt", promptStage, List.of(transcript, image), () -> {
+            listener.onStage(DreamJobStage.ENGINEERING_PROMPT);
+            long started = System.nanoTime();
+            String narrative = transcript.value().fullText();
+            CompletableFuture<DreamPromptResult> engineered = image.value()
+                    .map(chart -> promptEngineer.engineerPromptAsync(narrative, chart))
+                    .orElseGet(() -> promptEngineer.engineerPromptAsync(narrative));
+            return engineered.thenApply(result -> {
+                engineerLatency.recordSince(started);
+                listener.onPrompt(result);
+                return result;
+            });
+        });
 
-        DreamPromptResult engineeredPrompt = breatheImage != null && breatheImage.isPresent()
-            ? promptEngineer.engineerPrompt(transcript.fullText(), breatheImage.get())
-            : promptEngineer.engineerPrompt(transcript.fullText());
-        
-        SoraVideoJob videoJob;
         if (skipVideoGeneration) {
-            videoJob = new SoraVideoJob(
-                "skipped-" + System.currentTimeMillis(),
-                "skipped",
-                Instant.now(),
-                Optional.empty()
-            );
-        } else {
-            videoJob = videoService.generateVideo(engineeredPrompt, videoOptions);
+            return graph.run(prompt).thenApply(result ->
+                    new DreamVisualizationOutcome(transcript.value(), result, skippedVideo()));
+        }
+
+        StageGraph.Node<Path> outputDirectory = graph.stage("output-directory", ioStage, List.of(),
+                () -> CompletableFuture.supplyAsync(ResourceAccount.bind(videoService::prepareOutputDirectory), ioExecutor));
+        StageGraph.Node<Void> warmUp = graph.optional("warm-up", ioStage, List.of(), videoService::warmUpAsync);
+        StageGraph.Node<DreamVisualizationOutcome> video = graph.stage("video", videoStage,
+                List.of(prompt, outputDirectory, warmUp), () -> {
+                    DreamVisualizationOutcome withoutVideo =
+                            new DreamVisualizationOutcome(transcript.value(), prompt.value(), skippedVideo());
+                    if (videoFallback == VideoFallback.SKIP && !videoAvailable()) {
+                        return CompletableFuture.completedFuture(withoutVideo);
+                    }
+                    listener.onStage(DreamJobStage.GENERATING_VIDEO);
+                    return videoService.generateVideoAsync(prompt.value(), videoOptions, listener::onVideoStatus)
+                            .thenApply(videoJob -> new DreamVisualizationOutcome(transcript.value(), prompt.value(), videoJob))
+                            .exceptionallyCompose(failure -> videoFallback == VideoFallback.SKIP && isCircuitOpen(failure)
+                                    ? CompletableFuture.completedFuture(withoutVideo)
+                                    : CompletableFuture.failedFuture(failure));
+                });
+        return graph.run(video);
+    }
+
+    /**
+     * Id of the job a run reports to, for diagnostics; {@code null} for runs outside the job manager.
+     */
+    private static String jobId(DreamVisualizationListener listener) {
+        return listener instanceof DreamJob job ? job.id() : null;
+    }
+
+    private boolean videoAvailable() {
+        try {
+            videoService.checkAvailable();
+            return true;
+        } catch (CircuitOpenException e) {
+            LOGGER.warn("Skipping video generation: {}", e.getMessage());
+            return false;
         }
+    }
+
+    private static boolean isCircuitOpen(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        if (cause instanceof CircuitOpenException open) {
+            LOGGER.warn("Skipping video generation: {}", open.getMessage());
+            return true;
+        }
+        return false;
+    }
 
-        return new DreamVisualizationOutcome(transcript, engineeredPrompt, videoJob);
+    /**
+     * Placeholder for a run that finishes without a video.
+     */
+    private static SoraVideoJob skippedVideo() {
+        return new SoraVideoJob("skipped-" + System.currentTimeMillis(), "skipped", Instant.now(), Optional.empty());
+    }
+
+    /**
+     * Renders an already engineered prompt through the video stage's bulkhead, so standalone
+     * renders share the upstream video capacity with pipeline runs instead of bypassing it. The
+     * render is charged to the caller's current {@link ResourceAccount}.
+     */
+    public CompletableFuture<SoraVideoJob> generateVideoAsync(DreamPromptResult prompt, VideoGenerationOptions videoOptions) {
+        Objects.requireNonNull(prompt, "prompt must not be null");
+        Objects.requireNonNull(videoOptions, "videoOptions must not be null");
+        return videoStage.submit(ResourceAccount.bind(() -> videoService.generateVideoAsync(prompt, videoOptions)));
+    }
+
+    private static DreamVisualizationOutcome join(CompletableFuture<DreamVisualizationOutcome> outcome) {
+        try {
+            return outcome.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
     }
 }
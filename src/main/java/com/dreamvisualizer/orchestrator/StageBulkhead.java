@@ -0,0 +1,194 @@
+package com.dreamvisualizer.orchestrator;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Isolates one pipeline stage: at most {@code maxConcurrent} of its tasks run at once, a bounded
+ * number wait for a slot, and each running task is failed after {@code timeout}. A backlog in one
+ * stage therefore cannot consume capacity reserved for the others.
+ *
+ * <p>A timeout fails the task's future and frees its slot, but does not stop the work the task
+ * started: the bulkhead only cancels the future the task returned, which reaches an upstream call
+ * or a Sora poll only when the task returned that future itself rather than one derived from it.
+ * Work that keeps running after its timeout is no longer counted against the stage.</p>
+ *
+ * <p>A task admitted while the stage is full is started on a small shared launcher pool when a
+ * slot frees, never inline on the thread that completed the previous task, so stage bodies do not
+ * run on HTTP client threads and a chain of tasks that complete synchronously cannot nest.</p>
+ */
+public final class StageBulkhead {
+
+    private static final AtomicInteger LAUNCHER_THREADS = new AtomicInteger();
+    private static final ExecutorService LAUNCHER = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+                Thread thread = new Thread(runnable, "stage-launch-" + LAUNCHER_THREADS.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stage-timeout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String name;
+    private final int maxConcurrent;
+    private final int queueCapacity;
+    private final Duration timeout;
+    private final ArrayDeque<Waiter> waiting = new ArrayDeque<>();
+    private final DrainEstimate drain = new DrainEstimate();
+    private int running;
+
+    public StageBulkhead(String name, int maxConcurrent, int queueCapacity, Duration timeout) {
+        this.name = Objects.requireNonNull(name, "name must not be null");
+        this.timeout = Objects.requireNonNull(timeout, "timeout must not be null");
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("maxConcurrent must be positive");
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("queueCapacity must not be negative");
+        }
+        if (timeout.isZero() || timeout.isNegative()) {
+            throw new IllegalArgumentException("timeout must be positive");
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Reads {@code PIPELINE_<NAME>_CONCURRENCY}, {@code PIPELINE_<NAME>_QUEUE_CAPACITY} and
+     * {@code PIPELINE_<NAME>_TIMEOUT_SECONDS}, falling back to the given defaults.
+     */
+    public static StageBulkhead fromEnvironment(String name, int defaultConcurrency, int defaultQueueCapacity,
+                                                Duration defaultTimeout) {
+        String prefix = "PIPELINE_" + name.toUpperCase(Locale.ROOT) + "_";
+        int concurrency = Optional.ofNullable(System.getenv(prefix + "CONCURRENCY"))
+                .map(Integer::parseInt)
+                .orElse(defaultConcurrency);
+        int queueCapacity = Optional.ofNullable(System.getenv(prefix + "QUEUE_CAPACITY"))
+                .map(Integer::parseInt)
+                .orElse(defaultQueueCapacity);
+        Duration timeout = Optional.ofNullable(System.getenv(prefix + "TIMEOUT_SECONDS"))
+                .map(Long::parseLong)
+                .map(Duration::ofSeconds)
+                .orElse(defaultTimeout);
+        return new StageBulkhead(name, concurrency, queueCapacity, timeout);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int maxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public synchronized int running() {
+        return running;
+    }
+
+    public synchronized int queued() {
+        return waiting.size();
+    }
+
+    public synchronized AdmissionStatus status() {
+        Duration oldestWait = waiting.isEmpty()
+                ? Duration.ZERO
+                : Duration.ofNanos(System.nanoTime() - waiting.peekFirst().enqueuedNanos());
+        return new AdmissionStatus(name, running, maxConcurrent, waiting.size(), queueCapacity,
+                drain.averageQueueWait(), oldestWait, drain.retryAfter(waiting.size(), maxConcurrent, oldestWait));
+    }
+
+    /**
+     * Starts {@code task} once a slot is free. The returned future fails with
+     * {@link AdmissionRejectedException} when the wait queue is full and with
+     * {@link StageTimeoutException} when the task outlives the timeout.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> task) {
+        Objects.requireNonNull(task, "task must not be null");
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable start = () -> launch(task, result);
+        boolean startNow;
+        synchronized (this) {
+            if (running < maxConcurrent) {
+                running++;
+                startNow = true;
+            } else if (waiting.size() < queueCapacity) {
+                waiting.addLast(new Waiter(start, System.nanoTime()));
+                startNow = false;
+            } else {
+                Duration retryAfter = status().retryAfter();
+                result.completeExceptionally(new AdmissionRejectedException("Stage '" + name + "' is saturated", retryAfter));
+                return result;
+            }
+        }
+        if (startNow) {
+            start.run();
+        }
+        return result;
+    }
+
+    private <T> void launch(Supplier<CompletableFuture<T>> task, CompletableFuture<T> result) {
+        AtomicBoolean released = new AtomicBoolean();
+        long startedNanos = System.nanoTime();
+        result.whenComplete((value, failure) -> {
+            if (released.compareAndSet(false, true)) {
+                drain.recordService(System.nanoTime() - startedNanos);
+                release();
+            }
+        });
+
+        CompletableFuture<T> inner;
+        try {
+            inner = Objects.requireNonNull(task.get(), "stage task returned null");
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+        ScheduledFuture<?> deadline = TIMER.schedule(() -> {
+            if (result.completeExceptionally(new StageTimeoutException(name, timeout))) {
+                // Best effort: stops the work only when inner is the upstream call's own future
+                inner.cancel(true);
+            }
+        }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+        inner.whenComplete((value, failure) -> {
+            deadline.cancel(false);
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(value);
+            }
+        });
+    }
+
+    private void release() {
+        Waiter next;
+        synchronized (this) {
+            next = waiting.pollFirst();
+            if (next == null) {
+                running--;
+            }
+        }
+        // The freed slot passes straight to the next waiter, so running stays unchanged
+        if (next != null) {
+            drain.recordQueueWait(System.nanoTime() - next.enqueuedNanos());
+            LAUNCHER.execute(next.start());
+        }
+    }
+
+    private record Waiter(Runnable start, long enqueuedNanos) {
+    }
+}
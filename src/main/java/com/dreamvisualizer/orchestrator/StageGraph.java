@@ -0,0 +1,120 @@
+package com.dreamvisualizer.orchestrator;
+
+import com.dreamvisualizer.diagnostics.PipelineStageEvent;
+import com.dreamvisualizer.metrics.ResourceAccount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * One run's dependency graph of stages. A stage starts, through its bulkhead, as soon as all the
+ * stages it depends on have completed, so independent stages overlap. The first required stage
+ * to fail fails the whole run immediately, even while unrelated stages are still running. Each
+ * scheduled stage is reported as a {@link PipelineStageEvent} while a flight recording wants one,
+ * and its body is charged to the {@link ResourceAccount} that was current when the graph was built.
+ */
+final class StageGraph {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StageGraph.class);
+
+    private final String jobId;
+    private final ResourceAccount resources = ResourceAccount.current();
+    private final CompletableFuture<Void> firstFailure = new CompletableFuture<>();
+
+    /**
+     * @param jobId the run's job, for diagnostics; {@code null} for runs outside a job
+     */
+    StageGraph(String jobId) {
+        this.jobId = jobId;
+    }
+
+    /**
+     * Adds a stage whose result is already known.
+     */
+    <T> Node<T> completed(String name, T value) {
+        return new Node<>(name, CompletableFuture.completedFuture(value));
+    }
+
+    /**
+     * Adds a required stage that runs {@code body} on {@code bulkhead} once {@code dependencies}
+     * have completed. Its failure fails the run.
+     */
+    <T> Node<T> stage(String name, StageBulkhead bulkhead, List<Node<?>> dependencies,
+                      Supplier<CompletableFuture<T>> body) {
+        CompletableFuture<T> future = schedule(name, bulkhead, dependencies, body);
+        future.whenComplete((value, failure) -> {
+            if (failure != null) {
+                firstFailure.completeExceptionally(unwrap(failure));
+            }
+        });
+        return new Node<>(name, future);
+    }
+
+    /**
+     * Adds a best-effort stage: a failure is logged and the stage completes with {@code null}, so
+     * dependants still run.
+     */
+    <T> Node<T> optional(String name, StageBulkhead bulkhead, List<Node<?>> dependencies,
+                         Supplier<CompletableFuture<T>> body) {
+        CompletableFuture<T> future = schedule(name, bulkhead, dependencies, body).exceptionally(failure -> {
+            LOGGER.debug("Optional stage {} failed: {}", name, unwrap(failure).getMessage());
+            return null;
+        });
+        return new Node<>(name, future);
+    }
+
+    /**
+     * Completes with {@code sink}'s result, or exceptionally as soon as any required stage fails.
+     */
+    <T> CompletableFuture<T> run(Node<T> sink) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        sink.future().whenComplete((value, failure) -> {
+            if (failure != null) {
+                result.completeExceptionally(unwrap(failure));
+            } else {
+                result.complete(value);
+            }
+        });
+        firstFailure.whenComplete((ignored, failure) -> {
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            }
+        });
+        return result;
+    }
+
+    private <T> CompletableFuture<T> schedule(String name, StageBulkhead bulkhead, List<Node<?>> dependencies,
+                                              Supplier<CompletableFuture<T>> body) {
+        Objects.requireNonNull(bulkhead, "bulkhead must not be null");
+        CompletableFuture<?>[] upstream = dependencies.stream()
+                .map(Node::future)
+                .toArray(CompletableFuture<?>[]::new);
+        return CompletableFuture.allOf(upstream).thenCompose(ignored -> {
+            PipelineStageEvent event = PipelineStageEvent.begin(jobId, name);
+            CompletableFuture<T> result = bulkhead.submit(resources != null ? resources.wrap(body) : body);
+            if (event != null) {
+                result.whenComplete((value, failure) -> event.finish(failure != null));
+            }
+            return result;
+        });
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+    record Node<T>(String name, CompletableFuture<T> future) {
+
+        /**
+         * The stage's result; only valid from a dependant, once the stage has completed.
+         */
+        T value() {
+            return future.join();
+        }
+    }
+}
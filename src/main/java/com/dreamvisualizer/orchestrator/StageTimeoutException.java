@@ -0,0 +1,13 @@
+package com.dreamvisualizer.orchestrator;
+
+import java.time.Duration;
+
+/**
+ * Raised when a pipeline stage does not finish within its bulkhead's timeout.
+ */
+public class StageTimeoutException extends RuntimeException {
+
+    public StageTimeoutException(String stage, Duration timeout) {
+        super("Stage '" + stage + "' did not complete within " + timeout.toSeconds() + " s");
+    }
+}
@@ -0,0 +1,24 @@
+package com.dreamvisualizer.orchestrator;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * What a pipeline run does when the {@code videos} circuit breaker is open.
+ */
+public enum VideoFallback {
+    /** Finish with the transcript and prompt and a {@code skipped} placeholder video. */
+    SKIP,
+    /** Fail the run before it spends anything on transcription or prompt engineering. */
+    FAIL;
+
+    /**
+     * Reads {@code PIPELINE_VIDEO_FALLBACK} ({@code skip} or {@code fail}), defaulting to {@link #SKIP}.
+     */
+    public static VideoFallback fromEnvironment() {
+        return Optional.ofNullable(System.getenv("PIPELINE_VIDEO_FALLBACK"))
+                .filter(value -> !value.isBlank())
+                .map(value -> valueOf(value.trim().toUpperCase(Locale.ROOT)))
+                .orElse(SKIP);
+    }
+}
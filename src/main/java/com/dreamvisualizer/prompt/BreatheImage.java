@@ -0,0 +1,51 @@
+package com.dreamvisualizer.prompt;
+
+import com.dreamvisualizer.cache.ContentHash;
+import com.dreamvisualizer.http.OpenAIException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * A breathing chart read from disk and already encoded as a data URL, so the file I/O and base64
+ * work can happen ahead of (and in parallel with) the prompt engineering call.
+ */
+public final class BreatheImage {
+
+    private final String sha256;
+    private final String dataUrl;
+
+    private BreatheImage(String sha256, String dataUrl) {
+        this.sha256 = sha256;
+        this.dataUrl = dataUrl;
+    }
+
+    public static BreatheImage read(Path path) {
+        Objects.requireNonNull(path, "breatheImagePath must not be null");
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(path);
+        } catch (Exception e) {
+            throw new OpenAIException("Failed to read breathe image file", e);
+        }
+        return of(bytes);
+    }
+
+    /**
+     * Fingerprints and encodes chart bytes already in memory.
+     */
+    static BreatheImage of(byte[] bytes) {
+        return new BreatheImage(ContentHash.sha256Hex(bytes),
+                "data:image/png;base64," + Base64.getEncoder().encodeToString(bytes));
+    }
+
+    public String sha256() {
+        return sha256;
+    }
+
+    public String dataUrl() {
+        return dataUrl;
+    }
+}
@@ -1,34 +1,187 @@
 package com.dreamvisualizer.prompt;
 
+import com.dreamvisualizer.cache.CacheStats;
+import com.dreamvisualizer.cache.SingleFlight;
 import com.dreamvisualizer.config.OpenAIConfig;
 import com.dreamvisualizer.http.OpenAIClient;
 import com.dreamvisualizer.http.OpenAIException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import java.nio.file.Files;
+import java.util.Optional;
 import java.nio.file.Path;
-import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Layer 2: turns a raw transcription into a structured prompt for Sora.
  */
 public class DreamPromptEngineer {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(DreamPromptEngineer.class);
+
+    /** OpenAI's rule of thumb for English text; close enough to pace against the token budget. */
+    private static final int CHARS_PER_TOKEN = 4;
+    /** Charge for one breathing chart at the default image detail. */
+    private static final long IMAGE_TOKENS = 765;
+    /** Allowance for the structured answer, which counts against the token budget as well. */
+    private static final long OUTPUT_TOKENS = 1024;
+
     private final OpenAIConfig config;
     private final OpenAIClient client;
+    private final PromptCache cache;
+    private final SingleFlight<String, DreamPromptResult> flights = new SingleFlight<>();
 
     public DreamPromptEngineer(OpenAIConfig config, OpenAIClient client) {
+        this(config, client, PromptCache.fromEnvironment());
+    }
+
+    public DreamPromptEngineer(OpenAIConfig config, OpenAIClient client, PromptCache cache) {
         this.config = Objects.requireNonNull(config, "config must not be null");
         this.client = Objects.requireNonNull(client, "client must not be null");
+        this.cache = Objects.requireNonNull(cache, "cache must not be null");
     }
 
     public DreamPromptResult engineerPrompt(String dreamNarrative) {
+        String cacheKey = cacheKey(dreamNarrative, null);
+        Optional<DreamPromptResult> cached = lookup(cacheKey);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        return flights.call(cacheKey, () -> requestPrompt(cacheKey, buildPayload(dreamNarrative)));
+    }
+
+    public DreamPromptResult engineerPrompt(String dreamNarrative, Path breatheImagePath) {
+        return engineerPrompt(dreamNarrative, BreatheImage.read(breatheImagePath));
+    }
+
+    public DreamPromptResult engineerPrompt(String dreamNarrative, BreatheImage breatheImage) {
+        String cacheKey = cacheKey(dreamNarrative, breatheImage);
+        Optional<DreamPromptResult> cached = lookup(cacheKey);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        return flights.call(cacheKey, () -> requestPrompt(cacheKey, buildPayload(dreamNarrative, breatheImage)));
+    }
+
+    /**
+     * Non-blocking variant of {@link #engineerPrompt(String)}.
+     */
+    public CompletableFuture<DreamPromptResult> engineerPromptAsync(String dreamNarrative) {
+        String cacheKey;
+        try {
+            cacheKey = cacheKey(dreamNarrative, null);
+            Optional<DreamPromptResult> cached = lookup(cacheKey);
+            if (cached.isPresent()) {
+                return CompletableFuture.completedFuture(cached.get());
+            }
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return flights.submit(cacheKey, () -> requestPromptAsync(cacheKey, buildPayload(dreamNarrative)));
+    }
+
+    /**
+     * Non-blocking variant of {@link #engineerPrompt(String, Path)}.
+     */
+    public CompletableFuture<DreamPromptResult> engineerPromptAsync(String dreamNarrative, Path breatheImagePath) {
+        BreatheImage breatheImage;
+        try {
+            breatheImage = BreatheImage.read(breatheImagePath);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return engineerPromptAsync(dreamNarrative, breatheImage);
+    }
+
+    /**
+     * Non-blocking variant of {@link #engineerPrompt(String, BreatheImage)}.
+     */
+    public CompletableFuture<DreamPromptResult> engineerPromptAsync(String dreamNarrative, BreatheImage breatheImage) {
+        String cacheKey;
+        try {
+            Objects.requireNonNull(breatheImage, "breatheImage must not be null");
+            cacheKey = cacheKey(dreamNarrative, breatheImage);
+            Optional<DreamPromptResult> cached = lookup(cacheKey);
+            if (cached.isPresent()) {
+                return CompletableFuture.completedFuture(cached.get());
+            }
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return flights.submit(cacheKey, () -> requestPromptAsync(cacheKey, buildPayload(dreamNarrative, breatheImage)));
+    }
+
+    public CacheStats cacheStats() {
+        return cache.stats();
+    }
+
+    public SingleFlight.Stats coalescingStats() {
+        return flights.stats();
+    }
+
+    /**
+     * Identifies the request by normalised narrative, model and chart; keys both the prompt cache
+     * and the coalescing of concurrent duplicates.
+     */
+    private String cacheKey(String dreamNarrative, BreatheImage breatheImage) {
+        Objects.requireNonNull(dreamNarrative, "dreamNarrative must not be null");
+        return PromptCache.keyFor(dreamNarrative, config.getTextModel(), breatheImage == null ? null : breatheImage.sha256());
+    }
+
+    private DreamPromptResult requestPrompt(String cacheKey, ObjectNode payload) {
+        return store(cacheKey, parseResponse(
+                client.postJson("responses", payload, estimateTokens(payload), DreamPromptEngineer::readOutputText)));
+    }
+
+    private CompletableFuture<DreamPromptResult> requestPromptAsync(String cacheKey, ObjectNode payload) {
+        return client.postJsonAsync("responses", payload, estimateTokens(payload), DreamPromptEngineer::readOutputText)
+                .thenApply(response -> store(cacheKey, parseResponse(response)));
+    }
+
+    private Optional<DreamPromptResult> lookup(String cacheKey) {
+        Optional<DreamPromptResult> cached = cache.isEnabled() ? cache.lookup(cacheKey) : Optional.empty();
+        cached.ifPresent(prompt -> LOGGER.info("Prompt cache hit; skipping responses call"));
+        return cached;
+    }
+
+    private DreamPromptResult store(String cacheKey, DreamPromptResult prompt) {
+        if (cache.isEnabled()) {
+            cache.store(cacheKey, prompt);
+        }
+        return prompt;
+    }
+
+    /**
+     * Estimates the tokens a responses call will be charged: its input text at
+     * {@value #CHARS_PER_TOKEN} characters per token, a flat charge per image, and the answer.
+     */
+    static long estimateTokens(JsonNode payload) {
+        long characters = 0;
+        long images = 0;
+        for (JsonNode message : payload.path("input")) {
+            for (JsonNode block : message.path("content")) {
+                String type = block.path("type").asText();
+                if ("input_text".equals(type)) {
+                    characters += block.path("text").asText().length();
+                } else if ("input_image".equals(type)) {
+                    images++;
+                }
+            }
+        }
+        return (characters + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN + images * IMAGE_TOKENS + OUTPUT_TOKENS;
+    }
+
+    private ObjectNode buildPayload(String dreamNarrative) {
         Objects.requireNonNull(dreamNarrative, "dreamNarrative must not be null");
         ObjectMapper mapper = client.mapper();
 
@@ -53,21 +206,11 @@ public class DreamPromptEngineer {
 
         ObjectNode textNode = payload.putObject("text");
         textNode.set("format", PromptEngineeringConfig.defaultResponseFormat(mapper));
-
-        JsonNode response = client.postJson("responses", payload);
-        String jsonPayload = extractJsonOutput(response);
-
-        try {
-            JsonNode structured = mapper.readTree(jsonPayload);
-            return mapToResult(structured);
-        } catch (Exception e) {
-            throw new OpenAIException("Failed to parse structured JSON from GPT response: " + jsonPayload, e);
-        }
+        return payload;
     }
 
-    public DreamPromptResult engineerPrompt(String dreamNarrative, Path breatheImagePath) {
+    private ObjectNode buildPayload(String dreamNarrative, BreatheImage breatheImage) {
         Objects.requireNonNull(dreamNarrative, "dreamNarrative must not be null");
-        Objects.requireNonNull(breatheImagePath, "breatheImagePath must not be null");
         ObjectMapper mapper = client.mapper();
 
         ObjectNode payload = mapper.createObjectNode();
@@ -91,24 +234,19 @@ public class DreamPromptEngineer {
                 .put("text", buildUserInstructionWithBreathe(dreamNarrative));
 
         // Add image as base64 data URL per Responses multimodal input spec
-        try {
-            byte[] bytes = Files.readAllBytes(breatheImagePath);
-            String base64 = Base64.getEncoder().encodeToString(bytes);
-            ObjectNode imageNode = userContent.addObject();
-            imageNode.put("type", "input_image");
-            imageNode.put("image_url", "data:image/png;base64," + base64);
-        } catch (Exception e) {
-            throw new OpenAIException("Failed to read breathe image file", e);
-        }
+        ObjectNode imageNode = userContent.addObject();
+        imageNode.put("type", "input_image");
+        imageNode.put("image_url", breatheImage.dataUrl());
 
         ObjectNode textNode = payload.putObject("text");
         textNode.set("format", PromptEngineeringConfig.defaultResponseFormat(mapper));
+        return payload;
+    }
 
-        JsonNode response = client.postJson("responses", payload);
-        String jsonPayload = extractJsonOutput(response);
+    DreamPromptResult parseResponse(String jsonPayload) {
 
         try {
-            JsonNode structured = mapper.readTree(jsonPayload);
+            JsonNode structured = client.mapper().readTree(jsonPayload);
             return mapToResult(structured);
         } catch (Exception e) {
             throw new OpenAIException("Failed to parse structured JSON from GPT response: " + jsonPayload, e);
@@ -150,28 +288,78 @@ public class DreamPromptEngineer {
                 """;
     }
 
-    private String extractJsonOutput(JsonNode response) {
-        JsonNode output = response.path("output");
-        if (!output.isArray()) {
+    /**
+     * Streams a Responses API body and returns the first non-blank {@code output_text} block, without
+     * building a tree of the response. Everything else (usage, reasoning items, annotations) is
+     * skipped token by token; the body is still read to the end so the connection can be reused.
+     */
+    static String readOutputText(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new OpenAIException("Unexpected response payload: not a JSON object");
+        }
+        boolean sawOutput = false;
+        String text = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (!"output".equals(field) || value != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
+            }
+            sawOutput = true;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                String found = readItemText(parser);
+                if (text == null) {
+                    text = found;
+                }
+            }
+        }
+        if (!sawOutput) {
             throw new OpenAIException("Unexpected response payload: missing output array");
         }
-        for (JsonNode item : output) {
-            JsonNode content = item.path("content");
-            if (content.isArray()) {
-                for (JsonNode block : content) {
-                    if ("output_text".equals(block.path("type").asText())) {
-                        String text = block.path("text").asText();
-                        if (text != null && !text.isBlank()) {
-                            return text.trim();
-                        }
-                    }
+        if (text == null) {
+            throw new OpenAIException("No JSON text found in responses output");
+        }
+        return text;
+    }
+
+    private static String readItemText(JsonParser parser) throws IOException {
+        String text = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (!"content".equals(field) || value != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                String found = readBlockText(parser);
+                if (text == null) {
+                    text = found;
                 }
             }
         }
-        throw new OpenAIException("No JSON text found in responses output");
+        return text;
+    }
+
+    private static String readBlockText(JsonParser parser) throws IOException {
+        String type = null;
+        String text = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("type".equals(field) && value == JsonToken.VALUE_STRING) {
+                type = parser.getText();
+            } else if ("text".equals(field) && value == JsonToken.VALUE_STRING) {
+                text = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return "output_text".equals(type) && text != null && !text.isBlank() ? text.trim() : null;
     }
 
-    private DreamPromptResult mapToResult(JsonNode node) {
+    DreamPromptResult mapToResult(JsonNode node) {
         String soraPrompt = node.path("sora_prompt").asText("");
         List<String> beats = toStringList(node.path("narrative_beats"));
         List<String> visuals = toStringList(node.path("visual_keywords"));
@@ -0,0 +1,146 @@
+package com.dreamvisualizer.prompt;
+
+import com.dreamvisualizer.cache.CacheStats;
+import com.dreamvisualizer.cache.ContentHash;
+import com.dreamvisualizer.cache.TieredCache;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded LRU + TTL store of engineered prompts, so identical narratives (transcript overrides,
+ * client retries, cached transcripts) skip the {@code responses} call.
+ */
+public final class PromptCache {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final TieredCache.Codec<DreamPromptResult> CODEC = new TieredCache.Codec<>() {
+        @Override
+        public JsonNode encode(DreamPromptResult prompt, ObjectMapper mapper) {
+            ObjectNode node = mapper.createObjectNode();
+            node.put("sora_prompt", prompt.soraPrompt());
+            writeList(node.putArray("narrative_beats"), prompt.narrativeBeats());
+            writeList(node.putArray("visual_keywords"), prompt.visualKeywords());
+            node.put("emotional_tone", prompt.emotionalTone());
+            node.put("color_palette", prompt.colorPalette());
+            writeList(node.putArray("negative_prompts"), prompt.negativePrompts());
+            node.put("camera_style", prompt.cameraStyle());
+            node.put("motion_style", prompt.motionStyle());
+            return node;
+        }
+
+        @Override
+        public DreamPromptResult decode(JsonNode node) {
+            return new DreamPromptResult(
+                    node.path("sora_prompt").asText(""),
+                    readList(node.path("narrative_beats")),
+                    readList(node.path("visual_keywords")),
+                    node.path("emotional_tone").asText(""),
+                    node.path("color_palette").asText(""),
+                    readList(node.path("negative_prompts")),
+                    node.path("camera_style").asText(""),
+                    node.path("motion_style").asText(""));
+        }
+    };
+
+    private final TieredCache<DreamPromptResult> cache;
+
+    private PromptCache(TieredCache<DreamPromptResult> cache) {
+        this.cache = cache;
+    }
+
+    public static PromptCache create(int maxEntries, Duration timeToLive, Path directory, long maxDiskBytes) {
+        return new PromptCache(TieredCache.builder("prompt", CODEC)
+                .maxEntries(maxEntries)
+                .timeToLive(timeToLive)
+                .directory(directory)
+                .maxDiskBytes(maxDiskBytes)
+                .build());
+    }
+
+    /**
+     * Reads {@code PROMPT_CACHE_ENTRIES} (default 512, {@code 0} disables caching),
+     * {@code PROMPT_CACHE_TTL_MINUTES} (default 1440), {@code PROMPT_CACHE_DIR} (unset keeps
+     * the cache in memory only) and {@code PROMPT_CACHE_DISK_MB} (default 64).
+     */
+    public static PromptCache fromEnvironment() {
+        int maxEntries = Integer.parseInt(
+                Optional.ofNullable(System.getenv("PROMPT_CACHE_ENTRIES")).orElse("512"));
+        if (maxEntries <= 0) {
+            return disabled();
+        }
+        Duration timeToLive = Duration.ofMinutes(Long.parseLong(
+                Optional.ofNullable(System.getenv("PROMPT_CACHE_TTL_MINUTES")).orElse("1440")));
+        Path directory = Optional.ofNullable(System.getenv("PROMPT_CACHE_DIR"))
+                .filter(value -> !value.isBlank())
+                .map(Path::of)
+                .orElse(null);
+        long maxDiskBytes = Long.parseLong(
+                Optional.ofNullable(System.getenv("PROMPT_CACHE_DISK_MB")).orElse("64")) * 1024 * 1024;
+        return create(maxEntries, timeToLive, directory, maxDiskBytes);
+    }
+
+    public static PromptCache disabled() {
+        return new PromptCache(null);
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    public CacheStats stats() {
+        return cache == null ? new CacheStats(0, 0, 0, 0, 0, 0, 0L) : cache.stats();
+    }
+
+    Optional<DreamPromptResult> lookup(String key) {
+        return cache == null ? Optional.empty() : cache.get(key);
+    }
+
+    void store(String key, DreamPromptResult prompt) {
+        if (cache != null) {
+            cache.put(key, prompt);
+        }
+    }
+
+    /**
+     * Key over the normalised narrative, text model, system prompt version and, when a breathing
+     * chart is attached, the SHA-256 of its bytes.
+     */
+    static String keyFor(String narrative, String textModel, String breatheImageSha256) {
+        return ContentHash.sha256Hex(
+                normaliseNarrative(narrative),
+                textModel,
+                PromptEngineeringConfig.SYSTEM_PROMPT_VERSION,
+                breatheImageSha256 == null ? "" : breatheImageSha256);
+    }
+
+    /**
+     * Folds Unicode compatibility forms, case and runs of whitespace so trivially different
+     * transcriptions of the same narrative share an entry.
+     */
+    static String normaliseNarrative(String narrative) {
+        String folded = Normalizer.normalize(narrative, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        return WHITESPACE.matcher(folded).replaceAll(" ").trim();
+    }
+
+    private static void writeList(ArrayNode array, List<String> values) {
+        values.forEach(array::add);
+    }
+
+    private static List<String> readList(JsonNode node) {
+        List<String> values = new ArrayList<>();
+        node.forEach(value -> values.add(value.asText()));
+        return List.copyOf(values);
+    }
+}
@@ -35,6 +35,12 @@ public final class PromptEngineeringConfig {
             - Horror imagery unless the user explicitly requests it.
             """;
 
+    /**
+     * Identifies the current system prompt and response schema in cache keys. Bump it whenever
+     * either changes so previously cached prompts are no longer served.
+     */
+    public static final String SYSTEM_PROMPT_VERSION = "1";
+
     /**
      * Creates the JSON schema used as response_format in the Responses API call.
      */
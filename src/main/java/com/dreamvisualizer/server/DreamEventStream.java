@@ -0,0 +1,320 @@
+package com.dreamvisualizer.server;
+
+import com.dreamvisualizer.orchestrator.DreamJob;
+import com.dreamvisualizer.orchestrator.DreamJobStage;
+import com.dreamvisualizer.orchestrator.DreamVisualizationListener;
+import com.dreamvisualizer.prompt.DreamPromptResult;
+import com.dreamvisualizer.speech.SpeechTranscript;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.javalin.http.sse.SseClient;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans dream job updates out to Server-Sent Events subscribers.
+ *
+ * <p>Connections are held open asynchronously, so an idle subscriber occupies no thread. Pipeline
+ * threads only enqueue events; a small shared pool drains each subscriber's queue in order through
+ * a non-blocking servlet {@link WriteListener}, so a peer that stops reading parks its own queue
+ * rather than a pool thread, and resumes when the container reports it writable again. A
+ * subscriber that falls too far behind is disconnected rather than allowed to buffer without
+ * bound.</p>
+ */
+final class DreamEventStream implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DreamEventStream.class);
+
+    private static final long HEARTBEAT_SECONDS = 15L;
+    private static final int MAX_PENDING_EVENTS = 256;
+
+    private final ObjectMapper mapper;
+    private final ScheduledExecutorService executor;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    DreamEventStream(ObjectMapper mapper, int threads) {
+        this.mapper = Objects.requireNonNull(mapper, "mapper must not be null");
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "dream-events-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Comments keep proxies from timing out idle streams and reveal clients that went away
+        this.executor.scheduleWithFixedDelay(
+                () -> subscribers.forEach(Subscriber::heartbeat), HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    static DreamEventStream fromEnvironment(ObjectMapper mapper) {
+        int threads = Integer.parseInt(Optional.ofNullable(System.getenv("DREAM_EVENT_THREADS")).orElse("2"));
+        return new DreamEventStream(mapper, threads);
+    }
+
+    /**
+     * Streams {@code job} to {@code client}: a {@code snapshot} of the current state first, then
+     * every update, ending with {@code completed} or {@code failed}.
+     */
+    void open(SseClient client, DreamJob job) {
+        Subscriber subscriber = new Subscriber(client, job);
+        subscribers.add(subscriber);
+        subscriber.attach(job.subscribe(subscriber, subscriber::snapshot));
+        // Javalin asks for the future once the request is asynchronous, the only state in which a
+        // write listener may be set; the stream ends when the future completes
+        client.ctx().future(subscriber::start);
+        client.onClose(subscriber::close);
+        if (client.terminated()) {
+            subscriber.close();
+        }
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        subscribers.forEach(Subscriber::close);
+    }
+
+    /**
+     * An event to write; a {@code null} name marks an SSE comment, {@code last} the terminal event.
+     */
+    private record Event(String name, String data, boolean last) {
+    }
+
+    private final class Subscriber implements DreamVisualizationListener, WriteListener {
+        private final SseClient client;
+        private final DreamJob job;
+        private final Queue<Event> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        // Signals (new events, write-possible callbacks) not yet seen by the thread draining the queue
+        private final AtomicInteger drainRequests = new AtomicInteger();
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private volatile Runnable unsubscribe = () -> {
+        };
+        private volatile ServletOutputStream out;
+        private volatile boolean listening;
+        // Only touched by the draining thread
+        private long sequence;
+        private boolean unflushed;
+        private boolean lastWritten;
+
+        private Subscriber(SseClient client, DreamJob job) {
+            this.client = client;
+            this.job = job;
+        }
+
+        private void attach(Runnable unsubscribe) {
+            this.unsubscribe = unsubscribe;
+            if (closed.get()) {
+                unsubscribe.run();
+            }
+        }
+
+        private void snapshot(DreamJob job) {
+            enqueue("snapshot", DreamVisualizerServer.mapJob(mapper, job));
+            if (job.stage().isTerminal()) {
+                finish();
+            }
+        }
+
+        private CompletableFuture<Void> start() {
+            try {
+                out = client.ctx().res().getOutputStream();
+                out.setWriteListener(this);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.debug("Opening event stream for dream job {} failed: {}", job.id(), e.getMessage());
+                close();
+                return done;
+            }
+            listening = true;
+            // Events queued before the listener was set have not requested a drain
+            requestDrain();
+            return done;
+        }
+
+        @Override
+        public void onStage(DreamJobStage stage) {
+            if (stage.isTerminal()) {
+                finish();
+            } else {
+                enqueue("stage", mapper.createObjectNode().put("stage", stage.wireName()));
+            }
+        }
+
+        @Override
+        public void onTranscript(SpeechTranscript transcript) {
+            ObjectNode node = mapper.createObjectNode();
+            DreamVisualizerServer.mapTranscript(node, transcript);
+            enqueue("transcript", node);
+        }
+
+        @Override
+        public void onPrompt(DreamPromptResult prompt) {
+            ObjectNode node = mapper.createObjectNode();
+            DreamVisualizerServer.mapPrompt(node, prompt);
+            enqueue("prompt", node);
+        }
+
+        @Override
+        public void onVideoStatus(String videoId, String status, int progress) {
+            ObjectNode node = mapper.createObjectNode();
+            DreamVisualizerServer.mapVideoStatus(node, new DreamJob.VideoStatus(videoId, status, progress));
+            enqueue("video_status", node);
+        }
+
+        @Override
+        public void onWritePossible() {
+            if (drainRequests.getAndIncrement() == 0) {
+                drain();
+            }
+        }
+
+        @Override
+        public void onError(Throwable failure) {
+            LOGGER.debug("Event stream for dream job {} failed: {}", job.id(), failure.getMessage());
+            close();
+        }
+
+        private void finish() {
+            if (finished.compareAndSet(false, true)) {
+                String name = job.stage() == DreamJobStage.COMPLETED ? "completed" : "failed";
+                offer(new Event(name, DreamVisualizerServer.mapJob(mapper, job).toString(), true));
+            }
+        }
+
+        private void heartbeat() {
+            if (pendingCount.get() == 0) {
+                offer(new Event(null, "keep-alive", false));
+            }
+        }
+
+        private void enqueue(String name, ObjectNode data) {
+            offer(new Event(name, data.toString(), false));
+        }
+
+        private void offer(Event event) {
+            if (closed.get()) {
+                return;
+            }
+            if (pendingCount.incrementAndGet() > MAX_PENDING_EVENTS) {
+                LOGGER.warn("Dropping slow event subscriber for dream job {}", job.id());
+                close();
+                return;
+            }
+            pending.add(event);
+            if (listening) {
+                requestDrain();
+            }
+        }
+
+        private void requestDrain() {
+            if (drainRequests.getAndIncrement() == 0) {
+                schedule(this::drain);
+            }
+        }
+
+        /**
+         * Writes queued events while the connection accepts bytes without blocking. Runs on one
+         * thread at a time; signals that arrive meanwhile make it go round again.
+         */
+        private void drain() {
+            int requests = 1;
+            do {
+                try {
+                    if (!closed.get() && !write() && lastWritten) {
+                        close();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.debug("Writing event stream for dream job {} failed: {}", job.id(), e.getMessage());
+                    close();
+                }
+                requests = drainRequests.addAndGet(-requests);
+            } while (requests != 0);
+        }
+
+        /**
+         * Returns {@code true} when the connection cannot take more bytes yet; the container then
+         * calls {@link #onWritePossible()} once it can.
+         */
+        private boolean write() throws IOException {
+            while (out.isReady()) {
+                Event event = pending.poll();
+                if (event == null) {
+                    if (!unflushed) {
+                        return false;
+                    }
+                    unflushed = false;
+                    out.flush();
+                    continue;
+                }
+                pendingCount.decrementAndGet();
+                out.write(frame(event));
+                unflushed = true;
+                lastWritten |= event.last();
+            }
+            return true;
+        }
+
+        private byte[] frame(Event event) {
+            StringBuilder frame = new StringBuilder(event.data().length() + 48);
+            if (event.name() == null) {
+                frame.append(": ").append(event.data()).append("\n\n");
+            } else {
+                frame.append("id: ").append(++sequence).append('\n');
+                frame.append("event: ").append(event.name()).append('\n');
+                for (String line : event.data().split("\n", -1)) {
+                    frame.append("data: ").append(line).append('\n');
+                }
+                frame.append('\n');
+            }
+            return frame.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        private void schedule(Runnable task) {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                close();
+            }
+        }
+
+        private void close() {
+            if (closed.compareAndSet(false, true)) {
+                unsubscribe.run();
+                subscribers.remove(this);
+                pending.clear();
+                try {
+                    client.close();
+                } catch (RuntimeException e) {
+                    LOGGER.debug("Closing event stream for dream job {} failed: {}", job.id(), e.getMessage());
+                }
+                done.complete(null);
+            }
+        }
+    }
+}
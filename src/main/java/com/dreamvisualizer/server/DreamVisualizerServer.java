@@ -1,10 +1,27 @@
 package com.dreamvisualizer.server;
 
+import com.dreamvisualizer.cache.CacheStats;
+import com.dreamvisualizer.cache.ContentHash;
+import com.dreamvisualizer.cache.SingleFlight;
 import com.dreamvisualizer.config.OpenAIConfig;
+import com.dreamvisualizer.diagnostics.ContinuousRecording;
+import com.dreamvisualizer.diagnostics.VideoServeEvent;
+import com.dreamvisualizer.http.AdaptiveConcurrencyLimiter;
+import com.dreamvisualizer.http.CircuitBreaker;
+import com.dreamvisualizer.http.CircuitOpenException;
+import com.dreamvisualizer.http.CredentialPool;
 import com.dreamvisualizer.http.OpenAIClient;
 import com.dreamvisualizer.http.OpenAIException;
+import com.dreamvisualizer.http.RateLimitTracker;
+import com.dreamvisualizer.metrics.ResourceAccount;
+import com.dreamvisualizer.orchestrator.AdmissionRejectedException;
+import com.dreamvisualizer.orchestrator.AdmissionStatus;
+import com.dreamvisualizer.orchestrator.DreamJob;
+import com.dreamvisualizer.orchestrator.DreamJobManager;
 import com.dreamvisualizer.orchestrator.DreamVisualizationOutcome;
 import com.dreamvisualizer.orchestrator.DreamVisualizationPipeline;
+import com.dreamvisualizer.orchestrator.StageBulkhead;
+import com.dreamvisualizer.orchestrator.StageTimeoutException;
 import com.dreamvisualizer.prompt.DreamPromptEngineer;
 import com.dreamvisualizer.prompt.DreamPromptResult;
 import com.dreamvisualizer.speech.SpeechTranscriptionRequest;
@@ -26,13 +43,23 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 /**
  * Lightweight HTTP server exposing the dream visualisation pipeline for browser clients.
@@ -45,11 +72,21 @@ public final class DreamVisualizerServer {
     }
 
     public static void main(String[] args) {
-        OpenAIConfig openAIConfig = OpenAIConfig.fromEnvironment();
+        Path videoOutputDir = Path.of(Optional.ofNullable(System.getenv("DREAM_VIDEO_DIR")).orElse("generated-videos"));
+        int port = Integer.parseInt(Optional.ofNullable(System.getenv("DREAM_SERVER_PORT")).orElse("8080"));
+        start(OpenAIConfig.fromEnvironment(), videoOutputDir, port);
+    }
+
+    /**
+     * Wires the pipeline against {@code openAIConfig} and starts serving on {@code port}
+     * ({@code 0} picks a free one, see {@link Javalin#port()}). Everything else is still read from
+     * the environment, so an embedded server (the load benchmark runs one against a local
+     * simulator) behaves exactly like a deployed one.
+     */
+    public static Javalin start(OpenAIConfig openAIConfig, Path videoOutputDir, int port) {
         OpenAIClient openAIClient = new OpenAIClient(openAIConfig);
         SpeechTranscriptionService transcriptionService = new SpeechTranscriptionService(openAIConfig, openAIClient);
         DreamPromptEngineer promptEngineer = new DreamPromptEngineer(openAIConfig, openAIClient);
-        Path videoOutputDir = Path.of(Optional.ofNullable(System.getenv("DREAM_VIDEO_DIR")).orElse("generated-videos"));
         SoraVideoService videoService = new SoraVideoService(openAIConfig, openAIClient, videoOutputDir);
         DreamVisualizationPipeline pipeline = new DreamVisualizationPipeline(
                 transcriptionService,
@@ -57,8 +94,6 @@ public final class DreamVisualizerServer {
                 videoService
         );
 
-        int port = Integer.parseInt(Optional.ofNullable(System.getenv("DREAM_SERVER_PORT")).orElse("8080"));
-
         Javalin app = Javalin.create(cfg -> {
             cfg.showJavalinBanner = false;
             cfg.http.defaultContentType = "application/json";
@@ -67,8 +102,28 @@ public final class DreamVisualizerServer {
 
         ObjectMapper mapper = openAIClient.mapper();
 
+        DreamJobManager jobManager = DreamJobManager.fromEnvironment();
+        DreamEventStream eventStream = DreamEventStream.fromEnvironment(mapper);
+        VideoFileHandler videoFiles = new VideoFileHandler(videoOutputDir);
+        MetricsHandler metrics = new MetricsHandler(openAIClient, pipeline, jobManager,
+                transcriptionService, promptEngineer, videoService, eventStream, videoFiles);
+
         app.post("/dreams", ctx -> {
-            Instant started = Instant.now();
+            // Checked before the multipart body is read so an overloaded server sheds load without
+            // spooling uploads to disk
+            List<AdmissionStatus> dreamGates = Stream.concat(Stream.of(jobManager.status()),
+                    pipeline.stages().stream().map(StageBulkhead::status)).toList();
+            if (rejectIfSaturated(ctx, mapper, dreamGates)) {
+                return;
+            }
+            try {
+                pipeline.checkVideoAvailable();
+            } catch (CircuitOpenException e) {
+                LOGGER.warn("Rejecting dream submission: {}", e.getMessage());
+                rejectUnavailable(ctx, mapper, e);
+                return;
+            }
+
             UploadedFile audioFile = ctx.uploadedFile("audio");
             if (audioFile == null) {
                 ctx.status(400).json(mapper.createObjectNode()
@@ -79,66 +134,142 @@ public final class DreamVisualizerServer {
             String language = ctx.formParam("language");
             String transcriptOverride = ctx.formParam("transcript_override");
             UploadedFile breatheImageFile = ctx.uploadedFile("breathe_image");
-            VideoGenerationOptions.Builder videoOptions = VideoGenerationOptions.builder()
+            VideoGenerationOptions videoOptions = VideoGenerationOptions.builder()
                     .aspectRatio("16:9")
                     .durationSeconds(5)
-                    .format("mp4");
+                    .format("mp4")
+                    .build();
 
             Path tempFile = Files.createTempFile("dream-narration", determineSuffix(audioFile));
             Path tempBreatheImage = null;
-            try {
-                persistUploadedFile(audioFile, tempFile);
+            ResourceAccount resources = new ResourceAccount();
+            DreamJob job;
+            try (ResourceAccount.Scope ignored = resources.enter()) {
+                String audioSha256 = persistUploadedFile(audioFile, tempFile);
+                metrics.uploaded(audioFile.size());
                 if (breatheImageFile != null) {
                     tempBreatheImage = Files.createTempFile("breathe-image", determineSuffix(breatheImageFile));
                     persistUploadedFile(breatheImageFile, tempBreatheImage);
+                    metrics.uploaded(breatheImageFile.size());
                 }
 
                 long fileSize = Files.size(tempFile);
                 LOGGER.info("Received audio file: name='{}', contentType='{}', size={} bytes",
                         audioFile.filename(), audioFile.contentType(), fileSize);
 
-                SpeechTranscriptionRequest.Builder transcriptionRequest = SpeechTranscriptionRequest.builder(tempFile);
+                SpeechTranscriptionRequest.Builder transcriptionRequest = SpeechTranscriptionRequest.builder(tempFile)
+                        .audioSha256(audioSha256);
                 if (language != null && !language.isBlank()) {
                     transcriptionRequest.language(language);
                 }
 
-                DreamVisualizationOutcome outcome;
+                Optional<Path> breatheImage = Optional.ofNullable(tempBreatheImage);
                 if (transcriptOverride != null && !transcriptOverride.isBlank()) {
                     LOGGER.info("Using provided transcript override (length={} chars)", transcriptOverride.length());
                     SpeechTranscript transcript = buildTranscriptOverride(transcriptOverride);
-                    outcome = pipeline.runWithTranscript(transcript, videoOptions.build(), Optional.ofNullable(tempBreatheImage));
+                    job = jobManager.submit(resources, listener ->
+                            pipeline.runWithTranscriptAsync(transcript, videoOptions, breatheImage, listener));
                 } else {
-                    DreamVisualizationOutcome outcomeTemp = pipeline.run(transcriptionRequest.build(), videoOptions.build(), Optional.ofNullable(tempBreatheImage));
-                    outcome = outcomeTemp;
+                    SpeechTranscriptionRequest request = transcriptionRequest.build();
+                    job = jobManager.submit(resources, listener ->
+                            pipeline.runAsync(request, videoOptions, breatheImage, listener));
                 }
-                ObjectNode response = mapOutcome(mapper, outcome, Duration.between(started, Instant.now()));
-
-                ctx.json(response);
-            } catch (OpenAIException e) {
-                LOGGER.error("Pipeline execution failed", e);
-                ctx.status(502).json(mapper.createObjectNode()
-                        .put("error", "Pipeline execution failed")
-                        .put("details", e.getMessage()));
+            } catch (AdmissionRejectedException e) {
+                LOGGER.warn("Rejecting dream submission: job queue is full");
+                deleteTempFiles(tempFile, tempBreatheImage);
+                rejectBusy(ctx, mapper, "jobs", e.retryAfter());
+                return;
             } catch (Exception e) {
                 LOGGER.error("Unexpected server error", e);
+                deleteTempFiles(tempFile, tempBreatheImage);
                 ctx.status(500).json(mapper.createObjectNode()
                         .put("error", "Unexpected server error")
                         .put("details", e.getMessage()));
-            } finally {
-                try {
-                    Files.deleteIfExists(tempFile);
-                    if (tempBreatheImage != null) Files.deleteIfExists(tempBreatheImage);
-                } catch (IOException ioException) {
-                    LOGGER.warn("Failed to delete temp files", ioException);
-                }
+                return;
             }
+
+            Path audioToDelete = tempFile;
+            Path imageToDelete = tempBreatheImage;
+            job.completion().whenComplete((outcome, failure) -> deleteTempFiles(audioToDelete, imageToDelete));
+            String kind = transcriptOverride != null && !transcriptOverride.isBlank() ? "dream_transcript"
+                    : breatheImageFile != null ? "dream_breathe"
+                    : "dream";
+            job.completion().whenComplete((outcome, failure) -> metrics.requestFinished(kind, resources));
+
+            String statusUrl = "/dreams/" + job.id();
+            ctx.header("Location", statusUrl);
+            ctx.status(202).json(mapper.createObjectNode()
+                    .put("job_id", job.id())
+                    .put("stage", job.stage().wireName())
+                    .put("status_url", statusUrl));
         });
 
-        app.get("/health", ctx -> ctx.result("ok"));
+        app.get("/dreams/{id}", ctx -> {
+            Optional<DreamJob> job = jobManager.find(ctx.pathParam("id"));
+            if (job.isEmpty()) {
+                ctx.status(404).json(mapper.createObjectNode().put("error", "Unknown dream job"));
+                return;
+            }
+            ctx.json(mapJob(mapper, job.get()));
+        });
 
-        app.get("/videos/{filename}", ctx -> serveVideoFile(ctx.pathParam("filename"), videoOutputDir, ctx));
+        app.sse("/dreams/{id}/events", client -> {
+            Optional<DreamJob> job = jobManager.find(client.ctx().pathParam("id"));
+            if (job.isEmpty()) {
+                client.sendEvent("error", mapper.createObjectNode().put("error", "Unknown dream job").toString());
+                client.close();
+                return;
+            }
+            eventStream.open(client, job.get());
+        });
+
+        app.get("/health", ctx -> {
+            List<CircuitBreaker.Snapshot> breakers = openAIClient.circuitBreakers();
+            boolean degraded = breakers.stream().anyMatch(breaker -> breaker.state() != CircuitBreaker.State.CLOSED);
+            ObjectNode health = mapper.createObjectNode().put("status", degraded ? "degraded" : "ok");
+            mapCacheStats(health.putObject("transcript_cache"), transcriptionService.cacheStats());
+            mapCacheStats(health.putObject("prompt_cache"), promptEngineer.cacheStats());
+            ObjectNode coalescing = health.putObject("coalescing");
+            mapCoalescing(coalescing.putObject("transcriptions"), transcriptionService.coalescingStats());
+            mapCoalescing(coalescing.putObject("prompts"), promptEngineer.coalescingStats());
+            mapCoalescing(coalescing.putObject("video_polls"), videoService.coalescingStats());
+            health.put("event_subscribers", eventStream.subscriberCount());
+            ObjectNode admission = health.putObject("admission");
+            mapAdmissionStatus(admission.putObject("jobs"), jobManager.status());
+            ObjectNode stages = admission.putObject("stages");
+            pipeline.stages().forEach(stage -> mapAdmissionStatus(stages.putObject(stage.name()), stage.status()));
+            ObjectNode upstreamLimits = health.putObject("upstream_limits");
+            openAIClient.concurrencyLimits().forEach(limit -> mapConcurrencyLimit(upstreamLimits.putObject(limit.endpoint()), limit));
+            ObjectNode rateLimits = health.putObject("rate_limits");
+            openAIClient.rateLimits().forEach(budget -> mapRateLimit(rateLimits.putObject(budget.key()), budget));
+            ObjectNode circuitBreakers = health.putObject("circuit_breakers");
+            breakers.forEach(breaker -> mapCircuitBreaker(circuitBreakers.putObject(breaker.endpoint()), breaker));
+            ObjectNode credentials = health.putObject("credentials");
+            openAIClient.credentials().forEach(key -> mapCredential(credentials.putObject(key.name()), key));
+            ctx.json(health);
+        });
+
+        app.get("/metrics", metrics::handle);
+
+        Optional<String> adminToken = Optional.ofNullable(System.getenv("DREAM_ADMIN_TOKEN")).filter(token -> !token.isBlank());
+        ContinuousRecording.fromEnvironment().ifPresent(recording ->
+                app.post("/admin/jfr/dump", ctx -> dumpRecording(ctx, mapper, recording, adminToken)));
+
+        app.get("/videos/{filename}", ctx -> serveVideoFile(ctx.pathParam("filename"), videoFiles, ctx, false));
+        app.head("/videos/{filename}", ctx -> serveVideoFile(ctx.pathParam("filename"), videoFiles, ctx, true));
 
         app.post("/videos", ctx -> {
+            if (rejectIfSaturated(ctx, mapper, List.of(pipeline.videoStage().status()))) {
+                return;
+            }
+            try {
+                videoService.checkAvailable();
+            } catch (CircuitOpenException e) {
+                LOGGER.warn("Rejecting video submission: {}", e.getMessage());
+                rejectUnavailable(ctx, mapper, e);
+                return;
+            }
+
             JsonNode body;
             try {
                 body = mapper.readTree(ctx.body());
@@ -166,12 +297,42 @@ public final class DreamVisualizerServer {
                         .format(optionsNode.path("format").asText("mp4"));
                 VideoGenerationOptions videoOptions = builder.build();
 
-                SoraVideoJob job = videoService.generateVideo(prompt, videoOptions);
-                ObjectNode response = mapper.createObjectNode();
-                response.put("job_id", job.jobId());
-                response.put("status", job.status());
-                response.put("download_url", job.downloadUrl().orElse(null));
-                ctx.json(response);
+                ResourceAccount resources = new ResourceAccount();
+                CompletableFuture<SoraVideoJob> render;
+                try (ResourceAccount.Scope ignored = resources.enter()) {
+                    render = pipeline.generateVideoAsync(prompt, videoOptions);
+                }
+                ctx.future(() -> render.handle((job, failure) -> {
+                    if (failure != null) {
+                        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                                ? failure.getCause()
+                                : failure;
+                        if (cause instanceof AdmissionRejectedException rejected) {
+                            LOGGER.warn("Rejecting video submission: video stage is saturated");
+                            rejectBusy(ctx, mapper, "video", rejected.retryAfter());
+                            return null;
+                        }
+                        if (cause instanceof CircuitOpenException open) {
+                            LOGGER.warn("Rejecting video submission: {}", open.getMessage());
+                            rejectUnavailable(ctx, mapper, open);
+                            return null;
+                        }
+                        metrics.requestFinished("video", resources);
+                        LOGGER.error("Video generation failed", cause);
+                        ctx.status(502).json(mapper.createObjectNode()
+                                .put("error", "Video generation failed")
+                                .put("details", cause.getMessage()));
+                        return null;
+                    }
+                    metrics.requestFinished("video", resources);
+                    ObjectNode response = mapper.createObjectNode();
+                    response.put("job_id", job.jobId());
+                    response.put("status", job.status());
+                    response.put("download_url", job.downloadUrl().orElse(null));
+                    mapResources(response, resources);
+                    ctx.json(response);
+                    return null;
+                }));
             } catch (Exception e) {
                 LOGGER.error("Video generation failed", e);
                 ctx.status(502).json(mapper.createObjectNode()
@@ -181,13 +342,171 @@ public final class DreamVisualizerServer {
         });
 
         app.start(port);
-        LOGGER.info("DreamVisualizerServer listening on port {}", port);
+        LOGGER.info("DreamVisualizerServer listening on port {}", app.port());
+        return app;
     }
 
-    private static void persistUploadedFile(UploadedFile uploadedFile, Path destination) throws IOException {
+    /**
+     * Writes the upload to {@code destination} and returns the SHA-256 of its bytes, computed in
+     * the same pass.
+     */
+    private static String persistUploadedFile(UploadedFile uploadedFile, Path destination) throws IOException {
         try (InputStream in = uploadedFile.content();
              OutputStream out = Files.newOutputStream(destination)) {
-            in.transferTo(out);
+            return ContentHash.copyAndHash(in, out);
+        }
+    }
+
+    /**
+     * Answers {@code 429} when any of {@code gates} is saturated, advertising the longest of their
+     * drain estimates so the client does not come back before the slowest queue has room.
+     */
+    private static boolean rejectIfSaturated(Context ctx, ObjectMapper mapper, List<AdmissionStatus> gates) {
+        Optional<AdmissionStatus> busiest = gates.stream()
+                .filter(AdmissionStatus::saturated)
+                .max(Comparator.comparing(AdmissionStatus::retryAfter));
+        if (busiest.isEmpty()) {
+            return false;
+        }
+        LOGGER.warn("Rejecting {} {}: {} queue is full", ctx.method(), ctx.path(), busiest.get().name());
+        rejectBusy(ctx, mapper, busiest.get().name(), busiest.get().retryAfter());
+        return true;
+    }
+
+    /**
+     * Streams a snapshot of the continuous flight recording. Requires {@code DREAM_ADMIN_TOKEN} as a
+     * bearer token when set, and a loopback client otherwise.
+     */
+    private static void dumpRecording(Context ctx, ObjectMapper mapper, ContinuousRecording recording,
+                                      Optional<String> adminToken) throws IOException {
+        if (!isAdmin(ctx, adminToken)) {
+            ctx.status(403).json(mapper.createObjectNode().put("error", "Admin access required"));
+            return;
+        }
+        Path dump = Files.createTempFile("dream-visualizer", ".jfr");
+        try {
+            recording.dump(dump);
+            ctx.res().setCharacterEncoding(null);
+            ctx.contentType("application/octet-stream");
+            ctx.header("Content-Disposition", "attachment; filename=\"dream-visualizer-"
+                    + Instant.now().getEpochSecond() + ".jfr\"");
+            ctx.res().setContentLengthLong(Files.size(dump));
+            try (InputStream in = Files.newInputStream(dump)) {
+                in.transferTo(ctx.outputStream());
+            }
+            LOGGER.info("Served flight recording dump ({} bytes)", Files.size(dump));
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+
+    private static boolean isAdmin(Context ctx, Optional<String> adminToken) {
+        if (adminToken.isPresent()) {
+            String presented = Optional.ofNullable(ctx.header("Authorization")).orElse("");
+            return MessageDigest.isEqual(("Bearer " + adminToken.get()).getBytes(StandardCharsets.UTF_8),
+                    presented.getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            return InetAddress.getByName(ctx.req().getRemoteAddr()).isLoopbackAddress();
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+
+    private static void rejectBusy(Context ctx, ObjectMapper mapper, String queue, Duration retryAfter) {
+        long seconds = retryAfter.toSeconds();
+        ctx.header("Retry-After", Long.toString(seconds));
+        ctx.status(429).json(mapper.createObjectNode()
+                .put("error", "Server is busy")
+                .put("details", "The " + queue + " queue is full; retry in " + seconds + " s")
+                .put("retry_after_seconds", seconds));
+    }
+
+    /**
+     * Answers {@code 503} while the upstream circuit the request depends on is open, with the time
+     * until it lets calls through again as {@code Retry-After}.
+     */
+    private static void rejectUnavailable(Context ctx, ObjectMapper mapper, CircuitOpenException e) {
+        long seconds = Math.max(1L, e.retryAfter().toSeconds());
+        ctx.header("Retry-After", Long.toString(seconds));
+        ctx.status(503).json(mapper.createObjectNode()
+                .put("error", "Upstream unavailable")
+                .put("details", e.getMessage())
+                .put("retry_after_seconds", seconds));
+    }
+
+    private static void mapAdmissionStatus(ObjectNode node, AdmissionStatus status) {
+        node.put("running", status.running());
+        node.put("max_concurrent", status.maxConcurrent());
+        node.put("queued", status.queued());
+        node.put("queue_capacity", status.queueCapacity());
+        node.put("avg_queue_wait_ms", status.averageQueueWait().toMillis());
+        node.put("oldest_queue_wait_ms", status.oldestQueueWait().toMillis());
+        node.put("retry_after_seconds", status.retryAfter().toSeconds());
+    }
+
+    private static void mapConcurrencyLimit(ObjectNode node, AdaptiveConcurrencyLimiter.Snapshot limit) {
+        node.put("limit", limit.limit());
+        node.put("in_flight", limit.inFlight());
+        node.put("queued", limit.queued());
+        node.put("last_rtt_ms", limit.lastRtt().toMillis());
+        node.put("baseline_rtt_ms", limit.baselineRtt().toMillis());
+        node.put("dropped", limit.dropped());
+        node.put("shed", limit.shed());
+    }
+
+    private static void mapRateLimit(ObjectNode node, RateLimitTracker.Snapshot budget) {
+        node.put("request_limit", budget.requestLimit());
+        node.put("requests_remaining", budget.requestsRemaining());
+        node.put("token_limit", budget.tokenLimit());
+        node.put("tokens_remaining", budget.tokensRemaining());
+        node.put("delayed_calls", budget.delayedCalls());
+        node.put("total_delay_ms", budget.totalDelay().toMillis());
+    }
+
+    private static void mapCircuitBreaker(ObjectNode node, CircuitBreaker.Snapshot breaker) {
+        node.put("state", breaker.state().name().toLowerCase(Locale.ROOT));
+        node.put("failure_rate", breaker.failureRate());
+        node.put("slow_call_rate", breaker.slowCallRate());
+        node.put("buffered_calls", breaker.bufferedCalls());
+        node.put("open_for_ms", breaker.openFor().toMillis());
+        node.put("rejected", breaker.rejected());
+        node.put("openings", breaker.openings());
+    }
+
+    private static void mapCredential(ObjectNode node, CredentialPool.Snapshot key) {
+        node.put("weight", key.weight());
+        node.put("in_flight", key.inFlight());
+        node.put("error_rate", key.errorRate());
+        node.put("ejected", key.ejected());
+        node.put("ejected_for_ms", key.ejectedFor().toMillis());
+        node.put("ejections", key.ejections());
+    }
+
+    private static void mapCacheStats(ObjectNode node, CacheStats stats) {
+        node.put("hits", stats.hits());
+        node.put("memory_hits", stats.memoryHits());
+        node.put("disk_hits", stats.diskHits());
+        node.put("misses", stats.misses());
+        node.put("evictions", stats.evictions());
+        node.put("entries", stats.memoryEntries());
+        node.put("disk_entries", stats.diskEntries());
+        node.put("disk_bytes", stats.diskBytes());
+        node.put("hit_ratio", stats.hitRatio());
+    }
+
+    private static void mapCoalescing(ObjectNode node, SingleFlight.Stats stats) {
+        node.put("in_flight", stats.inFlight());
+        node.put("upstream_calls", stats.leaders());
+        node.put("coalesced", stats.coalesced());
+    }
+
+    private static void deleteTempFiles(Path audioFile, Path breatheImage) {
+        try {
+            Files.deleteIfExists(audioFile);
+            if (breatheImage != null) Files.deleteIfExists(breatheImage);
+        } catch (IOException ioException) {
+            LOGGER.warn("Failed to delete temp files", ioException);
         }
     }
 
@@ -224,31 +543,40 @@ public final class DreamVisualizerServer {
         return new SpeechTranscript(text, List.of(utterance), Instant.now());
     }
 
-    private static ObjectNode mapOutcome(ObjectMapper mapper,
-                                         DreamVisualizationOutcome outcome,
-                                         Duration pipelineDuration) {
-        ObjectNode root = mapper.createObjectNode();
-
-        ObjectNode transcriptNode = root.putObject("transcript");
-        transcriptNode.put("text", outcome.transcript().fullText());
-        transcriptNode.put("generated_at", outcome.transcript().generatedAt().toString());
-        ArrayNode segments = transcriptNode.putArray("segments");
-        outcome.transcript().utterances().forEach(segment -> {
-            ObjectNode node = segments.addObject();
-            node.put("start", segment.startSeconds());
-            node.put("end", segment.endSeconds());
-            node.put("text", segment.text());
+    static ObjectNode mapJob(ObjectMapper mapper, DreamJob job) {
+        ObjectNode root;
+        Optional<DreamVisualizationOutcome> outcome = job.outcome();
+        if (outcome.isPresent()) {
+            Instant finished = job.completedAt().orElseGet(Instant::now);
+            root = mapOutcome(mapper, outcome.get(), Duration.between(job.submittedAt(), finished));
+        } else {
+            root = mapper.createObjectNode();
+            job.transcript().ifPresent(transcript -> mapTranscript(root.putObject("transcript"), transcript));
+            job.prompt().ifPresent(prompt -> mapPrompt(root.putObject("prompt"), prompt));
+            job.videoStatus().ifPresent(status -> mapVideoStatus(root.putObject("video"), status));
+        }
+        root.put("job_id", job.id());
+        root.put("stage", job.stage().wireName());
+        root.put("submitted_at", job.submittedAt().toString());
+        root.put("updated_at", job.updatedAt().toString());
+        mapResources(root, job.resources());
+        job.failure().ifPresent(failure -> {
+            root.put("error", failure instanceof OpenAIException || failure instanceof StageTimeoutException
+                            || failure instanceof AdmissionRejectedException
+                    ? "Pipeline execution failed"
+                    : "Unexpected server error");
+            root.put("details", failure.getMessage());
         });
+        return root;
+    }
+
+    static ObjectNode mapOutcome(ObjectMapper mapper,
+                                 DreamVisualizationOutcome outcome,
+                                 Duration pipelineDuration) {
+        ObjectNode root = mapper.createObjectNode();
 
-        ObjectNode promptNode = root.putObject("prompt");
-        promptNode.put("sora_prompt", outcome.engineeredPrompt().soraPrompt());
-        appendArray(promptNode.putArray("narrative_beats"), outcome.engineeredPrompt().narrativeBeats());
-        appendArray(promptNode.putArray("visual_keywords"), outcome.engineeredPrompt().visualKeywords());
-        promptNode.put("emotional_tone", outcome.engineeredPrompt().emotionalTone());
-        promptNode.put("color_palette", outcome.engineeredPrompt().colorPalette());
-        appendArray(promptNode.putArray("negative_prompts"), outcome.engineeredPrompt().negativePrompts());
-        promptNode.put("camera_style", outcome.engineeredPrompt().cameraStyle());
-        promptNode.put("motion_style", outcome.engineeredPrompt().motionStyle());
+        mapTranscript(root.putObject("transcript"), outcome.transcript());
+        mapPrompt(root.putObject("prompt"), outcome.engineeredPrompt());
 
         ObjectNode videoNode = root.putObject("video");
         videoNode.put("job_id", outcome.videoJob().jobId());
@@ -259,7 +587,49 @@ public final class DreamVisualizerServer {
         return root;
     }
 
-    private static DreamPromptResult parsePromptNode(ObjectMapper mapper, JsonNode node) {
+    /**
+     * CPU time and heap allocation spent on a request so far, across all threads; omitted when
+     * resource accounting is off.
+     */
+    static void mapResources(ObjectNode node, ResourceAccount resources) {
+        if (ResourceAccount.isEnabled()) {
+            node.put("cpu_ms", TimeUnit.NANOSECONDS.toMillis(resources.cpuNanos()));
+            node.put("allocated_bytes", resources.allocatedBytes());
+        }
+    }
+
+    static void mapTranscript(ObjectNode transcriptNode, SpeechTranscript transcript) {
+        transcriptNode.put("text", transcript.fullText());
+        transcriptNode.put("generated_at", transcript.generatedAt().toString());
+        ArrayNode segments = transcriptNode.putArray("segments");
+        transcript.utterances().forEach(segment -> {
+            ObjectNode node = segments.addObject();
+            node.put("start", segment.startSeconds());
+            node.put("end", segment.endSeconds());
+            node.put("text", segment.text());
+        });
+    }
+
+    static void mapVideoStatus(ObjectNode videoNode, DreamJob.VideoStatus status) {
+        videoNode.put("job_id", status.videoId());
+        videoNode.put("status", status.status());
+        if (status.progress() >= 0) {
+            videoNode.put("progress", status.progress());
+        }
+    }
+
+    static void mapPrompt(ObjectNode promptNode, DreamPromptResult prompt) {
+        promptNode.put("sora_prompt", prompt.soraPrompt());
+        appendArray(promptNode.putArray("narrative_beats"), prompt.narrativeBeats());
+        appendArray(promptNode.putArray("visual_keywords"), prompt.visualKeywords());
+        promptNode.put("emotional_tone", prompt.emotionalTone());
+        promptNode.put("color_palette", prompt.colorPalette());
+        appendArray(promptNode.putArray("negative_prompts"), prompt.negativePrompts());
+        promptNode.put("camera_style", prompt.cameraStyle());
+        promptNode.put("motion_style", prompt.motionStyle());
+    }
+
+    static DreamPromptResult parsePromptNode(ObjectMapper mapper, JsonNode node) {
         String soraPrompt = node.path("sora_prompt").asText("");
         List<String> narrativeBeats = readArrayOfStrings(node.path("narrative_beats"));
         List<String> visualKeywords = readArrayOfStrings(node.path("visual_keywords"));
@@ -285,31 +655,11 @@ public final class DreamVisualizerServer {
         return values;
     }
 
-    private static void serveVideoFile(String filename, Path videoDirectory, Context ctx) {
-        if (filename.contains("..")) {
-            ctx.status(400).result("Invalid filename");
-            return;
-        }
-        Path resolved = videoDirectory.resolve(filename).normalize();
-        if (!resolved.startsWith(videoDirectory)) {
-            ctx.status(400).result("Invalid filename");
-            return;
-        }
-        if (!Files.exists(resolved)) {
-            ctx.status(404).result("Video not found");
-            return;
-        }
-        try {
-            String contentType = Files.probeContentType(resolved);
-            if (contentType == null) {
-                contentType = "video/mp4";
-            }
-            ctx.contentType(contentType);
-            ctx.header("Cache-Control", "no-store");
-            ctx.result(Files.newInputStream(resolved));
-        } catch (IOException e) {
-            LOGGER.error("Failed to stream video {}", resolved, e);
-            ctx.status(500).result("Failed to stream video");
+    private static void serveVideoFile(String filename, VideoFileHandler videoFiles, Context ctx, boolean headOnly) {
+        VideoServeEvent event = VideoServeEvent.begin(filename, headOnly);
+        long sent = videoFiles.handle(filename, ctx, headOnly);
+        if (event != null) {
+            event.finish(ctx.statusCode(), sent);
         }
     }
 
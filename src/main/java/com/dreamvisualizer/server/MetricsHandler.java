@@ -0,0 +1,178 @@
+package com.dreamvisualizer.server;
+
+import com.dreamvisualizer.cache.CacheStats;
+import com.dreamvisualizer.cache.SingleFlight;
+import com.dreamvisualizer.http.OpenAIClient;
+import com.dreamvisualizer.http.UpstreamMetrics;
+import com.dreamvisualizer.metrics.PrometheusText;
+import com.dreamvisualizer.metrics.ResourceAccount;
+import com.dreamvisualizer.orchestrator.AdmissionStatus;
+import com.dreamvisualizer.orchestrator.DreamJobManager;
+import com.dreamvisualizer.orchestrator.DreamVisualizationPipeline;
+import com.dreamvisualizer.orchestrator.StageBulkhead;
+import com.dreamvisualizer.prompt.DreamPromptEngineer;
+import com.dreamvisualizer.speech.SpeechTranscriptionService;
+import com.dreamvisualizer.video.SoraVideoService;
+import io.javalin.http.Context;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serves {@code GET /metrics} in the Prometheus text format: per-stage and per-endpoint latency
+ * histograms, upstream statuses and bytes, queue occupancy, cache and coalescing counters, and
+ * per-request CPU time and allocation by request kind.
+ *
+ * <p>Everything is read from counters the components keep anyway; the histograms are recorded
+ * lock-free on the request path, and only a scrape allocates.</p>
+ */
+final class MetricsHandler {
+
+    private final OpenAIClient client;
+    private final DreamVisualizationPipeline pipeline;
+    private final DreamJobManager jobManager;
+    private final SpeechTranscriptionService transcriptionService;
+    private final DreamPromptEngineer promptEngineer;
+    private final SoraVideoService videoService;
+    private final DreamEventStream eventStream;
+    private final VideoFileHandler videoFiles;
+    private final LongAdder uploadedBytes = new LongAdder();
+    private final Map<String, RequestResources> requestResources = new ConcurrentHashMap<>();
+
+    MetricsHandler(OpenAIClient client,
+                   DreamVisualizationPipeline pipeline,
+                   DreamJobManager jobManager,
+                   SpeechTranscriptionService transcriptionService,
+                   DreamPromptEngineer promptEngineer,
+                   SoraVideoService videoService,
+                   DreamEventStream eventStream,
+                   VideoFileHandler videoFiles) {
+        this.client = client;
+        this.pipeline = pipeline;
+        this.jobManager = jobManager;
+        this.transcriptionService = transcriptionService;
+        this.promptEngineer = promptEngineer;
+        this.videoService = videoService;
+        this.eventStream = eventStream;
+        this.videoFiles = videoFiles;
+    }
+
+    /**
+     * Counts upload bytes (audio and breathe charts) received by {@code POST /dreams}.
+     */
+    void uploaded(long bytes) {
+        uploadedBytes.add(bytes);
+    }
+
+    /**
+     * Adds a finished request's totals under {@code kind}, e.g. {@code dream_breathe}.
+     */
+    void requestFinished(String kind, ResourceAccount resources) {
+        if (!ResourceAccount.isEnabled()) {
+            return;
+        }
+        RequestResources totals = requestResources.computeIfAbsent(kind, ignored -> new RequestResources());
+        totals.requests.increment();
+        totals.cpuNanos.add(resources.cpuNanos());
+        totals.allocatedBytes.add(resources.allocatedBytes());
+    }
+
+    void handle(Context ctx) {
+        ctx.contentType(PrometheusText.CONTENT_TYPE).result(render());
+    }
+
+    String render() {
+        PrometheusText out = new PrometheusText();
+
+        pipeline.stageLatencies().forEach((stage, histogram) -> out.histogram("dream_stage_duration_seconds",
+                "Time spent in each pipeline stage after admission, successful runs only for transcribe and engineer.",
+                histogram, "stage", stage));
+
+        Map<String, UpstreamMetrics.Family> families = client.upstreamMetrics().families();
+        families.forEach((endpoint, family) -> out.histogram("dream_upstream_request_duration_seconds",
+                "Latency of each upstream attempt to the end of its body, by endpoint family.",
+                family.latency(), "endpoint", endpoint));
+        families.forEach((endpoint, family) -> {
+            for (int status : family.seenStatuses()) {
+                out.counter("dream_upstream_requests_total",
+                        "Upstream attempts by endpoint family and status; status 0 is a transport failure.",
+                        family.calls(status), "endpoint", endpoint, "status", Integer.toString(status));
+            }
+        });
+        families.forEach((endpoint, family) -> out.counter("dream_upstream_sent_bytes_total",
+                "Request body bytes sent upstream.", family.bytesSent(), "endpoint", endpoint));
+        families.forEach((endpoint, family) -> out.counter("dream_upstream_received_bytes_total",
+                "Response body bytes received from upstream.", family.bytesReceived(), "endpoint", endpoint));
+
+        out.counter("dream_uploaded_bytes_total", "Audio and breathe chart bytes received on POST /dreams.",
+                uploadedBytes.sum());
+        out.counter("dream_video_served_bytes_total", "Video bytes served on GET /videos/{filename}.",
+                videoFiles.bytesServed());
+
+        List<AdmissionStatus> queues = new ArrayList<>();
+        queues.add(jobManager.status());
+        pipeline.stages().stream().map(StageBulkhead::status).forEach(queues::add);
+        queues.forEach(queue -> out.gauge("dream_queue_running",
+                "Tasks holding a slot: in-flight jobs for the jobs queue, running stages otherwise.",
+                queue.running(), "queue", queue.name()));
+        queues.forEach(queue -> out.gauge("dream_queue_max_running", "Slots per queue.",
+                queue.maxConcurrent(), "queue", queue.name()));
+        queues.forEach(queue -> out.gauge("dream_queue_depth", "Tasks waiting for a slot.",
+                queue.queued(), "queue", queue.name()));
+        queues.forEach(queue -> out.gauge("dream_queue_capacity", "Waiting tasks accepted before rejecting.",
+                queue.queueCapacity(), "queue", queue.name()));
+        queues.forEach(queue -> out.gauge("dream_queue_oldest_wait_seconds", "Wait of the oldest queued task.",
+                queue.oldestQueueWait().toMillis() / 1000.0, "queue", queue.name()));
+
+        Map<String, CacheStats> caches = new LinkedHashMap<>();
+        caches.put("transcript", transcriptionService.cacheStats());
+        caches.put("prompt", promptEngineer.cacheStats());
+        caches.forEach((cache, stats) -> {
+            out.counter("dream_cache_hits_total", "Cache hits by cache and tier.",
+                    stats.memoryHits(), "cache", cache, "tier", "memory");
+            out.counter("dream_cache_hits_total", "Cache hits by cache and tier.",
+                    stats.diskHits(), "cache", cache, "tier", "disk");
+        });
+        caches.forEach((cache, stats) -> out.counter("dream_cache_misses_total", "Cache misses.",
+                stats.misses(), "cache", cache));
+        caches.forEach((cache, stats) -> out.gauge("dream_cache_hit_ratio", "Hits over lookups since start.",
+                stats.hitRatio(), "cache", cache));
+        caches.forEach((cache, stats) -> out.gauge("dream_cache_entries", "Entries held in memory.",
+                stats.memoryEntries(), "cache", cache));
+        caches.forEach((cache, stats) -> out.gauge("dream_cache_disk_bytes", "Bytes held by the disk tier.",
+                stats.diskBytes(), "cache", cache));
+
+        Map<String, SingleFlight.Stats> coalescing = new LinkedHashMap<>();
+        coalescing.put("transcriptions", transcriptionService.coalescingStats());
+        coalescing.put("prompts", promptEngineer.coalescingStats());
+        coalescing.put("video_polls", videoService.coalescingStats());
+        coalescing.forEach((kind, stats) -> out.counter("dream_coalescing_upstream_calls_total",
+                "Requests that went upstream as the leader.", stats.leaders(), "kind", kind));
+        coalescing.forEach((kind, stats) -> out.counter("dream_coalescing_coalesced_total",
+                "Requests answered by joining an in-flight duplicate.", stats.coalesced(), "kind", kind));
+
+        Map<String, RequestResources> kinds = new TreeMap<>(requestResources);
+        kinds.forEach((kind, totals) -> out.counter("dream_requests_finished_total",
+                "Finished dream jobs and video renders by kind.", totals.requests.sum(), "kind", kind));
+        kinds.forEach((kind, totals) -> out.counter("dream_request_cpu_seconds_total",
+                "CPU time spent on finished requests, across every thread that worked on them.",
+                totals.cpuNanos.sum() / 1e9, "kind", kind));
+        kinds.forEach((kind, totals) -> out.counter("dream_request_allocated_bytes_total",
+                "Heap bytes allocated for finished requests, across every thread that worked on them.",
+                totals.allocatedBytes.sum(), "kind", kind));
+
+        out.gauge("dream_event_subscribers", "Open /dreams/{id}/events streams.", eventStream.subscriberCount());
+        return out.toString();
+    }
+
+    private static final class RequestResources {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder cpuNanos = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+    }
+}
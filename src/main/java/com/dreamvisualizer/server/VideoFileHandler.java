@@ -0,0 +1,320 @@
+package com.dreamvisualizer.server;
+
+import com.dreamvisualizer.http.OpenAIClient;
+import io.javalin.http.Context;
+import jakarta.servlet.ServletOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serves finished videos with byte-range, conditional request and long-lived caching support.
+ *
+ * <p>Generated videos are written once (atomically renamed into place) and never modified, so the
+ * size/mtime pair makes a strong validator and responses may be cached as immutable. Downloads
+ * still in progress ({@link OpenAIClient#PARTIAL_DOWNLOAD_SUFFIX} files) are never served. File
+ * regions are streamed with {@link FileChannel#transferTo} through the servlet output stream.</p>
+ */
+final class VideoFileHandler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VideoFileHandler.class);
+
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final int MAX_RANGES = 16;
+
+    private final Path videoDirectory;
+    private final LongAdder bytesServed = new LongAdder();
+
+    VideoFileHandler(Path videoDirectory) {
+        this.videoDirectory = videoDirectory.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Body bytes written to clients so far; a region cut short by an aborted stream is not counted.
+     */
+    long bytesServed() {
+        return bytesServed.sum();
+    }
+
+    /**
+     * Answers one {@code GET} or {@code HEAD} of {@code filename}.
+     *
+     * @return body bytes written, multipart framing included; {@code 0} when the stream was cut short
+     */
+    long handle(String filename, Context ctx, boolean headOnly) {
+        if (filename.endsWith(OpenAIClient.PARTIAL_DOWNLOAD_SUFFIX)) {
+            // Still being downloaded: neither complete nor immutable yet
+            ctx.status(404).result("Video not found");
+            return 0L;
+        }
+        if (filename.contains("..")) {
+            ctx.status(400).result("Invalid filename");
+            return 0L;
+        }
+        Path resolved = videoDirectory.resolve(filename).normalize();
+        if (!resolved.startsWith(videoDirectory)) {
+            ctx.status(400).result("Invalid filename");
+            return 0L;
+        }
+        if (!Files.isRegularFile(resolved)) {
+            ctx.status(404).result("Video not found");
+            return 0L;
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(resolved, BasicFileAttributes.class);
+            long length = attributes.size();
+            long lastModifiedMillis = attributes.lastModifiedTime().toMillis();
+            String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModifiedMillis) + "\"";
+            String contentType = Files.probeContentType(resolved);
+            if (contentType == null) {
+                contentType = "video/mp4";
+            }
+
+            // Binary payloads: keep Jetty from appending the default ";charset=utf-8"
+            ctx.res().setCharacterEncoding(null);
+            ctx.header("Accept-Ranges", "bytes");
+            ctx.header("ETag", etag);
+            ctx.header("Last-Modified", formatHttpDate(lastModifiedMillis));
+            ctx.header("Cache-Control", IMMUTABLE_CACHE_CONTROL);
+
+            if (isNotModified(ctx.header("If-None-Match"), ctx.header("If-Modified-Since"), etag, lastModifiedMillis)) {
+                ctx.status(304);
+                return 0L;
+            }
+
+            List<long[]> ranges = null;
+            String rangeHeader = ctx.header("Range");
+            if (rangeHeader != null && ifRangeMatches(ctx.header("If-Range"), etag, lastModifiedMillis)) {
+                ranges = parseRanges(rangeHeader, length);
+                if (ranges != null && ranges.isEmpty()) {
+                    ctx.header("Content-Range", "bytes */" + length);
+                    ctx.status(416);
+                    return 0L;
+                }
+            }
+
+            long sent = 0L;
+            if (ranges == null) {
+                ctx.status(200);
+                ctx.contentType(contentType);
+                ctx.res().setContentLengthLong(length);
+                if (!headOnly) {
+                    sent = sendRegions(resolved, List.of(new Region(null, 0, length)), ctx);
+                }
+            } else if (ranges.size() == 1) {
+                long[] range = ranges.get(0);
+                long count = range[1] - range[0] + 1;
+                ctx.status(206);
+                ctx.contentType(contentType);
+                ctx.header("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + length);
+                ctx.res().setContentLengthLong(count);
+                if (!headOnly) {
+                    sent = sendRegions(resolved, List.of(new Region(null, range[0], count)), ctx);
+                }
+            } else {
+                String boundary = UUID.randomUUID().toString().replace("-", "");
+                List<Region> regions = new ArrayList<>();
+                long total = 0;
+                for (long[] range : ranges) {
+                    byte[] partHeader = ("\r\n--" + boundary + "\r\n"
+                            + "Content-Type: " + contentType + "\r\n"
+                            + "Content-Range: bytes " + range[0] + "-" + range[1] + "/" + length + "\r\n\r\n")
+                            .getBytes(StandardCharsets.US_ASCII);
+                    long count = range[1] - range[0] + 1;
+                    regions.add(new Region(partHeader, range[0], count));
+                    total += partHeader.length + count;
+                }
+                byte[] trailer = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+                regions.add(new Region(trailer, 0, 0));
+                total += trailer.length;
+
+                ctx.status(206);
+                ctx.contentType("multipart/byteranges; boundary=" + boundary);
+                ctx.res().setContentLengthLong(total);
+                if (!headOnly) {
+                    sent = sendRegions(resolved, regions, ctx);
+                }
+            }
+            return sent;
+        } catch (IOException e) {
+            if (ctx.res().isCommitted()) {
+                LOGGER.debug("Client aborted video stream {}: {}", resolved, e.getMessage());
+                return 0L;
+            }
+            LOGGER.error("Failed to stream video {}", resolved, e);
+            ctx.status(500).result("Failed to stream video");
+            return 0L;
+        }
+    }
+
+    /**
+     * Evaluates {@code If-None-Match}, or {@code If-Modified-Since} in its absence, against the
+     * file's validators.
+     */
+    static boolean isNotModified(String ifNoneMatch, String ifModifiedSince, String etag, long lastModifiedMillis) {
+        if (ifNoneMatch != null) {
+            // If-None-Match takes precedence over If-Modified-Since (RFC 9110 §13.2.2)
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if ("*".equals(tag) || etag.equals(tag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        Instant since = parseHttpDate(ifModifiedSince);
+        return since != null && lastModifiedMillis / 1000 <= since.getEpochSecond();
+    }
+
+    /**
+     * Whether a {@code Range} request may be honoured: no {@code If-Range}, or one naming the
+     * current entity tag or exact modification time.
+     */
+    static boolean ifRangeMatches(String ifRange, String etag, long lastModifiedMillis) {
+        if (ifRange == null) {
+            return true;
+        }
+        String value = ifRange.trim();
+        if (value.startsWith("\"")) {
+            return etag.equals(value);
+        }
+        Instant date = parseHttpDate(value);
+        return date != null && lastModifiedMillis / 1000 == date.getEpochSecond();
+    }
+
+    /**
+     * Parses a {@code Range} header into sorted, coalesced inclusive ranges.
+     *
+     * @return {@code null} when the header is malformed or not worth honouring (the full entity is
+     *         served), an empty list when no range is satisfiable
+     */
+    static List<long[]> parseRanges(String header, long length) {
+        String value = header.trim();
+        if (!value.regionMatches(true, 0, "bytes=", 0, 6)) {
+            return null;
+        }
+        String[] specs = value.substring(6).split(",");
+        if (specs.length > MAX_RANGES) {
+            return null;
+        }
+        List<long[]> ranges = new ArrayList<>();
+        for (String rawSpec : specs) {
+            String spec = rawSpec.trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            try {
+                long start;
+                long end;
+                if (dash == 0) {
+                    long suffix = Long.parseLong(spec.substring(1));
+                    if (suffix <= 0) {
+                        continue;
+                    }
+                    start = Math.max(0, length - suffix);
+                    end = length - 1;
+                } else {
+                    start = Long.parseLong(spec.substring(0, dash));
+                    end = dash == spec.length() - 1 ? Long.MAX_VALUE : Long.parseLong(spec.substring(dash + 1));
+                    if (end < start) {
+                        return null;
+                    }
+                    end = Math.min(end, length - 1);
+                }
+                if (start < length) {
+                    ranges.add(new long[]{start, end});
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        ranges.sort(Comparator.comparingLong(range -> range[0]));
+        List<long[]> merged = new ArrayList<>();
+        for (long[] range : ranges) {
+            long[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && range[0] <= last[1] + 1) {
+                last[1] = Math.max(last[1], range[1]);
+            } else {
+                merged.add(range);
+            }
+        }
+        return merged;
+    }
+
+    private long sendRegions(Path file, List<Region> regions, Context ctx) throws IOException {
+        ServletOutputStream out = ctx.res().getOutputStream();
+        long sent = 0L;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (Region region : regions) {
+                if (region.prefix() != null) {
+                    out.write(region.prefix());
+                    bytesServed.add(region.prefix().length);
+                    sent += region.prefix().length;
+                }
+                if (region.count() > 0) {
+                    transfer(channel, region.position(), region.count(), out);
+                    bytesServed.add(region.count());
+                    sent += region.count();
+                }
+            }
+        }
+        out.flush();
+        return sent;
+    }
+
+    private static void transfer(FileChannel channel, long position, long count, ServletOutputStream out) throws IOException {
+        WritableByteChannel target = Channels.newChannel(out);
+        long offset = position;
+        long remaining = count;
+        while (remaining > 0) {
+            long sent = channel.transferTo(offset, remaining, target);
+            if (sent <= 0) {
+                throw new IOException("Video file truncated while streaming");
+            }
+            offset += sent;
+            remaining -= sent;
+        }
+    }
+
+    private static String formatHttpDate(long epochMillis) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                ZonedDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC));
+    }
+
+    private static Instant parseHttpDate(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private record Region(byte[] prefix, long position, long count) {
+    }
+}
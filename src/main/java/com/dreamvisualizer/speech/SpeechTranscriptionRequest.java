@@ -11,11 +11,15 @@ public class SpeechTranscriptionRequest {
     private final Path audioPath;
     private final String language;
     private final Double temperature;
+    private final Boolean chunked;
+    private final String audioSha256;
 
     private SpeechTranscriptionRequest(Builder builder) {
         this.audioPath = builder.audioPath;
         this.language = builder.language;
         this.temperature = builder.temperature;
+        this.chunked = builder.chunked;
+        this.audioSha256 = builder.audioSha256;
     }
 
     public Path audioPath() {
@@ -30,6 +34,31 @@ public class SpeechTranscriptionRequest {
         return Optional.ofNullable(temperature);
     }
 
+    /**
+     * Explicit chunking choice; empty lets the service decide from the recording's length.
+     */
+    public Optional<Boolean> chunked() {
+        return Optional.ofNullable(chunked);
+    }
+
+    /**
+     * Hex SHA-256 of the audio file when the caller already computed it.
+     */
+    public Optional<String> audioSha256() {
+        return Optional.ofNullable(audioSha256);
+    }
+
+    /**
+     * Copy of this request pointing at one chunk of the original recording.
+     */
+    SpeechTranscriptionRequest forChunk(Path chunkPath) {
+        Builder builder = new Builder(chunkPath);
+        builder.language = language;
+        builder.temperature = temperature;
+        builder.chunked = Boolean.FALSE;
+        return builder.build();
+    }
+
     public static Builder builder(Path audioPath) {
         return new Builder(audioPath);
     }
@@ -38,6 +67,8 @@ public class SpeechTranscriptionRequest {
         private final Path audioPath;
         private String language;
         private Double temperature;
+        private Boolean chunked;
+        private String audioSha256;
 
         private Builder(Path audioPath) {
             this.audioPath = audioPath;
@@ -53,6 +84,22 @@ public class SpeechTranscriptionRequest {
             return this;
         }
 
+        /**
+         * Forces chunked transcription on or off for WAV input regardless of its length.
+         */
+        public Builder chunked(Boolean chunked) {
+            this.chunked = chunked;
+            return this;
+        }
+
+        /**
+         * Supplies the hex SHA-256 of the audio so the transcript cache need not re-read the file.
+         */
+        public Builder audioSha256(String audioSha256) {
+            this.audioSha256 = audioSha256;
+            return this;
+        }
+
         public SpeechTranscriptionRequest build() {
             return new SpeechTranscriptionRequest(this);
         }
@@ -1,33 +1,254 @@
 package com.dreamvisualizer.speech;
 
+import com.dreamvisualizer.cache.CacheStats;
+import com.dreamvisualizer.cache.SingleFlight;
 import com.dreamvisualizer.config.OpenAIConfig;
 import com.dreamvisualizer.http.OpenAIClient;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.dreamvisualizer.metrics.ResourceAccount;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import okhttp3.MediaType;
 import okhttp3.MultipartBody;
 import okhttp3.RequestBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Layer 1: Converts spoken narration into text suitable for further prompt engineering.
  */
 public class SpeechTranscriptionService {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpeechTranscriptionService.class);
+
+    private static final AtomicInteger CHUNK_IO_THREADS = new AtomicInteger();
+    /** Cuts chunk files for callers that do not supply an executor; threads exist only while in use. */
+    private static final Executor CHUNK_IO = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "speech-chunk-io-" + CHUNK_IO_THREADS.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final OpenAIConfig config;
     private final OpenAIClient client;
+    private final TranscriptionChunker chunker;
+    private final TranscriptCache cache;
+    private final SingleFlight<String, SpeechTranscript> flights = new SingleFlight<>();
 
     public SpeechTranscriptionService(OpenAIConfig config, OpenAIClient client) {
+        this(config, client, TranscriptionChunker.fromEnvironment(), TranscriptCache.fromEnvironment());
+    }
+
+    public SpeechTranscriptionService(OpenAIConfig config, OpenAIClient client, TranscriptionChunker chunker,
+                                      TranscriptCache cache) {
         this.config = Objects.requireNonNull(config, "config must not be null");
         this.client = Objects.requireNonNull(client, "client must not be null");
+        this.chunker = Objects.requireNonNull(chunker, "chunker must not be null");
+        this.cache = Objects.requireNonNull(cache, "cache must not be null");
     }
 
+    /**
+     * Transcribes the recording, answering from the transcript cache when the same audio was
+     * already transcribed with the same settings. Long WAV files are split at pauses and
+     * transcribed as parallel chunks; everything else is uploaded in a single request. Concurrent
+     * requests for the same audio and settings share one upload.
+     */
     public SpeechTranscript transcribe(SpeechTranscriptionRequest request) {
+        Objects.requireNonNull(request, "request must not be null");
+        String key = requestKey(request);
+        Optional<SpeechTranscript> cached = lookup(key, request);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        return flights.call(key, () -> {
+            SpeechTranscript transcript;
+            Optional<WavAudio> audio = chunker.chunkable(request);
+            if (audio.isPresent()) {
+                try {
+                    transcript = transcribeChunkedAsync(request, audio.get(), CHUNK_IO).join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof RuntimeException runtime) {
+                        throw runtime;
+                    }
+                    throw e;
+                }
+            } else {
+                transcript = client.postMultipart("audio/transcriptions", buildMultipart(request),
+                        SpeechTranscriptionService::readTranscript);
+            }
+            return store(key, transcript);
+        });
+    }
+
+    /**
+     * Non-blocking variant of {@link #transcribe(SpeechTranscriptionRequest)}.
+     */
+    public CompletableFuture<SpeechTranscript> transcribeAsync(SpeechTranscriptionRequest request) {
+        return transcribeAsync(request, CHUNK_IO);
+    }
+
+    /**
+     * Like {@link #transcribeAsync(SpeechTranscriptionRequest)}, cutting the chunk files of a long
+     * recording on {@code ioExecutor} rather than on the HTTP client threads that complete earlier
+     * chunks.
+     */
+    public CompletableFuture<SpeechTranscript> transcribeAsync(SpeechTranscriptionRequest request, Executor ioExecutor) {
+        String key;
+        try {
+            Objects.requireNonNull(request, "request must not be null");
+            Objects.requireNonNull(ioExecutor, "ioExecutor must not be null");
+            key = requestKey(request);
+            Optional<SpeechTranscript> cached = lookup(key, request);
+            if (cached.isPresent()) {
+                return CompletableFuture.completedFuture(cached.get());
+            }
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return flights.submit(key, () -> {
+            Optional<WavAudio> audio = chunker.chunkable(request);
+            CompletableFuture<SpeechTranscript> transcript = audio.isPresent()
+                    ? transcribeChunkedAsync(request, audio.get(), ioExecutor)
+                    : transcribeSingleAsync(request);
+            return transcript.thenApply(result -> store(key, result));
+        });
+    }
+
+    public CacheStats cacheStats() {
+        return cache.stats();
+    }
+
+    public SingleFlight.Stats coalescingStats() {
+        return flights.stats();
+    }
+
+    /**
+     * Identifies the transcription by audio content and settings; keys both the transcript cache
+     * and the coalescing of concurrent duplicates.
+     */
+    private String requestKey(SpeechTranscriptionRequest request) {
+        return TranscriptCache.keyFor(request, config.getSpeechModel());
+    }
+
+    private Optional<SpeechTranscript> lookup(String key, SpeechTranscriptionRequest request) {
+        Optional<SpeechTranscript> cached = cache.isEnabled() ? cache.lookup(key) : Optional.empty();
+        cached.ifPresent(transcript -> LOGGER.info("Transcript cache hit for {}", request.audioPath().getFileName()));
+        return cached;
+    }
+
+    private SpeechTranscript store(String key, SpeechTranscript transcript) {
+        if (cache.isEnabled()) {
+            cache.store(key, transcript);
+        }
+        return transcript;
+    }
+
+    private CompletableFuture<SpeechTranscript> transcribeSingleAsync(SpeechTranscriptionRequest request) {
+        MultipartBody body;
+        try {
+            body = buildMultipart(request);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return client.postMultipartAsync("audio/transcriptions", body, SpeechTranscriptionService::readTranscript);
+    }
+
+    /**
+     * Transcribes the chunks of {@code audio} with at most {@code chunker.concurrency()} uploads in
+     * flight, then stitches them in order. Each chunk file is written on {@code ioExecutor} just
+     * before its upload. The first failed chunk fails the whole transcript.
+     */
+    private CompletableFuture<SpeechTranscript> transcribeChunkedAsync(SpeechTranscriptionRequest request,
+                                                                      WavAudio audio, Executor ioExecutor) {
+        List<TranscriptionChunker.Chunk> chunks;
+        Path workDir;
+        try {
+            chunks = chunker.plan(audio);
+            workDir = Files.createTempDirectory("dream-transcribe-");
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(
+                    new UncheckedIOException("Failed to split audio " + request.audioPath(), e));
+        }
+        LOGGER.info("Transcribing {} ({} s) as {} chunks, {} at a time",
+                request.audioPath().getFileName(), Math.round(audio.durationSeconds()), chunks.size(),
+                chunker.concurrency());
+
+        SpeechTranscript[] transcripts = new SpeechTranscript[chunks.size()];
+        AtomicInteger nextChunk = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(chunks.size());
+        CompletableFuture<SpeechTranscript> result = new CompletableFuture<>();
+
+        Runnable launchNext = new Runnable() {
+            @Override
+            public void run() {
+                int index = nextChunk.getAndIncrement();
+                if (index >= chunks.size() || result.isDone()) {
+                    return;
+                }
+                TranscriptionChunker.Chunk chunk = chunks.get(index);
+                Path chunkPath = workDir.resolve("chunk-" + index + ".wav");
+                CompletableFuture<SpeechTranscript> transcript = CompletableFuture.supplyAsync(ResourceAccount.bind(() -> {
+                    try {
+                        audio.writeSegment(chunk.startFrame(), chunk.endFrame(), chunkPath);
+                        return chunkPath;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Failed to write audio chunk " + index, e);
+                    }
+                }), ioExecutor).thenCompose(path -> transcribeSingleAsync(request.forChunk(path)));
+                transcript.whenComplete((value, failure) -> {
+                    deleteQuietly(chunkPath);
+                    if (result.isDone()) {
+                        deleteQuietly(workDir);
+                    }
+                    if (failure != null) {
+                        result.completeExceptionally(failure instanceof CompletionException && failure.getCause() != null
+                                ? failure.getCause() : failure);
+                        return;
+                    }
+                    transcripts[index] = value;
+                    if (remaining.decrementAndGet() == 0) {
+                        try {
+                            result.complete(TranscriptStitcher.stitch(chunks, Arrays.asList(transcripts)));
+                        } catch (RuntimeException e) {
+                            result.completeExceptionally(e);
+                        }
+                    } else {
+                        run();
+                    }
+                });
+            }
+        };
+        for (int i = 0; i < Math.min(chunker.concurrency(), chunks.size()); i++) {
+            launchNext.run();
+        }
+        // Chunks still in flight after a failure remove the directory once they have finished
+        return result.whenComplete((value, failure) -> deleteQuietly(workDir));
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // Best effort; a non-empty work directory is cleaned by the OS temp reaper
+        }
+    }
+
+    private MultipartBody buildMultipart(SpeechTranscriptionRequest request) {
         Objects.requireNonNull(request, "request must not be null");
         Path audioPath = request.audioPath();
         if (!Files.isReadable(audioPath)) {
@@ -46,31 +267,62 @@ public class SpeechTranscriptionService {
 
         request.language().ifPresent(language -> builder.addFormDataPart("language", language));
         request.temperature().ifPresent(temp -> builder.addFormDataPart("temperature", Double.toString(temp)));
-
-        JsonNode response = client.postMultipart("audio/transcriptions", builder.build());
-        String text = response.path("text").asText("");
-        List<SpeechTranscript.Utterance> utterances = parseUtterances(response);
-        Instant generatedAt = parseCreated(response);
-
-        return new SpeechTranscript(text, utterances, generatedAt);
+        return builder.build();
     }
 
-    private List<SpeechTranscript.Utterance> parseUtterances(JsonNode response) {
+    /**
+     * Streams the transcription body straight into a {@link SpeechTranscript}, keeping only the
+     * text, the segment boundaries and the creation time; token ids, log-probabilities and other
+     * per-segment diagnostics are skipped without being materialised.
+     */
+    private static SpeechTranscript readTranscript(JsonParser parser) throws IOException {
+        String text = "";
         List<SpeechTranscript.Utterance> utterances = new ArrayList<>();
-        JsonNode segmentsNode = response.path("segments");
-        if (segmentsNode.isArray()) {
-            for (JsonNode segment : segmentsNode) {
-                double start = segment.path("start").asDouble(0.0);
-                double end = segment.path("end").asDouble(0.0);
-                String text = segment.path("text").asText("");
-                utterances.add(new SpeechTranscript.Utterance(start, end, text));
+        long created = Instant.now().getEpochSecond();
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return new SpeechTranscript(text, utterances, Instant.ofEpochSecond(created));
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "text" -> text = value.isScalarValue() ? parser.getValueAsString("") : skip(parser, "");
+                case "created" -> created = value.isScalarValue() ? parser.getValueAsLong(created) : skip(parser, created);
+                case "segments" -> {
+                    if (value == JsonToken.START_ARRAY) {
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            utterances.add(readUtterance(parser));
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        return new SpeechTranscript(text, utterances, Instant.ofEpochSecond(created));
+    }
+
+    private static SpeechTranscript.Utterance readUtterance(JsonParser parser) throws IOException {
+        double start = 0.0;
+        double end = 0.0;
+        String text = "";
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "start" -> start = value.isScalarValue() ? parser.getValueAsDouble(0.0) : skip(parser, 0.0);
+                case "end" -> end = value.isScalarValue() ? parser.getValueAsDouble(0.0) : skip(parser, 0.0);
+                case "text" -> text = value.isScalarValue() ? parser.getValueAsString("") : skip(parser, "");
+                default -> parser.skipChildren();
             }
         }
-        return utterances;
+        return new SpeechTranscript.Utterance(start, end, text);
     }
 
-    private Instant parseCreated(JsonNode response) {
-        long created = response.path("created").asLong(Instant.now().getEpochSecond());
-        return Instant.ofEpochSecond(created);
+    private static <T> T skip(JsonParser parser, T fallback) throws IOException {
+        parser.skipChildren();
+        return fallback;
     }
 }
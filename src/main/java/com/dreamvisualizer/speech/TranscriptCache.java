@@ -0,0 +1,126 @@
+package com.dreamvisualizer.speech;
+
+import com.dreamvisualizer.cache.CacheStats;
+import com.dreamvisualizer.cache.ContentHash;
+import com.dreamvisualizer.cache.TieredCache;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Content-addressed store of finished transcripts. A recording transcribed once with a given
+ * model, language and temperature is never sent to {@code audio/transcriptions} again.
+ */
+public final class TranscriptCache {
+
+    private static final TieredCache.Codec<SpeechTranscript> CODEC = new TieredCache.Codec<>() {
+        @Override
+        public JsonNode encode(SpeechTranscript transcript, ObjectMapper mapper) {
+            ObjectNode node = mapper.createObjectNode();
+            node.put("text", transcript.fullText());
+            node.put("generated_at", transcript.generatedAt().toEpochMilli());
+            ArrayNode utterances = node.putArray("utterances");
+            for (SpeechTranscript.Utterance utterance : transcript.utterances()) {
+                utterances.addObject()
+                        .put("start", utterance.startSeconds())
+                        .put("end", utterance.endSeconds())
+                        .put("text", utterance.text());
+            }
+            return node;
+        }
+
+        @Override
+        public SpeechTranscript decode(JsonNode node) {
+            List<SpeechTranscript.Utterance> utterances = new ArrayList<>();
+            for (JsonNode utterance : node.path("utterances")) {
+                utterances.add(new SpeechTranscript.Utterance(
+                        utterance.path("start").asDouble(),
+                        utterance.path("end").asDouble(),
+                        utterance.path("text").asText("")));
+            }
+            return new SpeechTranscript(node.path("text").asText(""), List.copyOf(utterances),
+                    Instant.ofEpochMilli(node.path("generated_at").asLong()));
+        }
+    };
+
+    private final TieredCache<SpeechTranscript> cache;
+
+    private TranscriptCache(TieredCache<SpeechTranscript> cache) {
+        this.cache = cache;
+    }
+
+    public static TranscriptCache create(int maxEntries, Path directory, long maxDiskBytes) {
+        return new TranscriptCache(TieredCache.builder("transcript", CODEC)
+                .maxEntries(maxEntries)
+                .directory(directory)
+                .maxDiskBytes(maxDiskBytes)
+                .build());
+    }
+
+    /**
+     * Reads {@code TRANSCRIPT_CACHE_ENTRIES} (default 256, {@code 0} disables caching),
+     * {@code TRANSCRIPT_CACHE_DIR} (default {@code cache/transcripts}, blank for memory only) and
+     * {@code TRANSCRIPT_CACHE_DISK_MB} (default 512).
+     */
+    public static TranscriptCache fromEnvironment() {
+        int maxEntries = Integer.parseInt(
+                Optional.ofNullable(System.getenv("TRANSCRIPT_CACHE_ENTRIES")).orElse("256"));
+        if (maxEntries <= 0) {
+            return disabled();
+        }
+        String directory = Optional.ofNullable(System.getenv("TRANSCRIPT_CACHE_DIR")).orElse("cache/transcripts");
+        long maxDiskBytes = Long.parseLong(
+                Optional.ofNullable(System.getenv("TRANSCRIPT_CACHE_DISK_MB")).orElse("512")) * 1024 * 1024;
+        return create(maxEntries, directory.isBlank() ? null : Path.of(directory), maxDiskBytes);
+    }
+
+    public static TranscriptCache disabled() {
+        return new TranscriptCache(null);
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    public CacheStats stats() {
+        return cache == null ? new CacheStats(0, 0, 0, 0, 0, 0, 0L) : cache.stats();
+    }
+
+    Optional<SpeechTranscript> lookup(String key) {
+        return cache == null ? Optional.empty() : cache.get(key);
+    }
+
+    void store(String key, SpeechTranscript transcript) {
+        if (cache != null) {
+            cache.put(key, transcript);
+        }
+    }
+
+    /**
+     * Key covering everything that changes the transcript. Uses the upload's precomputed hash when
+     * available and only reads the file again when it is not.
+     */
+    static String keyFor(SpeechTranscriptionRequest request, String speechModel) {
+        String audioHash = request.audioSha256().orElseGet(() -> {
+            try {
+                return ContentHash.sha256Hex(request.audioPath());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to hash audio " + request.audioPath(), e);
+            }
+        });
+        return ContentHash.sha256Hex(
+                audioHash,
+                speechModel,
+                request.language().orElse(""),
+                request.temperature().map(String::valueOf).orElse(""));
+    }
+}
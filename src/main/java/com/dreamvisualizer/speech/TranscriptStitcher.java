@@ -0,0 +1,103 @@
+package com.dreamvisualizer.speech;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reassembles per-chunk transcripts into one {@link SpeechTranscript}: utterance timestamps are
+ * shifted onto the recording's timeline and text transcribed twice in the overlap is dropped.
+ */
+final class TranscriptStitcher {
+
+    private static final int MAX_OVERLAP_WORDS = 40;
+    private static final int MAX_LEADING_SKIP = 2;
+
+    private TranscriptStitcher() {
+    }
+
+    static SpeechTranscript stitch(List<TranscriptionChunker.Chunk> chunks, List<SpeechTranscript> transcripts) {
+        if (chunks.size() != transcripts.size()) {
+            throw new IllegalArgumentException("Expected one transcript per chunk");
+        }
+        List<String> words = new ArrayList<>();
+        List<SpeechTranscript.Utterance> utterances = new ArrayList<>();
+        Instant generatedAt = null;
+
+        for (int i = 0; i < chunks.size(); i++) {
+            TranscriptionChunker.Chunk chunk = chunks.get(i);
+            SpeechTranscript transcript = transcripts.get(i);
+            List<String> chunkWords = tokenize(transcript.fullText());
+            int duplicated = i == 0 ? 0 : overlappingPrefix(words, chunkWords);
+            List<String> fresh = chunkWords.subList(duplicated, chunkWords.size());
+            words.addAll(fresh);
+
+            if (transcript.utterances().isEmpty()) {
+                if (!fresh.isEmpty()) {
+                    utterances.add(new SpeechTranscript.Utterance(
+                            chunk.ownedStartSeconds(), chunk.endSeconds(), String.join(" ", fresh)));
+                }
+            } else {
+                for (SpeechTranscript.Utterance utterance : transcript.utterances()) {
+                    double start = utterance.startSeconds() + chunk.startSeconds();
+                    double end = utterance.endSeconds() + chunk.startSeconds();
+                    // Segments centred in the shared lead-in belong to the previous chunk
+                    if (i > 0 && (start + end) / 2 < chunk.ownedStartSeconds()) {
+                        continue;
+                    }
+                    utterances.add(new SpeechTranscript.Utterance(start, end, utterance.text()));
+                }
+            }
+
+            if (transcript.generatedAt() != null
+                    && (generatedAt == null || transcript.generatedAt().isAfter(generatedAt))) {
+                generatedAt = transcript.generatedAt();
+            }
+        }
+        return new SpeechTranscript(String.join(" ", words), utterances,
+                generatedAt == null ? Instant.now() : generatedAt);
+    }
+
+    /**
+     * Number of leading words of {@code next} that repeat the tail of {@code previous}. Up to two
+     * leading words may be skipped because a chunk that starts mid-word often yields a fragment.
+     */
+    static int overlappingPrefix(List<String> previous, List<String> next) {
+        List<String> tail = normalise(previous.subList(Math.max(0, previous.size() - MAX_OVERLAP_WORDS), previous.size()));
+        List<String> head = normalise(next.subList(0, Math.min(next.size(), MAX_OVERLAP_WORDS + MAX_LEADING_SKIP)));
+
+        int bestLength = 0;
+        int bestSkip = 0;
+        for (int skip = 0; skip <= MAX_LEADING_SKIP && skip < head.size(); skip++) {
+            int limit = Math.min(tail.size(), head.size() - skip);
+            for (int length = limit; length > bestLength; length--) {
+                if (tail.subList(tail.size() - length, tail.size()).equals(head.subList(skip, skip + length))) {
+                    bestLength = length;
+                    bestSkip = skip;
+                    break;
+                }
+            }
+        }
+        if (bestLength >= 2 || (bestLength == 1 && bestSkip == 0 && head.get(0).length() >= 5)) {
+            return bestSkip + bestLength;
+        }
+        return 0;
+    }
+
+    private static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return Arrays.asList(text.trim().split("\\s+"));
+    }
+
+    private static List<String> normalise(List<String> words) {
+        List<String> normalised = new ArrayList<>(words.size());
+        for (String word : words) {
+            normalised.add(word.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}']", ""));
+        }
+        return normalised;
+    }
+}
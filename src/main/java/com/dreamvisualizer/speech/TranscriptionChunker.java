@@ -0,0 +1,146 @@
+package com.dreamvisualizer.speech;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Plans how a long WAV recording is cut into overlapping chunks. Cuts land in the quietest short
+ * window near each chunk boundary so that words are rarely split, and every chunk after the first
+ * starts a little before its cut so the stitcher can reconcile the shared audio.
+ */
+public final class TranscriptionChunker {
+
+    private static final Duration ENERGY_WINDOW = Duration.ofMillis(40);
+
+    private final Duration threshold;
+    private final Duration chunkLength;
+    private final Duration overlap;
+    private final Duration searchWindow;
+    private final int concurrency;
+
+    public TranscriptionChunker(Duration threshold, Duration chunkLength, Duration overlap,
+                                Duration searchWindow, int concurrency) {
+        this.threshold = Objects.requireNonNull(threshold, "threshold must not be null");
+        this.chunkLength = Objects.requireNonNull(chunkLength, "chunkLength must not be null");
+        this.overlap = Objects.requireNonNull(overlap, "overlap must not be null");
+        this.searchWindow = Objects.requireNonNull(searchWindow, "searchWindow must not be null");
+        if (chunkLength.compareTo(Duration.ofSeconds(5)) < 0) {
+            throw new IllegalArgumentException("chunkLength must be at least 5 seconds");
+        }
+        if (overlap.isNegative() || overlap.compareTo(chunkLength.dividedBy(4)) > 0) {
+            throw new IllegalArgumentException("overlap must be between zero and a quarter of chunkLength");
+        }
+        if (searchWindow.isNegative() || searchWindow.compareTo(chunkLength.dividedBy(2)) > 0) {
+            throw new IllegalArgumentException("searchWindow must be between zero and half of chunkLength");
+        }
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency must be positive");
+        }
+        this.concurrency = concurrency;
+    }
+
+    public static TranscriptionChunker fromEnvironment() {
+        Duration threshold = Duration.ofSeconds(Long.parseLong(
+                Optional.ofNullable(System.getenv("SPEECH_CHUNK_THRESHOLD_SECONDS")).orElse("180")));
+        Duration chunkLength = Duration.ofSeconds(Long.parseLong(
+                Optional.ofNullable(System.getenv("SPEECH_CHUNK_SECONDS")).orElse("90")));
+        Duration overlap = Duration.ofMillis(Long.parseLong(
+                Optional.ofNullable(System.getenv("SPEECH_CHUNK_OVERLAP_MS")).orElse("1500")));
+        Duration searchWindow = Duration.ofSeconds(Long.parseLong(
+                Optional.ofNullable(System.getenv("SPEECH_CHUNK_SEARCH_SECONDS")).orElse("10")));
+        int concurrency = Integer.parseInt(
+                Optional.ofNullable(System.getenv("SPEECH_CHUNK_CONCURRENCY")).orElse("4"));
+        return new TranscriptionChunker(threshold, chunkLength, overlap, searchWindow, concurrency);
+    }
+
+    public int concurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Returns the parsed WAV when the recording should be transcribed in chunks.
+     */
+    Optional<WavAudio> chunkable(SpeechTranscriptionRequest request) {
+        if (!request.chunked().orElse(true)) {
+            return Optional.empty();
+        }
+        Optional<WavAudio> audio = WavAudio.probe(request.audioPath());
+        boolean forced = request.chunked().orElse(false);
+        double minimum = forced ? chunkLength.toMillis() / 1000.0 : threshold.toMillis() / 1000.0;
+        return audio.filter(wav -> wav.durationSeconds() > minimum);
+    }
+
+    /**
+     * Splits {@code audio} into chunks of at most {@code chunkLength} (plus overlap), cutting at the
+     * quietest window within {@code searchWindow} before each nominal boundary.
+     */
+    List<Chunk> plan(WavAudio audio) throws IOException {
+        long totalFrames = audio.frameCount();
+        long chunkFrames = framesFor(audio, chunkLength);
+        long overlapFrames = framesFor(audio, overlap);
+        long searchFrames = framesFor(audio, searchWindow);
+        int windowFrames = (int) Math.max(1, framesFor(audio, ENERGY_WINDOW));
+
+        List<Long> cuts = new ArrayList<>();
+        cuts.add(0L);
+        try (FileChannel channel = FileChannel.open(audio.path(), StandardOpenOption.READ)) {
+            long position = 0;
+            while (totalFrames - position > chunkFrames) {
+                long target = position + chunkFrames;
+                long from = Math.max(position + chunkFrames / 2, target - searchFrames);
+                long cut = quietestPoint(audio, channel, from, target, windowFrames);
+                cuts.add(cut);
+                position = cut;
+            }
+        }
+        cuts.add(totalFrames);
+
+        List<Chunk> chunks = new ArrayList<>(cuts.size() - 1);
+        for (int i = 0; i + 1 < cuts.size(); i++) {
+            long ownedStart = cuts.get(i);
+            long start = Math.max(0, ownedStart - overlapFrames);
+            long end = cuts.get(i + 1);
+            chunks.add(new Chunk(i, audio.framesToSeconds(start), audio.framesToSeconds(ownedStart),
+                    audio.framesToSeconds(end), start, end));
+        }
+        return chunks;
+    }
+
+    private long quietestPoint(WavAudio audio, FileChannel channel, long from, long to, int windowFrames)
+            throws IOException {
+        double[] energies = audio.windowEnergies(channel, from, to, windowFrames);
+        if (energies.length == 0) {
+            return to;
+        }
+        int quietest = energies.length - 1;
+        for (int i = energies.length - 1; i >= 0; i--) {
+            // Prefer the latest of equally quiet windows so chunks stay close to their nominal size
+            if (energies[i] < energies[quietest]) {
+                quietest = i;
+            }
+        }
+        return from + (long) quietest * windowFrames + windowFrames / 2;
+    }
+
+    private static long framesFor(WavAudio audio, Duration duration) {
+        return duration.toMillis() * audio.sampleRate() / 1000;
+    }
+
+    /**
+     * One slice of the recording. Audio in {@code [startSeconds, ownedStartSeconds)} is shared with
+     * the previous chunk; the chunk is authoritative for {@code [ownedStartSeconds, endSeconds)}.
+     */
+    record Chunk(int index,
+                 double startSeconds,
+                 double ownedStartSeconds,
+                 double endSeconds,
+                 long startFrame,
+                 long endFrame) {
+    }
+}
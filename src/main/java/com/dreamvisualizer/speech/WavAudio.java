@@ -0,0 +1,224 @@
+package com.dreamvisualizer.speech;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Header-level view of an uncompressed PCM (or IEEE float) WAV file: enough to locate frames on
+ * disk and decode sample amplitudes without loading the recording into memory.
+ */
+final class WavAudio {
+
+    private static final int FORMAT_PCM = 1;
+    private static final int FORMAT_IEEE_FLOAT = 3;
+    private static final int FORMAT_EXTENSIBLE = 0xFFFE;
+    private static final int MAX_HEADER_SCAN_BYTES = 1 << 20;
+
+    private final Path path;
+    private final int formatTag;
+    private final int channels;
+    private final int sampleRate;
+    private final int bitsPerSample;
+    private final int blockAlign;
+    private final long dataOffset;
+    private final long dataLength;
+
+    private WavAudio(Path path, int formatTag, int channels, int sampleRate, int bitsPerSample,
+                     int blockAlign, long dataOffset, long dataLength) {
+        this.path = path;
+        this.formatTag = formatTag;
+        this.channels = channels;
+        this.sampleRate = sampleRate;
+        this.bitsPerSample = bitsPerSample;
+        this.blockAlign = blockAlign;
+        this.dataOffset = dataOffset;
+        this.dataLength = dataLength;
+    }
+
+    /**
+     * Parses the RIFF header of {@code path}; returns empty when the file is not a WAV container
+     * holding 8/16/24/32-bit PCM or 32-bit float samples.
+     */
+    static Optional<WavAudio> probe(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.read(header, 0) < 12) {
+                return Optional.empty();
+            }
+            header.flip();
+            if (header.getInt(0) != 0x46464952 || header.getInt(8) != 0x45564157) { // "RIFF" ... "WAVE"
+                return Optional.empty();
+            }
+
+            int formatTag = -1;
+            int channels = 0;
+            int sampleRate = 0;
+            int bitsPerSample = 0;
+            int blockAlign = 0;
+            long position = 12;
+            ByteBuffer chunkHeader = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            while (position + 8 <= fileSize && position < MAX_HEADER_SCAN_BYTES) {
+                chunkHeader.clear();
+                channel.read(chunkHeader, position);
+                int chunkId = chunkHeader.getInt(0);
+                long chunkSize = Integer.toUnsignedLong(chunkHeader.getInt(4));
+                long body = position + 8;
+                if (chunkId == 0x20746d66) { // "fmt "
+                    ByteBuffer fmt = ByteBuffer.allocate((int) Math.min(chunkSize, 40)).order(ByteOrder.LITTLE_ENDIAN);
+                    channel.read(fmt, body);
+                    if (fmt.position() < 16) {
+                        return Optional.empty();
+                    }
+                    formatTag = Short.toUnsignedInt(fmt.getShort(0));
+                    channels = Short.toUnsignedInt(fmt.getShort(2));
+                    sampleRate = fmt.getInt(4);
+                    blockAlign = Short.toUnsignedInt(fmt.getShort(12));
+                    bitsPerSample = Short.toUnsignedInt(fmt.getShort(14));
+                    if (formatTag == FORMAT_EXTENSIBLE && fmt.position() >= 26) {
+                        // The first two bytes of the SubFormat GUID carry the real format tag
+                        formatTag = Short.toUnsignedInt(fmt.getShort(24));
+                    }
+                } else if (chunkId == 0x61746164) { // "data"
+                    if (formatTag != FORMAT_PCM && formatTag != FORMAT_IEEE_FLOAT) {
+                        return Optional.empty();
+                    }
+                    if (channels <= 0 || sampleRate <= 0 || blockAlign != channels * (bitsPerSample / 8)) {
+                        return Optional.empty();
+                    }
+                    if (formatTag == FORMAT_IEEE_FLOAT ? bitsPerSample != 32
+                            : bitsPerSample != 8 && bitsPerSample != 16 && bitsPerSample != 24 && bitsPerSample != 32) {
+                        return Optional.empty();
+                    }
+                    // Streaming writers leave the size as 0 or 0xFFFFFFFF; trust the file length then
+                    long available = fileSize - body;
+                    long dataLength = chunkSize == 0 || chunkSize > available ? available : chunkSize;
+                    dataLength -= dataLength % blockAlign;
+                    return Optional.of(new WavAudio(path, formatTag, channels, sampleRate, bitsPerSample,
+                            blockAlign, body, dataLength));
+                }
+                position = body + chunkSize + (chunkSize & 1);
+            }
+            return Optional.empty();
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    int sampleRate() {
+        return sampleRate;
+    }
+
+    int blockAlign() {
+        return blockAlign;
+    }
+
+    long dataOffset() {
+        return dataOffset;
+    }
+
+    long frameCount() {
+        return dataLength / blockAlign;
+    }
+
+    double durationSeconds() {
+        return (double) frameCount() / sampleRate;
+    }
+
+    double framesToSeconds(long frames) {
+        return (double) frames / sampleRate;
+    }
+
+    /**
+     * Reads frames {@code [fromFrame, toFrame)} and returns the mean absolute amplitude (0..1,
+     * averaged over channels) of each consecutive window of {@code windowFrames} frames.
+     */
+    double[] windowEnergies(FileChannel channel, long fromFrame, long toFrame, int windowFrames) throws IOException {
+        long frames = Math.max(0, toFrame - fromFrame);
+        int windows = (int) (frames / windowFrames);
+        double[] energies = new double[windows];
+        if (windows == 0) {
+            return energies;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(windowFrames * blockAlign).order(ByteOrder.LITTLE_ENDIAN);
+        int bytesPerSample = bitsPerSample / 8;
+        for (int window = 0; window < windows; window++) {
+            buffer.clear();
+            long position = dataOffset + (fromFrame + (long) window * windowFrames) * blockAlign;
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            int samples = buffer.position() / bytesPerSample;
+            double sum = 0;
+            for (int i = 0; i < samples; i++) {
+                sum += Math.abs(sampleAt(buffer, i * bytesPerSample));
+            }
+            energies[window] = samples == 0 ? 0 : sum / samples;
+        }
+        return energies;
+    }
+
+    private double sampleAt(ByteBuffer buffer, int offset) {
+        if (formatTag == FORMAT_IEEE_FLOAT) {
+            return buffer.getFloat(offset);
+        }
+        return switch (bitsPerSample) {
+            case 8 -> (Byte.toUnsignedInt(buffer.get(offset)) - 128) / 128.0;
+            case 16 -> buffer.getShort(offset) / 32768.0;
+            case 24 -> {
+                int value = (buffer.get(offset) & 0xFF)
+                        | (buffer.get(offset + 1) & 0xFF) << 8
+                        | buffer.get(offset + 2) << 16;
+                yield value / 8388608.0;
+            }
+            default -> buffer.getInt(offset) / 2147483648.0;
+        };
+    }
+
+    /**
+     * Writes frames {@code [fromFrame, toFrame)} as a standalone WAV file with the same format,
+     * copying sample data channel-to-channel without decoding it.
+     */
+    void writeSegment(long fromFrame, long toFrame, Path destination) throws IOException {
+        long length = (toFrame - fromFrame) * blockAlign;
+        ByteBuffer header = ByteBuffer.allocate(44).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(0x46464952).putInt((int) (36 + length)).putInt(0x45564157);
+        header.putInt(0x20746d66).putInt(16)
+                .putShort((short) formatTag)
+                .putShort((short) channels)
+                .putInt(sampleRate)
+                .putInt(sampleRate * blockAlign)
+                .putShort((short) blockAlign)
+                .putShort((short) bitsPerSample);
+        header.putInt(0x61746164).putInt((int) length);
+        header.flip();
+        try (FileChannel source = FileChannel.open(path, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(destination, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) {
+                target.write(header);
+            }
+            long position = dataOffset + fromFrame * blockAlign;
+            long remaining = length;
+            while (remaining > 0) {
+                long copied = source.transferTo(position, remaining, target);
+                if (copied <= 0) {
+                    throw new IOException("Unexpected end of WAV data in " + path);
+                }
+                position += copied;
+                remaining -= copied;
+            }
+        }
+    }
+}
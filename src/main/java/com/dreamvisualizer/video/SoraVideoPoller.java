@@ -0,0 +1,282 @@
+package com.dreamvisualizer.video;
+
+import com.dreamvisualizer.cache.SingleFlight;
+import com.dreamvisualizer.diagnostics.SoraPollEvent;
+import com.dreamvisualizer.http.OpenAIClient;
+import com.dreamvisualizer.metrics.ResourceAccount;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared status poller for in-flight Sora renders.
+ *
+ * <p>Every outstanding video id lives in a single map that one scheduler tick scans; due jobs are
+ * polled with non-blocking requests and their futures complete once a terminal status is observed. The next
+ * poll for each job is scheduled from its age and the reported status/progress, so queued or
+ * freshly started renders are polled less eagerly than ones about to finish.</p>
+ */
+public class SoraVideoPoller implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SoraVideoPoller.class);
+
+    private static final long TICK_MILLIS = 250L;
+    private static final long MIN_INTERVAL_MILLIS = 2_000L;
+    private static final long MAX_INTERVAL_MILLIS = 20_000L;
+    private static final int MAX_CONSECUTIVE_FAILURES = 3;
+
+    private final OpenAIClient client;
+    private final ScheduledExecutorService scheduler;
+    private final Duration maxWait;
+    private final Map<String, TrackedVideo> tracked = new ConcurrentHashMap<>();
+    private final SingleFlight<String, JsonNode> fetches = new SingleFlight<>();
+
+    public SoraVideoPoller(OpenAIClient client, int threads, Duration maxWait) {
+        this.client = Objects.requireNonNull(client, "client must not be null");
+        this.maxWait = Objects.requireNonNull(maxWait, "maxWait must not be null");
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        AtomicInteger counter = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "sora-poller-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public static SoraVideoPoller fromEnvironment(OpenAIClient client) {
+        int threads = Integer.parseInt(Optional.ofNullable(System.getenv("SORA_POLL_THREADS")).orElse("2"));
+        Duration maxWait = Optional.ofNullable(System.getenv("SORA_POLL_MAX_WAIT_SECONDS"))
+                .map(Long::parseLong)
+                .map(Duration::ofSeconds)
+                .orElse(Duration.ofMinutes(8));
+        return new SoraVideoPoller(client, threads, maxWait);
+    }
+
+    /**
+     * Starts tracking a submitted video. The returned future completes with the last observed
+     * payload once the job reaches a terminal status or the maximum wait elapses; cancelling it
+     * stops polling for that id.
+     */
+    public CompletableFuture<JsonNode> track(String videoId, JsonNode initialState) {
+        return track(videoId, initialState, VideoStatusListener.NONE);
+    }
+
+    /**
+     * Like {@link #track(String, JsonNode)}, additionally reporting every change of status or
+     * progress to {@code listener} from the poller's threads.
+     */
+    public CompletableFuture<JsonNode> track(String videoId, JsonNode initialState, VideoStatusListener listener) {
+        Objects.requireNonNull(videoId, "videoId must not be null");
+        Objects.requireNonNull(initialState, "initialState must not be null");
+        Objects.requireNonNull(listener, "listener must not be null");
+        if (isTerminalStatus(initialState.path("status").asText(""))) {
+            return CompletableFuture.completedFuture(initialState);
+        }
+        TrackedVideo video = new TrackedVideo(videoId, initialState, System.currentTimeMillis());
+        TrackedVideo existing = tracked.putIfAbsent(videoId, video);
+        if (existing != null) {
+            existing.addListener(listener);
+            return existing.result;
+        }
+        video.addListener(listener);
+        video.result.whenComplete((state, failure) -> tracked.remove(videoId, video));
+        return video.result;
+    }
+
+    public int trackedCount() {
+        return tracked.size();
+    }
+
+    /**
+     * Fetches the current state of a video. Concurrent fetches of the same id and query, whether
+     * from the poller's own ticks or from callers looking up the finished render, share one request.
+     */
+    public CompletableFuture<JsonNode> fetchState(String videoId, Map<String, String> queryParams) {
+        Objects.requireNonNull(videoId, "videoId must not be null");
+        Map<String, String> query = queryParams == null ? Map.of() : queryParams;
+        String key = query.isEmpty() ? videoId : videoId + "?" + new TreeMap<>(query);
+        return fetches.submit(key, () -> client.getJsonAsync("videos/" + videoId, query, SoraVideoService.VIDEO_STATE));
+    }
+
+    public SingleFlight.Stats coalescingStats() {
+        return fetches.stats();
+    }
+
+    private void tick() {
+        long now = System.currentTimeMillis();
+        for (TrackedVideo video : tracked.values()) {
+            if (video.result.isDone()) {
+                tracked.remove(video.videoId, video);
+                continue;
+            }
+            if (now >= video.nextPollAt && video.inFlight.compareAndSet(false, true)) {
+                poll(video);
+            }
+        }
+    }
+
+    private void poll(TrackedVideo video) {
+        SoraPollEvent event = SoraPollEvent.begin(video.resources != null ? video.resources.jobId() : null,
+                video.videoId, video.polls + 1);
+        CompletableFuture<JsonNode> state;
+        // The fetch carries the account of the request that started tracking, so its callback and
+        // whatever the final poll completes inline are charged to that request
+        try (ResourceAccount.Scope ignored = ResourceAccount.enter(video.resources)) {
+            state = fetchState(video.videoId, Map.of());
+        }
+        state.whenComplete((current, failure) -> {
+            try {
+                if (failure != null) {
+                    onPollFailure(video, failure);
+                } else {
+                    onPollResult(video, current);
+                }
+            } finally {
+                video.inFlight.set(false);
+                if (event != null) {
+                    event.finish(failure != null ? "error" : video.status, video.progress, video.consecutiveFailures);
+                }
+            }
+        });
+    }
+
+    private void onPollResult(TrackedVideo video, JsonNode current) {
+        video.consecutiveFailures = 0;
+        video.polls++;
+        String nextStatus = current.path("status").asText(video.status);
+        int nextProgress = current.path("progress").asInt(-1);
+        boolean statusChanged = !nextStatus.equalsIgnoreCase(video.status);
+        if (statusChanged) {
+            LOGGER.info("Sora video {} status → {}", video.videoId, nextStatus);
+        }
+        if (statusChanged || nextProgress != video.progress) {
+            video.status = nextStatus;
+            video.progress = nextProgress;
+            video.notifyListeners();
+        }
+
+        long age = System.currentTimeMillis() - video.trackedAt;
+        if (isTerminalStatus(nextStatus)) {
+            LOGGER.info("Sora video {} reached terminal status {} after {} polls", video.videoId, nextStatus, video.polls);
+            video.result.complete(current);
+        } else if (age >= maxWait.toMillis()) {
+            LOGGER.warn("Sora video {} polling exhausted after {} polls; last status {}", video.videoId, video.polls, nextStatus);
+            video.result.complete(current);
+        } else {
+            video.nextPollAt = System.currentTimeMillis() + nextInterval(current, age);
+        }
+    }
+
+    private void onPollFailure(TrackedVideo video, Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        video.consecutiveFailures++;
+        if (video.consecutiveFailures >= MAX_CONSECUTIVE_FAILURES) {
+            video.result.completeExceptionally(cause);
+        } else {
+            LOGGER.warn("Polling Sora video {} failed ({}); retrying", video.videoId, cause.getMessage());
+            video.nextPollAt = System.currentTimeMillis() + MIN_INTERVAL_MILLIS * (1L << video.consecutiveFailures);
+        }
+    }
+
+    /**
+     * Derives the delay before the next status request. When the payload reports progress the
+     * remaining render time is extrapolated from the elapsed time and the next poll lands about
+     * halfway there; otherwise the interval widens with the job's age.
+     */
+    static long nextInterval(JsonNode state, long ageMillis) {
+        String status = state.path("status").asText("").toLowerCase(Locale.ROOT);
+        double progress = state.path("progress").asDouble(-1);
+        long interval;
+        if (progress > 0 && progress < 100) {
+            long remaining = (long) (ageMillis * (100.0 - progress) / progress);
+            interval = remaining / 2;
+        } else if ("queued".equals(status)) {
+            interval = ageMillis < 60_000L ? 5_000L : 10_000L;
+        } else if (ageMillis < 30_000L) {
+            interval = 3_000L;
+        } else if (ageMillis < 120_000L) {
+            interval = 5_000L;
+        } else {
+            interval = 10_000L;
+        }
+        interval = Math.max(MIN_INTERVAL_MILLIS, Math.min(MAX_INTERVAL_MILLIS, interval));
+        // Spread polls of jobs submitted together so they do not arrive upstream in bursts
+        long jitter = interval / 10;
+        return interval + ThreadLocalRandom.current().nextLong(-jitter, jitter + 1);
+    }
+
+    static boolean isTerminalStatus(String status) {
+        if (status == null) {
+            return false;
+        }
+        return switch (status.toLowerCase(Locale.ROOT)) {
+            case "completed", "failed", "cancelled" -> true;
+            default -> false;
+        };
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        tracked.values().forEach(video -> video.result.cancel(false));
+        tracked.clear();
+    }
+
+    private static final class TrackedVideo {
+        private final String videoId;
+        private final long trackedAt;
+        private final ResourceAccount resources = ResourceAccount.current();
+        private final CompletableFuture<JsonNode> result = new CompletableFuture<>();
+        private final AtomicBoolean inFlight = new AtomicBoolean();
+        private final CopyOnWriteArrayList<VideoStatusListener> listeners = new CopyOnWriteArrayList<>();
+        private volatile String status;
+        private volatile int progress;
+        private volatile long nextPollAt;
+        private volatile int consecutiveFailures;
+        private volatile int polls;
+
+        private TrackedVideo(String videoId, JsonNode initialState, long trackedAt) {
+            this.videoId = videoId;
+            this.trackedAt = trackedAt;
+            this.status = initialState.path("status").asText("");
+            this.progress = initialState.path("progress").asInt(-1);
+            this.nextPollAt = trackedAt + nextInterval(initialState, 0L);
+        }
+
+        private void addListener(VideoStatusListener listener) {
+            if (listener != VideoStatusListener.NONE) {
+                listeners.add(listener);
+            }
+        }
+
+        private void notifyListeners() {
+            for (VideoStatusListener listener : listeners) {
+                try {
+                    listener.onStatus(videoId, status, progress);
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Video status listener for {} failed", videoId, e);
+                }
+            }
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.dreamvisualizer.video;
 
+import com.dreamvisualizer.cache.SingleFlight;
 import com.dreamvisualizer.config.OpenAIConfig;
+import com.dreamvisualizer.http.EndpointFamily;
 import com.dreamvisualizer.http.OpenAIClient;
-import com.dreamvisualizer.http.OpenAIException;
+import com.dreamvisualizer.http.ResponseReader;
+import com.dreamvisualizer.metrics.LatencyHistogram;
 import com.dreamvisualizer.prompt.DreamPromptResult;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -17,9 +20,14 @@ import java.nio.file.Path;
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Layer 3: submits the engineered prompt to the OpenAI Sora video API.
@@ -28,24 +36,112 @@ public class SoraVideoService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SoraVideoService.class);
 
+    /**
+     * The parts of a video object this service and its poller read; status payloads carry much
+     * more (prompt echo, moderation details, usage) that is skipped while the body streams in.
+     */
+    static final ResponseReader<JsonNode> VIDEO_STATE = ResponseReader.fields(
+            "id", "status", "progress", "created_at", "queued_at", "started_at", "error", "output");
+
     private final OpenAIConfig config;
     private final OpenAIClient client;
     private final Path outputDirectory;
+    private final SoraVideoPoller poller;
+    private final LatencyHistogram submitLatency = new LatencyHistogram();
+    private final LatencyHistogram pollWaitLatency = new LatencyHistogram();
+    private final LatencyHistogram downloadLatency = new LatencyHistogram();
 
     public SoraVideoService(OpenAIConfig config, OpenAIClient client, Path outputDirectory) {
+        this(config, client, outputDirectory, SoraVideoPoller.fromEnvironment(client));
+    }
+
+    public SoraVideoService(OpenAIConfig config, OpenAIClient client, Path outputDirectory, SoraVideoPoller poller) {
         this.config = Objects.requireNonNull(config, "config must not be null");
         this.client = Objects.requireNonNull(client, "client must not be null");
         this.outputDirectory = Objects.requireNonNull(outputDirectory, "outputDirectory must not be null");
+        this.poller = Objects.requireNonNull(poller, "poller must not be null");
+        prepareOutputDirectory();
+    }
+
+    /**
+     * Ensures the directory finished videos are written to exists and is writable; cheap enough
+     * to call before every render, which also recovers from the directory being removed at runtime.
+     */
+    public Path prepareOutputDirectory() {
         try {
             Files.createDirectories(outputDirectory);
         } catch (IOException e) {
             throw new IllegalStateException("Failed to create video output directory " + outputDirectory, e);
         }
+        if (!Files.isWritable(outputDirectory)) {
+            throw new IllegalStateException("Video output directory is not writable: " + outputDirectory);
+        }
+        return outputDirectory;
+    }
+
+    /**
+     * Pre-opens a connection to the API host ahead of the render submission.
+     */
+    public CompletableFuture<Void> warmUpAsync() {
+        return client.warmUpAsync();
+    }
+
+    /**
+     * Throws {@link com.dreamvisualizer.http.CircuitOpenException} while the {@code videos} circuit
+     * breaker rejects new renders.
+     */
+    public void checkAvailable() {
+        client.circuitBreaker(EndpointFamily.VIDEOS).check();
+    }
+
+    public SingleFlight.Stats coalescingStats() {
+        return poller.coalescingStats();
+    }
+
+    /**
+     * Time to have a render accepted ({@code submit}), from acceptance to a terminal status
+     * ({@code poll_wait}), and to save a completed render locally ({@code download}).
+     */
+    public Map<String, LatencyHistogram> stageLatencies() {
+        Map<String, LatencyHistogram> stages = new LinkedHashMap<>();
+        stages.put("submit", submitLatency);
+        stages.put("poll_wait", pollWaitLatency);
+        stages.put("download", downloadLatency);
+        return stages;
     }
 
     public SoraVideoJob generateVideo(DreamPromptResult promptResult, VideoGenerationOptions options) {
+        try {
+            return generateVideoAsync(promptResult, options).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new SoraVideoGenerationException("Video generation failed", e.getCause());
+        } catch (CancellationException e) {
+            throw new SoraVideoGenerationException("Video generation cancelled", e);
+        }
+    }
+
+    /**
+     * Submits the render and completes once the video is terminal and, when it completed, saved
+     * locally. Polling is delegated to the shared {@link SoraVideoPoller}, so no thread waits on
+     * the render.
+     */
+    public CompletableFuture<SoraVideoJob> generateVideoAsync(DreamPromptResult promptResult, VideoGenerationOptions options) {
+        return generateVideoAsync(promptResult, options, VideoStatusListener.NONE);
+    }
+
+    /**
+     * Like {@link #generateVideoAsync(DreamPromptResult, VideoGenerationOptions)}, reporting the
+     * accepted render and each status or progress change seen while polling to {@code listener}.
+     */
+    public CompletableFuture<SoraVideoJob> generateVideoAsync(DreamPromptResult promptResult,
+                                                              VideoGenerationOptions options,
+                                                              VideoStatusListener listener) {
         Objects.requireNonNull(promptResult, "promptResult must not be null");
         Objects.requireNonNull(options, "options must not be null");
+        Objects.requireNonNull(listener, "listener must not be null");
 
         ObjectMapper mapper = client.mapper();
         ObjectNode payload = mapper.createObjectNode();
@@ -53,43 +149,83 @@ public class SoraVideoService {
         payload.put("prompt", buildVideoPrompt(promptResult, options));
 
         LOGGER.info("Submitting video generation to Sora with model {}", config.getVideoModel());
-        JsonNode initialResponse = client.postJson("videos", payload);
-        String videoId = initialResponse.path("id").asText(null);
-        if (videoId == null || videoId.isBlank()) {
-            throw new IllegalStateException("Sora video generation response missing id");
-        }
+        long submitted = System.nanoTime();
+        return client.postJsonAsync("videos", payload, 0L, VIDEO_STATE).thenCompose(initialResponse -> {
+            submitLatency.recordSince(submitted);
+            String videoId = initialResponse.path("id").asText(null);
+            if (videoId == null || videoId.isBlank()) {
+                throw new IllegalStateException("Sora video generation response missing id");
+            }
 
-        LOGGER.info("Sora video {} accepted with initial status {}", videoId, initialResponse.path("status").asText("unknown"));
-        JsonNode finalState = waitForCompletion(videoId, initialResponse);
+            LOGGER.info("Sora video {} accepted with initial status {}", videoId, initialResponse.path("status").asText("unknown"));
+            listener.onStatus(videoId, initialResponse.path("status").asText("queued"),
+                    initialResponse.path("progress").asInt(-1));
+            long accepted = System.nanoTime();
+            return waitForCompletion(videoId, initialResponse, listener)
+                    .whenComplete((finalState, failure) -> pollWaitLatency.recordSince(accepted))
+                    .thenCompose(finalState -> {
+                        recordRenderOutcome(videoId, finalState);
+                        if (!"completed".equalsIgnoreCase(finalState.path("status").asText(""))) {
+                            return finishJob(videoId, finalState, options);
+                        }
+                        long downloadStarted = System.nanoTime();
+                        return finishJob(videoId, finalState, options)
+                                .whenComplete((job, failure) -> downloadLatency.recordSince(downloadStarted));
+                    });
+        });
+    }
 
-        Optional<JsonNode> outputDescriptor = extractVideoOutput(finalState);
-        String terminalStatus = finalState.path("status").asText("");
-        if (outputDescriptor.isEmpty() && "completed".equalsIgnoreCase(terminalStatus)) {
-            outputDescriptor = fetchVideoOutput(videoId);
+    /**
+     * A render that failed upstream, or was still unfinished when polling gave up, counts against
+     * the {@code videos} circuit breaker even though every HTTP call along the way succeeded.
+     * Renders refused by moderation say nothing about the upstream's health and are not counted.
+     */
+    private void recordRenderOutcome(String videoId, JsonNode finalState) {
+        String status = finalState.path("status").asText("").toLowerCase(Locale.ROOT);
+        String errorCode = finalState.path("error").path("code").asText("").toLowerCase(Locale.ROOT);
+        boolean stalled = !SoraVideoPoller.isTerminalStatus(status);
+        boolean failed = "failed".equals(status) && !errorCode.contains("moderation") && !errorCode.contains("policy");
+        if (stalled || failed) {
+            LOGGER.warn("Sora video {} ended {}; counting it against the videos circuit breaker", videoId,
+                    stalled ? "unfinished (" + status + ")" : "failed");
+            client.circuitBreaker(EndpointFamily.VIDEOS).recordFailure();
         }
+    }
 
-        SoraVideoJob baseJob = mapToJob(videoId, finalState, outputDescriptor);
-
-        Optional<String> localUrl = Optional.empty();
-        if ("completed".equalsIgnoreCase(baseJob.status())) {
-            if (outputDescriptor.isPresent()) {
-                localUrl = downloadFromOutputDescriptor(videoId, outputDescriptor.get(), options);
-            }
-            if (localUrl.isEmpty()) {
-                localUrl = downloadViaContentEndpoint(videoId, options);
+    private CompletableFuture<SoraVideoJob> finishJob(String videoId, JsonNode finalState, VideoGenerationOptions options) {
+        Optional<JsonNode> initialDescriptor = extractVideoOutput(finalState);
+        String terminalStatus = finalState.path("status").asText("");
+        CompletableFuture<Optional<JsonNode>> descriptorLookup =
+                initialDescriptor.isEmpty() && "completed".equalsIgnoreCase(terminalStatus)
+                        ? fetchVideoOutput(videoId)
+                        : CompletableFuture.completedFuture(initialDescriptor);
+
+        return descriptorLookup.thenCompose(outputDescriptor -> {
+            SoraVideoJob baseJob = mapToJob(videoId, finalState, outputDescriptor);
+
+            CompletableFuture<Optional<String>> localDownload = CompletableFuture.completedFuture(Optional.empty());
+            if ("completed".equalsIgnoreCase(baseJob.status())) {
+                if (outputDescriptor.isPresent()) {
+                    localDownload = downloadFromOutputDescriptor(videoId, outputDescriptor.get(), options);
+                }
+                localDownload = localDownload.thenCompose(localUrl -> localUrl.isPresent()
+                        ? CompletableFuture.completedFuture(localUrl)
+                        : downloadViaContentEndpoint(videoId, options));
             }
-        }
 
-        Optional<String> remoteUrl = outputDescriptor.flatMap(this::extractDownloadUrl);
-        Optional<String> effectiveUrl = localUrl.isPresent() ? localUrl : remoteUrl;
-        if ("completed".equalsIgnoreCase(baseJob.status()) && effectiveUrl.isEmpty()) {
-            LOGGER.warn("Sora video {} completed without an accessible download URL", videoId);
-            LOGGER.warn("Final Sora payload for {}: {}", videoId, finalState.toPrettyString());
-        }
-        return new SoraVideoJob(baseJob.jobId(), baseJob.status(), baseJob.createdAt(), effectiveUrl);
+            return localDownload.thenApply(localUrl -> {
+                Optional<String> remoteUrl = outputDescriptor.flatMap(this::extractDownloadUrl);
+                Optional<String> effectiveUrl = localUrl.isPresent() ? localUrl : remoteUrl;
+                if ("completed".equalsIgnoreCase(baseJob.status()) && effectiveUrl.isEmpty()) {
+                    LOGGER.warn("Sora video {} completed without an accessible download URL", videoId);
+                    LOGGER.warn("Final Sora payload for {}: {}", videoId, finalState.toPrettyString());
+                }
+                return new SoraVideoJob(baseJob.jobId(), baseJob.status(), baseJob.createdAt(), effectiveUrl);
+            });
+        });
     }
 
-    private String buildVideoPrompt(DreamPromptResult prompt, VideoGenerationOptions options) {
+    String buildVideoPrompt(DreamPromptResult prompt, VideoGenerationOptions options) {
         StringBuilder builder = new StringBuilder();
         builder.append(prompt.soraPrompt().trim());
 
@@ -129,44 +265,9 @@ public class SoraVideoService {
         return builder.toString();
     }
 
-    private JsonNode waitForCompletion(String videoId, JsonNode initialState) {
-        JsonNode current = initialState;
-        String status = current.path("status").asText("");
-        int attempts = 0;
-        final int maxAttempts = 48; // approx 8 minutes @ 10s interval
-        final long delayMillis = 10_000L;
-
-        while (!isTerminalStatus(status) && attempts < maxAttempts) {
-            try {
-                Thread.sleep(delayMillis);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new IllegalStateException("Video polling interrupted", e);
-            }
-            current = client.getJson("videos/" + videoId);
-            String nextStatus = current.path("status").asText(status);
-            if (!nextStatus.equalsIgnoreCase(status)) {
-                LOGGER.info("Sora video {} status → {}", videoId, nextStatus);
-            }
-            status = nextStatus;
-            attempts++;
-        }
-        if (!isTerminalStatus(status)) {
-            LOGGER.warn("Sora video {} polling exhausted after {} attempts; last status {}", videoId, attempts, status);
-        } else {
-            LOGGER.info("Sora video {} reached terminal status {}", videoId, status);
-        }
-        return current;
-    }
-
-    private boolean isTerminalStatus(String status) {
-        if (status == null) {
-            return false;
-        }
-        return switch (status.toLowerCase()) {
-            case "completed", "failed", "cancelled" -> true;
-            default -> false;
-        };
+    private CompletableFuture<JsonNode> waitForCompletion(String videoId, JsonNode initialState,
+                                                          VideoStatusListener listener) {
+        return poller.track(videoId, initialState, listener);
     }
 
     private SoraVideoJob mapToJob(String videoId, JsonNode video, Optional<JsonNode> asset) {
@@ -176,7 +277,7 @@ public class SoraVideoService {
         return new SoraVideoJob(videoId, status, createdAt, downloadUrl);
     }
 
-    private Optional<String> downloadFromOutputDescriptor(String videoId, JsonNode descriptor, VideoGenerationOptions options) {
+    private CompletableFuture<Optional<String>> downloadFromOutputDescriptor(String videoId, JsonNode descriptor, VideoGenerationOptions options) {
         JsonNode descriptorNode = descriptor;
         Optional<String> download = extractDownloadUrl(descriptorNode);
         String fileId = descriptorNode.path("file_id").asText(null);
@@ -184,41 +285,50 @@ public class SoraVideoService {
 
         Path outputPath = outputDirectory.resolve(sanitiseForFilename(videoId) + "." + determineExtension(descriptorNode, options));
 
-        try {
-            if (fileId != null && !fileId.isBlank()) {
-                downloadFileContent(fileId, outputPath);
-                LOGGER.info("Saved Sora video {} from file {} to {}", videoId, fileId, outputPath);
-                return Optional.of("/videos/" + outputPath.getFileName());
-            }
-            if (assetId != null && !assetId.isBlank()) {
-                downloadAssetContent(assetId, outputPath);
-                LOGGER.info("Saved Sora video {} from asset {} to {}", videoId, assetId, outputPath);
-                return Optional.of("/videos/" + outputPath.getFileName());
-            }
-            if (download.isPresent()) {
-                client.downloadToFile(download.get(), outputPath);
-                LOGGER.info("Saved Sora video {} from direct URL to {}", videoId, outputPath);
-                return Optional.of("/videos/" + outputPath.getFileName());
-            }
-        } catch (OpenAIException e) {
-            LOGGER.warn("Failed to download Sora video {} from descriptor: {}", videoId, e.getMessage());
-            return Optional.empty();
+        CompletableFuture<Path> transfer;
+        String source;
+        if (fileId != null && !fileId.isBlank()) {
+            transfer = downloadFileContent(fileId, outputPath);
+            source = "file " + fileId;
+        } else if (assetId != null && !assetId.isBlank()) {
+            transfer = downloadAssetContent(assetId, outputPath);
+            source = "asset " + assetId;
+        } else if (download.isPresent()) {
+            transfer = client.downloadToFileAsync(download.get(), outputPath);
+            source = "direct URL";
+        } else {
+            LOGGER.debug("Output descriptor for {} lacked file_id/asset_id and direct URL", videoId);
+            return CompletableFuture.completedFuture(Optional.empty());
         }
 
-        LOGGER.debug("Output descriptor for {} lacked file_id/asset_id and direct URL", videoId);
-        return Optional.empty();
+        return transfer.handle((saved, failure) -> {
+            if (failure != null) {
+                LOGGER.warn("Failed to download Sora video {} from descriptor: {}", videoId, rootCause(failure).getMessage());
+                return Optional.empty();
+            }
+            LOGGER.info("Saved Sora video {} from {} to {}", videoId, source, outputPath);
+            return Optional.of("/videos/" + outputPath.getFileName());
+        });
     }
 
-    private Optional<String> downloadViaContentEndpoint(String videoId, VideoGenerationOptions options) {
+    private CompletableFuture<Optional<String>> downloadViaContentEndpoint(String videoId, VideoGenerationOptions options) {
         Path outputPath = outputDirectory.resolve(sanitiseForFilename(videoId) + "." + extensionFromOptions(options));
-        try {
-            downloadVideoContent(videoId, outputPath);
+        return downloadVideoContent(videoId, outputPath).handle((saved, failure) -> {
+            if (failure != null) {
+                LOGGER.warn("Failed to download Sora video {} via content endpoint: {}", videoId, rootCause(failure).getMessage());
+                return Optional.empty();
+            }
             LOGGER.info("Saved Sora video {} via content endpoint to {}", videoId, outputPath);
             return Optional.of("/videos/" + outputPath.getFileName());
-        } catch (OpenAIException e) {
-            LOGGER.warn("Failed to download Sora video {} via content endpoint: {}", videoId, e.getMessage());
-            return Optional.empty();
+        });
+    }
+
+    private static Throwable rootCause(Throwable failure) {
+        Throwable current = failure;
+        while (current instanceof CompletionException && current.getCause() != null) {
+            current = current.getCause();
         }
+        return current;
     }
 
     private Optional<JsonNode> extractVideoOutput(JsonNode video) {
@@ -239,52 +349,55 @@ public class SoraVideoService {
         return Optional.empty();
     }
 
-    private Optional<JsonNode> fetchVideoOutput(String videoId) {
-        try {
-            JsonNode response = client.getJson("videos/" + videoId);
-            Optional<JsonNode> output = extractVideoOutput(response);
-            if (output.isPresent()) {
-                LOGGER.info("Retrieved video output metadata for {}", videoId);
-                return output;
-            }
-            response = client.getJson("videos/" + videoId, Map.of("include", "output"));
-            output = extractVideoOutput(response);
-            output.ifPresent(o -> LOGGER.info("Retrieved video output with include=output for {}", videoId));
-            return output;
-        } catch (OpenAIException e) {
-            LOGGER.warn("Failed to retrieve Sora video output for {}: {}", videoId, e.getMessage());
-            return Optional.empty();
-        }
+    private CompletableFuture<Optional<JsonNode>> fetchVideoOutput(String videoId) {
+        return poller.fetchState(videoId, Map.of())
+                .thenCompose(response -> {
+                    Optional<JsonNode> output = extractVideoOutput(response);
+                    if (output.isPresent()) {
+                        LOGGER.info("Retrieved video output metadata for {}", videoId);
+                        return CompletableFuture.completedFuture(output);
+                    }
+                    return poller.fetchState(videoId, Map.of("include", "output"))
+                            .thenApply(withOutput -> {
+                                Optional<JsonNode> included = extractVideoOutput(withOutput);
+                                included.ifPresent(o -> LOGGER.info("Retrieved video output with include=output for {}", videoId));
+                                return included;
+                            });
+                })
+                .exceptionally(failure -> {
+                    LOGGER.warn("Failed to retrieve Sora video output for {}: {}", videoId, rootCause(failure).getMessage());
+                    return Optional.empty();
+                });
     }
 
-    private void downloadAssetContent(String assetId, Path destination) {
+    private CompletableFuture<Path> downloadAssetContent(String assetId, Path destination) {
         HttpUrl url = config.getBaseUrl().newBuilder()
                 .addPathSegment("assets")
                 .addPathSegment(assetId)
                 .addPathSegment("content")
                 .build();
-        client.downloadToFile(url.toString(), destination);
+        return client.downloadToFileAsync(url.toString(), destination);
     }
 
-    private void downloadFileContent(String fileId, Path destination) {
+    private CompletableFuture<Path> downloadFileContent(String fileId, Path destination) {
         HttpUrl url = config.getBaseUrl().newBuilder()
                 .addPathSegment("files")
                 .addPathSegment(fileId)
                 .addPathSegment("content")
                 .build();
-        client.downloadToFile(url.toString(), destination);
+        return client.downloadToFileAsync(url.toString(), destination);
     }
 
-    private void downloadVideoContent(String videoId, Path destination) {
+    private CompletableFuture<Path> downloadVideoContent(String videoId, Path destination) {
         HttpUrl url = config.getBaseUrl().newBuilder()
                 .addPathSegment("videos")
                 .addPathSegment(videoId)
                 .addPathSegment("content")
                 .build();
-        client.downloadToFile(url.toString(), destination);
+        return client.downloadToFileAsync(url.toString(), destination);
     }
 
-    private Optional<String> extractDownloadUrl(JsonNode asset) {
+    Optional<String> extractDownloadUrl(JsonNode asset) {
         String[] directFields = {"download_url", "url", "content_url", "uri"};
         for (String field : directFields) {
             String value = asset.path(field).asText(null);
@@ -347,7 +460,7 @@ public class SoraVideoService {
         return Optional.empty();
     }
 
-    private String determineExtension(JsonNode asset, VideoGenerationOptions options) {
+    String determineExtension(JsonNode asset, VideoGenerationOptions options) {
         String format = options.format().orElse(null);
         if (format == null || format.isBlank()) {
             format = asset.path("format").asText(null);
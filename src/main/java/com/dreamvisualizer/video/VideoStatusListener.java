@@ -0,0 +1,18 @@
+package com.dreamvisualizer.video;
+
+/**
+ * Observes a Sora render while it is being polled.
+ */
+@FunctionalInterface
+public interface VideoStatusListener {
+
+    VideoStatusListener NONE = (videoId, status, progress) -> {
+    };
+
+    /**
+     * Called when the render is accepted and whenever a poll reports a new status or progress.
+     *
+     * @param progress percentage reported by the upstream, or {@code -1} when unknown
+     */
+    void onStatus(String videoId, String status, int progress);
+}
@@ -0,0 +1,201 @@
+package com.dreamvisualizer.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TieredCacheTest {
+
+    private static final TieredCache.Codec<String> CODEC = new TieredCache.Codec<>() {
+        @Override
+        public JsonNode encode(String value, ObjectMapper mapper) {
+            return mapper.getNodeFactory().textNode(value);
+        }
+
+        @Override
+        public String decode(JsonNode node) {
+            return node.asText();
+        }
+    };
+
+    private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    private final List<TieredCache<String>> caches = new ArrayList<>();
+    private Instant now = START;
+
+    @AfterEach
+    void closeCaches() {
+        caches.forEach(TieredCache::close);
+    }
+
+    @Test
+    void readsEntriesBackFromDiskAfterARestart() {
+        cache(Duration.ofHours(1), 1_000_000L).put(key(1), "a flooded library");
+
+        Optional<String> reloaded = cache(Duration.ofHours(1), 1_000_000L).get(key(1));
+
+        assertEquals(Optional.of("a flooded library"), reloaded);
+    }
+
+    @Test
+    void sweepDeletesExpiredEntriesWithoutReadingThem() throws IOException {
+        TieredCache<String> cache = cache(Duration.ofHours(1), 1_000_000L);
+        cache.put(key(1), "old");
+        now = now.plus(Duration.ofMinutes(45));
+        cache.put(key(2), "new");
+
+        now = now.plus(Duration.ofMinutes(30));
+        cache.sweepDisk();
+
+        assertFalse(Files.exists(directory.resolve(key(1) + ".json")));
+        assertTrue(Files.exists(directory.resolve(key(2) + ".json")));
+        assertEquals(1, cache.stats().diskEntries());
+    }
+
+    @Test
+    void sweepEvictsTheOldestEntriesOnceTheDiskTierIsOverItsCap() throws IOException {
+        TieredCache<String> probe = cache(null, 1_000_000L);
+        probe.put(key(99), "x".repeat(100));
+        long entryBytes = Files.size(directory.resolve(key(99) + ".json"));
+        probe.invalidate(key(99));
+
+        // Written through an uncapped cache, so no sweep triggered by the writes races the one below
+        for (int i = 0; i < 8; i++) {
+            probe.put(key(i), "x".repeat(100));
+            now = now.plusSeconds(1);
+        }
+        TieredCache<String> cache = cache(null, entryBytes * 5);
+        cache.sweepDisk();
+
+        CacheStats stats = cache.stats();
+        assertEquals(4, stats.diskEntries());
+        assertTrue(stats.diskBytes() <= entryBytes * 5 / 10 * 9, "disk bytes " + stats.diskBytes());
+        for (int i = 0; i < 4; i++) {
+            assertFalse(Files.exists(directory.resolve(key(i) + ".json")), "entry " + i + " survived");
+        }
+        for (int i = 4; i < 8; i++) {
+            assertTrue(Files.exists(directory.resolve(key(i) + ".json")), "entry " + i + " was evicted");
+        }
+    }
+
+    @Test
+    void sweepRemovesTemporaryFilesLeftByAbandonedWrites() throws IOException {
+        TieredCache<String> cache = cache(null, 1_000_000L);
+        Path abandoned = Files.writeString(directory.resolve(key(1) + ".tmp-42"), "{");
+        Files.setLastModifiedTime(abandoned, FileTime.from(now.minus(Duration.ofHours(1))));
+        Path inProgress = Files.writeString(directory.resolve(key(2) + ".tmp-43"), "{");
+        Files.setLastModifiedTime(inProgress, FileTime.from(now));
+
+        cache.sweepDisk();
+
+        assertFalse(Files.exists(abandoned));
+        assertTrue(Files.exists(inProgress));
+        assertEquals(0, cache.stats().diskEntries());
+    }
+
+    @Test
+    void sweepCountsTheEntriesLeftOnDisk() throws IOException {
+        TieredCache<String> cache = cache(null, 1_000_000L);
+        cache.put(key(1), "a");
+        cache.put(key(2), "b");
+
+        cache.sweepDisk();
+
+        long files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.count();
+        }
+        assertEquals(2, files);
+        assertEquals(2, cache.stats().diskEntries());
+        assertTrue(cache.stats().diskBytes() > 0);
+    }
+
+    @Test
+    void tracksDiskUsageAcrossRewritesAndDeletesBetweenSweeps() throws IOException {
+        TieredCache<String> cache = cache(null, 1_000_000L);
+
+        cache.put(key(1), "a");
+        long oneEntry = cache.stats().diskBytes();
+        cache.put(key(1), "b");
+        cache.put(key(1), "c");
+        cache.put(key(2), "d");
+
+        assertEquals(2, cache.stats().diskEntries());
+        assertEquals(2 * oneEntry, cache.stats().diskBytes());
+
+        cache.invalidate(key(1));
+
+        assertEquals(1, cache.stats().diskEntries());
+        assertEquals(oneEntry, cache.stats().diskBytes());
+    }
+
+    @Test
+    void dropsExpiredEntriesFromTheDiskTotalsWhenReadingThem() throws IOException {
+        TieredCache<String> writer = cache(Duration.ofHours(1), 1_000_000L);
+        writer.put(key(1), "stale");
+        TieredCache<String> reader = cache(Duration.ofHours(1), 1_000_000L);
+        assertEquals(1, reader.stats().diskEntries());
+
+        now = now.plus(Duration.ofHours(2));
+
+        assertEquals(Optional.empty(), reader.get(key(1)));
+        assertEquals(0, reader.stats().diskEntries());
+        assertEquals(0L, reader.stats().diskBytes());
+    }
+
+    private TieredCache<String> cache(Duration timeToLive, long maxDiskBytes) {
+        Clock clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now;
+            }
+        };
+        TieredCache<String> cache = TieredCache.builder("test", CODEC)
+                .maxEntries(2)
+                .timeToLive(timeToLive)
+                .directory(directory)
+                .maxDiskBytes(maxDiskBytes)
+                .sweepInterval(Duration.ofDays(1))
+                .clock(clock)
+                .build();
+        caches.add(cache);
+        return cache;
+    }
+
+    private static String key(int index) {
+        return String.format("%016x", index);
+    }
+}
@@ -0,0 +1,58 @@
+package com.dreamvisualizer.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryPolicyTest {
+
+    @Test
+    void treatsTranscriptionAndResponsesAsTheOnlyIdempotentPostsByDefault() {
+        RetryPolicy policy = RetryPolicy.defaults();
+
+        assertTrue(policy.isIdempotentPost("audio/transcriptions"));
+        assertTrue(policy.isIdempotentPost("responses"));
+        assertFalse(policy.isIdempotentPost("videos"));
+    }
+
+    @Test
+    void overridesAttemptsPerEndpoint() {
+        RetryPolicy policy = RetryPolicy.builder().defaultMaxAttempts(4).maxAttempts("videos", 2).build();
+
+        assertEquals(2, policy.maxAttempts("videos"));
+        assertEquals(4, policy.maxAttempts("responses"));
+        assertEquals(1, RetryPolicy.disabled().maxAttempts("responses"));
+    }
+
+    @Test
+    void keepsBackoffWithinBaseAndThreeTimesThePreviousDelay() {
+        RetryPolicy policy = RetryPolicy.builder()
+                .baseDelay(Duration.ofMillis(100))
+                .maxDelay(Duration.ofSeconds(2))
+                .build();
+
+        for (int i = 0; i < 1000; i++) {
+            long first = policy.nextBackoff(Duration.ZERO).toMillis();
+            assertTrue(first >= 100 && first <= 101, "first backoff " + first);
+            long next = policy.nextBackoff(Duration.ofMillis(300)).toMillis();
+            assertTrue(next >= 100 && next <= 900, "backoff after 300 ms " + next);
+            long capped = policy.nextBackoff(Duration.ofSeconds(5)).toMillis();
+            assertTrue(capped >= 100 && capped <= 2000, "capped backoff " + capped);
+        }
+    }
+
+    @Test
+    void rejectsInconsistentSettings() {
+        assertThrows(IllegalStateException.class, () -> RetryPolicy.builder().defaultMaxAttempts(0).build());
+        assertThrows(IllegalStateException.class, () -> RetryPolicy.builder().maxAttempts("videos", 0).build());
+        assertThrows(IllegalStateException.class, () -> RetryPolicy.builder().baseDelay(Duration.ZERO).build());
+        assertThrows(IllegalStateException.class, () -> RetryPolicy.builder()
+                .baseDelay(Duration.ofSeconds(5)).maxDelay(Duration.ofSeconds(1)).build());
+        assertThrows(IllegalStateException.class, () -> RetryPolicy.builder().budgetRatio(-0.1).build());
+    }
+}
@@ -0,0 +1,206 @@
+package com.dreamvisualizer.http;
+
+import com.dreamvisualizer.config.ConcurrencyLimitPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private long now = TimeUnit.SECONDS.toNanos(1000);
+
+    @AfterEach
+    void stopScheduler() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void growsWhileLatencyStaysWithinTolerance() {
+        AdaptiveConcurrencyLimiter limiter = adaptive(10);
+
+        window(limiter, 10, 100);
+        int afterBaseline = limiter.snapshot().limit();
+        window(limiter, afterBaseline, 120);
+        int afterSecondWindow = limiter.snapshot().limit();
+
+        assertEquals(13, afterBaseline);
+        assertTrue(afterSecondWindow > afterBaseline, "limit " + afterBaseline + " -> " + afterSecondWindow);
+        long baselineMillis = limiter.snapshot().baselineRtt().toMillis();
+        assertTrue(baselineMillis >= 100 && baselineMillis < 120, "baseline " + baselineMillis + "ms");
+    }
+
+    @Test
+    void doesNotGrowALimitThatIsMostlyUnused() {
+        AdaptiveConcurrencyLimiter limiter = adaptive(10);
+
+        window(limiter, 2, 100);
+        window(limiter, 2, 100);
+
+        assertEquals(10, limiter.snapshot().limit());
+    }
+
+    @Test
+    void shrinksWhenLatencyClimbsPastTheTolerance() {
+        AdaptiveConcurrencyLimiter limiter = adaptive(10);
+        window(limiter, 10, 100);
+        int before = limiter.snapshot().limit();
+
+        window(limiter, before, 400);
+
+        int after = limiter.snapshot().limit();
+        assertTrue(after < before, "limit " + before + " -> " + after);
+        // The baseline rises only slowly, so a slow window is not mistaken for the new normal
+        assertTrue(limiter.snapshot().baselineRtt().toMillis() < 150, "baseline " + limiter.snapshot().baselineRtt());
+    }
+
+    @Test
+    void cutsMultiplicativelyOnOverloadAtMostOncePerWindow() {
+        AdaptiveConcurrencyLimiter limiter = adaptive(16);
+        window(limiter, 16, 100);
+        int before = limiter.snapshot().limit();
+
+        List<AdaptiveConcurrencyLimiter.Permit> burst = acquire(limiter, 3);
+        advance(50);
+        burst.forEach(AdaptiveConcurrencyLimiter.Permit::dropped);
+        int afterBurst = limiter.snapshot().limit();
+
+        assertEquals(before / 2, afterBurst);
+        assertEquals(3, limiter.snapshot().dropped());
+
+        advance(150);
+        acquire(limiter, 1).get(0).dropped();
+        assertEquals(afterBurst / 2, limiter.snapshot().limit());
+    }
+
+    @Test
+    void neverCutsBelowTheMinimum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("responses", policy()
+                .initialLimit(2).minLimit(2).build(), scheduler, () -> now);
+
+        acquire(limiter, 1).get(0).dropped();
+
+        assertEquals(2, limiter.snapshot().limit());
+    }
+
+    @Test
+    void ignoresOutcomesThatSayNothingAboutCapacity() {
+        AdaptiveConcurrencyLimiter limiter = adaptive(10);
+
+        List<AdaptiveConcurrencyLimiter.Permit> permits = acquire(limiter, 10);
+        advance(5_000);
+        permits.forEach(AdaptiveConcurrencyLimiter.Permit::ignore);
+
+        assertEquals(10, limiter.snapshot().limit());
+        assertEquals(0, limiter.snapshot().inFlight());
+        assertEquals(Duration.ZERO, limiter.snapshot().baselineRtt());
+    }
+
+    @Test
+    void queuesCallersBeyondTheLimitAndAdmitsThemInOrder() {
+        AdaptiveConcurrencyLimiter limiter = fixed(2, 2, Duration.ofSeconds(30));
+        List<AdaptiveConcurrencyLimiter.Permit> running = acquire(limiter, 2);
+
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> first = limiter.acquire();
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> second = limiter.acquire();
+        assertFalse(first.isDone());
+        assertEquals(2, limiter.snapshot().queued());
+
+        running.get(0).success();
+
+        assertTrue(first.isDone());
+        assertFalse(second.isDone());
+        assertEquals(2, limiter.snapshot().inFlight());
+    }
+
+    @Test
+    void shedsCallersWhenTheQueueIsFull() {
+        AdaptiveConcurrencyLimiter limiter = fixed(1, 1, Duration.ofSeconds(30));
+        acquire(limiter, 1);
+        limiter.acquire();
+
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> rejected = limiter.acquire();
+
+        ExecutionException failure = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(OpenAIException.class, failure.getCause());
+        assertEquals(1, limiter.snapshot().shed());
+    }
+
+    @Test
+    void shedsCallersThatWaitTooLong() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = fixed(1, 4, Duration.ofMillis(20));
+        acquire(limiter, 1);
+
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> waiter = limiter.acquire();
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(OpenAIException.class, failure.getCause());
+        assertEquals(0, limiter.snapshot().queued());
+        assertEquals(1, limiter.snapshot().shed());
+    }
+
+    /**
+     * Runs one full measurement window at {@code concurrent} calls, each taking {@code rttMillis}:
+     * all but one call complete together, the last starts a little later so it closes the window.
+     */
+    private void window(AdaptiveConcurrencyLimiter limiter, int concurrent, long rttMillis) {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = acquire(limiter, concurrent - 1);
+        advance(rttMillis);
+        permits.forEach(AdaptiveConcurrencyLimiter.Permit::success);
+        advance(rttMillis);
+        AdaptiveConcurrencyLimiter.Permit closing = acquire(limiter, 1).get(0);
+        advance(rttMillis);
+        closing.success();
+    }
+
+    private static List<AdaptiveConcurrencyLimiter.Permit> acquire(AdaptiveConcurrencyLimiter limiter, int count) {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            CompletableFuture<AdaptiveConcurrencyLimiter.Permit> permit = limiter.acquire();
+            assertTrue(permit.isDone(), "permit " + i + " of " + count + " was queued");
+            permits.add(permit.join());
+        }
+        return permits;
+    }
+
+    private void advance(long millis) {
+        now += TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private AdaptiveConcurrencyLimiter adaptive(int initialLimit) {
+        return new AdaptiveConcurrencyLimiter("responses", policy().initialLimit(initialLimit).build(), scheduler, () -> now);
+    }
+
+    private AdaptiveConcurrencyLimiter fixed(int limit, int queueCapacity, Duration maxQueueWait) {
+        ConcurrencyLimitPolicy policy = policy()
+                .adaptive(false)
+                .maxLimit(limit)
+                .queueCapacity(queueCapacity)
+                .maxQueueWait(maxQueueWait)
+                .build();
+        return new AdaptiveConcurrencyLimiter("responses", policy, scheduler, () -> now);
+    }
+
+    private static ConcurrencyLimitPolicy.Builder policy() {
+        return ConcurrencyLimitPolicy.builder()
+                .minLimit(1)
+                .maxLimit(100)
+                .latencyTolerance(1.5)
+                .smoothing(1.0)
+                .backoffRatio(0.5);
+    }
+}
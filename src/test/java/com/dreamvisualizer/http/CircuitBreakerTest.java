@@ -0,0 +1,220 @@
+package com.dreamvisualizer.http;
+
+import com.dreamvisualizer.config.CircuitBreakerPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CircuitBreakerTest {
+
+    private long now = TimeUnit.SECONDS.toNanos(1000);
+
+    @Test
+    void staysClosedUntilTheWindowHoldsTheMinimumCalls() {
+        CircuitBreaker breaker = breaker();
+
+        fail(breaker, 3);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.snapshot().state());
+        assertEquals(1.0, breaker.snapshot().failureRate(), 0.0);
+    }
+
+    @Test
+    void opensWhenTheFailureRateReachesTheThreshold() {
+        CircuitBreaker breaker = breaker();
+
+        succeed(breaker, 2);
+        fail(breaker, 2);
+
+        CircuitBreaker.Snapshot snapshot = breaker.snapshot();
+        assertEquals(CircuitBreaker.State.OPEN, snapshot.state());
+        assertEquals(1, snapshot.openings());
+        assertEquals(Duration.ofSeconds(30), snapshot.openFor());
+    }
+
+    @Test
+    void opensWhenTooManyCallsAreSlow() {
+        CircuitBreaker breaker = breaker();
+        succeed(breaker, 2);
+
+        for (int i = 0; i < 2; i++) {
+            CircuitBreaker.Attempt attempt = breaker.acquire();
+            advance(Duration.ofSeconds(10));
+            attempt.succeeded();
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.snapshot().state());
+        assertEquals(0.5, breaker.snapshot().slowCallRate(), 0.0);
+    }
+
+    @Test
+    void rejectsCallsWhileOpenWithTheRemainingOpenPeriod() {
+        CircuitBreaker breaker = opened();
+        advance(Duration.ofSeconds(10));
+
+        CircuitOpenException rejection = assertThrows(CircuitOpenException.class, breaker::acquire);
+
+        assertEquals(Duration.ofSeconds(20), rejection.retryAfter());
+        assertEquals(1, breaker.snapshot().rejected());
+    }
+
+    @Test
+    void admitsOnlyTheConfiguredProbesOnceTheOpenPeriodIsOver() {
+        CircuitBreaker breaker = opened();
+        advance(Duration.ofSeconds(30));
+
+        breaker.acquire();
+        breaker.acquire();
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.snapshot().state());
+        assertThrows(CircuitOpenException.class, breaker::acquire);
+    }
+
+    @Test
+    void closesWithAFreshWindowAfterHealthyProbes() {
+        CircuitBreaker breaker = opened();
+        advance(Duration.ofSeconds(30));
+
+        succeed(breaker, 2);
+
+        CircuitBreaker.Snapshot snapshot = breaker.snapshot();
+        assertEquals(CircuitBreaker.State.CLOSED, snapshot.state());
+        assertEquals(0, snapshot.bufferedCalls());
+        assertEquals(0.0, snapshot.failureRate(), 0.0);
+    }
+
+    @Test
+    void reopensWhenAProbeFails() {
+        CircuitBreaker breaker = opened();
+        advance(Duration.ofSeconds(30));
+
+        CircuitBreaker.Attempt first = breaker.acquire();
+        CircuitBreaker.Attempt second = breaker.acquire();
+        first.succeeded();
+        second.failed();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.snapshot().state());
+        assertEquals(2, breaker.snapshot().openings());
+        assertEquals(Duration.ofSeconds(30), breaker.snapshot().openFor());
+    }
+
+    @Test
+    void anIgnoredProbeHandsItsSlotToTheNextCaller() {
+        CircuitBreaker breaker = opened();
+        advance(Duration.ofSeconds(30));
+        CircuitBreaker.Attempt abandoned = breaker.acquire();
+        breaker.acquire();
+
+        abandoned.ignore();
+
+        assertDoesNotThrow(breaker::acquire);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.snapshot().state());
+    }
+
+    @Test
+    void aFailureRecordedOutsideACallReopensAHalfOpenCircuit() {
+        CircuitBreaker breaker = opened();
+        advance(Duration.ofSeconds(30));
+        breaker.acquire();
+
+        breaker.recordFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.snapshot().state());
+    }
+
+    @Test
+    void checkFailsFastWithoutTakingAProbeSlot() {
+        CircuitBreaker breaker = opened();
+        assertThrows(CircuitOpenException.class, breaker::check);
+
+        advance(Duration.ofSeconds(30));
+        breaker.check();
+        breaker.check();
+        breaker.check();
+
+        breaker.acquire();
+        assertDoesNotThrow(breaker::acquire);
+    }
+
+    @Test
+    void ignoresCallsThatCompleteAfterTheCircuitOpened() {
+        CircuitBreaker breaker = breaker();
+        CircuitBreaker.Attempt late = breaker.acquire();
+        succeed(breaker, 2);
+        fail(breaker, 2);
+        advance(Duration.ofSeconds(30));
+        breaker.acquire();
+
+        late.failed();
+        breaker.acquire();
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.snapshot().state());
+    }
+
+    @Test
+    void completesEachAttemptOnlyOnce() {
+        CircuitBreaker breaker = breaker();
+
+        CircuitBreaker.Attempt attempt = breaker.acquire();
+        attempt.failed();
+        attempt.failed();
+        attempt.failed();
+        attempt.failed();
+
+        assertEquals(1, breaker.snapshot().bufferedCalls());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.snapshot().state());
+    }
+
+    @Test
+    void aDisabledBreakerNeverOpens() {
+        CircuitBreaker breaker = new CircuitBreaker("responses", CircuitBreakerPolicy.disabled(), () -> now);
+
+        fail(breaker, 50);
+        breaker.recordFailure();
+
+        assertDoesNotThrow(breaker::check);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.snapshot().state());
+        assertEquals(0, breaker.snapshot().bufferedCalls());
+    }
+
+    private CircuitBreaker opened() {
+        CircuitBreaker breaker = breaker();
+        fail(breaker, 4);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.snapshot().state());
+        return breaker;
+    }
+
+    private static void succeed(CircuitBreaker breaker, int calls) {
+        for (int i = 0; i < calls; i++) {
+            breaker.acquire().succeeded();
+        }
+    }
+
+    private static void fail(CircuitBreaker breaker, int calls) {
+        for (int i = 0; i < calls; i++) {
+            breaker.acquire().failed();
+        }
+    }
+
+    private void advance(Duration duration) {
+        now += duration.toNanos();
+    }
+
+    private CircuitBreaker breaker() {
+        CircuitBreakerPolicy policy = CircuitBreakerPolicy.builder()
+                .windowSize(10)
+                .minimumCalls(4)
+                .failureRateThreshold(0.5)
+                .slowCallDuration(Duration.ofSeconds(5))
+                .slowCallRateThreshold(0.5)
+                .openDuration(Duration.ofSeconds(30))
+                .halfOpenCalls(2)
+                .build();
+        return new CircuitBreaker("responses", policy, () -> now);
+    }
+}
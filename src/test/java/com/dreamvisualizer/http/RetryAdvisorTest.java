@@ -0,0 +1,196 @@
+package com.dreamvisualizer.http;
+
+import com.dreamvisualizer.config.RetryPolicy;
+import com.fasterxml.jackson.core.JsonParseException;
+import okhttp3.Headers;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import org.junit.jupiter.api.Test;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryAdvisorTest {
+
+    private static final Headers NO_HINTS = Headers.of();
+
+    @Test
+    void prefersRetryAfterMsOverRetryAfter() {
+        assertEquals(Duration.ofMillis(1500), RetryAdvisor.serverWaitHint(Headers.of("retry-after-ms", "1500", "Retry-After", "30")));
+        assertEquals(Duration.ofMillis(250), RetryAdvisor.serverWaitHint(Headers.of("retry-after-ms", "250.7")));
+    }
+
+    @Test
+    void fallsBackToRetryAfterWhenRetryAfterMsIsMalformed() {
+        assertEquals(Duration.ofSeconds(30), RetryAdvisor.serverWaitHint(Headers.of("retry-after-ms", "soon", "Retry-After", "30")));
+    }
+
+    @Test
+    void readsRetryAfterAsSecondsOrHttpDate() {
+        assertEquals(Duration.ofSeconds(7), RetryAdvisor.serverWaitHint(Headers.of("Retry-After", " 7 ")));
+
+        Duration untilDate = RetryAdvisor.serverWaitHint(Headers.of("Retry-After", httpDate(Instant.now().plusSeconds(120))));
+        assertTrue(untilDate.compareTo(Duration.ofSeconds(115)) > 0 && untilDate.compareTo(Duration.ofSeconds(121)) <= 0,
+                "unexpected wait " + untilDate);
+        assertEquals(Duration.ZERO, RetryAdvisor.serverWaitHint(Headers.of("Retry-After", httpDate(Instant.now().minusSeconds(60)))));
+    }
+
+    @Test
+    void waitsForTheExhaustedRateLimitBudget() {
+        Headers requestsExhausted = Headers.of(
+                "x-ratelimit-remaining-requests", "0", "x-ratelimit-reset-requests", "1s",
+                "x-ratelimit-remaining-tokens", "5000", "x-ratelimit-reset-tokens", "6m0s");
+        Headers tokensExhausted = Headers.of(
+                "x-ratelimit-remaining-requests", "12", "x-ratelimit-reset-requests", "6m0s",
+                "x-ratelimit-remaining-tokens", "0", "x-ratelimit-reset-tokens", "20ms");
+
+        assertEquals(Duration.ofSeconds(1), RetryAdvisor.serverWaitHint(requestsExhausted));
+        assertEquals(Duration.ofMillis(20), RetryAdvisor.serverWaitHint(tokensExhausted));
+    }
+
+    @Test
+    void waitsForTheLaterResetWhenNoBudgetIsReportedExhausted() {
+        assertEquals(Duration.ofSeconds(2), RetryAdvisor.serverWaitHint(Headers.of(
+                "x-ratelimit-reset-requests", "2s", "x-ratelimit-reset-tokens", "150ms")));
+        assertEquals(Duration.ofMillis(150), RetryAdvisor.serverWaitHint(Headers.of("x-ratelimit-reset-tokens", "150ms")));
+        assertNull(RetryAdvisor.serverWaitHint(NO_HINTS));
+    }
+
+    @Test
+    void parsesGoStyleResetDurations() {
+        assertEquals(Duration.ofMillis(20), RetryAdvisor.parseResetDuration("20ms"));
+        assertEquals(Duration.ofSeconds(1), RetryAdvisor.parseResetDuration("1s"));
+        assertEquals(Duration.ofMillis(500), RetryAdvisor.parseResetDuration("0.5s"));
+        assertEquals(Duration.ofMinutes(6), RetryAdvisor.parseResetDuration("6m0s"));
+        assertEquals(Duration.ofMillis(3_723_500), RetryAdvisor.parseResetDuration("1h2m3.5s"));
+        assertNull(RetryAdvisor.parseResetDuration(""));
+        assertNull(RetryAdvisor.parseResetDuration("soon"));
+        assertNull(RetryAdvisor.parseResetDuration(null));
+    }
+
+    @Test
+    void retriesTransientStatusesOnly() {
+        for (int status : new int[]{408, 409, 429, 500, 502, 503, 504}) {
+            assertTrue(RetryAdvisor.isRetryableStatus(status, null), "status " + status);
+        }
+        for (int status : new int[]{400, 401, 403, 404, 422, 501}) {
+            assertFalse(RetryAdvisor.isRetryableStatus(status, null), "status " + status);
+        }
+    }
+
+    @Test
+    void neverRetriesAnExhaustedQuota() {
+        String body = "{\"error\":{\"type\":\"insufficient_quota\",\"code\":\"insufficient_quota\"}}";
+        RetryAdvisor advisor = new RetryAdvisor(RetryPolicy.defaults());
+
+        assertFalse(RetryAdvisor.isRetryableStatus(429, body));
+        assertNull(advisor.afterStatus(advisor.begin(post("responses"), "responses"), 429, NO_HINTS, body));
+        assertNotNull(advisor.afterStatus(advisor.begin(post("responses"), "responses"), 429, NO_HINTS,
+                "{\"error\":{\"code\":\"rate_limit_exceeded\"}}"));
+    }
+
+    @Test
+    void replaysAmbiguousFailuresOnlyForIdempotentRequests() {
+        RetryAdvisor advisor = new RetryAdvisor(RetryPolicy.defaults());
+
+        assertNull(advisor.afterStatus(advisor.begin(post("videos"), "videos"), 500, NO_HINTS, null));
+        assertNotNull(advisor.afterStatus(advisor.begin(post("responses"), "responses"), 500, NO_HINTS, null));
+        assertNotNull(advisor.afterStatus(advisor.begin(get("videos/video_123"), "videos"), 502, NO_HINTS, null));
+        assertNull(advisor.afterIOException(advisor.begin(post("videos"), "videos"), new SocketTimeoutException("timeout")));
+        assertNotNull(advisor.afterIOException(advisor.begin(post("audio/transcriptions"), "audio/transcriptions"),
+                new SocketTimeoutException("timeout")));
+    }
+
+    @Test
+    void replaysAnyPostTheServerRejectedBeforeProcessing() {
+        RetryAdvisor advisor = new RetryAdvisor(RetryPolicy.defaults());
+
+        assertNotNull(advisor.afterStatus(advisor.begin(post("videos"), "videos"), 429, NO_HINTS, null));
+        assertNotNull(advisor.afterStatus(advisor.begin(post("videos"), "videos"), 503, NO_HINTS, null));
+        assertNotNull(advisor.afterIOException(advisor.begin(post("videos"), "videos"), new ConnectException("refused")));
+        assertNotNull(advisor.afterIOException(advisor.begin(post("videos"), "videos"), new UnknownHostException("api")));
+    }
+
+    @Test
+    void followsTheConfiguredIdempotentEndpoints() {
+        RetryAdvisor advisor = new RetryAdvisor(RetryPolicy.builder()
+                .idempotentPost("videos", true)
+                .idempotentPost("responses", false)
+                .build());
+
+        assertNotNull(advisor.afterStatus(advisor.begin(post("videos"), "videos"), 500, NO_HINTS, null));
+        assertNull(advisor.afterStatus(advisor.begin(post("responses"), "responses"), 500, NO_HINTS, null));
+    }
+
+    @Test
+    void neverRetriesAMalformedResponseBody() {
+        RetryAdvisor advisor = new RetryAdvisor(RetryPolicy.defaults());
+
+        assertNull(advisor.afterIOException(advisor.begin(get("videos/video_123"), "videos"),
+                new JsonParseException(null, "Unexpected end-of-input")));
+    }
+
+    @Test
+    void honoursTheServerHintWithASmallSpread() {
+        RetryAdvisor advisor = new RetryAdvisor(RetryPolicy.defaults());
+
+        Duration delay = advisor.afterStatus(advisor.begin(post("responses"), "responses"), 429,
+                Headers.of("retry-after-ms", "2000"), null);
+
+        assertTrue(delay.toMillis() >= 2000 && delay.toMillis() <= 2200, "unexpected delay " + delay);
+    }
+
+    @Test
+    void givesUpWhenTheServerAsksForTooLongAWait() {
+        RetryAdvisor advisor = new RetryAdvisor(RetryPolicy.builder().maxServerWait(Duration.ofSeconds(10)).build());
+
+        assertNull(advisor.afterStatus(advisor.begin(post("responses"), "responses"), 429,
+                Headers.of("Retry-After", "11"), null));
+    }
+
+    @Test
+    void stopsAfterTheEndpointsMaxAttempts() {
+        RetryAdvisor advisor = new RetryAdvisor(RetryPolicy.builder().maxAttempts("responses", 2).build());
+        RetryAdvisor.RetryState state = advisor.begin(post("responses"), "responses");
+
+        assertNotNull(advisor.afterStatus(state, 500, NO_HINTS, null));
+        assertEquals(2, state.attempt());
+        assertNull(advisor.afterStatus(state, 500, NO_HINTS, null));
+    }
+
+    @Test
+    void stopsOnceThePerRequestBudgetIsSpent() {
+        RetryAdvisor advisor = new RetryAdvisor(RetryPolicy.builder()
+                .defaultMaxAttempts(10)
+                .perRequestBudget(Duration.ofSeconds(5))
+                .build());
+        RetryAdvisor.RetryState state = advisor.begin(post("responses"), "responses");
+
+        assertNotNull(advisor.afterStatus(state, 429, Headers.of("Retry-After", "3"), null));
+        assertNull(advisor.afterStatus(state, 429, Headers.of("Retry-After", "3"), null));
+    }
+
+    private static Request post(String path) {
+        return new Request.Builder().url("https://api.openai.com/v1/" + path).post(RequestBody.create(new byte[0])).build();
+    }
+
+    private static Request get(String path) {
+        return new Request.Builder().url("https://api.openai.com/v1/" + path).get().build();
+    }
+
+    private static String httpDate(Instant instant) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.ofInstant(instant, ZoneOffset.UTC));
+    }
+}
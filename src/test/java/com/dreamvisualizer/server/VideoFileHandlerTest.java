@@ -0,0 +1,121 @@
+package com.dreamvisualizer.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VideoFileHandlerTest {
+
+    private static final long LENGTH = 1000L;
+    private static final String ETAG = "\"3e8-18bcfe56800\"";
+    private static final long LAST_MODIFIED_MILLIS = 1_700_000_000_500L;
+
+    @Test
+    void parsesSingleClosedRange() {
+        List<long[]> ranges = VideoFileHandler.parseRanges("bytes=0-99", LENGTH);
+        assertEquals(1, ranges.size());
+        assertArrayEquals(new long[]{0, 99}, ranges.get(0));
+    }
+
+    @Test
+    void clampsOpenAndOverlongRangesToTheEntity() {
+        assertArrayEquals(new long[]{500, 999}, VideoFileHandler.parseRanges("bytes=500-", LENGTH).get(0));
+        assertArrayEquals(new long[]{900, 999}, VideoFileHandler.parseRanges("bytes=900-5000", LENGTH).get(0));
+    }
+
+    @Test
+    void resolvesSuffixRangesFromTheEnd() {
+        assertArrayEquals(new long[]{900, 999}, VideoFileHandler.parseRanges("bytes=-100", LENGTH).get(0));
+        assertArrayEquals(new long[]{0, 999}, VideoFileHandler.parseRanges("bytes=-5000", LENGTH).get(0));
+    }
+
+    @Test
+    void sortsAndMergesOverlappingAndAdjacentRanges() {
+        List<long[]> ranges = VideoFileHandler.parseRanges("bytes=200-299, 0-99,100-149,120-130, -50", LENGTH);
+        assertEquals(3, ranges.size());
+        assertArrayEquals(new long[]{0, 149}, ranges.get(0));
+        assertArrayEquals(new long[]{200, 299}, ranges.get(1));
+        assertArrayEquals(new long[]{950, 999}, ranges.get(2));
+    }
+
+    @Test
+    void ignoresRequestsWithTooManyRanges() {
+        StringBuilder header = new StringBuilder("bytes=");
+        for (int i = 0; i < 17; i++) {
+            header.append(i == 0 ? "" : ",").append(i * 10).append('-').append(i * 10 + 1);
+        }
+        assertNull(VideoFileHandler.parseRanges(header.toString(), LENGTH));
+    }
+
+    @Test
+    void reportsUnsatisfiableRangesAsEmpty() {
+        assertTrue(VideoFileHandler.parseRanges("bytes=1000-", LENGTH).isEmpty());
+        assertTrue(VideoFileHandler.parseRanges("bytes=-0", LENGTH).isEmpty());
+        assertTrue(VideoFileHandler.parseRanges("bytes=2000-2100,5000-", LENGTH).isEmpty());
+    }
+
+    @Test
+    void keepsSatisfiableRangesNextToUnsatisfiableOnes() {
+        List<long[]> ranges = VideoFileHandler.parseRanges("bytes=2000-2100,10-19", LENGTH);
+        assertEquals(1, ranges.size());
+        assertArrayEquals(new long[]{10, 19}, ranges.get(0));
+    }
+
+    @Test
+    void ignoresMalformedHeaders() {
+        assertNull(VideoFileHandler.parseRanges("items=0-99", LENGTH));
+        assertNull(VideoFileHandler.parseRanges("bytes=99-0", LENGTH));
+        assertNull(VideoFileHandler.parseRanges("bytes=abc-def", LENGTH));
+        assertNull(VideoFileHandler.parseRanges("bytes=100", LENGTH));
+    }
+
+    @Test
+    void matchesEntityTagsInIfNoneMatch() {
+        assertTrue(VideoFileHandler.isNotModified(ETAG, null, ETAG, LAST_MODIFIED_MILLIS));
+        assertTrue(VideoFileHandler.isNotModified("W/" + ETAG, null, ETAG, LAST_MODIFIED_MILLIS));
+        assertTrue(VideoFileHandler.isNotModified("\"other\", " + ETAG, null, ETAG, LAST_MODIFIED_MILLIS));
+        assertTrue(VideoFileHandler.isNotModified("*", null, ETAG, LAST_MODIFIED_MILLIS));
+        assertFalse(VideoFileHandler.isNotModified("\"other\"", null, ETAG, LAST_MODIFIED_MILLIS));
+    }
+
+    @Test
+    void ifNoneMatchTakesPrecedenceOverIfModifiedSince() {
+        String later = httpDate(LAST_MODIFIED_MILLIS + 60_000L);
+        assertFalse(VideoFileHandler.isNotModified("\"other\"", later, ETAG, LAST_MODIFIED_MILLIS));
+        assertTrue(VideoFileHandler.isNotModified(ETAG, httpDate(0L), ETAG, LAST_MODIFIED_MILLIS));
+    }
+
+    @Test
+    void comparesIfModifiedSinceAtSecondPrecision() {
+        assertTrue(VideoFileHandler.isNotModified(null, httpDate(LAST_MODIFIED_MILLIS), ETAG, LAST_MODIFIED_MILLIS));
+        assertTrue(VideoFileHandler.isNotModified(null, httpDate(LAST_MODIFIED_MILLIS + 60_000L), ETAG, LAST_MODIFIED_MILLIS));
+        assertFalse(VideoFileHandler.isNotModified(null, httpDate(LAST_MODIFIED_MILLIS - 60_000L), ETAG, LAST_MODIFIED_MILLIS));
+        assertFalse(VideoFileHandler.isNotModified(null, "yesterday", ETAG, LAST_MODIFIED_MILLIS));
+        assertFalse(VideoFileHandler.isNotModified(null, null, ETAG, LAST_MODIFIED_MILLIS));
+    }
+
+    @Test
+    void honoursRangeOnlyForTheCurrentEntity() {
+        assertTrue(VideoFileHandler.ifRangeMatches(null, ETAG, LAST_MODIFIED_MILLIS));
+        assertTrue(VideoFileHandler.ifRangeMatches(ETAG, ETAG, LAST_MODIFIED_MILLIS));
+        assertFalse(VideoFileHandler.ifRangeMatches("\"other\"", ETAG, LAST_MODIFIED_MILLIS));
+        assertTrue(VideoFileHandler.ifRangeMatches(httpDate(LAST_MODIFIED_MILLIS), ETAG, LAST_MODIFIED_MILLIS));
+        assertFalse(VideoFileHandler.ifRangeMatches(httpDate(LAST_MODIFIED_MILLIS + 60_000L), ETAG, LAST_MODIFIED_MILLIS));
+        assertFalse(VideoFileHandler.ifRangeMatches("not a date", ETAG, LAST_MODIFIED_MILLIS));
+    }
+
+    private static String httpDate(long epochMillis) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                ZonedDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC));
+    }
+}
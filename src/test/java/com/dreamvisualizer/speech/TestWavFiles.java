@@ -0,0 +1,91 @@
+package com.dreamvisualizer.speech;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Builds small WAV files byte by byte, so tests control every header field.
+ */
+final class TestWavFiles {
+
+    static final int FORMAT_PCM = 1;
+    static final int FORMAT_IEEE_FLOAT = 3;
+    static final int FORMAT_EXTENSIBLE = 0xFFFE;
+
+    private TestWavFiles() {
+    }
+
+    /**
+     * A canonical 16-bit mono PCM file whose frame {@code i} has amplitude {@code amplitude(i)} (-1..1).
+     */
+    static Path pcm16(Path file, int sampleRate, int frames, IntToDoubleFunction amplitude) throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(frames * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < frames; i++) {
+            data.putShort((short) Math.round(amplitude.applyAsDouble(i) * 32767));
+        }
+        return write(file, fmt(FORMAT_PCM, 1, sampleRate, 16), null, data.array(), data.capacity());
+    }
+
+    /**
+     * A 16-byte {@code fmt } body.
+     */
+    static byte[] fmt(int formatTag, int channels, int sampleRate, int bitsPerSample) {
+        int blockAlign = channels * bitsPerSample / 8;
+        return ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN)
+                .putShort((short) formatTag)
+                .putShort((short) channels)
+                .putInt(sampleRate)
+                .putInt(sampleRate * blockAlign)
+                .putShort((short) blockAlign)
+                .putShort((short) bitsPerSample)
+                .array();
+    }
+
+    /**
+     * A 40-byte {@code WAVE_FORMAT_EXTENSIBLE} body whose SubFormat GUID starts with {@code subFormat}.
+     */
+    static byte[] extensibleFmt(int subFormat, int channels, int sampleRate, int bitsPerSample) {
+        int blockAlign = channels * bitsPerSample / 8;
+        return ByteBuffer.allocate(40).order(ByteOrder.LITTLE_ENDIAN)
+                .putShort((short) FORMAT_EXTENSIBLE)
+                .putShort((short) channels)
+                .putInt(sampleRate)
+                .putInt(sampleRate * blockAlign)
+                .putShort((short) blockAlign)
+                .putShort((short) bitsPerSample)
+                .putShort((short) 22)
+                .putShort((short) bitsPerSample)
+                .putInt(channels == 1 ? 0x4 : 0x3)
+                .putShort((short) subFormat)
+                .putShort((short) 0x0000)
+                .putInt(0x00100000)
+                .putInt(0xAA000080)
+                .putInt(0x719B3800)
+                .array();
+    }
+
+    /**
+     * Writes {@code RIFF/WAVE}, the {@code fmt } chunk, an optional chunk placed before the data
+     * (padded to even length as RIFF requires) and a {@code data} chunk declaring
+     * {@code declaredDataSize} bytes.
+     */
+    static Path write(Path file, byte[] fmt, byte[] extraChunk, byte[] data, long declaredDataSize) throws IOException {
+        int extraLength = extraChunk == null ? 0 : 8 + extraChunk.length + (extraChunk.length & 1);
+        ByteBuffer wav = ByteBuffer.allocate(12 + 8 + fmt.length + extraLength + 8 + data.length)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        wav.putInt(0x46464952).putInt(wav.capacity() - 8).putInt(0x45564157);
+        wav.putInt(0x20746d66).putInt(fmt.length).put(fmt);
+        if (extraChunk != null) {
+            wav.putInt(0x5453494c).putInt(extraChunk.length).put(extraChunk); // "LIST"
+            if ((extraChunk.length & 1) == 1) {
+                wav.put((byte) 0);
+            }
+        }
+        wav.putInt(0x61746164).putInt((int) declaredDataSize).put(data);
+        return Files.write(file, wav.array());
+    }
+}
@@ -0,0 +1,119 @@
+package com.dreamvisualizer.speech;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TranscriptStitcherTest {
+
+    private static final TranscriptionChunker.Chunk FIRST = new TranscriptionChunker.Chunk(0, 0.0, 0.0, 60.0, 0, 480_000);
+    private static final TranscriptionChunker.Chunk SECOND = new TranscriptionChunker.Chunk(1, 58.5, 60.0, 120.0, 468_000, 960_000);
+
+    @Test
+    void findsTheRepeatedTailOfThePreviousChunk() {
+        assertEquals(2, TranscriptStitcher.overlappingPrefix(words("a forest of glass trees and the light"),
+                words("the light was bending")));
+    }
+
+    @Test
+    void skipsAFragmentLeftByACutMidWord() {
+        assertEquals(4, TranscriptStitcher.overlappingPrefix(words("we flew over the ocean"),
+                words("n over the ocean and landed")));
+    }
+
+    @Test
+    void comparesWordsIgnoringCaseAndPunctuation() {
+        assertEquals(2, TranscriptStitcher.overlappingPrefix(words("We reached the Gate."),
+                words("the gate, and it opened")));
+    }
+
+    @Test
+    void acceptsASingleRepeatedWordOnlyWhenItIsLong() {
+        assertEquals(0, TranscriptStitcher.overlappingPrefix(words("we drifted into the sea"), words("sea was calm")));
+        assertEquals(1, TranscriptStitcher.overlappingPrefix(words("we sailed towards the lighthouse"),
+                words("lighthouse glowing green")));
+    }
+
+    @Test
+    void findsNoOverlapBetweenUnrelatedText() {
+        assertEquals(0, TranscriptStitcher.overlappingPrefix(words("the stairs went down forever"),
+                words("then my grandmother called")));
+        assertEquals(0, TranscriptStitcher.overlappingPrefix(words("the stairs went down forever"), List.of()));
+    }
+
+    @Test
+    void dropsTextTranscribedTwiceAtTheSeam() {
+        SpeechTranscript first = transcript("I was walking through a forest of glass trees and the light");
+        SpeechTranscript second = transcript("the light was bending into colours I had never seen");
+
+        SpeechTranscript stitched = TranscriptStitcher.stitch(List.of(FIRST, SECOND), List.of(first, second));
+
+        assertEquals("I was walking through a forest of glass trees and the light was bending into colours I had never seen",
+                stitched.fullText());
+    }
+
+    @Test
+    void shiftsUtterancesOntoTheRecordingTimeline() {
+        SpeechTranscript first = transcript("I was walking through a forest of glass trees and the light",
+                new SpeechTranscript.Utterance(0.0, 30.0, "I was walking through a forest"),
+                new SpeechTranscript.Utterance(30.0, 60.0, "of glass trees and the light"));
+        SpeechTranscript second = transcript("the light was bending into colours I had never seen",
+                new SpeechTranscript.Utterance(0.0, 1.4, "the light"),
+                new SpeechTranscript.Utterance(1.4, 30.0, "was bending into colours"),
+                new SpeechTranscript.Utterance(30.0, 61.5, "I had never seen"));
+
+        List<SpeechTranscript.Utterance> utterances =
+                TranscriptStitcher.stitch(List.of(FIRST, SECOND), List.of(first, second)).utterances();
+
+        // "the light" is centred in the shared lead-in, so only the first chunk's copy is kept
+        assertEquals(4, utterances.size());
+        assertEquals(new SpeechTranscript.Utterance(30.0, 60.0, "of glass trees and the light"), utterances.get(1));
+        assertEquals(59.9, utterances.get(2).startSeconds(), 1e-9);
+        assertEquals(88.5, utterances.get(2).endSeconds(), 1e-9);
+        assertEquals("was bending into colours", utterances.get(2).text());
+        assertEquals(120.0, utterances.get(3).endSeconds(), 1e-9);
+    }
+
+    @Test
+    void coversAChunkWithoutUtterancesFromItsOwnedStart() {
+        SpeechTranscript first = transcript("the tide came in", new SpeechTranscript.Utterance(0.0, 60.0, "the tide came in"));
+        SpeechTranscript second = transcript("came in and took the house");
+
+        List<SpeechTranscript.Utterance> utterances =
+                TranscriptStitcher.stitch(List.of(FIRST, SECOND), List.of(first, second)).utterances();
+
+        assertEquals(List.of(new SpeechTranscript.Utterance(0.0, 60.0, "the tide came in"),
+                new SpeechTranscript.Utterance(60.0, 120.0, "and took the house")), utterances);
+    }
+
+    @Test
+    void keepsTheLatestGenerationTime() {
+        Instant earlier = Instant.parse("2024-05-01T10:00:00Z");
+        Instant later = Instant.parse("2024-05-01T10:00:05Z");
+
+        SpeechTranscript stitched = TranscriptStitcher.stitch(List.of(FIRST, SECOND), List.of(
+                new SpeechTranscript("one", List.of(), later),
+                new SpeechTranscript("two", List.of(), earlier)));
+
+        assertEquals(later, stitched.generatedAt());
+    }
+
+    @Test
+    void requiresOneTranscriptPerChunk() {
+        assertThrows(IllegalArgumentException.class,
+                () -> TranscriptStitcher.stitch(List.of(FIRST, SECOND), List.of(transcript("only one"))));
+    }
+
+    private static List<String> words(String text) {
+        return text.isEmpty() ? List.of() : Arrays.asList(text.split(" "));
+    }
+
+    private static SpeechTranscript transcript(String text, SpeechTranscript.Utterance... utterances) {
+        return new SpeechTranscript(text, List.of(utterances), Instant.parse("2024-05-01T10:00:00Z"));
+    }
+}
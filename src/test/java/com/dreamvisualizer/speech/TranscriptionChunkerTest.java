@@ -0,0 +1,123 @@
+package com.dreamvisualizer.speech;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.IntToDoubleFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TranscriptionChunkerTest {
+
+    private static final int SAMPLE_RATE = 8000;
+
+    private final TranscriptionChunker chunker = new TranscriptionChunker(Duration.ofSeconds(20), Duration.ofSeconds(10),
+            Duration.ofSeconds(1), Duration.ofSeconds(3), 2);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void cutsInTheQuietestWindowBeforeEachBoundary() throws IOException {
+        // 25 s of steady signal with 200 ms pauses at 8.5 s and 17.0 s
+        WavAudio audio = wav("pauses.wav", 25.0, frame -> silentAt(frame, 8.5) || silentAt(frame, 17.0) ? 0.0 : tone(frame));
+
+        List<TranscriptionChunker.Chunk> chunks = chunker.plan(audio);
+
+        assertEquals(3, chunks.size());
+        assertBetween(8.5, 8.7, chunks.get(0).endSeconds());
+        assertBetween(17.0, 17.2, chunks.get(1).endSeconds());
+        assertEquals(25.0, chunks.get(2).endSeconds(), 1e-9);
+        assertEquals(200_000, chunks.get(2).endFrame());
+    }
+
+    @Test
+    void overlapsEachChunkWithThePreviousOne() throws IOException {
+        WavAudio audio = wav("pauses.wav", 25.0, frame -> silentAt(frame, 8.5) || silentAt(frame, 17.0) ? 0.0 : tone(frame));
+
+        List<TranscriptionChunker.Chunk> chunks = chunker.plan(audio);
+
+        assertEquals(0.0, chunks.get(0).startSeconds(), 1e-9);
+        assertEquals(0.0, chunks.get(0).ownedStartSeconds(), 1e-9);
+        for (int i = 1; i < chunks.size(); i++) {
+            TranscriptionChunker.Chunk chunk = chunks.get(i);
+            assertEquals(i, chunk.index());
+            assertEquals(chunks.get(i - 1).endSeconds(), chunk.ownedStartSeconds(), 1e-9);
+            assertEquals(chunk.ownedStartSeconds() - 1.0, chunk.startSeconds(), 1e-9);
+            assertEquals(chunk.startFrame(), Math.round(chunk.startSeconds() * SAMPLE_RATE));
+        }
+    }
+
+    @Test
+    void staysCloseToTheNominalLengthWithoutPauses() throws IOException {
+        WavAudio audio = wav("steady.wav", 25.0, TranscriptionChunkerTest::tone);
+
+        List<TranscriptionChunker.Chunk> chunks = chunker.plan(audio);
+
+        assertEquals(3, chunks.size());
+        assertBetween(9.95, 10.0, chunks.get(0).endSeconds());
+        assertBetween(19.9, 20.0, chunks.get(1).endSeconds());
+    }
+
+    @Test
+    void keepsShortRecordingsWhole() throws IOException {
+        WavAudio audio = wav("short.wav", 8.0, TranscriptionChunkerTest::tone);
+
+        List<TranscriptionChunker.Chunk> chunks = chunker.plan(audio);
+
+        assertEquals(List.of(new TranscriptionChunker.Chunk(0, 0.0, 0.0, 8.0, 0, 64_000)), chunks);
+    }
+
+    @Test
+    void chunksOnlyRecordingsLongerThanTheThreshold() throws IOException {
+        Path longRecording = wav("long.wav", 25.0, TranscriptionChunkerTest::tone).path();
+        Path mediumRecording = wav("medium.wav", 12.0, TranscriptionChunkerTest::tone).path();
+
+        assertTrue(chunker.chunkable(SpeechTranscriptionRequest.builder(longRecording).build()).isPresent());
+        assertFalse(chunker.chunkable(SpeechTranscriptionRequest.builder(mediumRecording).build()).isPresent());
+    }
+
+    @Test
+    void honoursAnExplicitChunkingChoice() throws IOException {
+        Path longRecording = wav("long.wav", 25.0, TranscriptionChunkerTest::tone).path();
+        Path mediumRecording = wav("medium.wav", 12.0, TranscriptionChunkerTest::tone).path();
+        Path shortRecording = wav("short.wav", 8.0, TranscriptionChunkerTest::tone).path();
+
+        assertFalse(chunker.chunkable(SpeechTranscriptionRequest.builder(longRecording).chunked(false).build()).isPresent());
+        assertTrue(chunker.chunkable(SpeechTranscriptionRequest.builder(mediumRecording).chunked(true).build()).isPresent());
+        // Forcing still needs more than one chunk's worth of audio
+        assertFalse(chunker.chunkable(SpeechTranscriptionRequest.builder(shortRecording).chunked(true).build()).isPresent());
+    }
+
+    @Test
+    void neverChunksAudioItCannotParse() throws IOException {
+        Path mp3 = Files.write(directory.resolve("dream.mp3"), new byte[4096]);
+
+        assertFalse(chunker.chunkable(SpeechTranscriptionRequest.builder(mp3).chunked(true).build()).isPresent());
+    }
+
+    private WavAudio wav(String name, double seconds, IntToDoubleFunction amplitude) throws IOException {
+        int frames = (int) Math.round(seconds * SAMPLE_RATE);
+        return WavAudio.probe(TestWavFiles.pcm16(directory.resolve(name), SAMPLE_RATE, frames, amplitude)).orElseThrow();
+    }
+
+    private static boolean silentAt(int frame, double startSeconds) {
+        int start = (int) Math.round(startSeconds * SAMPLE_RATE);
+        return frame >= start && frame < start + SAMPLE_RATE / 5;
+    }
+
+    private static double tone(int frame) {
+        return frame % 2 == 0 ? 0.5 : -0.5;
+    }
+
+    private static void assertBetween(double low, double high, double actual) {
+        assertTrue(actual >= low && actual <= high, "expected " + actual + " within [" + low + ", " + high + "]");
+    }
+}
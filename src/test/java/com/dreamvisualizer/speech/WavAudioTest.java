@@ -0,0 +1,135 @@
+package com.dreamvisualizer.speech;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class WavAudioTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void probesCanonicalPcm() throws IOException {
+        Path file = TestWavFiles.pcm16(directory.resolve("pcm.wav"), 8000, 16000, i -> 0.5);
+
+        WavAudio audio = WavAudio.probe(file).orElseThrow();
+
+        assertEquals(8000, audio.sampleRate());
+        assertEquals(2, audio.blockAlign());
+        assertEquals(44, audio.dataOffset());
+        assertEquals(16000, audio.frameCount());
+        assertEquals(2.0, audio.durationSeconds(), 1e-9);
+    }
+
+    @Test
+    void readsTheFormatFromAnExtensibleSubFormat() throws IOException {
+        byte[] fmt = TestWavFiles.extensibleFmt(TestWavFiles.FORMAT_IEEE_FLOAT, 2, 16000, 32);
+        Path file = TestWavFiles.write(directory.resolve("extensible.wav"), fmt, null, new byte[8 * 100], 8 * 100);
+
+        WavAudio audio = WavAudio.probe(file).orElseThrow();
+
+        assertEquals(8, audio.blockAlign());
+        assertEquals(100, audio.frameCount());
+        assertEquals(12 + 8 + 40 + 8, audio.dataOffset());
+    }
+
+    @Test
+    void decodesFloatSamples() throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(4 * 8).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < 8; i++) {
+            data.putFloat(i < 4 ? 0.5f : -0.25f);
+        }
+        byte[] fmt = TestWavFiles.fmt(TestWavFiles.FORMAT_IEEE_FLOAT, 1, 8000, 32);
+        Path file = TestWavFiles.write(directory.resolve("float.wav"), fmt, null, data.array(), 32);
+
+        WavAudio audio = WavAudio.probe(file).orElseThrow();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            assertArrayEquals(new double[]{0.5, 0.25}, audio.windowEnergies(channel, 0, 8, 4), 1e-6);
+        }
+    }
+
+    @Test
+    void trustsTheFileLengthForStreamingSizes() throws IOException {
+        byte[] fmt = TestWavFiles.fmt(TestWavFiles.FORMAT_PCM, 1, 8000, 16);
+        Path zero = TestWavFiles.write(directory.resolve("zero.wav"), fmt, null, new byte[2 * 500], 0);
+        Path unknown = TestWavFiles.write(directory.resolve("unknown.wav"), fmt, null, new byte[2 * 500], 0xFFFFFFFFL);
+
+        assertEquals(500, WavAudio.probe(zero).orElseThrow().frameCount());
+        assertEquals(500, WavAudio.probe(unknown).orElseThrow().frameCount());
+    }
+
+    @Test
+    void dropsATrailingPartialFrame() throws IOException {
+        byte[] fmt = TestWavFiles.fmt(TestWavFiles.FORMAT_PCM, 2, 8000, 16);
+        Path file = TestWavFiles.write(directory.resolve("partial.wav"), fmt, null, new byte[4 * 10 + 3], 4 * 10 + 3);
+
+        assertEquals(10, WavAudio.probe(file).orElseThrow().frameCount());
+    }
+
+    @Test
+    void skipsOddSizedChunksBeforeTheData() throws IOException {
+        byte[] fmt = TestWavFiles.fmt(TestWavFiles.FORMAT_PCM, 1, 8000, 16);
+        Path file = TestWavFiles.write(directory.resolve("list.wav"), fmt, new byte[7], new byte[2 * 40], 2 * 40);
+
+        WavAudio audio = WavAudio.probe(file).orElseThrow();
+
+        assertEquals(40, audio.frameCount());
+        assertEquals(12 + 8 + 16 + 8 + 8 + 8, audio.dataOffset());
+    }
+
+    @Test
+    void rejectsUnsupportedOrInconsistentFormats() throws IOException {
+        byte[] adpcm = TestWavFiles.fmt(2, 1, 8000, 4);
+        byte[] floatSixteen = TestWavFiles.fmt(TestWavFiles.FORMAT_IEEE_FLOAT, 1, 8000, 16);
+        byte[] badAlign = TestWavFiles.fmt(TestWavFiles.FORMAT_PCM, 2, 8000, 16);
+        badAlign[12] = 3;
+
+        assertFalse(probe("adpcm.wav", adpcm).isPresent());
+        assertFalse(probe("float16.wav", floatSixteen).isPresent());
+        assertFalse(probe("align.wav", badAlign).isPresent());
+    }
+
+    @Test
+    void rejectsFilesThatAreNotWav() throws IOException {
+        Path text = Files.writeString(directory.resolve("notes.wav"), "RIFF but not really a wave file");
+        Path empty = Files.write(directory.resolve("empty.wav"), new byte[0]);
+
+        assertFalse(WavAudio.probe(text).isPresent());
+        assertFalse(WavAudio.probe(empty).isPresent());
+        assertFalse(WavAudio.probe(directory.resolve("missing.wav")).isPresent());
+    }
+
+    @Test
+    void writesSegmentsThatProbeAsTheSameFormat() throws IOException {
+        Path file = TestWavFiles.pcm16(directory.resolve("source.wav"), 8000, 1000, i -> i < 500 ? 0.0 : 0.5);
+        WavAudio audio = WavAudio.probe(file).orElseThrow();
+        Path segment = directory.resolve("segment.wav");
+
+        audio.writeSegment(400, 600, segment);
+
+        WavAudio written = WavAudio.probe(segment).orElseThrow();
+        assertEquals(200, written.frameCount());
+        assertEquals(8000, written.sampleRate());
+        assertEquals(44 + 400, Files.size(segment));
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            assertArrayEquals(new double[]{0.0, 0.5}, written.windowEnergies(channel, 0, 200, 100), 1e-4);
+        }
+    }
+
+    private Optional<WavAudio> probe(String name, byte[] fmt) throws IOException {
+        return WavAudio.probe(TestWavFiles.write(directory.resolve(name), fmt, null, new byte[64], 64));
+    }
+}
@@ -5,6 +5,28 @@ import { join } from 'path';
 const BACKEND_URL = process.env.BACKEND_URL || 'http://localhost:8080';
 const RECORDS_DIR = 'dream-records';
 const LOCAL_AUDIO_FILENAME = 'dream-latest.webm';
+const JOB_POLL_INTERVAL_MS = 2000;
+const JOB_POLL_DEADLINE_MS = 10 * 60 * 1000;
+
+async function waitForDreamJob(statusPath: string) {
+  const deadline = Date.now() + JOB_POLL_DEADLINE_MS;
+  while (Date.now() < deadline) {
+    const statusResponse = await fetch(new URL(statusPath, BACKEND_URL), { cache: 'no-store' });
+    if (!statusResponse.ok) {
+      const errorData = await statusResponse.json().catch(() => ({}));
+      throw new Error(errorData.error || errorData.details || 'Backend job lookup failed');
+    }
+    const job = await statusResponse.json();
+    if (job.stage === 'completed') {
+      return job;
+    }
+    if (job.stage === 'failed') {
+      throw new Error(job.details || job.error || 'Dream pipeline failed');
+    }
+    await new Promise((resolve) => setTimeout(resolve, JOB_POLL_INTERVAL_MS));
+  }
+  throw new Error('Timed out waiting for the dream pipeline to finish');
+}
 
 export async function POST(request: NextRequest) {
   try {
@@ -76,7 +98,9 @@ export async function POST(request: NextRequest) {
       throw new Error(errorData.error || errorData.details || 'Backend request failed');
     }
 
-    const data = await response.json();
+    // The backend accepts the dream as an asynchronous job; poll until it finishes
+    const accepted = await response.json();
+    const data = await waitForDreamJob(accepted.status_url || `/dreams/${accepted.job_id}`);
 
     // Save transcript and prompt to JSON file
     try {